@@ -1,101 +1,222 @@
 package com.openize.drako;
-import com.openize.drako.AsposeUtils;
-import com.openize.drako.BoolSpan;
-import com.openize.drako.HashBuilder;
 import com.openize.drako.IntSpan;
-import com.openize.drako.Struct;
-import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 class MeshPredictionSchemeConstrainedMultiParallelogram extends MeshPredictionScheme
 {    
-    static final class PredictionConfiguration implements Struct<PredictionConfiguration>, Serializable
+    /**
+     *  Candidate predictions of a block of consecutive data entries. Entry |i| of the block
+     *  is the data entry |top| - |i|, the candidates only read the original values so the
+     *  entries of a block can be evaluated in any order and on any thread.
+     *  Candidate 0 of an entry is the delta from the previous entry, the others follow
+     *  CONFIGURATIONS of the entry's number of parallelograms.
+     *
+     */
+    private static final class SearchBlock
     {
-        public Error error = new Error();
-        public byte configuration;
-        public int num_used_parallelograms;
-        public int[] predicted_value;
-        public int[] residuals;
-        public PredictionConfiguration()
-        {
-        }
-        
-        private PredictionConfiguration(PredictionConfiguration other)
+        private final int[] values;
+        private final int num_components;
+        private final FlatCornerTable table;
+        private final int[] vertex_to_data_map;
+        private final int[] data_to_corner_map;
+        final int[] num_parallelograms;
+        /**
+         *  Prediction minus the actual value for every component of every candidate.
+         *
+         */
+        final int[] residuals;
+        /**
+         *  Sum of the absolute residuals of every candidate.
+         *
+         */
+        final long[] residual_errors;
+        private int top;
+        SearchBlock(int[] values, int num_components, FlatCornerTable table, int[] vertex_to_data_map, int[] data_to_corner_map, int block_size)
         {
-            this.error = Struct.byVal(other.error);
-            this.configuration = other.configuration;
-            this.num_used_parallelograms = other.num_used_parallelograms;
-            this.predicted_value = other.predicted_value;
-            this.residuals = other.residuals;
+            this.values = values;
+            this.num_components = num_components;
+            this.table = table;
+            this.vertex_to_data_map = vertex_to_data_map;
+            this.data_to_corner_map = data_to_corner_map;
+            this.num_parallelograms = new int[block_size];
+            this.residuals = new int[block_size * MAX_NUM_CANDIDATES * num_components];
+            this.residual_errors = new long[block_size * MAX_NUM_CANDIDATES];
         }
         
-        @Override
-        public PredictionConfiguration clone()
+        /**
+         *  Evaluates the candidates of the |count| entries below and including |top|,
+         *  split into |threads| tasks of the fork-join pool the caller runs in, or the common pool.
+         *
+         */
+        void search(int top, int count, int threads)
         {
-            return new PredictionConfiguration(this);
+            this.top = top;
+            if (threads <= 1)
+            {
+                this.search(0, count);
+                return;
+            }
+            
+            SearchTask[] tasks = new SearchTask[threads];
+            int step = (count + threads - 1) / threads;
+            for (int i = 0; i < threads; i++)
+            {
+                tasks[i] = new SearchTask(this, Math.min(count, step * i), Math.min(count, step * (i + 1)));
+            }
+            
+            ForkJoinTask.invokeAll(tasks);
         }
         
-        @Override
-        public void copyFrom(PredictionConfiguration src)
+        private void search(int start, int end)
         {
-            if (src == null)
-                return;
-            this.error = Struct.byVal(src.error);
-            this.configuration = src.configuration;
-            this.num_used_parallelograms = src.num_used_parallelograms;
-            this.predicted_value = src.predicted_value;
-            this.residuals = src.residuals;
+            int nc = num_components;
+            int[] pred_vals = new int[K_MAX_NUM_PARALLELOGRAMS * nc];
+            for (int i = start; i < end; i++)
+            {
+                int p = top - i;
+                int start_corner_id = data_to_corner_map[p];
+                int corner_id = start_corner_id;
+                int n = 0;
+                boolean first_pass = true;
+                while (corner_id != CornerTable.K_INVALID_CORNER_INDEX)
+                {
+                    if (MeshPredictionSchemeParallelogram.computeParallelogramPrediction(p, corner_id, table, vertex_to_data_map, values, nc, pred_vals, n * nc))
+                    {
+                        ++n;
+                        if (n == K_MAX_NUM_PARALLELOGRAMS)
+                            break;
+                    }
+                    
+                    
+                    // Proceed to the next corner attached to the vertex. First swing left
+                    // and if we reach a boundary, swing right from the start corner.
+                    if (first_pass)
+                    {
+                        corner_id = table.swingLeft(corner_id);
+                    }
+                    else
+                    {
+                        corner_id = table.swingRight(corner_id);
+                    }
+                    
+                    if (corner_id == start_corner_id)
+                        break;
+                    if (corner_id == CornerTable.K_INVALID_CORNER_INDEX && first_pass)
+                    {
+                        first_pass = false;
+                        corner_id = table.swingRight(start_corner_id);
+                    }
+                    
+                }
+                
+                num_parallelograms[i] = n;
+                int dst_offset = p * nc;
+                int src_offset = (p - 1) * nc;
+                int candidate = i * MAX_NUM_CANDIDATES;
+                int out = candidate * nc;
+                long error = 0;
+                for (int c = 0; c < nc; ++c)
+                {
+                    int dif = values[src_offset + c] - values[dst_offset + c];
+                    error += Math.abs(dif);
+                    residuals[out + c] = dif;
+                }
+                
+                residual_errors[candidate] = error;
+                for (int k = 1; k <= n; ++k)
+                {
+                    for (int configuration : CONFIGURATIONS[n][k])
+                    {
+                        out = ++candidate * nc;
+                        error = 0;
+                        for (int c = 0; c < nc; ++c)
+                        {
+                            int sum = 0;
+                            for (int j = 0; j < n; ++j)
+                            {
+                                if ((configuration & (1 << j)) != 0)
+                                {
+                                    sum += pred_vals[j * nc + c];
+                                }
+                                
+                            }
+                            
+                            int dif = sum / k - values[dst_offset + c];
+                            error += Math.abs(dif);
+                            residuals[out + c] = dif;
+                        }
+                        
+                        residual_errors[candidate] = error;
+                    }
+                    
+                }
+                
+            }
+            
         }
         
-        static final long serialVersionUID = -988565132L;
-        @Override
-        public int hashCode()
+    }
+    
+    private static final class SearchTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        private final SearchBlock block;
+        private final int start;
+        private final int end;
+        SearchTask(SearchBlock block, int start, int end)
         {
-            HashBuilder builder = new HashBuilder();
-            builder.hash(this.error);
-            builder.hash(this.configuration);
-            builder.hash(this.num_used_parallelograms);
-            builder.hash(this.predicted_value);
-            builder.hash(this.residuals);
-            return builder.hashCode();
+            this.block = block;
+            this.start = start;
+            this.end = end;
         }
         
         @Override
-        public boolean equals(Object obj)
+        protected void compute()
         {
-            if (!(obj instanceof PredictionConfiguration))
-                return false;
-            PredictionConfiguration rhs = (PredictionConfiguration)obj;
-            if (!AsposeUtils.equals(this.error, rhs.error))
-                return false;
-            if (this.configuration != rhs.configuration)
-                return false;
-            if (this.num_used_parallelograms != rhs.num_used_parallelograms)
-                return false;
-            if (!AsposeUtils.equals(this.predicted_value, rhs.predicted_value))
-                return false;
-            if (!AsposeUtils.equals(this.residuals, rhs.residuals))
-                return false;
-            return true;
+            block.search(start, end);
         }
         
     }
     
     static final int OPTIMAL_MULTI_PARALLELOGRAM = 0;
     static final int K_MAX_NUM_PARALLELOGRAMS = 4;
+    /**
+     *  Number of data entries whose candidates are evaluated before the best ones are selected.
+     *
+     */
+    static final int SEARCH_BLOCK_SIZE = 1 << 13;
+    /**
+     *  Minimum number of data entries before the search is split across threads.
+     *
+     */
+    static final int MIN_PARALLEL_ENTRIES = 1 << 14;
+    private static final int MAX_NUM_CANDIDATES = 1 << K_MAX_NUM_PARALLELOGRAMS;
+    /**
+     *  Parallelogram configurations of a vertex with n parallelograms that use k of them,
+     *  in the order they are evaluated. Bit j is set when parallelogram j is used.
+     *
+     */
+    private static final int[][][] CONFIGURATIONS = MeshPredictionSchemeConstrainedMultiParallelogram.buildConfigurations();
     // Crease edges are used to store whether any given edge should be used for
     // parallelogram prediction or not. New values are added in the order in which
     // the edges are processed. For better compression, the flags are stored in
     // in separate contexts based on the number of available parallelograms at a
     // given vertex.
+    // The flags of each context are packed in a bit set, |num_crease_edges_| holds
+    // their count.
     // 
-    ArrayList<Boolean>[] is_crease_edge_;
+    BitSet[] is_crease_edge_;
+    int[] num_crease_edges_;
     public MeshPredictionSchemeConstrainedMultiParallelogram(PointAttribute attribute, PredictionSchemeTransform transform, MeshPredictionSchemeData meshData)
     {
         super(attribute, transform, meshData);
         this.$initFields$();
         for (int i = 0; i < K_MAX_NUM_PARALLELOGRAMS; ++i)
         {
-            is_crease_edge_[i] = new ArrayList<Boolean>();
+            is_crease_edge_[i] = new BitSet();
         }
         
     }
@@ -111,201 +232,140 @@ class MeshPredictionSchemeConstrainedMultiParallelogram extends MeshPredictionSc
     public void computeCorrectionValues(IntSpan in_data, IntSpan out_corr, int size, int num_components, int[] entry_to_point_id_map)
     {
         this.transform_.initializeEncoding(in_data, num_components);
-        ICornerTable table = this.meshData.getCornerTable();
-        int[] vertex_to_data_map = this.meshData.vertexToDataMap;
-        int[][] pred_vals = new int[K_MAX_NUM_PARALLELOGRAMS][];
-        for (int i = 0; i < K_MAX_NUM_PARALLELOGRAMS; ++i)
-        {
-            pred_vals[i] = new int[num_components];
-        }
-        
-        IntSpan multi_pred_vals = IntSpan.wrap(new int[num_components]);
+        if (size == 0)
+            return;
+        DracoAllocator allocator = DracoAllocator.getDefault();
+        int[] values = allocator.allocateInts(size);
+        in_data.get(0, values, 0, size);
+        IntSpan value_span = IntSpan.wrap(values);
+        int[] pred_vals = new int[num_components];
+        IntSpan pred_span = IntSpan.wrap(pred_vals);
         this.entropy_symbols_ = new int[num_components];
-        BoolSpan exluded_parallelograms = BoolSpan.wrap(new boolean[K_MAX_NUM_PARALLELOGRAMS]);
         long[] total_used_parallelograms = new long[K_MAX_NUM_PARALLELOGRAMS];
         long[] total_parallelograms = new long[K_MAX_NUM_PARALLELOGRAMS];
-        IntSpan current_residuals = IntSpan.wrap(new int[num_components]);
+        
+        // The candidates of a block are evaluated up front, possibly in parallel, the
+        // selection stays sequential because every choice updates the entropy tracker
+        // that rates the following entries.
+        int num_entries = this.meshData.dataToCornerMap.getCount();
+        ForkJoinPool pool = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+        int threads = num_entries >= MIN_PARALLEL_ENTRIES ? pool.getParallelism() : 1;
+        FlatCornerTable table = FlatCornerTable.wrap(this.meshData.getCornerTable());
+        SearchBlock block = new SearchBlock(values, num_components, table, this.meshData.vertexToDataMap, this.meshData.dataToCornerMap.data, Math.min(SEARCH_BLOCK_SIZE, num_entries));
+        int[] residuals = block.residuals;
+        long[] residual_errors = block.residual_errors;
         
         // We start processing the vertices from the end because this prediction uses
         // data from previous entries that could be overwritten when an entry is
         // processed.
-        for (int p = this.meshData.dataToCornerMap.getCount() - 1; p > 0; --p)
+        for (int top = num_entries - 1; top > 0; top -= SEARCH_BLOCK_SIZE)
         {
-            int start_corner_id = this.meshData.dataToCornerMap.get(p);
-            int corner_id = start_corner_id;
-            int num_parallelograms = 0;
-            boolean first_pass = true;
-            while (corner_id != CornerTable.K_INVALID_CORNER_INDEX)
+            int count = Math.min(SEARCH_BLOCK_SIZE, top);
+            block.search(top, count, threads);
+            for (int i = 0; i < count; ++i)
             {
-                if (MeshPredictionSchemeParallelogram.computeParallelogramPrediction(p, corner_id, table, vertex_to_data_map, in_data, num_components, IntSpan.wrap(pred_vals[num_parallelograms])))
+                int num_parallelograms = block.num_parallelograms[i];
+                int base = i * MAX_NUM_CANDIDATES;
+                long best_bits = this.peekNumberOfBits(residuals, base * num_components, num_components);
+                long best_error = residual_errors[base];
+                int best_candidate = base;
+                int best_configuration = 0;
+                int best_num_used = 0;
+                if (num_parallelograms > 0)
                 {
-                    // Parallelogram prediction applied and stored in
-                    // |pred_vals[num_parallelograms]|
-                    ++num_parallelograms;
-                    // Stop processing when we reach the maximum number of allowed
-                    // parallelograms.
-                    if (num_parallelograms == K_MAX_NUM_PARALLELOGRAMS)
-                        break;
+                    int context = num_parallelograms - 1;
+                    total_parallelograms[context] += num_parallelograms;
+                    best_bits += this.computeOverheadBits(total_used_parallelograms[context], total_parallelograms[context]);
+                    
+                    // No candidate can take fewer bits than all its symbols being the most
+                    // frequent one, so the entropy is only peeked for candidates that can win.
+                    long min_bits = entropy_tracker_.minNumberOfBits(num_components);
+                    int candidate = base;
+                    for (int num_used_parallelograms = 1; num_used_parallelograms <= num_parallelograms; ++num_used_parallelograms)
+                    {
+                        long overhead_bits = this.computeOverheadBits(total_used_parallelograms[context] + num_used_parallelograms, total_parallelograms[context]);
+                        long bound = min_bits + overhead_bits;
+                        for (int configuration : CONFIGURATIONS[num_parallelograms][num_used_parallelograms])
+                        {
+                            ++candidate;
+                            long error = residual_errors[candidate];
+                            if (bound > best_bits || (bound == best_bits && error >= best_error))
+                                continue;
+                            long bits = this.peekNumberOfBits(residuals, candidate * num_components, num_components) + overhead_bits;
+                            if (bits < best_bits || (bits == best_bits && error < best_error))
+                            {
+                                best_bits = bits;
+                                best_error = error;
+                                best_candidate = candidate;
+                                best_configuration = configuration;
+                                best_num_used = num_used_parallelograms;
+                            }
+                            
+                        }
+                        
+                    }
+                    
+                    total_used_parallelograms[context] += best_num_used;
                 }
                 
                 
-                // Proceed to the next corner attached to the vertex. First swing left
-                // and if we reach a boundary, swing right from the start corner.
-                if (first_pass)
-                {
-                    corner_id = table.swingLeft(corner_id);
-                }
-                else
+                // Update the entropy stream by adding selected residuals as symbols to the
+                // stream.
+                int offset = best_candidate * num_components;
+                for (int c = 0; c < num_components; ++c)
                 {
-                    corner_id = table.swingRight(corner_id);
+                    entropy_symbols_[c] = this.convertSignedIntToSymbol(residuals[offset + c]);
                 }
                 
-                if (corner_id == start_corner_id)
-                    break;
-                if (corner_id == CornerTable.K_INVALID_CORNER_INDEX && first_pass)
-                {
-                    first_pass = false;
-                    corner_id = table.swingRight(start_corner_id);
-                }
+                entropy_tracker_.push(entropy_symbols_, num_components);
                 
-            }
-            
-            int dst_offset = p * num_components;
-            Error error = new Error();
-            PredictionConfiguration best_prediction = new PredictionConfiguration();
-            int src_offset = (p - 1) * num_components;
-            error.copyFrom(this.computeError(in_data.slice(src_offset), in_data.slice(dst_offset), current_residuals, num_components));
-            
-            if (num_parallelograms > 0)
-            {
-                total_parallelograms[num_parallelograms - 1] += num_parallelograms;
-                long new_overhead_bits = this.computeOverheadBits(total_used_parallelograms[num_parallelograms - 1], total_parallelograms[num_parallelograms - 1]);
-                error.num_bits += new_overhead_bits;
-            }
-            
-            
-            best_prediction.error.copyFrom(error);
-            best_prediction.configuration = 0;
-            best_prediction.num_used_parallelograms = 0;
-            best_prediction.predicted_value = new int[num_components];
-            System.arraycopy(in_data.toArray(), src_offset, best_prediction.predicted_value, 0, num_components);
-            best_prediction.residuals = new int[num_components];
-            System.arraycopy(current_residuals.toArray(), 0, best_prediction.residuals, 0, num_components);
-            
-            // Compute prediction error for different cases of used parallelograms.
-            for (int num_used_parallelograms = 1; num_used_parallelograms <= num_parallelograms; ++num_used_parallelograms)
-            {
-                // Mark all parallelograms as excluded.
                 for (int j = 0; j < num_parallelograms; ++j)
                 {
-                    exluded_parallelograms.put(j, true);
+                    // Unused parallelograms are marked as creases.
+                    this.addCreaseEdge(num_parallelograms - 1, (best_configuration & (1 << j)) == 0);
                 }
                 
-                // Mark the first |num_used_parallelograms| as not excluded.
-                for (int j = 0; j < num_used_parallelograms; ++j)
-                {
-                    exluded_parallelograms.put(j, false);
-                }
-                
-                // Permute over the excluded edges and compute error for each
-                // configuration (permutation of excluded parallelograms).
-                do
-                {
-                    // Reset the multi-parallelogram predicted values.
-                    for (int j = 0; j < num_components; ++j)
-                    {
-                        multi_pred_vals.put(j, 0);
-                    }
-                    
-                    int configuration = 0;
-                    for (int j = 0; j < num_parallelograms; ++j)
-                    {
-                        if (exluded_parallelograms.get(j))
-                            continue;
-                        for (int c = 0; c < num_components; ++c)
-                        {
-                            multi_pred_vals.put(c, multi_pred_vals.get(c) + pred_vals[j][c]);
-                        }
-                        
-                        // Set jth bit of the configuration.
-                        configuration |= 1 << j;
-                    }
-                    
-                    
-                    for (int j = 0; j < num_components; ++j)
-                    {
-                        multi_pred_vals.put(j, multi_pred_vals.get(j) / num_used_parallelograms);
-                    }
-                    
-                    error.copyFrom(this.computeError(multi_pred_vals, in_data.slice(dst_offset), current_residuals, num_components));
-                    if (num_parallelograms > 0)
-                    {
-                        long new_overhead_bits = this.computeOverheadBits(total_used_parallelograms[num_parallelograms - 1] + num_used_parallelograms, total_parallelograms[num_parallelograms - 1]);
-                        
-                        // Add overhead bits to the total error.
-                        error.num_bits += new_overhead_bits;
-                    }
-                    
-                    if (Error.op_lt(error, best_prediction.error))
-                    {
-                        best_prediction.error.copyFrom(error);
-                        best_prediction.configuration = (byte)configuration;
-                        best_prediction.num_used_parallelograms = num_used_parallelograms;
-                        best_prediction.predicted_value = new int[num_components];
-                        for (int j = 0; j < num_components; ++j)
-                        {
-                            best_prediction.predicted_value[j] = multi_pred_vals.get(j);
-                        }
-                        
-                        best_prediction.residuals = new int[num_components];
-                        System.arraycopy(current_residuals.toArray(), 0, best_prediction.residuals, 0, num_components);
-                    }
-                    
-                } while (this.nextPermutation(exluded_parallelograms, num_parallelograms));
-                
-            }
-            
-            if (num_parallelograms > 0)
-            {
-                total_used_parallelograms[num_parallelograms - 1] += best_prediction.num_used_parallelograms;
-            }
-            
-            
-            // Update the entropy stream by adding selected residuals as symbols to the
-            // stream.
-            for (int i = 0; i < num_components; ++i)
-            {
-                entropy_symbols_[i] = this.convertSignedIntToSymbol(best_prediction.residuals[i]);
-            }
-            
-            entropy_tracker_.push(entropy_symbols_, num_components);
-            
-            for (int i = 0; i < num_parallelograms; ++i)
-            {
-                if ((0xff & best_prediction.configuration & (1 << i)) == 0)
-                {
-                    // Parallelogram not used, mark the edge as crease.
-                    is_crease_edge_[num_parallelograms - 1].add(true);
-                }
-                else
+                int dst_offset = (top - i) * num_components;
+                for (int c = 0; c < num_components; ++c)
                 {
-                    // Parallelogram used. Add it to the predicted value and mark the
-                    // edge as not a crease.
-                    is_crease_edge_[num_parallelograms - 1].add(false);
+                    pred_vals[c] = values[dst_offset + c] + residuals[offset + c];
                 }
                 
+                this.transform_.computeCorrection(value_span, dst_offset, pred_span, 0, out_corr, dst_offset, 0);
             }
             
-            this.transform_.computeCorrection(in_data.slice(dst_offset), IntSpan.wrap(best_prediction.predicted_value), out_corr.slice(dst_offset), 0);
         }
         
         // First element is always fixed because it cannot be predicted.
         for (int i = 0; i < num_components; ++i)
         {
-            pred_vals[0][i] = 0;
+            pred_vals[i] = 0;
         }
         
-        this.transform_.computeCorrection(in_data, 0, IntSpan.wrap(pred_vals[0]), 0, out_corr, 0, 0);
+        this.transform_.computeCorrection(value_span, 0, pred_span, 0, out_corr, 0, 0);
+        allocator.release(values);
+    }
+    
+    /**
+     *  Returns the number of bits the entropy stream would take with the residuals at
+     *  |offset| added.
+     *
+     */
+    private long peekNumberOfBits(int[] residuals, int offset, int num_components)
+    {
+        for (int c = 0; c < num_components; ++c)
+        {
+            // Entropy needs unsigned symbols, so convert the signed difference to an
+            // unsigned symbol.
+            entropy_symbols_[c] = this.convertSignedIntToSymbol(residuals[offset + c]);
+        }
+        
+        return entropy_tracker_.peekNumberOfBits(entropy_symbols_, num_components);
+    }
+    
+    private void addCreaseEdge(int context, boolean is_crease)
+    {
+        is_crease_edge_[context].set(num_crease_edges_[context]++, is_crease);
     }
     
     /**
@@ -339,30 +399,6 @@ class MeshPredictionSchemeConstrainedMultiParallelogram extends MeshPredictionSc
         return -(true_freq * (Math.log(true_freq) / Math.log(2)) + (false_freq * (Math.log(false_freq) / Math.log(2))));
     }
     
-    // Computes error for predicting |predicted_val| instead of |actual_val|.
-    // Error is computed as the number of bits needed to encode the difference
-    // between the values.
-    // 
-    Error computeError(IntSpan predicted_val, IntSpan actual_val, IntSpan out_residuals, int num_components)
-    {
-        Error error = new Error();
-        
-        for (int i = 0; i < num_components; ++i)
-        {
-            int dif = predicted_val.get(i) - actual_val.get(i);
-            error.residual_error += Math.abs(dif);
-            out_residuals.put(i, dif);
-            // Entropy needs unsigned symbols, so convert the signed difference to an
-            // unsigned symbol.
-            entropy_symbols_[i] = this.convertSignedIntToSymbol(dif);
-        }
-        
-        ShannonEntropyTracker.EntropyData entropy_data = entropy_tracker_.peek(entropy_symbols_, num_components);
-        
-        error.num_bits = entropy_tracker_.getNumberOfDataBits(entropy_data) + entropy_tracker_.getNumberOfRAnsTableBits(entropy_data);
-        return error;
-    }
-    
     /**
      *  Helper function that converts a single signed integer value into an unsigned
      *  integer symbol that can be encoded using an entropy encoder.
@@ -381,15 +417,54 @@ class MeshPredictionSchemeConstrainedMultiParallelogram extends MeshPredictionSc
         return ret;
     }
     
+    private static int[][][] buildConfigurations()
+    {
+        int[][][] ret = new int[K_MAX_NUM_PARALLELOGRAMS + 1][][];
+        boolean[] excluded = new boolean[K_MAX_NUM_PARALLELOGRAMS];
+        int[] configurations = new int[MAX_NUM_CANDIDATES];
+        for (int n = 1; n <= K_MAX_NUM_PARALLELOGRAMS; ++n)
+        {
+            ret[n] = new int[n + 1][];
+            for (int k = 1; k <= n; ++k)
+            {
+                // The first |k| parallelograms are used, the excluded ones are permuted.
+                for (int j = 0; j < n; ++j)
+                {
+                    excluded[j] = j >= k;
+                }
+                
+                int count = 0;
+                do
+                {
+                    int configuration = 0;
+                    for (int j = 0; j < n; ++j)
+                    {
+                        if (!excluded[j])
+                        {
+                            configuration |= 1 << j;
+                        }
+                        
+                    }
+                    
+                    configurations[count++] = configuration;
+                } while (MeshPredictionSchemeConstrainedMultiParallelogram.nextPermutation(excluded, n));
+                ret[n][k] = Arrays.copyOf(configurations, count);
+            }
+            
+        }
+        
+        return ret;
+    }
+    
     /**
      *  Generates the next permutation of the boolean array in lexicographic order.
      *  Returns true if a next permutation exists, false otherwise.
      *
      */
-    private boolean nextPermutation(BoolSpan array, int length)
+    private static boolean nextPermutation(boolean[] array, int length)
     {
         int i = length - 2;
-        while (i >= 0 && (!array.get(i) || array.get(i + 1)))
+        while (i >= 0 && (!array[i] || array[i + 1]))
         {
             i--;
         }
@@ -398,21 +473,21 @@ class MeshPredictionSchemeConstrainedMultiParallelogram extends MeshPredictionSc
         if (i < 0)
             return false;
         int j = length - 1;
-        while (!array.get(j) || array.get(i))
+        while (!array[j] || array[i])
         {
             j--;
         }
         
-        boolean temp = array.get(i);
-        array.put(i, array.get(j));
-        array.put(j, temp);
+        boolean temp = array[i];
+        array[i] = array[j];
+        array[j] = temp;
         int left = i + 1;
         int right = length - 1;
         while (left < right)
         {
-            temp = array.get(left);
-            array.put(left, array.get(right));
-            array.put(right, temp);
+            temp = array[left];
+            array[left] = array[right];
+            array[right] = temp;
             left++;
             right--;
         }
@@ -421,6 +496,37 @@ class MeshPredictionSchemeConstrainedMultiParallelogram extends MeshPredictionSc
         return true;
     }
     
+    @Override
+    public void encodePredictionData(EncoderBuffer buffer)
+    {
+        // Encode selected edges using separate rans bit coder for each context. The
+        // flags were collected from the last vertex while the decoder reads them from
+        // the first one, so the groups of flags of each vertex are written in reverse.
+        for (int i = 0; i < K_MAX_NUM_PARALLELOGRAMS; ++i)
+        {
+            int num_flags = num_crease_edges_[i];
+            Encoding.encodeVarint(num_flags, buffer);
+            if (num_flags > 0)
+            {
+                RAnsBitEncoder encoder = new RAnsBitEncoder();
+                encoder.startEncoding();
+                for (int j = num_flags - (i + 1); j >= 0; j -= i + 1)
+                {
+                    for (int k = 0; k <= i; ++k)
+                    {
+                        encoder.encodeBit(is_crease_edge_[i].get(j + k));
+                    }
+                    
+                }
+                
+                encoder.endEncoding(buffer);
+            }
+            
+        }
+        
+        super.encodePredictionData(buffer);
+    }
+    
     @Override
     public void decodePredictionData(DecoderBuffer buffer)
         throws DrakoException
@@ -441,14 +547,19 @@ class MeshPredictionSchemeConstrainedMultiParallelogram extends MeshPredictionSc
             int num_flags = Decoding.decodeVarintU32(buffer);
             if ((0xffffffffl & num_flags) > this.meshData.getCornerTable().getNumCorners())
                 throw DracoUtils.failed();
+            is_crease_edge_[i] = new BitSet(num_flags);
+            num_crease_edges_[i] = num_flags;
             if ((0xffffffffl & num_flags) > 0)
             {
-                is_crease_edge_[i] = new ArrayList<Boolean>(num_flags);
                 RAnsBitDecoder decoder = new RAnsBitDecoder();
                 decoder.startDecoding(buffer);
-                for (int j = 0; j < (0xffffffffl & num_flags); ++j)
+                for (int j = 0; j < num_flags; ++j)
                 {
-                    is_crease_edge_[i].add(decoder.decodeNextBit());
+                    if (decoder.decodeNextBit())
+                    {
+                        is_crease_edge_[i].set(j);
+                    }
+                    
                 }
                 
                 decoder.endDecoding();
@@ -464,30 +575,36 @@ class MeshPredictionSchemeConstrainedMultiParallelogram extends MeshPredictionSc
         throws DrakoException
     {
         this.transform_.initializeDecoding(num_components);
-        int[][] pred_vals = new int[K_MAX_NUM_PARALLELOGRAMS][];
-        for (int i = 0; i < K_MAX_NUM_PARALLELOGRAMS; ++i)
-        {
-            pred_vals[i] = new int[num_components];
-        }
+        if (size == 0)
+            return;
+        // The values are restored in a plain array that is copied to |out_data| at the end,
+        // the predictions of all parallelograms of a vertex share one flat buffer.
+        DracoAllocator allocator = DracoAllocator.getDefault();
+        int[] values = allocator.allocateInts(size);
+        in_corr.get(0, values, 0, size);
+        IntSpan value_span = IntSpan.wrap(values);
+        int[] pred_vals = new int[K_MAX_NUM_PARALLELOGRAMS * num_components];
+        int[] multi_pred_vals = new int[num_components];
+        IntSpan multi_pred_span = IntSpan.wrap(multi_pred_vals);
         
-        this.transform_.computeOriginalValue(IntSpan.wrap(pred_vals[0]), in_corr, out_data);
-        ICornerTable table = this.meshData.getCornerTable();
+        this.transform_.computeOriginalValue(multi_pred_span, value_span, value_span);
+        FlatCornerTable table = FlatCornerTable.wrap(this.meshData.getCornerTable());
         int[] vertex_to_data_map = this.meshData.vertexToDataMap;
+        int[] data_to_corner_map = this.meshData.dataToCornerMap.data;
         int[] is_crease_edge_pos = new int[K_MAX_NUM_PARALLELOGRAMS];
-        int[] multi_pred_vals = new int[num_components];
         int corner_map_size = this.meshData.dataToCornerMap.getCount();
         for (int p = 1; p < corner_map_size; ++p)
         {
-            int start_corner_id = this.meshData.dataToCornerMap.get(p);
+            int start_corner_id = data_to_corner_map[p];
             int corner_id = start_corner_id;
             int num_parallelograms = 0;
             boolean first_pass = true;
             while (corner_id != CornerTable.K_INVALID_CORNER_INDEX)
             {
-                if (MeshPredictionSchemeParallelogram.computeParallelogramPrediction(p, corner_id, table, vertex_to_data_map, out_data, num_components, IntSpan.wrap(pred_vals[num_parallelograms])))
+                if (MeshPredictionSchemeParallelogram.computeParallelogramPrediction(p, corner_id, table, vertex_to_data_map, values, num_components, pred_vals, num_parallelograms * num_components))
                 {
                     // Parallelogram prediction applied and stored in
-                    // |pred_vals[num_parallelograms]|
+                    // |pred_vals| at |num_parallelograms| * |num_components|
                     ++num_parallelograms;
                     // Stop processing when we reach the maximum number of allowed
                     // parallelograms.
@@ -526,19 +643,20 @@ class MeshPredictionSchemeConstrainedMultiParallelogram extends MeshPredictionSc
                 }
                 
                 // Check which parallelograms are actually used.
+                int context = num_parallelograms - 1;
+                BitSet is_crease_edge = is_crease_edge_[context];
                 for (int i = 0; i < num_parallelograms; ++i)
                 {
-                    int context = num_parallelograms - 1;
                     int pos = is_crease_edge_pos[context]++;
-                    if (is_crease_edge_[context].size() <= pos)
+                    if (num_crease_edges_[context] <= pos)
                         throw DracoUtils.failed();
-                    boolean is_crease = is_crease_edge_[context].get(pos);
-                    if (!is_crease)
+                    if (!is_crease_edge.get(pos))
                     {
                         ++num_used_parallelograms;
+                        int offset = i * num_components;
                         for (int j = 0; j < num_components; ++j)
                         {
-                            multi_pred_vals[j] = (int)((long)(multi_pred_vals[j]) + (long)(pred_vals[i][j]));
+                            multi_pred_vals[j] += pred_vals[offset + j];
                         }
                         
                     }
@@ -551,7 +669,7 @@ class MeshPredictionSchemeConstrainedMultiParallelogram extends MeshPredictionSc
             if (num_used_parallelograms == 0)
             {
                 int src_offset = (p - 1) * num_components;
-                this.transform_.computeOriginalValue(out_data.slice(src_offset), in_corr.slice(dst_offset), out_data.slice(dst_offset));
+                this.transform_.computeOriginalValue(value_span, src_offset, value_span, dst_offset, value_span, dst_offset);
             }
             else
             {
@@ -561,18 +679,21 @@ class MeshPredictionSchemeConstrainedMultiParallelogram extends MeshPredictionSc
                     multi_pred_vals[c] /= num_used_parallelograms;
                 }
                 
-                this.transform_.computeOriginalValue(IntSpan.wrap(multi_pred_vals), in_corr.slice(dst_offset), out_data.slice(dst_offset));
+                this.transform_.computeOriginalValue(multi_pred_span, 0, value_span, dst_offset, value_span, dst_offset);
             }
             
         }
         
+        out_data.put(0, values, 0, size);
+        allocator.release(values);
     }
     
     private void $initFields$()
     {
         try
         {
-            is_crease_edge_ = new ArrayList[K_MAX_NUM_PARALLELOGRAMS];
+            is_crease_edge_ = new BitSet[K_MAX_NUM_PARALLELOGRAMS];
+            num_crease_edges_ = new int[K_MAX_NUM_PARALLELOGRAMS];
             entropy_tracker_ = new ShannonEntropyTracker();
         }
         catch(Exception e)
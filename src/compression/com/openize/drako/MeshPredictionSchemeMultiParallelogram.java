@@ -110,30 +110,39 @@ class MeshPredictionSchemeMultiParallelogram extends MeshPredictionScheme
     public void computeOriginalValues(IntSpan inCorr, IntSpan outData, int size, int numComponents, int[] entryToPointIdMap)
     {
         this.transform_.initializeDecoding(numComponents);
-        IntSpan predVals = IntSpan.wrap(new int[numComponents]);
-        IntSpan parallelogramPredVals = IntSpan.wrap(new int[numComponents]);
+        if (size == 0)
+            return;
+        // The values are restored in a plain array that is copied to |outData| at the end.
+        DracoAllocator allocator = DracoAllocator.getDefault();
+        int[] values = allocator.allocateInts(size);
+        inCorr.get(0, values, 0, size);
+        IntSpan valueSpan = IntSpan.wrap(values);
+        int[] predVals = new int[numComponents];
+        int[] parallelogramPredVals = new int[numComponents];
+        IntSpan predSpan = IntSpan.wrap(predVals);
         
-        this.transform_.computeOriginalValue(predVals, inCorr, outData);
-        ICornerTable table = this.meshData.getCornerTable();
+        this.transform_.computeOriginalValue(predSpan, valueSpan, valueSpan);
+        FlatCornerTable table = FlatCornerTable.wrap(this.meshData.getCornerTable());
         int[] vertexToDataMap = this.meshData.vertexToDataMap;
+        int[] dataToCornerMap = this.meshData.dataToCornerMap.data;
         int cornerMapSize = this.meshData.dataToCornerMap.getCount();
         for (int p = 1; p < cornerMapSize; ++p)
         {
-            int startCornerId = this.meshData.dataToCornerMap.get(p);
+            int startCornerId = dataToCornerMap[p];
             int cornerId = startCornerId;
             int numParallelograms = 0;
             for (int i = 0; i < numComponents; ++i)
             {
-                predVals.put(i, 0);
+                predVals[i] = 0;
             }
             
             while (cornerId != CornerTable.K_INVALID_CORNER_INDEX)
             {
-                if (MeshPredictionSchemeParallelogram.computeParallelogramPrediction(p, cornerId, table, vertexToDataMap, outData, numComponents, parallelogramPredVals))
+                if (MeshPredictionSchemeParallelogram.computeParallelogramPrediction(p, cornerId, table, vertexToDataMap, values, numComponents, parallelogramPredVals, 0))
                 {
                     for (int c = 0; c < numComponents; ++c)
                     {
-                        predVals.put(c, predVals.get(c) + parallelogramPredVals.get(c));
+                        predVals[c] += parallelogramPredVals[c];
                     }
                     
                     ++numParallelograms;
@@ -153,21 +162,23 @@ class MeshPredictionSchemeMultiParallelogram extends MeshPredictionScheme
             if (numParallelograms == 0)
             {
                 int srcOffset = (p - 1) * numComponents;
-                this.transform_.computeOriginalValue(outData, srcOffset, inCorr, dstOffset, outData, dstOffset);
+                this.transform_.computeOriginalValue(valueSpan, srcOffset, valueSpan, dstOffset, valueSpan, dstOffset);
             }
             else
             {
                 // Compute the correction from the predicted value.
                 for (int c = 0; c < numComponents; ++c)
                 {
-                    predVals.put(c, predVals.get(c) / numParallelograms);
+                    predVals[c] /= numParallelograms;
                 }
                 
-                this.transform_.computeOriginalValue(predVals, 0, inCorr, dstOffset, outData, dstOffset);
+                this.transform_.computeOriginalValue(predSpan, 0, valueSpan, dstOffset, valueSpan, dstOffset);
             }
             
         }
         
+        outData.put(0, values, 0, size);
+        allocator.release(values);
     }
     
 }
@@ -102,6 +102,12 @@ class MeshPredictionSchemeParallelogram extends MeshPredictionScheme
         this.transform_.initializeDecoding(numComponents);
         ICornerTable table = this.meshData.getCornerTable();
         int[] vertexToDataMap = this.meshData.vertexToDataMap;
+        if ((numComponents == 2 || (numComponents == 3)) && (transform_.getType() == PredictionSchemeTransformType.WRAP))
+        {
+            this.computeOriginalValuesWrap(inCorr, outData, size, numComponents, table, vertexToDataMap);
+            return;
+        }
+        
         IntSpan predVals = IntSpan.wrap(new int[numComponents]);
         
         // Restore the first value.
@@ -134,21 +140,11 @@ class MeshPredictionSchemeParallelogram extends MeshPredictionScheme
     public static boolean computeParallelogramPrediction(int data_entry_id, int ci, ICornerTable table, int[] vertex_to_data_map, IntSpan in_data, int num_components, IntSpan out_prediction)
     {
         int oci = table.opposite(ci);
-        final int[] ref0 = new int[1];
-        final int[] ref1 = new int[1];
-        final int[] ref2 = new int[1];
         if (oci == CornerTable.K_INVALID_CORNER_INDEX)
             return false;
-        int vert_opp = 0;
-        int vert_next = 0;
-        int vert_prev = 0;
-        ref0[0] = vert_opp;
-        ref1[0] = vert_next;
-        ref2[0] = vert_prev;
-        MeshPredictionScheme.getParallelogramEntries(oci, table, vertex_to_data_map, ref0, ref1, ref2);
-        vert_opp = ref0[0];
-        vert_next = ref1[0];
-        vert_prev = ref2[0];
+        int vert_opp = vertex_to_data_map[table.vertex(oci)];
+        int vert_next = vertex_to_data_map[table.vertex(table.next(oci))];
+        int vert_prev = vertex_to_data_map[table.vertex(table.previous(oci))];
         if (vert_opp < data_entry_id && (vert_next < data_entry_id) && (vert_prev < data_entry_id))
         {
             int v_opp_off = vert_opp * num_components;
@@ -168,4 +164,168 @@ class MeshPredictionSchemeParallelogram extends MeshPredictionScheme
         // Not all data is available for prediction
     }
     
+    /**
+     *  Same as above for values stored in a plain array, the prediction is stored at
+     *  |outOffset| of |outPrediction|.
+     *
+     */
+    static boolean computeParallelogramPrediction(int dataEntryId, int ci, FlatCornerTable table, int[] vertexToDataMap, int[] data, int numComponents, int[] outPrediction, int outOffset)
+    {
+        int oci = table.opposite(ci);
+        if (oci == CornerTable.K_INVALID_CORNER_INDEX)
+            return false;
+        int vertOpp = vertexToDataMap[table.vertex(oci)];
+        int vertNext = vertexToDataMap[table.vertex(FlatCornerTable.next(oci))];
+        int vertPrev = vertexToDataMap[table.vertex(FlatCornerTable.previous(oci))];
+        if (vertOpp >= dataEntryId || (vertNext >= dataEntryId) || (vertPrev >= dataEntryId))
+            return false;
+        // Not all data is available for prediction
+        int vOppOff = vertOpp * numComponents;
+        int vNextOff = vertNext * numComponents;
+        int vPrevOff = vertPrev * numComponents;
+        for (int c = 0; c < numComponents; ++c)
+        {
+            outPrediction[outOffset + c] = data[vNextOff + c] + data[vPrevOff + c] - data[vOppOff + c];
+        }
+        
+        return true;
+    }
+    
+    /**
+     *  Decodes 2 or 3 component values predicted with the wrap transform, which covers
+     *  positions and texture coordinates.
+     *  The values are restored in a plain array, with the parallelogram and the unwrapping
+     *  of every component written out, and copied to |outData| at the end.
+     *
+     */
+    private void computeOriginalValuesWrap(IntSpan inCorr, IntSpan outData, int size, int numComponents, ICornerTable table, int[] vertexToDataMap)
+    {
+        PredictionSchemeWrapTransform wrap = (PredictionSchemeWrapTransform)transform_;
+        int minValue = wrap.getMinValue();
+        int maxValue = wrap.getMaxValue();
+        int maxDif = 1 + maxValue - minValue;
+        if (size == 0)
+            return;
+        DracoAllocator allocator = DracoAllocator.getDefault();
+        int[] values = allocator.allocateInts(size);
+        inCorr.get(0, values, 0, size);
+        int[] dataToCornerMap = this.meshData.dataToCornerMap.data;
+        int numEntries = this.meshData.dataToCornerMap.getCount();
+        if (numComponents == 3)
+        {
+            MeshPredictionSchemeParallelogram.decodeWrap3(values, dataToCornerMap, numEntries, table, vertexToDataMap, minValue, maxValue, maxDif);
+        }
+        else
+        {
+            MeshPredictionSchemeParallelogram.decodeWrap2(values, dataToCornerMap, numEntries, table, vertexToDataMap, minValue, maxValue, maxDif);
+        }
+        
+        outData.put(0, values, 0, size);
+        allocator.release(values);
+    }
+    
+    private static void decodeWrap3(int[] values, int[] dataToCornerMap, int numEntries, ICornerTable table, int[] vertexToDataMap, int minValue, int maxValue, int maxDif)
+    {
+        // The first value is predicted from zero.
+        int zero = Math.max(minValue, Math.min(maxValue, 0));
+        values[0] = MeshPredictionSchemeParallelogram.unwrap(zero + values[0], minValue, maxValue, maxDif);
+        values[1] = MeshPredictionSchemeParallelogram.unwrap(zero + values[1], minValue, maxValue, maxDif);
+        values[2] = MeshPredictionSchemeParallelogram.unwrap(zero + values[2], minValue, maxValue, maxDif);
+        for (int p = 1; p < numEntries; ++p)
+        {
+            int dst = p * 3;
+            int pred0;
+            int pred1;
+            int pred2;
+            int oci = table.opposite(dataToCornerMap[p]);
+            int opp = p;
+            int next = p;
+            int prev = p;
+            if (oci != CornerTable.K_INVALID_CORNER_INDEX)
+            {
+                opp = vertexToDataMap[table.vertex(oci)];
+                next = vertexToDataMap[table.vertex(table.next(oci))];
+                prev = vertexToDataMap[table.vertex(table.previous(oci))];
+            }
+            
+            if (opp < p && (next < p) && (prev < p))
+            {
+                int o = opp * 3;
+                int n = next * 3;
+                int r = prev * 3;
+                pred0 = values[n] + values[r] - values[o];
+                pred1 = values[n + 1] + values[r + 1] - values[o + 1];
+                pred2 = values[n + 2] + values[r + 2] - values[o + 2];
+            }
+            else
+            {
+                // Not all entries are decoded yet, the previous value is used as the prediction.
+                pred0 = values[dst - 3];
+                pred1 = values[dst - 2];
+                pred2 = values[dst - 1];
+            }
+            
+            values[dst] = MeshPredictionSchemeParallelogram.unwrap(Math.max(minValue, Math.min(maxValue, pred0)) + values[dst], minValue, maxValue, maxDif);
+            values[dst + 1] = MeshPredictionSchemeParallelogram.unwrap(Math.max(minValue, Math.min(maxValue, pred1)) + values[dst + 1], minValue, maxValue, maxDif);
+            values[dst + 2] = MeshPredictionSchemeParallelogram.unwrap(Math.max(minValue, Math.min(maxValue, pred2)) + values[dst + 2], minValue, maxValue, maxDif);
+        }
+        
+    }
+    
+    private static void decodeWrap2(int[] values, int[] dataToCornerMap, int numEntries, ICornerTable table, int[] vertexToDataMap, int minValue, int maxValue, int maxDif)
+    {
+        // The first value is predicted from zero.
+        int zero = Math.max(minValue, Math.min(maxValue, 0));
+        values[0] = MeshPredictionSchemeParallelogram.unwrap(zero + values[0], minValue, maxValue, maxDif);
+        values[1] = MeshPredictionSchemeParallelogram.unwrap(zero + values[1], minValue, maxValue, maxDif);
+        for (int p = 1; p < numEntries; ++p)
+        {
+            int dst = p * 2;
+            int pred0;
+            int pred1;
+            int oci = table.opposite(dataToCornerMap[p]);
+            int opp = p;
+            int next = p;
+            int prev = p;
+            if (oci != CornerTable.K_INVALID_CORNER_INDEX)
+            {
+                opp = vertexToDataMap[table.vertex(oci)];
+                next = vertexToDataMap[table.vertex(table.next(oci))];
+                prev = vertexToDataMap[table.vertex(table.previous(oci))];
+            }
+            
+            if (opp < p && (next < p) && (prev < p))
+            {
+                int o = opp * 2;
+                int n = next * 2;
+                int r = prev * 2;
+                pred0 = values[n] + values[r] - values[o];
+                pred1 = values[n + 1] + values[r + 1] - values[o + 1];
+            }
+            else
+            {
+                // Not all entries are decoded yet, the previous value is used as the prediction.
+                pred0 = values[dst - 2];
+                pred1 = values[dst - 1];
+            }
+            
+            values[dst] = MeshPredictionSchemeParallelogram.unwrap(Math.max(minValue, Math.min(maxValue, pred0)) + values[dst], minValue, maxValue, maxDif);
+            values[dst + 1] = MeshPredictionSchemeParallelogram.unwrap(Math.max(minValue, Math.min(maxValue, pred1)) + values[dst + 1], minValue, maxValue, maxDif);
+        }
+        
+    }
+    
+    /**
+     *  Moves a corrected value that is out of [minValue, maxValue] back into the range, see PredictionSchemeWrapTransform.
+     *
+     */
+    private static int unwrap(int value, int minValue, int maxValue, int maxDif)
+    {
+        if (value > maxValue)
+            return value - maxDif;
+        if (value < minValue)
+            return value + maxDif;
+        return value;
+    }
+    
 }
@@ -43,6 +43,16 @@ class PredictionSchemeWrapTransform extends PredictionSchemeTransform
         return PredictionSchemeTransformType.WRAP;
     }
     
+    int getMinValue()
+    {
+        return minValue;
+    }
+    
+    int getMaxValue()
+    {
+        return maxValue;
+    }
+    
     @Override
     public void initializeEncoding(IntSpan origData, int numComponents)
     {
@@ -0,0 +1,220 @@
+package com.openize.drako;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+/**
+ *  Writes the final values of one attribute into the buffer registered in {@link DracoDecodeTarget}.
+ *  Values are addressed by their index in the attribute (entry * components + component) relative to
+ *  the position the sink had when decoding started.
+ *
+ */
+final class AttributeSink
+{    
+    private final Buffer target;
+    private ByteBuffer bytes;
+    private FloatBuffer floats;
+    private ShortBuffer shorts;
+    private final int base;
+    private boolean written;
+    public AttributeSink(Buffer target)
+    {
+        this.target = target;
+        this.base = target.position();
+        if (target instanceof ByteBuffer)
+        {
+            this.bytes = (ByteBuffer)target;
+        }
+        else if (target instanceof FloatBuffer)
+        {
+            this.floats = (FloatBuffer)target;
+        }
+        else if (target instanceof ShortBuffer)
+        {
+            this.shorts = (ShortBuffer)target;
+        }
+        else
+            throw new IllegalArgumentException("Unsupported sink type");
+    }
+    
+    /**
+     *  Returns true once the attribute's values were stored into this sink.
+     *
+     */
+    public boolean getWritten()
+    {
+        return written;
+    }
+    
+    /**
+     *  Checks the sink can receive |numValues| values of given data type.
+     *
+     */
+    public void begin(int dataType, int numValues)
+        throws DrakoException
+    {
+        int size = DracoUtils.dataTypeLength(dataType);
+        if (floats != null && (dataType != DataType.FLOAT32))
+            throw DracoUtils.failed();
+        if (shorts != null && (size != 2))
+            throw DracoUtils.failed();
+        long required = bytes != null ? (long)numValues * size : numValues;
+        if (target.limit() - base < required)
+            throw DracoUtils.failed();
+    }
+    
+    public void putFloat(int index, float value)
+    {
+        if (floats != null)
+        {
+            floats.put(base + index, value);
+        }
+        else
+        {
+            bytes.putFloat(base + (index * 4), value);
+        }
+        
+    }
+    
+    /**
+     *  Stores |count| float values of |values| from |start| at |index| and the following positions.
+     *
+     */
+    public void putFloats(int index, float[] values, int start, int count)
+    {
+        if (floats != null)
+        {
+            FloatBuffer dst = floats.duplicate();
+            ((Buffer)dst).position(base + index);
+            dst.put(values, start, count);
+            return;
+        }
+        
+        for (int i = 0; i < count; i++)
+        {
+            bytes.putFloat(base + ((index + i) * 4), values[start + i]);
+        }
+        
+    }
+    
+    /**
+     *  Stores an integer value that takes |size| bytes in the attribute.
+     *
+     */
+    public void putInt(int index, int value, int size)
+    {
+        if (shorts != null)
+        {
+            shorts.put(base + index, (short)value);
+            return;
+        }
+        
+        switch(size)
+        {
+            case 1:
+                bytes.put(base + index, (byte)value);
+                break;
+            case 2:
+                bytes.putShort(base + (index * 2), (short)value);
+                break;
+            default:
+                bytes.putInt(base + (index * 4), value);
+                break;
+        }
+        
+    }
+    
+    /**
+     *  Marks the sink as written and moves its position after the last value.
+     *
+     */
+    public void end(int dataType, int numValues)
+    {
+        int size = bytes != null ? DracoUtils.dataTypeLength(dataType) : 1;
+        target.position(base + (numValues * size));
+        this.written = true;
+    }
+    
+    /**
+     *  Copies all values of an attribute that was decoded into its own buffer.
+     *
+     */
+    public void copyFrom(PointAttribute attribute)
+        throws DrakoException
+    {
+        int dataType = attribute.getDataType();
+        int numComponents = attribute.getComponentsCount();
+        int size = DracoUtils.dataTypeLength(dataType);
+        int numValues = attribute.getNumUniqueEntries() * numComponents;
+        if (size != 1 && (size != 2) && (size != 4))
+            throw DracoUtils.failed();
+        this.begin(dataType, numValues);
+        DataBuffer buffer = attribute.getBuffer();
+        int index = 0;
+        for (int i = 0; i < attribute.getNumUniqueEntries(); i++)
+        {
+            long pos = attribute.getLongBytePos(i);
+            for (int c = 0; c < numComponents; c++, pos += size)
+            {
+                if (dataType == DataType.FLOAT32)
+                {
+                    this.putFloat(index++, buffer.readFloat(pos));
+                }
+                else if (size == 1)
+                {
+                    this.putInt(index++, buffer.get(pos), 1);
+                }
+                else if (size == 2)
+                {
+                    this.putInt(index++, buffer.readShort(pos), 2);
+                }
+                else
+                {
+                    this.putInt(index++, buffer.readInt(pos), 4);
+                }
+                
+            }
+            
+        }
+        
+        this.end(dataType, numValues);
+    }
+    
+    /**
+     *  Copies the 32-bit integer values of an attribute that was kept in its portable form.
+     *  A short buffer receives the values narrowed to 16 bits, the copy fails if a value doesn't fit.
+     *  Quantized values and values of an unsigned |sourceDataType| must fit 0..65535, the others
+     *  must fit a signed short.
+     *
+     */
+    public void copyPortableFrom(PointAttribute attribute, int sourceDataType)
+        throws DrakoException
+    {
+        if (floats != null || (DracoUtils.dataTypeLength(attribute.getDataType()) != 4))
+            throw DracoUtils.failed();
+        int dataType = shorts != null ? DataType.INT16 : DataType.INT32;
+        int numComponents = attribute.getComponentsCount();
+        int numValues = attribute.getNumUniqueEntries() * numComponents;
+        this.begin(dataType, numValues);
+        boolean unsigned = attribute.getAttributeTransformData() != null || (sourceDataType == DataType.UINT8) || (sourceDataType == DataType.UINT16) || (sourceDataType == DataType.UINT32);
+        int minValue = unsigned ? 0 : Short.MIN_VALUE;
+        int maxValue = unsigned ? 0xffff : Short.MAX_VALUE;
+        DataBuffer buffer = attribute.getBuffer();
+        int index = 0;
+        for (int i = 0; i < attribute.getNumUniqueEntries(); i++)
+        {
+            long pos = attribute.getLongBytePos(i);
+            for (int c = 0; c < numComponents; c++, pos += 4)
+            {
+                int value = buffer.readInt(pos);
+                if (shorts != null && (value < minValue || (value > maxValue)))
+                    throw DracoUtils.failed();
+                this.putInt(index++, value, 4);
+            }
+            
+        }
+        
+        this.end(dataType, numValues);
+    }
+    
+}
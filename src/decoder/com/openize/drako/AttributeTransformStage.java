@@ -0,0 +1,294 @@
+package com.openize.drako;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+/**
+ *  Second stage of the attribute decoding, runs the work that no longer reads the input buffer:
+ *  prediction reversal, zig-zag conversion and the transform to the original format (dequantization,
+ *  octahedral normals).
+ *  Attributes are reconstructed in waves, an attribute only waits for the attributes its prediction
+ *  scheme is based on (e.g. normals and texture coordinates on the positions), then all attributes are
+ *  transformed concurrently. Attributes the caller didn't ask for are only reconstructed when another
+ *  attribute is predicted from them, and never transformed. Large meshes run the attributes of a wave on the fork-join pool of the
+ *  calling thread, or on the common pool.
+ *
+ */
+final class AttributeTransformStage
+{    
+    /**
+     *  Minimum number of entries an attribute needs before its work is worth being forked.
+     *
+     */
+    static final int MIN_PARALLEL_ENTRIES = 1 << 14;
+    private static final int RECONSTRUCT = 0;
+    private static final int TRANSFORM = 1;
+    private final boolean parallel;
+    private final ArrayList<SequentialAttributeDecodersController> controllers;
+    private final IntList localIds;
+    private final IntList numEntries;
+    private final IntList requested;
+    public AttributeTransformStage(boolean parallel)
+    {
+        this.parallel = parallel;
+        this.controllers = new ArrayList<SequentialAttributeDecodersController>();
+        this.localIds = new IntList();
+        this.numEntries = new IntList();
+        this.requested = new IntList();
+    }
+    
+    /**
+     *  Schedules the attribute with given local id of |controller|, it must be parsed already.
+     *  An attribute that's not |requested| is only reconstructed if a requested attribute depends on it.
+     *
+     */
+    public void add(SequentialAttributeDecodersController controller, int localId, int entries, boolean requested)
+    {
+        controllers.add(controller);
+        localIds.add(localId);
+        numEntries.add(entries);
+        this.requested.add(requested ? 1 : 0);
+    }
+    
+    /**
+     *  Reconstructs and transforms all scheduled attributes.
+     *  A failure is reported as the error of the first failing attribute in decoding order.
+     *
+     */
+    public void run()
+        throws DrakoException
+    {
+        int n = controllers.size();
+        if (n == 0)
+            return;
+        boolean[] needed = this.computeNeeded();
+        int[] levels = this.computeLevels();
+        int maxLevel = -1;
+        for (int i = 0; i < n; i++)
+        {
+            maxLevel = Math.max(maxLevel, levels[i]);
+        }
+        
+        if (maxLevel < 0)
+        {
+            // Unresolved dependencies, keep the decoding order.
+            for (int i = 0; i < n; i++)
+            {
+                if (needed[i])
+                {
+                    this.execute(i, RECONSTRUCT);
+                }
+                
+            }
+            
+        }
+        else
+        {
+            for (int level = 0; level <= maxLevel; level++)
+            {
+                this.runWave(levels, level, needed, RECONSTRUCT);
+            }
+            
+        }
+        
+        boolean[] transformed = new boolean[n];
+        for (int i = 0; i < n; i++)
+        {
+            transformed[i] = requested.get(i) != 0;
+        }
+        
+        this.runWave(null, 0, transformed, TRANSFORM);
+    }
+    
+    /**
+     *  Returns which attributes need to be reconstructed: the requested ones and the ones they are predicted from.
+     *
+     */
+    private boolean[] computeNeeded()
+    {
+        int n = controllers.size();
+        boolean[] needed = new boolean[n];
+        for (int i = 0; i < n; i++)
+        {
+            needed[i] = requested.get(i) != 0;
+        }
+        
+        boolean changed = true;
+        while (changed)
+        {
+            changed = false;
+            for (int i = 0; i < n; i++)
+            {
+                if (!needed[i])
+                    continue;
+                int[] parents = controllers.get(i).getParentAttributeIds(localIds.get(i));
+                for (int p = 0; p < parents.length; p++)
+                {
+                    int parent = this.indexOfAttribute(parents[p]);
+                    if (parent >= 0 && !needed[parent])
+                    {
+                        needed[parent] = true;
+                        changed = true;
+                    }
+                    
+                }
+                
+            }
+            
+        }
+        
+        return needed;
+    }
+    
+    /**
+     *  Returns the wave of each attribute, or all -1 when an attribute is predicted
+     *  from an attribute that's decoded after it.
+     *
+     */
+    private int[] computeLevels()
+    {
+        int n = controllers.size();
+        int[] levels = new int[n];
+        for (int i = 0; i < n; i++)
+        {
+            int[] parents = controllers.get(i).getParentAttributeIds(localIds.get(i));
+            for (int p = 0; p < parents.length; p++)
+            {
+                int parent = this.indexOfAttribute(parents[p]);
+                if (parent >= i)
+                {
+                    for (int j = 0; j < n; j++)
+                    {
+                        levels[j] = -1;
+                    }
+                    
+                    return levels;
+                }
+                
+                if (parent >= 0)
+                {
+                    levels[i] = Math.max(levels[i], levels[parent] + 1);
+                }
+                
+            }
+            
+        }
+        
+        return levels;
+    }
+    
+    private int indexOfAttribute(int attId)
+    {
+        for (int i = 0; i < controllers.size(); i++)
+        {
+            if (controllers.get(i).getAttributeId(localIds.get(i)) == attId)
+                return i;
+        }
+        
+        return -1;
+    }
+    
+    /**
+     *  Runs given phase for the |selected| attributes of |level|, or of all levels if |levels| is null.
+     *
+     */
+    private void runWave(int[] levels, int level, boolean[] selected, int phase)
+        throws DrakoException
+    {
+        int n = controllers.size();
+        ArrayList<Task> tasks = new ArrayList<Task>();
+        for (int i = 0; i < n; i++)
+        {
+            if (selected[i] && (levels == null || (levels[i] == level)))
+            {
+                tasks.add(new Task(this, i, phase));
+            }
+            
+        }
+        
+        if (!parallel || (tasks.size() < 2) || !this.isWorthForking(tasks))
+        {
+            for (Task task : tasks)
+            {
+                this.execute(task.index, phase);
+            }
+            
+            return;
+        }
+        
+        ForkJoinTask.invokeAll(tasks);
+        // Report the first failure in decoding order so the error doesn't depend on the scheduling.
+        for (Task task : tasks)
+        {
+            Throwable error = task.error;
+            if (error == null)
+                continue;
+            if (error instanceof DrakoException)
+                throw (DrakoException)error;
+            if (error instanceof RuntimeException)
+                throw (RuntimeException)error;
+            throw (java.lang.Error)error;
+        }
+        
+    }
+    
+    private boolean isWorthForking(ArrayList<Task> tasks)
+    {
+        int forkable = 0;
+        for (Task task : tasks)
+        {
+            if (numEntries.get(task.index) >= MIN_PARALLEL_ENTRIES)
+            {
+                forkable++;
+            }
+            
+        }
+        
+        return forkable >= 2;
+    }
+    
+    private void execute(int index, int phase)
+        throws DrakoException
+    {
+        SequentialAttributeDecodersController controller = controllers.get(index);
+        if (phase == RECONSTRUCT)
+        {
+            controller.reconstructAttribute(localIds.get(index));
+        }
+        else
+        {
+            controller.transformAttributeToOriginalFormat(localIds.get(index));
+        }
+        
+    }
+    
+    private static final class Task extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        private final AttributeTransformStage stage;
+        private final int index;
+        private final int phase;
+        private Throwable error;
+        Task(AttributeTransformStage stage, int index, int phase)
+        {
+            this.stage = stage;
+            this.index = index;
+            this.phase = phase;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            try
+            {
+                stage.execute(index, phase);
+            }
+            catch(Throwable e)
+            {
+                this.error = e;
+            }
+            
+        }
+        
+    }
+    
+}
@@ -59,6 +59,11 @@ abstract class AttributesDecoder
             ga.setDataType(dracoDt);
             ga.setNormalized((0xff & normalized) > 0);
             ga.setByteStride(DracoUtils.dataTypeLength(dracoDt) * (0xff & componentsCount));
+            if (pointCloudDecoder.options != null && (pointCloudDecoder.options.getAttributeAllocator() != null))
+            {
+                ga.setBuffer(DataBuffer.offHeap(pointCloudDecoder.options.getAttributeAllocator()));
+            }
+            
             short customId;
             if (version < 13)
             {
@@ -92,6 +97,30 @@ abstract class AttributesDecoder
         this.transformAttributesToOriginalFormat();
     }
     
+    /**
+     *  Decodes the attributes, the work that doesn't read the input buffer may be left to |stage|
+     *  so it can run concurrently with the other attributes.
+     *
+     */
+    public void decodeAttributes(DecoderBuffer buffer, AttributeTransformStage stage)
+        throws DrakoException
+    {
+        this.decodeAttributes(buffer);
+    }
+    
+    /**
+     *  Reads past the attribute values without decoding them, then decodes the data needed by the
+     *  portable transforms that follows the values. Used by probing decoders, the parameters of the
+     *  transforms are attached to the attributes of the point cloud.
+     *  Returns false when the end of the values can't be found without decoding them.
+     *
+     */
+    public boolean probeAttributes(DecoderBuffer buffer)
+        throws DrakoException
+    {
+        return false;
+    }
+    
     protected abstract void decodePortableAttributes(DecoderBuffer buffer)
         throws DrakoException;
     
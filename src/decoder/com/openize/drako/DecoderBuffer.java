@@ -1,6 +1,7 @@
 package com.openize.drako;
 import com.openize.drako.BitUtils;
 import com.openize.drako.Struct;
+import java.nio.ByteBuffer;
 final class DecoderBuffer
 {    
     private final BitDecoder bitDecoder = new BitDecoder();
@@ -9,6 +10,7 @@ final class DecoderBuffer
     private int length;
     private BytePointer data = new BytePointer();
     private byte[] tmp;
+    private DecoderScratch scratch;
     public int getBitstreamVersion()
     {
         return this.bitstreamVersion;
@@ -26,6 +28,16 @@ final class DecoderBuffer
         this.initialize(new BytePointer(data), data.length);
     }
     
+    /**
+     *  Decodes the remaining bytes of |data| in place, the buffer's position is not modified.
+     *
+     */
+    public DecoderBuffer(ByteBuffer data)
+    {
+        this.$initFields$();
+        this.initialize(new BytePointer(data), data.remaining());
+    }
+    
     private DecoderBuffer(BytePointer data, int length)
     {
         this.$initFields$();
@@ -50,6 +62,7 @@ final class DecoderBuffer
         this.length = src.length;
         this.data.copyFrom(src.data);
         this.setBitstreamVersion(src.getBitstreamVersion());
+        this.scratch = src.getScratch();
     }
     
     public DecoderBuffer clone()
@@ -78,9 +91,29 @@ final class DecoderBuffer
         int length = this.length - this.pos - offset;
         DecoderBuffer ret = new DecoderBuffer(BytePointer.add(data, pos + offset), length);
         ret.setBitstreamVersion(this.getBitstreamVersion());
+        ret.scratch = this.getScratch();
         return ret;
     }
     
+    /**
+     *  Gets the working memory shared by all decoders reading from this buffer and its sub-buffers.
+     *
+     */
+    public DecoderScratch getScratch()
+    {
+        if (scratch == null)
+        {
+            this.scratch = new DecoderScratch();
+        }
+        
+        return scratch;
+    }
+    
+    public void setScratch(DecoderScratch value)
+    {
+        this.scratch = value;
+    }
+    
     public int getDecodedSize()
     {
         return pos;
@@ -147,12 +180,9 @@ final class DecoderBuffer
         
         if (!this.remainingIsEnough(bytes))
             return false;
-        int n = data.getOffset() + pos;
-        byte[] buf = data.getBaseData();
         for (int i = 0; i < values.length; i++)
         {
-            values[i] = Unsafe.getLE32(buf, n);
-            n += 4;
+            values[i] = data.toUInt32LE(pos);
             pos += 4;
         }
         
@@ -277,6 +307,31 @@ final class DecoderBuffer
         value[0] = bitDecoder.getBits(nbits);
         return true;
     }
+
+    /**
+     *  Reads up to 32 bits. Can be called only in between
+     *  StartBitDecoding and EndBitDeoding. Otherwise returns 0.
+     *
+     */
+    public int readBits(int nbits)
+    {
+        if (!bitMode)
+            return 0;
+        return bitDecoder.readBits(nbits);
+    }
+
+    /**
+     *  Reads |count| values of up to 32 bits each into |out| starting at |offset|.
+     *  Can be called only in between StartBitDecoding and EndBitDeoding. Otherwise returns false.
+     *
+     */
+    public boolean readBits(int[] out, int offset, int count, int nbits)
+    {
+        if (!bitMode)
+            return false;
+        bitDecoder.readBits(out, offset, count, nbits);
+        return true;
+    }
     
     @Override
     public String toString()
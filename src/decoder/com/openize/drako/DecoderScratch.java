@@ -0,0 +1,210 @@
+package com.openize.drako;
+import java.util.Arrays;
+/**
+ *  Working memory of the decoders that can be kept across decode calls.
+ *  Nothing handed out by the scratch is referenced by the decoded geometry, so the
+ *  same instance can be reused for the next mesh once a decode call returned.
+ *  Arrays are only grown, they can be longer than requested and keep the content
+ *  of the previous call unless stated otherwise.
+ *  Not thread-safe, a scratch must only be used by one decode call at a time.
+ *
+ */
+final class DecoderScratch
+{    
+    static final int ACTIVE_CORNER_STACK = 0;
+    static final int INVALID_VERTICES = 1;
+    static final int POINT_TO_CORNER_MAP = 2;
+    static final int CORNER_TO_POINT_MAP = 3;
+    static final int VERTEX_TO_POINT_MAP = 4;
+    static final int SYMBOLS = 5;
+    private static final int NUM_SLOTS = 6;
+    private CornerTable cornerTable;
+    private IntList[] intLists;
+    private int[][] intArrays;
+    private boolean[] vertexHoles;
+    private IntIntMap topologySplitActiveCorners;
+    /**
+     *  rANS symbol decoders indexed by their max symbol bit length.
+     *
+     */
+    private RAnsSymbolDecoder[] symbolDecoders;
+    /**
+     *  rANS lookup tables indexed by their precision bits, shared by the symbol decoders.
+     *
+     */
+    private RAnsLookupTable[] lookupTables;
+    /**
+     *  Portable attributes indexed by the id of their attribute.
+     *
+     */
+    private PointAttribute[] portableAttributes;
+    /**
+     *  Returns the corner table used to decode the connectivity, the caller needs to reset it.
+     *
+     */
+    public CornerTable getCornerTable()
+    {
+        if (cornerTable == null)
+        {
+            this.cornerTable = new CornerTable();
+        }
+        
+        return cornerTable;
+    }
+    
+    /**
+     *  Returns an empty list for given slot.
+     *
+     */
+    public IntList getIntList(int slot)
+    {
+        IntList ret = intLists[slot];
+        if (ret == null)
+        {
+            ret = new IntList();
+            intLists[slot] = ret;
+        }
+        
+        ret.clear();
+        return ret;
+    }
+    
+    /**
+     *  Returns an array for given slot with at least |size| elements.
+     *
+     */
+    public int[] getIntArray(int slot, int size)
+    {
+        int[] ret = intArrays[slot];
+        if (ret == null || (ret.length < size))
+        {
+            ret = new int[size];
+            intArrays[slot] = ret;
+        }
+        
+        return ret;
+    }
+    
+    /**
+     *  Returns the hole flags of the edgebreaker vertices with at least |size| elements.
+     *
+     */
+    public boolean[] getVertexHoles(int size)
+    {
+        if (vertexHoles == null || (vertexHoles.length < size))
+        {
+            this.vertexHoles = new boolean[size];
+        }
+        
+        return vertexHoles;
+    }
+    
+    /**
+     *  Returns an empty map between split symbols and active corners.
+     *
+     */
+    public IntIntMap getTopologySplitActiveCorners()
+    {
+        if (topologySplitActiveCorners == null)
+        {
+            this.topologySplitActiveCorners = new IntIntMap();
+        }
+        
+        topologySplitActiveCorners.clear();
+        return topologySplitActiveCorners;
+    }
+    
+    /**
+     *  Returns a symbol decoder for given max symbol bit length, the decoder is
+     *  fully initialized again by create() and startDecoding().
+     *
+     */
+    public RAnsSymbolDecoder getSymbolDecoder(int maxSymbolBitLength)
+    {
+        if (maxSymbolBitLength < 0 || (maxSymbolBitLength >= symbolDecoders.length))
+            return new RAnsSymbolDecoder(maxSymbolBitLength);
+        RAnsSymbolDecoder ret = symbolDecoders[maxSymbolBitLength];
+        if (ret == null)
+        {
+            ret = new RAnsSymbolDecoder(maxSymbolBitLength, this);
+            symbolDecoders[maxSymbolBitLength] = ret;
+        }
+        
+        return ret;
+    }
+    
+    /**
+     *  Returns the lookup table for given rANS precision bits.
+     *  Symbol decoders of the same precision share the table, so only one of them can be decoding at a time.
+     *
+     */
+    public RAnsLookupTable getLookupTable(int ransPrecisionBits)
+    {
+        RAnsLookupTable ret = lookupTables[ransPrecisionBits];
+        if (ret == null)
+        {
+            ret = new RAnsLookupTable(ransPrecisionBits);
+            lookupTables[ransPrecisionBits] = ret;
+        }
+        
+        return ret;
+    }
+    
+    /**
+     *  Returns a portable attribute of given layout with |numEntries| entries and identity mapping.
+     *  The values are not cleared, they are stored in chunks from |allocator| or in a heap array when it's null.
+     *
+     */
+    public PointAttribute getPortableAttribute(int attId, int attributeType, int dataType, int numComponents, int numEntries, DracoAllocator allocator)
+    {
+        if (attId >= portableAttributes.length)
+        {
+            portableAttributes = Arrays.copyOf(portableAttributes, attId + 1);
+        }
+        
+        PointAttribute ret = portableAttributes[attId];
+        if (ret == null)
+        {
+            ret = new PointAttribute();
+            portableAttributes[attId] = ret;
+        }
+        
+        DataBuffer buffer = ret.getBuffer();
+        if (allocator != null ? buffer == null || !buffer.isOffHeap() || (buffer.getAllocator() != allocator) : buffer != null && buffer.isOffHeap())
+        {
+            ret.setBuffer(allocator != null ? DataBuffer.offHeap(allocator) : null);
+        }
+        
+        ret.setAttributeType(attributeType);
+        ret.setComponentsCount(numComponents);
+        ret.setDataType(dataType);
+        ret.setNormalized(false);
+        ret.setByteStride(numComponents * DracoUtils.dataTypeLength(dataType));
+        ret.setIdentityMapping(true);
+        ret.reset(numEntries);
+        return ret;
+    }
+    
+    public DecoderScratch()
+    {
+        this.$initFields$();
+    }
+    
+    private void $initFields$()
+    {
+        try
+        {
+            intLists = new IntList[NUM_SLOTS];
+            intArrays = new int[NUM_SLOTS][];
+            symbolDecoders = new RAnsSymbolDecoder[32];
+            lookupTables = new RAnsLookupTable[32];
+            portableAttributes = new PointAttribute[0];
+        }
+        catch(Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+        
+    }
+    
+}
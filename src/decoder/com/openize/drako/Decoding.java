@@ -2,6 +2,12 @@ package com.openize.drako;
 import com.openize.drako.IntSpan;
 class Decoding
 {    
+    private static final int SYMBOL_CHUNK_SIZE = 4096;
+    /**
+     *  Decodes |numValues| symbols into |outValues|. When |outValues| is null the symbols are
+     *  only parsed as far as needed to move |srcBuffer| past them.
+     *
+     */
     static void decodeSymbols(int numValues, int numComponents, DecoderBuffer srcBuffer, IntSpan outValues)
         throws DrakoException
     {
@@ -22,11 +28,32 @@ class Decoding
             throw DracoUtils.failed();
     }
     
+    /**
+     *  Reads past the symbols without decoding them, |numValues| is -1 when the number of
+     *  symbols isn't known. Only raw symbols store the size of their data, so tagged symbols
+     *  can't be skipped without knowing their number and false is returned.
+     *
+     */
+    static boolean skipSymbols(int numValues, int numComponents, DecoderBuffer srcBuffer)
+        throws DrakoException
+    {
+        if (numValues >= 0)
+        {
+            Decoding.decodeSymbols(numValues, numComponents, srcBuffer, null);
+            return true;
+        }
+        
+        byte scheme = srcBuffer.decodeU8();
+        if (scheme != 1)
+            return false;
+        Decoding.decodeRawSymbols(numValues, srcBuffer, null);
+        return true;
+    }
+    
     static boolean decodeTaggedSymbols(int numValues, int numComponents, DecoderBuffer srcBuffer, IntSpan outValues)
         throws DrakoException
     {
-        RAnsSymbolDecoder tagDecoder = new RAnsSymbolDecoder(5);
-        final int[] ref0 = new int[1];
+        RAnsSymbolDecoder tagDecoder = srcBuffer.getScratch().getSymbolDecoder(5);
         tagDecoder.create(srcBuffer);
         
         tagDecoder.startDecoding(srcBuffer);
@@ -35,27 +62,23 @@ class Decoding
             throw DracoUtils.failed();
         // Wrong number of symbols.
         long tmp = srcBuffer.startBitDecoding(false);
+        // All components of a value share the tag's bit length, they are read together.
+        int[] components = srcBuffer.getScratch().getIntArray(DecoderScratch.SYMBOLS, numComponents);
         int valueId = 0;
         for (int i = 0; i < numValues; i += numComponents)
         {
             int bitLength = tagDecoder.decodeSymbol();
+            if (bitLength > 32)
+                throw DracoUtils.failed();
             // Decode the actual value.
-            for (int j = 0; j < numComponents; ++j)
+            if (!srcBuffer.readBits(components, 0, numComponents, bitLength))
+                throw DracoUtils.failed();
+            if (outValues != null)
             {
-                int val;
-                if (!srcBuffer.decodeLeastSignificantBits32(bitLength, ref0))
-                {
-                    val = ref0[0];
-                    throw DracoUtils.failed();
-                }
-                else
-                {
-                    val = ref0[0];
-                }
-                
-                outValues.put(valueId++, val);
+                outValues.put(valueId, components, 0, numComponents);
             }
             
+            valueId += numComponents;
         }
         
         tagDecoder.endDecoding();
@@ -67,18 +90,30 @@ class Decoding
         throws DrakoException
     {
         byte maxBitLength = srcBuffer.decodeU8();
-        RAnsSymbolDecoder decoder = new RAnsSymbolDecoder(0xff & maxBitLength);
-        decoder.create(srcBuffer);
+        RAnsSymbolDecoder decoder = srcBuffer.getScratch().getSymbolDecoder(0xff & maxBitLength);
+        if (outValues == null)
+        {
+            decoder.skip(srcBuffer);
+        }
+        else
+        {
+            decoder.create(srcBuffer);
+        }
         
         if (numValues > 0 && (decoder.getNumSymbols() == 0))
             throw DracoUtils.failed();
         // Wrong number of symbols.
+        if (outValues == null)
+            return;
         
         decoder.startDecoding(srcBuffer);
-        for (int i = 0; i < numValues; ++i)
+        // Symbols are decoded in bulk, through a small chunk when the output isn't an int array.
+        int[] chunk = srcBuffer.getScratch().getIntArray(DecoderScratch.SYMBOLS, Math.min(numValues, SYMBOL_CHUNK_SIZE));
+        for (int i = 0; i < numValues; i += SYMBOL_CHUNK_SIZE)
         {
-            int value = decoder.decodeSymbol();
-            outValues.put(i, value);
+            int n = Math.min(SYMBOL_CHUNK_SIZE, numValues - i);
+            decoder.decodeSymbols(chunk, n);
+            outValues.put(i, chunk, 0, n);
         }
         
         decoder.endDecoding();
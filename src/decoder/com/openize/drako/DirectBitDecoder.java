@@ -1,14 +1,27 @@
 package com.openize.drako;
+/**
+ *  Decodes bits written by DirectBitEncoder, stored most significant bit first in 32-bit words.
+ *  The words are read straight from the source data into a 64-bit register, bits are taken from the top of it.
+ *
+ */
 class DirectBitDecoder implements IBitDecoder
 {    
-    int[] bits_;
+    BytePointer data_;
+    int num_words_;
     int pos_;
-    int num_used_bits_;
+    /**
+     *  Loaded bits that were not consumed yet, the next bit is the most significant one.
+     *
+     */
+    long cache_;
+    int cache_bits_;
     public void clear()
     {
-        this.bits_ = null;
-        this.num_used_bits_ = 0;
+        this.data_ = null;
+        this.num_words_ = 0;
         this.pos_ = 0;
+        this.cache_ = 0L;
+        this.cache_bits_ = 0;
     }
     
     // Sets |source_buffer| as the buffer to decode bits from.
@@ -26,12 +39,25 @@ class DirectBitDecoder implements IBitDecoder
             throw DracoUtils.failed();
         if (size_in_bytes > source_buffer.getRemainingSize())
             throw DracoUtils.failed();
-        int num_32bit_elements = size_in_bytes / 4;
-        this.bits_ = new int[num_32bit_elements];
-        if (!source_buffer.decode(bits_))
-            throw DracoUtils.failed();
-        this.pos_ = 0;
-        this.num_used_bits_ = 0;
+        this.data_ = BytePointer.add(source_buffer.getPointer(), source_buffer.getDecodedSize());
+        this.num_words_ = size_in_bytes / 4;
+        source_buffer.advance(size_in_bytes);
+    }
+    
+    /**
+     *  Loads whole words until the register holds more than 32 bits or the data is exhausted.
+     *
+     */
+    private void refill()
+    {
+        while (cache_bits_ <= 32 && (pos_ < num_words_))
+        {
+            long word = 0xffffffffL & data_.toUInt32LE(pos_ * 4);
+            cache_ |= word << (32 - cache_bits_);
+            cache_bits_ += 32;
+            ++pos_;
+        }
+        
     }
     
     // Decode one bit. Returns true if the bit is a 1, otherwise false.
@@ -39,54 +65,36 @@ class DirectBitDecoder implements IBitDecoder
     @Override
     public boolean decodeNextBit()
     {
-        int selector = 1 << (31 - num_used_bits_);
-        if (pos_ == bits_.length)
-            return false;
-        boolean bit = (bits_[pos_] & selector) != 0;
-        ++num_used_bits_;
-        if (num_used_bits_ == 32)
+        if (cache_bits_ == 0)
         {
-            ++pos_;
-            this.num_used_bits_ = 0;
+            this.refill();
+            if (cache_bits_ == 0)
+                return false;
         }
         
-        
+        boolean bit = cache_ < 0;
+        cache_ <<= 1;
+        --cache_bits_;
         return bit;
     }
     
     // Decode the next |nbits| and return the sequence in |value|. |nbits| must be
-    // > 0 and <= 32.
+    // > 0 and <= 32. Nothing is consumed and 0 is returned when fewer bits are left.
     // 
     public int decodeLeastSignificantBits32(int nbits)
     {
-        int remaining = 32 - num_used_bits_;
-        int value = 0;
-        if (nbits <= remaining)
-        {
-            if (pos_ == bits_.length)
-                return 0;
-            
-            value = (int)(bits_[pos_] << num_used_bits_ >>> (32 - nbits));
-            num_used_bits_ += nbits;
-            if (num_used_bits_ == 32)
-            {
-                ++pos_;
-                this.num_used_bits_ = 0;
-            }
-            
-        }
-        else
+        if (nbits == 0)
+            return 0;
+        if (cache_bits_ < nbits)
         {
-            if (pos_ + 1 == bits_.length)
+            this.refill();
+            if (cache_bits_ < nbits)
                 return 0;
-            int value_l = bits_[pos_] << num_used_bits_;
-            this.num_used_bits_ = nbits - remaining;
-            ++pos_;
-            int value_r = bits_[pos_] >>> (32 - num_used_bits_);
-            value = value_l >>> (32 - num_used_bits_ - remaining) | value_r;
         }
         
-        
+        int value = (int)(cache_ >>> (64 - nbits));
+        cache_ <<= nbits;
+        cache_bits_ -= nbits;
         return value;
     }
     
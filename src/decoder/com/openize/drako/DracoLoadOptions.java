@@ -1,7 +1,206 @@
 package com.openize.drako;
-class DracoLoadOptions
+/**
+ *  Options that control how a draco payload is decoded.
+ *
+ */
+public class DracoLoadOptions
 {    
-    public boolean skipAttributeTransform = false;
-    public boolean flipTextureCoordinateV = true;
+    /**
+     *  Keep the attributes in their portable integer form instead of transforming them
+     *  back to their original format (e.g. dequantizing positions), default value is false.
+     *  The parameters to dequantize the values are given by {@link com.openize.drako.PointAttribute#getQuantizationInfo()},
+     *  sinks of the decode target receive the integer values.
+     *
+     * @return  Keep the attributes in their portable integer form, default value is false.
+     */
+    public boolean getSkipAttributeTransform()
+    {
+        return this.skipAttributeTransform;
+    }
+    
+    /**
+     *  Keep the attributes in their portable integer form instead of transforming them
+     *  back to their original format (e.g. dequantizing positions), default value is false.
+     *  The parameters to dequantize the values are given by {@link com.openize.drako.PointAttribute#getQuantizationInfo()},
+     *  sinks of the decode target receive the integer values.
+     *
+     * @param value New value
+     */
+    public void setSkipAttributeTransform(boolean value)
+    {
+        this.skipAttributeTransform = value;
+    }
+    
+    private boolean skipAttributeTransform = false;
+    /**
+     *  Flip the V texture coordinate, default value is true.
+     *
+     * @return  Flip the V texture coordinate, default value is true.
+     */
+    public boolean getFlipTextureCoordinateV()
+    {
+        return this.flipTextureCoordinateV;
+    }
+    
+    /**
+     *  Flip the V texture coordinate, default value is true.
+     *
+     * @param value New value
+     */
+    public void setFlipTextureCoordinateV(boolean value)
+    {
+        this.flipTextureCoordinateV = value;
+    }
+    
+    private boolean flipTextureCoordinateV = true;
+    /**
+     *  Buffers that receive the decoded attribute values, or null to decode into the attributes.
+     *
+     * @return  Buffers that receive the decoded attribute values, or null to decode into the attributes.
+     */
+    public DracoDecodeTarget getDecodeTarget()
+    {
+        return this.decodeTarget;
+    }
+    
+    /**
+     *  Buffers that receive the decoded attribute values, or null to decode into the attributes.
+     *
+     * @param value New value
+     */
+    public void setDecodeTarget(DracoDecodeTarget value)
+    {
+        this.decodeTarget = value;
+    }
+    
+    private DracoDecodeTarget decodeTarget;
+    /**
+     *  Reconstruct and transform the attributes of large meshes concurrently on the fork-join pool, default value is true.
+     *
+     * @return  Reconstruct and transform the attributes of large meshes concurrently on the fork-join pool, default value is true.
+     */
+    public boolean getParallelAttributeDecoding()
+    {
+        return this.parallelAttributeDecoding;
+    }
+    
+    /**
+     *  Reconstruct and transform the attributes of large meshes concurrently on the fork-join pool, default value is true.
+     *
+     * @param value New value
+     */
+    public void setParallelAttributeDecoding(boolean value)
+    {
+        this.parallelAttributeDecoding = value;
+    }
+    
+    private boolean parallelAttributeDecoding = true;
+    /**
+     *  Allocator of the storage of the decoded attribute values, or null to store them in heap arrays.
+     *  The values are kept in chunks from {@link com.openize.drako.DracoAllocator#allocateBuffer(int)},
+     *  so {@link com.openize.drako.DracoAllocator#direct()} moves them out of the Java heap, see {@link com.openize.drako.DataBuffer#offHeap()}.
+     *  The quantized values the attributes are decoded from are stored the same way.
+     *
+     * @return  Allocator of the storage of the decoded attribute values, or null to store them in heap arrays.
+     */
+    public DracoAllocator getAttributeAllocator()
+    {
+        return this.attributeAllocator;
+    }
+    
+    /**
+     *  Allocator of the storage of the decoded attribute values, or null to store them in heap arrays.
+     *  The values are kept in chunks from {@link com.openize.drako.DracoAllocator#allocateBuffer(int)},
+     *  so {@link com.openize.drako.DracoAllocator#direct()} moves them out of the Java heap, see {@link com.openize.drako.DataBuffer#offHeap()}.
+     *  The quantized values the attributes are decoded from are stored the same way.
+     *
+     * @param value New value
+     */
+    public void setAttributeAllocator(DracoAllocator value)
+    {
+        this.attributeAllocator = value;
+    }
+    
+    private DracoAllocator attributeAllocator;
+    /**
+     *  Types of the attributes to decode, defined by {@link com.openize.drako.AttributeType}.
+     *  When this or the attribute unique ids are set, only the selected attributes are kept in the
+     *  decoded geometry and the values of the other attributes are skipped as far as the format allows.
+     *  Null selects no attribute by type.
+     *
+     * @return  Types of the attributes to decode, null selects no attribute by type.
+     */
+    public int[] getAttributeTypes()
+    {
+        return this.attributeTypes;
+    }
+    
+    /**
+     *  Types of the attributes to decode, defined by {@link com.openize.drako.AttributeType}.
+     *  When this or the attribute unique ids are set, only the selected attributes are kept in the
+     *  decoded geometry and the values of the other attributes are skipped as far as the format allows.
+     *  Null selects no attribute by type.
+     *
+     * @param value New value
+     */
+    public void setAttributeTypes(int[] value)
+    {
+        this.attributeTypes = value;
+    }
+    
+    private int[] attributeTypes;
+    /**
+     *  Unique ids of the attributes to decode, see {@link #getAttributeTypes()}.
+     *  Null selects no attribute by unique id.
+     *
+     * @return  Unique ids of the attributes to decode, null selects no attribute by unique id.
+     */
+    public int[] getAttributeUniqueIds()
+    {
+        return this.attributeUniqueIds;
+    }
+    
+    /**
+     *  Unique ids of the attributes to decode, see {@link #getAttributeTypes()}.
+     *  Null selects no attribute by unique id.
+     *
+     * @param value New value
+     */
+    public void setAttributeUniqueIds(int[] value)
+    {
+        this.attributeUniqueIds = value;
+    }
+    
+    private int[] attributeUniqueIds;
+    /**
+     *  Returns true if the caller asked for given attribute.
+     *
+     */
+    boolean isAttributeRequested(GeometryAttribute attribute)
+    {
+        if (attributeTypes == null && (attributeUniqueIds == null))
+            return true;
+        if (attributeTypes != null)
+        {
+            for (int type : attributeTypes)
+            {
+                if (type == attribute.getAttributeType())
+                    return true;
+            }
+            
+        }
+        
+        if (attributeUniqueIds != null)
+        {
+            for (int id : attributeUniqueIds)
+            {
+                if (id == (0xffff & attribute.getUniqueId()))
+                    return true;
+            }
+            
+        }
+        
+        return false;
+    }
     
 }
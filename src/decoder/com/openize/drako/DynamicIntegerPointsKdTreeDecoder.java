@@ -104,6 +104,31 @@ class DynamicIntegerPointsKdTreeDecoder
         half_decoder_.endDecoding();
     }
     
+    /**
+     *  Reads past the encoded points without decoding them, the bit decoders consume their data when they're started.
+     *
+     */
+    public void skipPoints(DecoderBuffer buffer)
+        throws DrakoException
+    {
+        this.bit_length_ = buffer.decodeI32();
+        if (bit_length_ > 32)
+            throw DracoUtils.failed();
+        this.num_points_ = buffer.decodeI32();
+        
+        if (num_points_ == 0)
+            return;
+        numbers_decoder_.startDecoding(buffer);
+        remaining_bits_decoder_.startDecoding(buffer);
+        axis_decoder_.startDecoding(buffer);
+        half_decoder_.startDecoding(buffer);
+        
+        numbers_decoder_.endDecoding();
+        remaining_bits_decoder_.endDecoding();
+        axis_decoder_.endDecoding();
+        half_decoder_.endDecoding();
+    }
+    
     int getAxis(int num_remaining_points, int[] levels, int last_axis)
     {
         boolean select_axis = compression_level_t == 6;
@@ -25,7 +25,9 @@ class KdTreeAttributesDecoder extends AttributesDecoder
             PointAttribute att = this.getDecoder().getPointCloud().attribute(att_id);
             // All attributes have the same number of values and identity mapping
             // between PointIndex and AttributeValueIndex.
-            att.reset(num_points);
+            // Dequantized values can be stored straight into the caller's sink.
+            boolean toSink = att.getDataType() == DataType.FLOAT32 && (this.getDecoder().getAttributeSink(att_id) != null);
+            att.reset(num_points, !toSink);
             att.setIdentityMapping(true);
             PointAttribute target_att = null;
             if (att.getDataType() == DataType.UINT32 || (att.getDataType() == DataType.UINT16) || (att.getDataType() == DataType.UINT8))
@@ -47,9 +49,7 @@ class KdTreeAttributesDecoder extends AttributesDecoder
             }
             else if (att.getDataType() == DataType.FLOAT32)
             {
-                PointAttribute port_att = new PointAttribute(att.getAttributeType(), DataType.UINT32, att.getComponentsCount(), false, att.getComponentsCount() * DracoUtils.dataTypeLength(DataType.UINT32), 0);
-                port_att.setIdentityMapping(true);
-                port_att.reset(num_points);
+                PointAttribute port_att = buffer.getScratch().getPortableAttribute(att_id, att.getAttributeType(), DataType.UINT32, att.getComponentsCount(), num_points, this.getDecoder().options.getAttributeAllocator());
                 quantized_portable_attributes_.add(port_att);
                 target_att = port_att;
             }
@@ -67,6 +67,35 @@ class KdTreeAttributesDecoder extends AttributesDecoder
         decoder.decodePoints(buffer, out_it);
     }
     
+    @Override
+    public boolean probeAttributes(DecoderBuffer buffer)
+        throws DrakoException
+    {
+        if (buffer.getBitstreamVersion() < 23)
+            return false;
+        byte compression_level = buffer.decodeU8();
+        int total_dimensionality = 0;
+        for (int i = 0; i < this.getNumAttributes(); ++i)
+        {
+            PointAttribute att = this.getDecoder().getPointCloud().attribute(this.getAttributeId(i));
+            if (att.getDataType() == DataType.INT32 || (att.getDataType() == DataType.INT16) || (att.getDataType() == DataType.INT8))
+            {
+                for (int c = 0; c < att.getComponentsCount(); ++c)
+                {
+                    min_signed_values_.add(0);
+                }
+                
+            }
+            
+            total_dimensionality += att.getComponentsCount();
+        }
+        
+        DynamicIntegerPointsKdTreeDecoder decoder = new DynamicIntegerPointsKdTreeDecoder(0xff & compression_level, total_dimensionality);
+        decoder.skipPoints(buffer);
+        this.decodeDataNeededByPortableTransforms(buffer);
+        return true;
+    }
+    
     @Override
     protected void decodeDataNeededByPortableTransforms(DecoderBuffer in_buffer)
         throws DrakoException
@@ -91,7 +120,8 @@ class KdTreeAttributesDecoder extends AttributesDecoder
                     AttributeQuantizationTransform transform = new AttributeQuantizationTransform();
                     transform.setParameters(0xff & quantization_bits, min_value, num_components, max_value_dif);
                     int num_transforms = attribute_quantization_transforms_.size();
-                    transform.transferToAttribute(quantized_portable_attributes_.get(num_transforms));
+                    // A probing decoder has no portable attributes, the parameters are attached to the attribute itself.
+                    transform.transferToAttribute(this.getDecoder().probing ? att : quantized_portable_attributes_.get(num_transforms));
                     attribute_quantization_transforms_.add(transform);
                 }
                 
@@ -174,6 +204,7 @@ class KdTreeAttributesDecoder extends AttributesDecoder
     
     @Override
     protected void transformAttributesToOriginalFormat()
+        throws DrakoException
     {
         
         if (quantized_portable_attributes_.isEmpty() && (min_signed_values_.getCount() == 0))
@@ -212,7 +243,7 @@ class KdTreeAttributesDecoder extends AttributesDecoder
                 
                 num_processed_quantized_attributes++;
                 
-                if (this.getDecoder().options.skipAttributeTransform)
+                if (this.getDecoder().options.getSkipAttributeTransform())
                 {
                     // Attribute transform should not be performed. In this case, we replace
                     // the output geometry attribute with the portable attribute.
@@ -228,9 +259,24 @@ class KdTreeAttributesDecoder extends AttributesDecoder
                 int entry_size = 4 * num_components;
                 float[] att_val = new float[num_components];
                 int quant_val_id = 0;
-                int out_byte_pos = 0;
+                long out_byte_pos = 0L;
                 Dequantizer dequantizer = new Dequantizer(transform.range_, max_quantized_value);
-                IntSpan portable_attribute_data = src_att.getBuffer().asIntArray();
+                int num_values = src_att.getNumUniqueEntries() * num_components;
+                IntSpan portable_attribute_data = src_att.getBuffer().asIntArray(num_values);
+                AttributeSink sink = this.getDecoder().getAttributeSink(att_id);
+                if (sink != null)
+                {
+                    sink.begin(DataType.FLOAT32, num_values);
+                    for (int j = 0; j < num_values; ++j)
+                    {
+                        float value = dequantizer.dequantizeFloat(portable_attribute_data.get(j));
+                        sink.putFloat(j, value + transform.min_values_[j % num_components]);
+                    }
+                    
+                    sink.end(DataType.FLOAT32, num_values);
+                    continue;
+                }
+                
                 for (int j = 0; j < src_att.getNumUniqueEntries(); ++j)
                 {
                     for (int c = 0; c < num_components; ++c)
@@ -7,6 +7,11 @@ package com.openize.drako;
 abstract class MeshDecoder extends PointCloudDecoder
 {    
     private DracoMesh mesh;
+    /**
+     *  Number of faces stated by the connectivity header.
+     *
+     */
+    private int numEncodedFaces;
     public MeshDecoder()
     {
         super(EncodedGeometryType.TRIANGULAR_MESH);
@@ -17,6 +22,16 @@ abstract class MeshDecoder extends PointCloudDecoder
         return mesh;
     }
     
+    int getNumEncodedFaces()
+    {
+        return numEncodedFaces;
+    }
+    
+    void setNumEncodedFaces(int value)
+    {
+        this.numEncodedFaces = value;
+    }
+    
     /**
      *  The main entry point for mesh decoding.
      *
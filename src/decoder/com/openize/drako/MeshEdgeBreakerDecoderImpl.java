@@ -1,8 +1,8 @@
 package com.openize.drako;
-import com.openize.drako.AsposeUtils;
 import com.openize.drako.Struct;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
 /**
  *  Implementation of the edgebreaker decoder that decodes data encoded with the
  *  MeshEdgeBreakerEncoderImpl class. The implementation of the decoder is based
@@ -27,6 +27,11 @@ import java.util.HashMap;
  */
 class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
 {    
+    /**
+     *  Returned by isTopologySplit when the symbol wasn't part of a topology split.
+     *
+     */
+    private static final long NO_TOPOLOGY_SPLIT = Long.MIN_VALUE;
     /**
      *  Data for non-position attributes used by the decoder.
      *
@@ -88,10 +93,10 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
      */
     private int numProcessedHoleEvents;
     /**
-     *  Configuration of the initial face for each mesh component.
+     *  Configuration of the initial face for each mesh component, indexed like |initCorners|.
      *
      */
-    private ArrayList<Boolean> initFaceConfigurations;
+    private BitSet initFaceConfigurations;
     /**
      *  Initial corner for each traversal.
      *
@@ -119,20 +124,16 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
      */
     private int lastFaceId;
     /**
-     *  Array for marking visited faces.
-     *
-     */
-    private ArrayList<Boolean> visitedFaces;
-    /**
-     *  Array for marking visited vertices.
+     *  Array for marking vertices on open boundaries.
      *
      */
-    private ArrayList<Boolean> visitedVerts;
+    private boolean[] isVertHole;
     /**
-     *  Array for marking vertices on open boundaries.
+     *  Number of vertices that can be created while decoding the connectivity,
+     *  |isVertHole| may be longer when it's reused.
      *
      */
-    private boolean[] isVertHole;
+    private int maxNumVertices;
     /**
      *  The number of new vertices added by the encoder (because of non-manifold
      *  vertices on the input mesh).
@@ -141,12 +142,6 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
      *
      */
     private int numNewVertices;
-    /**
-     *  For every newly added vertex, this array stores it's mapping to the
-     *  parent vertex id of the encoded mesh.
-     *
-     */
-    private HashMap<Integer, Integer> newToParentVertexMap;
     /**
      *  The number of vertices that were encoded (can be different from the number
      *  of vertices of the input mesh).
@@ -254,7 +249,17 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
         DracoMesh mesh = decoder.getMesh();
         PointsSequencer sequencer;
         
-        if (decoderType == (byte)((byte)MeshAttributeElementType.VERTEX))
+        if (decoder.skipConnectivity)
+        {
+            // No connectivity to traverse, the controller is only used to parse the attributes.
+            if (decoderType == (byte)((byte)MeshAttributeElementType.VERTEX) && (attDataId >= 0))
+            {
+                attributeData[0xff & attDataId].isConnectivityUsed = false;
+            }
+            
+            sequencer = null;
+        }
+        else if (decoderType == (byte)((byte)MeshAttributeElementType.VERTEX))
         {
             MeshAttributeIndicesEncodingData encodingData = null;
             if (attDataId < 0)
@@ -309,7 +314,6 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
         throws DrakoException
     {
         this.numNewVertices = 0;
-        newToParentVertexMap.clear();
         if (decoder.getBitstreamVersion() < 22)
         {
             int num_new_verts;
@@ -356,6 +360,7 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
         
         if ((0xffffffffl & numEncodedVertices) > (numFaces * 3))
             throw DracoUtils.failed();
+        decoder.setNumEncodedFaces(numFaces);
         byte numAttributeData = decoder.getBuffer().decodeU8();
         int numEncodedSymbols;
         if (decoder.getBitstreamVersion() < 20)
@@ -391,11 +396,10 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
         
         // Decode topology (connectivity).
         vertexTraversalLength.clear();
-        this.cornerTable = new CornerTable();
+        DecoderScratch scratch = decoder.getBuffer().getScratch();
+        this.cornerTable = scratch.getCornerTable();
         processedCornerIds.clear();
-        processedCornerIds.setCapacity(numFaces);
         processedConnectivityCorners.clear();
-        processedConnectivityCorners.setCapacity(numFaces);
         topologySplitData.clear();
         holeEventData.clear();
         initFaceConfigurations.clear();
@@ -424,8 +428,9 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
         // be marked as non hole vertices. We need to allocate the array larger
         // because split symbols can create extra vertices during the decoding
         // process (these extra vertices are then eliminated during deduplication).
-        this.isVertHole = new boolean[numEncodedVertices + numEncodedSplitSymbols];
-        for (int i = 0; i < isVertHole.length; i++)
+        this.maxNumVertices = numEncodedVertices + numEncodedSplitSymbols;
+        this.isVertHole = scratch.getVertexHoles(maxNumVertices);
+        for (int i = 0; i < maxNumVertices; i++)
         {
             isVertHole[i] = true;
         }
@@ -461,6 +466,18 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
         traversalDecoder.setNumEncodedVertices((int)(numEncodedVertices + numEncodedSplitSymbols));
         traversalDecoder.setNumAttributeData(0xff & numAttributeData);
         DecoderBuffer traversalEndBuffer = traversalDecoder.start();
+        if (decoder.skipConnectivity)
+        {
+            // The traversal end is known without decoding the symbols, which is all a probe needs.
+            decoder.setBuffer(traversalEndBuffer.subBuffer(0));
+            if (decoder.getBitstreamVersion() < 22)
+            {
+                decoder.getBuffer().advance(topologySplitDecodedBytes);
+            }
+            
+            return;
+        }
+        
         int numConnectivityVerts = this.decodeConnectivity(numEncodedSymbols);
         if (numConnectivityVerts == -1)
             throw DracoUtils.failed();
@@ -566,8 +583,8 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
         {
             int numPoints = 0;
             int[] vertexToPointMap;
-            vertexToPointMap = new int[cornerTable.getNumVertices()];
-            DracoUtils.fill(vertexToPointMap, -1);
+            vertexToPointMap = decoder.getBuffer().getScratch().getIntArray(DecoderScratch.VERTEX_TO_POINT_MAP, cornerTable.getNumVertices());
+            Arrays.fill(vertexToPointMap, 0, cornerTable.getNumVertices(), -1);
             // Add faces.
             for (int f = 0; f < decoder.getMesh().getNumFaces(); ++f)
             {
@@ -592,8 +609,10 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
             return true;
         }
         
-        IntList pointToCornerMap = new IntList();
-        int[] cornerToPointMap = new int[cornerTable.getNumCorners()];// A3DUtils.NewArray<int>(cornerTable.NumCorners, 0);
+        DecoderScratch scratch = decoder.getBuffer().getScratch();
+        IntList pointToCornerMap = scratch.getIntList(DecoderScratch.POINT_TO_CORNER_MAP);
+        int[] cornerToPointMap = scratch.getIntArray(DecoderScratch.CORNER_TO_POINT_MAP, cornerTable.getNumCorners());// A3DUtils.NewArray<int>(cornerTable.NumCorners, 0);
+        Arrays.fill(cornerToPointMap, 0, cornerTable.getNumCorners(), 0);
         
         for (int v = 0; v < cornerTable.getNumVertices(); ++v)
         {
@@ -703,8 +722,6 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
         throws DrakoException
     {
         int numTopologySplits;
-        final int[] ref1 = new int[1];
-        final int[] ref2 = new int[1];
         if (decoder.getBitstreamVersion() < 20)
         {
             numTopologySplits = decoderBuffer.decodeU32();
@@ -753,19 +770,7 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
                 long tmp = decoderBuffer.startBitDecoding(false);
                 for (int i = 0; i < (0xffffffffl & numTopologySplits); ++i)
                 {
-                    int edge_data;
-                    if (decoder.getBitstreamVersion() < 22)
-                    {
-                        decoderBuffer.decodeLeastSignificantBits32(2, ref1);
-                        edge_data = ref1[0];
-                    }
-                    else
-                    {
-                        decoderBuffer.decodeLeastSignificantBits32(1, ref2);
-                        edge_data = ref2[0];
-                    }
-                    
-                    
+                    int edge_data = decoderBuffer.readBits(decoder.getBitstreamVersion() < 22 ? 2 : 1);
                     topologySplitData.get(i).sourceEdge = (byte)(edge_data & 1);
                 }
                 
@@ -820,15 +825,13 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
     
     private int decodeConnectivity(int numSymbols)
     {
-        IntList activeCornerStack = new IntList();
-        HashMap<Integer, Integer> topologySplitActiveCorners = new HashMap<Integer, Integer>();
+        DecoderScratch scratch = decoder.getBuffer().getScratch();
+        IntList activeCornerStack = scratch.getIntList(DecoderScratch.ACTIVE_CORNER_STACK);
+        IntIntMap topologySplitActiveCorners = scratch.getTopologySplitActiveCorners();
         boolean removeInvalidVertices = attributeData.length == 0;
-        IntList invalidVertices = new IntList();
-        int maxNumVertices = isVertHole.length;
+        IntList invalidVertices = scratch.getIntList(DecoderScratch.INVALID_VERTICES);
+        int maxNumVertices = this.maxNumVertices;
         int numFaces = 0;
-        final Integer[] ref3 = new Integer[1];
-        final byte[] ref5 = new byte[1];
-        final int[] ref6 = new int[1];
         for (int symbolId = 0; symbolId < numSymbols; ++symbolId)
         {
             int face = numFaces++;
@@ -949,17 +952,12 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
                     return -1;
                 int corner_b = activeCornerStack.get(activeCornerStack.getCount() - 1);
                 activeCornerStack.removeAt(activeCornerStack.getCount() - 1);
-                int tmp;
-                if (AsposeUtils.tryGetValue(topologySplitActiveCorners, symbolId, ref3))
+                int tmp = topologySplitActiveCorners.get(symbolId, Integer.MIN_VALUE);
+                if (tmp != Integer.MIN_VALUE)
                 {
-                    tmp = ref3[0] == null ? 0 : ref3[0];
                     // Topology split event. Move the retrieved edge to the stack.
                     activeCornerStack.add(tmp);
                 }
-                else
-                {
-                    tmp = ref3[0] == null ? 0 : ref3[0];
-                }
                 
                 
                 if (activeCornerStack.getCount() == 0)
@@ -1033,12 +1031,11 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
             if (checkTopologySplit)
             {
                 int encoder_symbol_id = numSymbols - symbolId - 1;
-                byte split_edge;
-                int encoderSplitSymbolId;
-                while (this.isTopologySplit(encoder_symbol_id, ref5, ref6))
+                long split;
+                while ((split = this.isTopologySplit(encoder_symbol_id)) != NO_TOPOLOGY_SPLIT)
                 {
-                    split_edge = ref5[0];
-                    encoderSplitSymbolId = ref6[0];
+                    int split_edge = (int)(split >> 32);
+                    int encoderSplitSymbolId = (int)split;
                     if (encoderSplitSymbolId < 0)
                         return -1;
                     // Wrong split symbol id.
@@ -1057,8 +1054,6 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
                     topologySplitActiveCorners.put(decoderSplitSymbolId, new_active_corner);
                 }
                 
-                split_edge = ref5[0];
-                encoderSplitSymbolId = ref6[0];
             }
             
         }
@@ -1122,7 +1117,7 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
                 }
                 
                 
-                initFaceConfigurations.add(true);
+                initFaceConfigurations.set(initCorners.getCount());
                 initCorners.add(new_corner);
             }
             else
@@ -1130,7 +1125,7 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
                 // The initial face wasn't interior and the traversal had to start from
                 // an open boundary. In this case no new face is added, but we need to
                 // keep record about the first opposite corner to this boundary.
-                initFaceConfigurations.add(false);
+                initFaceConfigurations.clear(initCorners.getCount());
                 initCorners.add(corner);
             }
             
@@ -1186,19 +1181,18 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
     }
     
     /**
-     *  Returns true if the current symbol was part of a topolgy split event. This
+     *  Checks if the current symbol was part of a topolgy split event. This
      *  means that the current face was connected to the left edge of a face
-     *  encoded with the TOPOLOGYS symbol. |outSymbolEdge| can be used to
-     *  identify which edge of the source symbol was connected to the TOPOLOGYS
-     *  symbol.
+     *  encoded with the TOPOLOGYS symbol.
+     *  Returns NO_TOPOLOGY_SPLIT if it wasn't, otherwise the edge of the source
+     *  symbol that was connected to the TOPOLOGYS symbol in the high 32 bits and
+     *  the encoder id of the split symbol in the low 32 bits.
      *
      */
-    private boolean isTopologySplit(int encoderSymbolId, byte[] outFaceEdge, int[] outEncoderSplitSymbolId)
+    private long isTopologySplit(int encoderSymbolId)
     {
-        outFaceEdge[0] = EdgeFaceName.LEFT_FACE_EDGE;
-        outEncoderSplitSymbolId[0] = 0;
         if (topologySplitData.isEmpty())
-            return false;
+            return NO_TOPOLOGY_SPLIT;
         TopologySplitEventData back = topologySplitData.get(topologySplitData.size() - 1);
         if (back.sourceSymbolId > encoderSymbolId)
         {
@@ -1207,17 +1201,19 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
             // (|encoderSymbolId| keeps decreasing).
             // Return invalid symbol id to notify the decoder that there was an
             // error.
-            outEncoderSplitSymbolId[0] = -1;
-            return true;
+            return MeshEdgeBreakerDecoderImpl.packTopologySplit(EdgeFaceName.LEFT_FACE_EDGE, -1);
         }
         
         if (back.sourceSymbolId != encoderSymbolId)
-            return false;
-        outFaceEdge[0] = back.sourceEdge;
-        outEncoderSplitSymbolId[0] = back.splitSymbolId;
+            return NO_TOPOLOGY_SPLIT;
         // Remove the latest split event.
         topologySplitData.remove(topologySplitData.size() - 1);
-        return true;
+        return MeshEdgeBreakerDecoderImpl.packTopologySplit(back.sourceEdge, back.splitSymbolId);
+    }
+    
+    private static long packTopologySplit(int faceEdge, int encoderSplitSymbolId)
+    {
+        return ((long)faceEdge << 32) | (encoderSplitSymbolId & 0xffffffffL);
     }
     
     /**
@@ -1313,15 +1309,12 @@ class MeshEdgeBreakerDecoderImpl implements IMeshEdgeBreakerDecoderImpl
             vertexTraversalLength = new IntList();
             topologySplitData = new ArrayList<TopologySplitEventData>();
             holeEventData = new ArrayList<HoleEventData>();
-            initFaceConfigurations = new ArrayList<Boolean>();
+            initFaceConfigurations = new BitSet();
             initCorners = new IntList();
             vertexIdMap = new IntList();
             lastSymbolId = -1;
             lastVertId = -1;
             lastFaceId = -1;
-            visitedFaces = new ArrayList<Boolean>();
-            visitedVerts = new ArrayList<Boolean>();
-            newToParentVertexMap = new HashMap<Integer, Integer>();
             processedCornerIds = new IntList();
             processedConnectivityCorners = new IntList();
             posEncodingData = new MeshAttributeIndicesEncodingData();
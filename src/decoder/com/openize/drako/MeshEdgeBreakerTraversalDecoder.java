@@ -76,18 +76,10 @@ class MeshEdgeBreakerTraversalDecoder implements ITraversalDecoder
     @Override
     public int decodeSymbol()
     {
-        int s;
-        final int[] ref0 = new int[1];
-        final int[] ref1 = new int[1];
-        symbol_buffer_.decodeLeastSignificantBits32(1, ref0);
-        s = ref0[0];
-        int symbol = s;
-        if (symbol == EdgeBreakerTopologyBitPattern.C)
-            return symbol;
-        int symbolSuffix;
-        symbol_buffer_.decodeLeastSignificantBits32(2, ref1);
-        symbolSuffix = ref1[0];
-        s |= symbolSuffix << 1;
+        int s = symbol_buffer_.readBits(1);
+        if (s == EdgeBreakerTopologyBitPattern.C)
+            return s;
+        s |= symbol_buffer_.readBits(2) << 1;
         return s;
     }
     
@@ -102,13 +94,10 @@ class MeshEdgeBreakerTraversalDecoder implements ITraversalDecoder
     @Override
     public boolean decodeStartFaceConfiguration()
     {
-        final int[] ref2 = new int[1];
         if (this.getBitstreamVersion() < 22)
         {
-            int face_configuration;
-            startFaceBuffer.decodeLeastSignificantBits32(1, ref2);
-            face_configuration = ref2[0];
-            return (0xffffffffl & face_configuration) != 0;
+            int face_configuration = startFaceBuffer.readBits(1);
+            return face_configuration != 0;
         }
         else
         {
@@ -19,8 +19,14 @@ class MeshSequentialDecoder extends MeshDecoder
             numPoints = Decoding.decodeVarintU32(this.buffer);
         }
         
+        this.setNumEncodedFaces(numFaces);
         byte connectivityMethod = this.getBuffer().decodeU8();
-        if (connectivityMethod == 0)
+        if (connectivityMethod == 0 && this.skipConnectivity)
+        {
+            // A probe only needs to get past the indices.
+            Decoding.decodeSymbols(numFaces * 3, 1, this.getBuffer(), null);
+        }
+        else if (connectivityMethod == 0)
         {
             this.decodeAndDecompressIndices(numFaces);
         }
@@ -1,4 +1,5 @@
 package com.openize.drako;
+import java.nio.Buffer;
 import java.util.Arrays;
 abstract class PointCloudDecoder
 {    
@@ -7,9 +8,24 @@ abstract class PointCloudDecoder
     protected AttributesDecoder[] attributesDecoders;
     protected int geometryType;
     DracoLoadOptions options;
+    /**
+     *  Set when only the layout of the geometry is decoded, decoders then skip the
+     *  attribute values wherever their end can be found without decoding them.
+     *
+     */
+    boolean probing;
+    /**
+     *  Set with |probing| when the connectivity isn't needed either, it's then skipped
+     *  wherever its end can be found without decoding it.
+     *
+     */
+    boolean skipConnectivity;
     // Map between attribute id and decoder id.
     // 
     private int[] attributeToDecoderMap;
+    // Sinks of the attributes that are decoded into caller-supplied buffers, indexed by attribute id.
+    // 
+    private AttributeSink[] attributeSinks;
     public int getBitstreamVersion()
     {
         return this.bitstreamVersion;
@@ -140,10 +156,24 @@ abstract class PointCloudDecoder
         //decode attributes
         if (decodeAttributeData)
         {
+            // Kept portable attributes take the data type of the portable form, the original
+            // one decides the range of values their sinks accept.
+            int[] dataTypes = new int[pointCloud.getNumAttributes()];
+            for (int i = 0; i < dataTypes.length; i++)
+            {
+                dataTypes[i] = pointCloud.attribute(i).getDataType();
+            }
+            
             this.decodeAllAttributes();
+            this.storeAttributesIntoSinks(dataTypes);
+        }
+        else if (probing)
+        {
+            this.probeAllAttributes();
         }
         
         this.onAttributesDecoded();
+        this.deleteUnrequestedAttributes();
     }
     
     protected abstract void createAttributesDecoder(int attrDecoderId)
@@ -156,9 +186,147 @@ abstract class PointCloudDecoder
     protected void decodeAllAttributes()
         throws DrakoException
     {
+        // The input is parsed sequentially, the remaining per-attribute work runs afterwards
+        // and can be spread over several threads.
+        AttributeTransformStage stage = new AttributeTransformStage(options == null || options.getParallelAttributeDecoding());
         for (AttributesDecoder dec : attributesDecoders)
         {
-            dec.decodeAttributes(buffer);
+            dec.decodeAttributes(buffer, stage);
+        }
+        
+        stage.run();
+    }
+    
+    /**
+     *  Reads the transform parameters of the attributes without decoding their values.
+     *  The attributes decoders are stored one after another, so the parameters can't be
+     *  reached past a decoder whose values can't be skipped.
+     *
+     */
+    private void probeAllAttributes()
+        throws DrakoException
+    {
+        for (AttributesDecoder dec : attributesDecoders)
+        {
+            if (!dec.probeAttributes(buffer))
+                break;
+        }
+        
+    }
+    
+    /**
+     *  Returns true if the caller asked for the attribute with given id.
+     *
+     */
+    boolean isAttributeRequested(int attId)
+    {
+        return options == null || options.isAttributeRequested(pointCloud.attribute(attId));
+    }
+    
+    /**
+     *  Returns true if the values of given attribute only need to be parsed, not decoded.
+     *  Prediction schemes are only based on positions, so the positions are always decoded.
+     *
+     */
+    boolean canSkipAttributeValues(int attId)
+    {
+        if (this.getBitstreamVersion() < 20 || this.isAttributeRequested(attId))
+            return false;
+        return pointCloud.attribute(attId).getAttributeType() != AttributeType.POSITION;
+    }
+    
+    /**
+     *  Removes the attributes the caller didn't ask for from the decoded geometry.
+     *
+     */
+    private void deleteUnrequestedAttributes()
+    {
+        for (int i = pointCloud.getNumAttributes() - 1; i >= 0; i--)
+        {
+            if (!this.isAttributeRequested(i))
+            {
+                pointCloud.deleteAttribute(i);
+            }
+            
+        }
+        
+    }
+    
+    /**
+     *  Returns the sink that receives the final values of given attribute, or null
+     *  if the attribute is decoded into its own buffer.
+     *
+     */
+    AttributeSink getAttributeSink(int attId)
+    {
+        if (options == null || (options.getDecodeTarget() == null) || options.getSkipAttributeTransform())
+            return null;
+        if (!this.isAttributeRequested(attId))
+            return null;
+        PointAttribute attribute = pointCloud.attribute(attId);
+        // Sinks are registered per attribute type and receive the first attribute of that type.
+        if (pointCloud.getNamedAttributeId(attribute.getAttributeType()) != attId)
+            return null;
+        Buffer target = options.getDecodeTarget().getSink(attribute.getAttributeType());
+        if (target == null)
+            return null;
+        if (attributeSinks == null || (attId >= attributeSinks.length))
+        {
+            attributeSinks = attributeSinks == null ? new AttributeSink[attId + 1] : Arrays.copyOf(attributeSinks, attId + 1);
+        }
+        
+        if (attributeSinks[attId] == null)
+        {
+            attributeSinks[attId] = new AttributeSink(target);
+        }
+        
+        return attributeSinks[attId];
+    }
+    
+    /**
+     *  Copies the attributes that were not stored directly into their sinks.
+     *
+     */
+    private void storeAttributesIntoSinks(int[] dataTypes)
+        throws DrakoException
+    {
+        if (options != null && (options.getDecodeTarget() != null) && options.getSkipAttributeTransform())
+        {
+            this.storePortableAttributesIntoSinks(dataTypes);
+            return;
+        }
+        
+        for (int i = 0; i < pointCloud.getNumAttributes(); i++)
+        {
+            AttributeSink sink = this.getAttributeSink(i);
+            if (sink != null && !sink.getWritten())
+            {
+                sink.copyFrom(pointCloud.attribute(i));
+            }
+            
+        }
+        
+    }
+    
+    /**
+     *  Copies the integer values of the attributes that were kept in their portable form into their sinks.
+     *  |dataTypes| holds the data type of every attribute before it was decoded.
+     *
+     */
+    private void storePortableAttributesIntoSinks(int[] dataTypes)
+        throws DrakoException
+    {
+        for (int i = 0; i < pointCloud.getNumAttributes(); i++)
+        {
+            PointAttribute attribute = pointCloud.attribute(i);
+            if (!this.isAttributeRequested(i) || (pointCloud.getNamedAttributeId(attribute.getAttributeType()) != i))
+                continue;
+            Buffer target = options.getDecodeTarget().getSink(attribute.getAttributeType());
+            if (target != null)
+            {
+                new AttributeSink(target).copyPortableFrom(attribute, dataTypes[i]);
+            }
+            
         }
         
     }
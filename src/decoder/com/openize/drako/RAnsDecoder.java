@@ -1,7 +1,4 @@
 package com.openize.drako;
-import com.openize.drako.HashBuilder;
-import com.openize.drako.Struct;
-import java.io.Serializable;
 /**
  *  Class for performing rANS decoding using a desired number of precision bits.
  *  The number of precision bits needs to be the same as with the RAnsEncoder
@@ -10,131 +7,33 @@ import java.io.Serializable;
  */
 class RAnsDecoder
 {    
-    static final class ransDecSym implements Struct<ransDecSym>, Serializable
-    {
-        int val;
-        int prob;
-        int cumProb;
-        public ransDecSym()
-        {
-        }
-        
-        private ransDecSym(ransDecSym other)
-        {
-            this.val = other.val;
-            this.prob = other.prob;
-            this.cumProb = other.cumProb;
-        }
-        
-        @Override
-        public ransDecSym clone()
-        {
-            return new ransDecSym(this);
-        }
-        
-        @Override
-        public void copyFrom(ransDecSym src)
-        {
-            if (src == null)
-                return;
-            this.val = src.val;
-            this.prob = src.prob;
-            this.cumProb = src.cumProb;
-        }
-        
-        static final long serialVersionUID = 108280464L;
-        @Override
-        public int hashCode()
-        {
-            HashBuilder builder = new HashBuilder();
-            builder.hash(this.val);
-            builder.hash(this.prob);
-            builder.hash(this.cumProb);
-            return builder.hashCode();
-        }
-        
-        @Override
-        public boolean equals(Object obj)
-        {
-            if (!(obj instanceof ransDecSym))
-                return false;
-            ransDecSym rhs = (ransDecSym)obj;
-            if (this.val != rhs.val)
-                return false;
-            if (this.prob != rhs.prob)
-                return false;
-            if (this.cumProb != rhs.cumProb)
-                return false;
-            return true;
-        }
-        
-    }
-    
-    static final class ransSym implements Struct<ransSym>, Serializable
-    {
-        int prob;
-        int cumProb;
-        public ransSym()
-        {
-        }
-        
-        private ransSym(ransSym other)
-        {
-            this.prob = other.prob;
-            this.cumProb = other.cumProb;
-        }
-        
-        @Override
-        public ransSym clone()
-        {
-            return new ransSym(this);
-        }
-        
-        @Override
-        public void copyFrom(ransSym src)
-        {
-            if (src == null)
-                return;
-            this.prob = src.prob;
-            this.cumProb = src.cumProb;
-        }
-        
-        static final long serialVersionUID = 112671L;
-        @Override
-        public int hashCode()
-        {
-            HashBuilder builder = new HashBuilder();
-            builder.hash(this.prob);
-            builder.hash(this.cumProb);
-            return builder.hashCode();
-        }
-        
-        @Override
-        public boolean equals(Object obj)
-        {
-            if (!(obj instanceof ransSym))
-                return false;
-            ransSym rhs = (ransSym)obj;
-            if (this.prob != rhs.prob)
-                return false;
-            if (this.cumProb != rhs.cumProb)
-                return false;
-            return true;
-        }
-        
-    }
-    
     private static final int IO_BASE = 256;
     private int ransPrecisionBits;
     private int ransPrecision;
     private int lRansBase;
+    /**
+     *  Tables the symbols are decoded with, they can be shared with other decoders of the same precision.
+     *
+     */
+    private final RAnsLookupTable table;
     private int[] lutTable;
-    private ransSym[] probabilityTable;
+    private int[] symbolTable;
     private BytePointer buf = new BytePointer();
     private int bufOffset;
     private int state;
     public RAnsDecoder(int ransPrecisionBits)
     {
+        this(ransPrecisionBits, new RAnsLookupTable(ransPrecisionBits));
+    }
+    
+    /**
+     *  Creates a decoder that builds its tables into |table|, which must use |ransPrecisionBits| bits.
+     *  Only one decoder may use a table at a time, a table is owned by the decoder that built it last.
+     *
+     */
+    public RAnsDecoder(int ransPrecisionBits, RAnsLookupTable table)
+    {
+        this.table = table;
         this.ransPrecisionBits = ransPrecisionBits;
         this.ransPrecision = 1 << ransPrecisionBits;
         this.lRansBase = ransPrecision * 4;
@@ -198,62 +97,64 @@ class RAnsDecoder
     
     public int read()
     {
-        int rem;
-        int quo;
-        ransDecSym sym = new ransDecSym();
-        while ((0xffffffffl & this.state) < lRansBase && (this.bufOffset > 0))
+        int state = this.state;
+        while ((0xffffffffl & state) < lRansBase && (this.bufOffset > 0))
         {
-            this.state = (int)(this.state * IO_BASE + (0xff & this.buf.get(--this.bufOffset)));
+            state = (int)(state * IO_BASE + (0xff & this.buf.get(--this.bufOffset)));
         }
         
-        // |ransPrecision| is a power of two compile time constant, and the below
-        // division and modulo are going to be optimized by the compiler.
-        quo = (int)(this.state / ransPrecision);
-        rem = (int)(this.state % ransPrecision);
-        this.fetchSym(sym, rem);
-        this.state = (int)(quo * sym.prob + rem - sym.cumProb);
-        return sym.val;
+        // The state never exceeds 30 bits, so the division and modulo by the
+        // power of two |ransPrecision| are done with a shift and a mask.
+        int quo = state >>> ransPrecisionBits;
+        int rem = state & (ransPrecision - 1);
+        int symbol = lutTable[rem];
+        this.state = quo * symbolTable[symbol * 2] + rem - symbolTable[symbol * 2 + 1];
+        return symbol;
     }
     
     /**
-     *  Construct a look up table with |ransPrecision| number of entries.
-     *  Returns false if the table couldn't be built (because of wrong input data).
+     *  Decodes |count| symbols into |out| starting at |offset|, same as calling read() |count| times.
      *
      */
-    public boolean buildLookupTable(int[] tokenProbs, int numSymbols)
+    public void read(int[] out, int offset, int count)
     {
-        this.lutTable = new int[ransPrecision];
-        this.probabilityTable = (ransSym[])(MetaClasses.ransSym.newArray(numSymbols));
-        int cumProb = 0;
-        int actProb = 0;
-        for (int i = 0; i < numSymbols; ++i)
-        {
-            ransSym sym = new ransSym();
-            sym.prob = tokenProbs[i];
-            sym.cumProb = cumProb;
-            probabilityTable[i] = Struct.byVal(sym);
-            cumProb += tokenProbs[i];
-            if ((0xffffffffl & cumProb) > ransPrecision)
-                return false;
-            for (int j = actProb; j < (0xffffffffl & cumProb); ++j)
+        int[] lutTable = this.lutTable;
+        int[] symbolTable = this.symbolTable;
+        BytePointer buf = this.buf;
+        int precisionBits = ransPrecisionBits;
+        int mask = ransPrecision - 1;
+        int base = lRansBase;
+        int state = this.state;
+        int bufOffset = this.bufOffset;
+        for (int i = offset, end = offset + count; i < end; i++)
+        {
+            while ((0xffffffffl & state) < base && (bufOffset > 0))
             {
-                lutTable[j] = i;
+                state = state * IO_BASE + (0xff & buf.get(--bufOffset));
             }
             
-            actProb = cumProb;
+            int rem = state & mask;
+            int symbol = lutTable[rem];
+            state = (state >>> precisionBits) * symbolTable[symbol * 2] + rem - symbolTable[symbol * 2 + 1];
+            out[i] = symbol;
         }
         
-        if ((0xffffffffl & cumProb) != ransPrecision)
-            return false;
-        return true;
+        this.state = state;
+        this.bufOffset = bufOffset;
     }
     
-    private void fetchSym(ransDecSym res, int rem)
+    /**
+     *  Construct a look up table with |ransPrecision| number of entries.
+     *  Returns false if the table couldn't be built (because of wrong input data).
+     *
+     */
+    public boolean buildLookupTable(int[] tokenProbs, int numSymbols)
     {
-        int symbol = lutTable[rem];
-        res.val = symbol;
-        res.prob = probabilityTable[symbol].prob;
-        res.cumProb = probabilityTable[symbol].cumProb;
+        if (!table.build(tokenProbs, numSymbols))
+            return false;
+        this.lutTable = table.getLut();
+        this.symbolTable = table.getSymbols();
+        return true;
     }
     
 }
@@ -0,0 +1,102 @@
+package com.openize.drako;
+/**
+ *  Decoding tables of a rANS probability distribution for a fixed number of precision bits.
+ *  The tables are large (one entry per precision slot) and the same distribution is often
+ *  decoded several times in a row, so a table remembers what it was built from and skips
+ *  building it again for an identical distribution.
+ *
+ */
+final class RAnsLookupTable
+{    
+    private final int ransPrecision;
+    /**
+     *  Symbol of each of the |ransPrecision| slots.
+     *
+     */
+    private int[] lut;
+    /**
+     *  Probability and cumulative probability of each symbol stored next to each other,
+     *  so fetching a symbol touches a single flat array instead of a table of objects.
+     *
+     */
+    private int[] symbols;
+    /**
+     *  Number of symbols the tables were built for, -1 when the tables don't hold a valid distribution.
+     *
+     */
+    private int numSymbols = -1;
+    public RAnsLookupTable(int ransPrecisionBits)
+    {
+        this.ransPrecision = 1 << ransPrecisionBits;
+    }
+    
+    public int[] getLut()
+    {
+        return lut;
+    }
+    
+    public int[] getSymbols()
+    {
+        return symbols;
+    }
+    
+    /**
+     *  Builds the tables for given symbol probabilities.
+     *  Returns false if the table couldn't be built (because of wrong input data).
+     *
+     */
+    public boolean build(int[] tokenProbs, int numSymbols)
+    {
+        if (numSymbols < 0)
+            return false;
+        if (this.isBuiltFrom(tokenProbs, numSymbols))
+            return true;
+        this.numSymbols = -1;
+        // The tables are reused, every entry that can be fetched is overwritten below.
+        if (lut == null)
+        {
+            this.lut = new int[ransPrecision];
+        }
+        
+        if (symbols == null || (symbols.length < numSymbols * 2))
+        {
+            this.symbols = new int[numSymbols * 2];
+        }
+        
+        int cumProb = 0;
+        int actProb = 0;
+        for (int i = 0; i < numSymbols; ++i)
+        {
+            symbols[i * 2] = tokenProbs[i];
+            symbols[i * 2 + 1] = cumProb;
+            cumProb += tokenProbs[i];
+            if ((0xffffffffl & cumProb) > ransPrecision)
+                return false;
+            for (int j = actProb; j < (0xffffffffl & cumProb); ++j)
+            {
+                lut[j] = i;
+            }
+            
+            actProb = cumProb;
+        }
+        
+        if ((0xffffffffl & cumProb) != ransPrecision)
+            return false;
+        this.numSymbols = numSymbols;
+        return true;
+    }
+    
+    private boolean isBuiltFrom(int[] tokenProbs, int numSymbols)
+    {
+        if (this.numSymbols != numSymbols)
+            return false;
+        for (int i = 0; i < numSymbols; ++i)
+        {
+            if (symbols[i * 2] != tokenProbs[i])
+                return false;
+        }
+        
+        return true;
+    }
+    
+}
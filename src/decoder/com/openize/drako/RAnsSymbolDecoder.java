@@ -8,16 +8,50 @@ class RAnsSymbolDecoder extends RAnsBitCodec
     private int numSymbols;
     private RAnsDecoder ans;
     public RAnsSymbolDecoder(int maxSymbolBitLength)
+    {
+        this(maxSymbolBitLength, null);
+    }
+    
+    /**
+     *  Creates a decoder that builds its lookup table through |tables|, null to give the decoder its own table.
+     *
+     */
+    public RAnsSymbolDecoder(int maxSymbolBitLength, DecoderScratch tables)
     {
         this.maxSymbolBitLength = maxSymbolBitLength;
         this.maxSymbols = 1 << maxSymbolBitLength;
         int ransPrecisionBits = RAnsBitCodec.computeRAnsPrecisionFromMaxSymbolBitLength(maxSymbolBitLength);
         this.ransPrecision = 1 << ransPrecisionBits;
-        this.ans = new RAnsDecoder(ransPrecisionBits);
+        this.ans = tables == null ? new RAnsDecoder(ransPrecisionBits) : new RAnsDecoder(ransPrecisionBits, tables.getLookupTable(ransPrecisionBits));
     }
     
     public void create(DecoderBuffer buffer)
         throws DrakoException
+    {
+        if (!this.decodeProbabilityTable(buffer))
+            return;
+        if (!ans.buildLookupTable(probabilityTable, numSymbols))
+            throw DracoUtils.failed();
+    }
+    
+    /**
+     *  Moves |buffer| past the probability table and the encoded symbols without decoding them.
+     *
+     */
+    public void skip(DecoderBuffer buffer)
+        throws DrakoException
+    {
+        this.decodeProbabilityTable(buffer);
+        long bytesEncoded = this.decodeBytesEncoded(buffer);
+        buffer.advance((int)bytesEncoded);
+    }
+    
+    /**
+     *  Decodes the probability table, returns false if there are no symbols.
+     *
+     */
+    private boolean decodeProbabilityTable(DecoderBuffer buffer)
+        throws DrakoException
     {
         if (buffer.getBitstreamVersion() == 0)
             throw DracoUtils.failed();
@@ -32,9 +66,16 @@ class RAnsSymbolDecoder extends RAnsBitCodec
             this.numSymbols = n;
         }
         
-        this.probabilityTable = new int[numSymbols];
+        if (numSymbols < 0)
+            throw DracoUtils.failed();
+        // Every probability is decoded below, the table of a recycled decoder is reused.
+        if (probabilityTable == null || (probabilityTable.length < numSymbols))
+        {
+            this.probabilityTable = new int[numSymbols];
+        }
+        
         if (numSymbols == 0)
-            return;
+            return false;
         // Decode the table.
         for (int i = 0; i < numSymbols; ++i)
         {
@@ -71,12 +112,26 @@ class RAnsSymbolDecoder extends RAnsBitCodec
             probabilityTable[i] = prob;
         }
         
-        if (!ans.buildLookupTable(probabilityTable, numSymbols))
-            throw DracoUtils.failed();
+        return true;
     }
     
     public void startDecoding(DecoderBuffer buffer)
         throws DrakoException
+    {
+        long bytesEncoded = this.decodeBytesEncoded(buffer);
+        BytePointer dataHead = BytePointer.add(buffer.getPointer(), buffer.getDecodedSize());
+        // Advance the buffer past the rANS data.
+        buffer.advance((int)bytesEncoded);
+        if (ans.readInit(dataHead, (int)bytesEncoded) != 0)
+            throw DracoUtils.failed();
+    }
+    
+    /**
+     *  Decodes the number of bytes encoded by the encoder.
+     *
+     */
+    private long decodeBytesEncoded(DecoderBuffer buffer)
+        throws DrakoException
     {
         long bytesEncoded;
         // Decode the number of bytes encoded by the encoder.
@@ -93,11 +148,7 @@ class RAnsSymbolDecoder extends RAnsBitCodec
         
         if (bytesEncoded > buffer.getRemainingSize())
             throw DracoUtils.failed();
-        BytePointer dataHead = BytePointer.add(buffer.getPointer(), buffer.getDecodedSize());
-        // Advance the buffer past the rANS data.
-        buffer.advance((int)bytesEncoded);
-        if (ans.readInit(dataHead, (int)bytesEncoded) != 0)
-            throw DracoUtils.failed();
+        return bytesEncoded;
     }
     
     public int getNumSymbols()
@@ -110,6 +161,24 @@ class RAnsSymbolDecoder extends RAnsBitCodec
         return ans.read();
     }
     
+    /**
+     *  Decodes the next |n| symbols into |out|.
+     *
+     */
+    public void decodeSymbols(int[] out, int n)
+    {
+        ans.read(out, 0, n);
+    }
+    
+    /**
+     *  Decodes the next |n| symbols into |out| starting at |offset|.
+     *
+     */
+    public void decodeSymbols(int[] out, int offset, int n)
+    {
+        ans.read(out, offset, n);
+    }
+    
     public void endDecoding()
     {
         ans.readEnd();
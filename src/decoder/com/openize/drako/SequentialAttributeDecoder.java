@@ -10,6 +10,11 @@ class SequentialAttributeDecoder
     protected PointAttribute attribute;
     PointAttribute portableAttribute;
     private int attributeId;
+    /**
+     *  Ids of the attributes the prediction scheme depends on.
+     *
+     */
+    private int[] parentAttributeIds;
     public void initialize(PointCloudDecoder decoder, int attributeId)
         throws DrakoException
     {
@@ -60,11 +65,13 @@ class SequentialAttributeDecoder
     protected void initPredictionScheme(PredictionScheme ps)
         throws DrakoException
     {
+        this.parentAttributeIds = new int[ps.getNumParentAttributes()];
         for (int i = 0; i < ps.getNumParentAttributes(); ++i)
         {
             int attId = decoder.getPointCloud().getNamedAttributeId(ps.getParentAttributeType(i));
             if (attId == -1)
                 throw DracoUtils.failed();
+            parentAttributeIds[i] = attId;
             // Requested attribute does not exist.
             PointAttribute parentAttribute;
             if (decoder.getBitstreamVersion() < 20)
@@ -94,13 +101,13 @@ class SequentialAttributeDecoder
         int numValues = pointIds.length;
         int entrySize = attribute.getByteStride();
         byte[] valueData = new byte[entrySize];
-        int outBytePos = 0;
+        long outBytePos = 0L;
         // Decode raw attribute values in their original format.
         for (int i = 0; i < numValues; ++i)
         {
             if (!inBuffer.decode(valueData, entrySize))
                 throw DracoUtils.failed();
-            attribute.getBuffer().write(outBytePos, valueData, entrySize);
+            attribute.getBuffer().write(outBytePos, valueData, 0, entrySize);
             outBytePos += entrySize;
         }
         
@@ -111,22 +118,84 @@ class SequentialAttributeDecoder
     {
         if (attribute.getComponentsCount() <= 0)
             throw DracoUtils.failed();
-        attribute.reset(pointIds.length);
+        // No need to allocate the attribute's storage when the values go to a sink.
+        attribute.reset(pointIds.length, this.getSink() == null);
         this.decodeValues(pointIds, in_buffer);
     }
     
+    /**
+     *  Reads past the values read by decodePortableAttribute() without decoding them.
+     *  |numEntries| is -1 when the number of values isn't known, returns false if the end
+     *  of the values can't be found then.
+     *
+     */
+    public boolean skipPortableAttribute(int numEntries, DecoderBuffer inBuffer)
+        throws DrakoException
+    {
+        if (numEntries < 0)
+            return false;
+        int size = numEntries * attribute.getByteStride();
+        if (inBuffer.getRemainingSize() < size)
+            throw DracoUtils.failed();
+        inBuffer.advance(size);
+        return true;
+    }
+    
+    /**
+     *  Reverts the prediction of the values read by decodePortableAttribute().
+     *  For files with bitstream version 2.0+ this doesn't read the input buffer, so it can run
+     *  concurrently with attributes that don't depend on this one.
+     *
+     */
+    public void reconstructPortableAttribute()
+        throws DrakoException
+    {
+        // Default implementation decodes the final values directly.
+    }
+    
+    /**
+     *  Returns the ids of the attributes that must be reconstructed before this one.
+     *
+     */
+    public int[] getParentAttributeIds()
+    {
+        return parentAttributeIds;
+    }
+    
     public void decodeDataNeededByPortableTransform(int[] pointIds, DecoderBuffer in_buffer)
         throws DrakoException
     {
         // Default implementation does not apply any transform.
     }
     
+    /**
+     *  Returns the attribute that receives the parameters of the portable transform.
+     *  A probing decoder only skips the values, the parameters are then attached to the attribute itself.
+     *
+     */
+    protected PointAttribute getTransformTarget()
+    {
+        if (decoder != null && decoder.probing)
+            return attribute;
+        return this.getPortableAttribute();
+    }
+    
     public void transformAttributeToOriginalFormat(int[] pointIds)
         throws DrakoException
     {
         // Default implementation does not apply any transform.
     }
     
+    /**
+     *  Returns the caller-supplied sink that receives the final values of the
+     *  attribute, or null when they are stored into the attribute's own buffer.
+     *
+     */
+    protected AttributeSink getSink()
+    {
+        return null;
+    }
+    
     public PointAttribute getPortableAttribute()
     {
         // If needed, copy point to attribute value index mapping from the final
@@ -161,6 +230,7 @@ class SequentialAttributeDecoder
         try
         {
             attributeId = -1;
+            parentAttributeIds = new int[0];
         }
         catch(Exception e)
         {
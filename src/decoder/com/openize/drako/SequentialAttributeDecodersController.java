@@ -34,6 +34,54 @@ class SequentialAttributeDecodersController extends AttributesDecoder
         throws DrakoException
     {
         
+        this.prepareSequence();
+        super.decodeAttributes(buffer);
+    }
+    
+    @Override
+    public void decodeAttributes(DecoderBuffer buffer, AttributeTransformStage stage)
+        throws DrakoException
+    {
+        // Files before 2.0 store the final values while parsing the input.
+        if (this.getDecoder().getBitstreamVersion() < 20)
+        {
+            this.decodeAttributes(buffer);
+            return;
+        }
+        
+        this.prepareSequence();
+        this.parsePortableAttributes(buffer);
+        this.decodeDataNeededByPortableTransforms(buffer);
+        for (int i = 0; i < this.getNumAttributes(); ++i)
+        {
+            stage.add(this, i, pointIds.length, this.getDecoder().isAttributeRequested(this.getAttributeId(i)));
+        }
+        
+    }
+    
+    @Override
+    public boolean probeAttributes(DecoderBuffer buffer)
+        throws DrakoException
+    {
+        // Files before 2.0 store the transform data in between the values.
+        if (this.getDecoder().getBitstreamVersion() < 20)
+            return false;
+        // Edgebreaker meshes have no sequencer when their connectivity is skipped, the number
+        // of values is only known after decoding it.
+        int numEntries = sequencer == null ? -1 : sequencer.getSequenceLength();
+        for (int i = 0; i < this.getNumAttributes(); ++i)
+        {
+            if (!sequentialDecoders[i].skipPortableAttribute(numEntries, buffer))
+                return false;
+        }
+        
+        this.decodeDataNeededByPortableTransforms(buffer);
+        return true;
+    }
+    
+    private void prepareSequence()
+        throws DrakoException
+    {
         if (sequencer == null)
             throw DracoUtils.failed();
         this.pointIds = sequencer.generateSequence();
@@ -44,12 +92,23 @@ class SequentialAttributeDecodersController extends AttributesDecoder
             sequencer.updatePointToAttributeIndexMapping(pa);
         }
         
-        super.decodeAttributes(buffer);
     }
     
     @Override
     protected void decodePortableAttributes(DecoderBuffer buffer)
         throws DrakoException
+    {
+        this.parsePortableAttributes(buffer);
+        int num_attributes = this.getNumAttributes();
+        for (int i = 0; i < num_attributes; ++i)
+        {
+            sequentialDecoders[i].reconstructPortableAttribute();
+        }
+        
+    }
+    
+    private void parsePortableAttributes(DecoderBuffer buffer)
+        throws DrakoException
     {
         int num_attributes = this.getNumAttributes();
         for (int i = 0; i < num_attributes; ++i)
@@ -78,27 +137,50 @@ class SequentialAttributeDecodersController extends AttributesDecoder
         int num_attributes = this.getNumAttributes();
         for (int i = 0; i < num_attributes; ++i)
         {
-            // Check whether the attribute transform should be skipped.
-            if (this.getDecoder().options != null)
-            {
-                PointAttribute attribute = sequentialDecoders[i].getAttribute();
-                if (this.getDecoder().options.skipAttributeTransform)
-                {
-                    // Attribute transform should not be performed. In this case, we replace
-                    // the output geometry attribute with the portable attribute.
-                    // TODO(ostava): We can potentially avoid this copy by introducing a new
-                    // mechanism that would allow to use the final attributes as portable
-                    // attributes for predictors that may need them.
-                    sequentialDecoders[i].getAttribute().copyFrom(sequentialDecoders[i].getPortableAttribute());
-                    continue;
-                }
-                
-            }
-            
-            
-            sequentialDecoders[i].transformAttributeToOriginalFormat(pointIds);
+            this.transformAttributeToOriginalFormat(i);
+        }
+        
+    }
+    
+    /**
+     *  Reverts the prediction of the attribute with given local id.
+     *
+     */
+    void reconstructAttribute(int localId)
+        throws DrakoException
+    {
+        sequentialDecoders[localId].reconstructPortableAttribute();
+    }
+    
+    /**
+     *  Returns the ids of the attributes the attribute with given local id is predicted from.
+     *
+     */
+    int[] getParentAttributeIds(int localId)
+    {
+        return sequentialDecoders[localId].getParentAttributeIds();
+    }
+    
+    /**
+     *  Transforms the reconstructed portable attribute with given local id to its final format.
+     *
+     */
+    void transformAttributeToOriginalFormat(int localId)
+        throws DrakoException
+    {
+        // Check whether the attribute transform should be skipped.
+        if (this.getDecoder().options != null && this.getDecoder().options.getSkipAttributeTransform())
+        {
+            // Attribute transform should not be performed. In this case, we replace
+            // the output geometry attribute with the portable attribute.
+            // TODO(ostava): We can potentially avoid this copy by introducing a new
+            // mechanism that would allow to use the final attributes as portable
+            // attributes for predictors that may need them.
+            sequentialDecoders[localId].getAttribute().copyFrom(sequentialDecoders[localId].getPortableAttribute());
+            return;
         }
         
+        sequentialDecoders[localId].transformAttributeToOriginalFormat(pointIds);
     }
     
     protected SequentialAttributeDecoder createSequentialDecoder(int decoderType)
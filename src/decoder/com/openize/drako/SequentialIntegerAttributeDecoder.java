@@ -1,9 +1,13 @@
 package com.openize.drako;
-import com.openize.drako.ByteSpan;
 import com.openize.drako.IntSpan;
 class SequentialIntegerAttributeDecoder extends SequentialAttributeDecoder
 {    
     private PredictionScheme predictionScheme;
+    /**
+     *  Point ids of the parsed values that still need to be reconstructed.
+     *
+     */
+    private int[] pendingPointIds;
     @Override
     protected void decodeValues(int[] pointIds, DecoderBuffer inBuffer)
         throws DrakoException
@@ -33,6 +37,46 @@ class SequentialIntegerAttributeDecoder extends SequentialAttributeDecoder
         
     }
     
+    @Override
+    public boolean skipPortableAttribute(int numEntries, DecoderBuffer inBuffer)
+        throws DrakoException
+    {
+        byte predictionSchemeMethod = inBuffer.decodeI8();
+        if (predictionSchemeMethod != (byte)PredictionSchemeMethod.NONE)
+        {
+            byte predictionTransformType = inBuffer.decodeI8();
+            // The scheme is only needed to parse its data, so it's not initialized with the parent attributes.
+            this.predictionScheme = this.createIntPredictionScheme((int)predictionSchemeMethod, (int)predictionTransformType);
+        }
+        
+        int numComponents = this.getNumValueComponents();
+        if (numComponents <= 0)
+            throw DracoUtils.failed();
+        int numValues = numEntries < 0 ? -1 : numEntries * numComponents;
+        byte compressed = inBuffer.decodeU8();
+        if ((0xff & compressed) > 0)
+        {
+            if (!Decoding.skipSymbols(numValues, numComponents, inBuffer))
+                return false;
+        }
+        else
+        {
+            inBuffer.decodeU8();
+            if (numValues < 0)
+                return false;
+            if (inBuffer.getRemainingSize() < (numValues * 4))
+                throw DracoUtils.failed();
+            inBuffer.advance(numValues * 4);
+        }
+        
+        if (predictionScheme != null)
+        {
+            predictionScheme.decodePredictionData(inBuffer);
+        }
+        
+        return true;
+    }
+    
     protected PredictionScheme createIntPredictionScheme(int method, int transformType)
     {
         if (transformType != PredictionSchemeTransformType.WRAP)
@@ -69,16 +113,25 @@ class SequentialIntegerAttributeDecoder extends SequentialAttributeDecoder
     
     private void preparePortableAttribute(int num_entries, int num_components)
     {
-        PointAttribute va = new PointAttribute();
-        va.setAttributeType(this.attribute.getAttributeType());
-        va.setComponentsCount(this.attribute.getComponentsCount());
-        va.setDataType(DataType.INT32);
-        va.setByteStride(num_components * DracoUtils.dataTypeLength(DataType.INT32));
-        va.setIdentityMapping(true);
-        va.reset(num_entries);
+        // The values are fully overwritten by the decoder, so the storage of the
+        // previous decode call can be reused.
+        DecoderScratch scratch = this.getDecoder().getBuffer().getScratch();
+        DracoLoadOptions options = this.getDecoder().options;
+        DracoAllocator allocator = options != null ? options.getAttributeAllocator() : null;
+        PointAttribute va = scratch.getPortableAttribute(this.getAttributeId(), this.attribute.getAttributeType(), DataType.INT32, this.attribute.getComponentsCount(), num_entries, allocator);
         this.setPortableAttribute(va);
     }
     
+    @Override
+    protected AttributeSink getSink()
+    {
+        // Files before 2.0 store the values while decoding, the final attributes
+        // may still be needed as parent attributes by the prediction schemes.
+        if (this.decoder == null || (this.decoder.getBitstreamVersion() < 20))
+            return null;
+        return this.decoder.getAttributeSink(this.getAttributeId());
+    }
+    
     protected int getNumValueComponents()
     {
         return this.attribute.getComponentsCount();
@@ -97,8 +150,7 @@ class SequentialIntegerAttributeDecoder extends SequentialAttributeDecoder
         
         if (this.getPortableAttribute().getNumUniqueEntries() == 0)
             return null;
-        byte[] buf = this.getPortableAttribute().getBuffer().getBuffer();
-        return ByteSpan.wrap(buf, 0, numValues * 4).asIntSpan();
+        return this.getPortableAttribute().getBuffer().asIntArray(numValues);
     }
     
     public void decodeIntegerValues(int[] pointIds, DecoderBuffer inBuffer)
@@ -115,8 +167,9 @@ class SequentialIntegerAttributeDecoder extends SequentialAttributeDecoder
         byte compressed = inBuffer.decodeU8();
         if ((0xff & compressed) > 0)
         {
-            // Decode compressed values.
-            Decoding.decodeSymbols(numValues, numComponents, inBuffer, values);
+            // Decode compressed values, the values of an attribute the caller didn't ask for are skipped.
+            boolean skip = this.getDecoder() != null && this.getDecoder().canSkipAttributeValues(this.getAttributeId());
+            Decoding.decodeSymbols(numValues, numComponents, inBuffer, skip ? null : values);
         }
         else
         {
@@ -138,6 +191,31 @@ class SequentialIntegerAttributeDecoder extends SequentialAttributeDecoder
         }
         
         
+        if (predictionScheme != null)
+        {
+            predictionScheme.decodePredictionData(inBuffer);
+        }
+        
+        this.pendingPointIds = pointIds;
+        // Files before 2.0 store the values right after decoding them, for newer files
+        // the reconstruction is left to reconstructPortableAttribute().
+        if (this.getDecoder() == null || (this.getDecoder().getBitstreamVersion() < 20))
+        {
+            this.reconstructPortableAttribute();
+        }
+        
+    }
+    
+    @Override
+    public void reconstructPortableAttribute()
+        throws DrakoException
+    {
+        int[] pointIds = pendingPointIds;
+        if (pointIds == null)
+            return;
+        this.pendingPointIds = null;
+        int numComponents = this.getNumValueComponents();
+        IntSpan values = this.getValues(pointIds.length);
         if (predictionScheme == null || !predictionScheme.areCorrectionsPositive())
         {
             // Convert the values back to the original signed format.
@@ -148,7 +226,6 @@ class SequentialIntegerAttributeDecoder extends SequentialAttributeDecoder
         // If the data was encoded with a prediction scheme, we must revert it.
         if (predictionScheme != null)
         {
-            predictionScheme.decodePredictionData(inBuffer);
             predictionScheme.computeOriginalValues(values, values, values.size(), numComponents, pointIds);
         }
         
@@ -199,10 +276,18 @@ class SequentialIntegerAttributeDecoder extends SequentialAttributeDecoder
      *
      */
     private void store8BitsValues(int numValues)
+        throws DrakoException
     {
         int vals = this.getAttribute().getComponentsCount() * numValues;
         IntSpan values = this.getValues(numValues);
-        int outBytePos = 0;
+        AttributeSink sink = this.getSink();
+        if (sink != null)
+        {
+            this.storeIntoSink(sink, values, vals, 1);
+            return;
+        }
+        
+        long outBytePos = 0L;
         for (int i = 0; i < vals; ++i)
         {
             // Store the integer value into the attribute buffer.
@@ -213,10 +298,18 @@ class SequentialIntegerAttributeDecoder extends SequentialAttributeDecoder
     }
     
     private void store16BitsValues(int numValues)
+        throws DrakoException
     {
         int vals = this.getAttribute().getComponentsCount() * numValues;
         IntSpan values = this.getValues(numValues);
-        int outBytePos = 0;
+        AttributeSink sink = this.getSink();
+        if (sink != null)
+        {
+            this.storeIntoSink(sink, values, vals, 2);
+            return;
+        }
+        
+        long outBytePos = 0L;
         for (int i = 0; i < vals; ++i)
         {
             // Store the integer value into the attribute buffer.
@@ -227,10 +320,18 @@ class SequentialIntegerAttributeDecoder extends SequentialAttributeDecoder
     }
     
     private void store32BitsValues(int numValues)
+        throws DrakoException
     {
         int vals = this.getAttribute().getComponentsCount() * numValues;
         IntSpan values = this.getValues(numValues);
-        int outBytePos = 0;
+        AttributeSink sink = this.getSink();
+        if (sink != null)
+        {
+            this.storeIntoSink(sink, values, vals, 4);
+            return;
+        }
+        
+        long outBytePos = 0L;
         for (int i = 0; i < vals; ++i)
         {
             // Store the integer value into the attribute buffer.
@@ -240,5 +341,22 @@ class SequentialIntegerAttributeDecoder extends SequentialAttributeDecoder
         
     }
     
+    /**
+     *  Stores decoded values directly into the caller-supplied sink.
+     *
+     */
+    private void storeIntoSink(AttributeSink sink, IntSpan values, int vals, int size)
+        throws DrakoException
+    {
+        int dataType = this.getAttribute().getDataType();
+        sink.begin(dataType, vals);
+        for (int i = 0; i < vals; ++i)
+        {
+            sink.putInt(i, values.get(i), size);
+        }
+        
+        sink.end(dataType, vals);
+    }
+    
     
 }
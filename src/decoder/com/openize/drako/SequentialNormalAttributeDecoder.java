@@ -1,8 +1,12 @@
 package com.openize.drako;
-import com.openize.drako.ByteSpan;
 import com.openize.drako.IntSpan;
 class SequentialNormalAttributeDecoder extends SequentialIntegerAttributeDecoder
 {    
+    /**
+     *  Number of normals converted at once by storeValues().
+     *
+     */
+    private static final int NORMAL_BLOCK_SIZE = 1024;
     private int quantizationBits;
     @Override
     protected int getNumValueComponents()
@@ -48,101 +52,52 @@ class SequentialNormalAttributeDecoder extends SequentialIntegerAttributeDecoder
         }
         
         AttributeOctahedronTransform octahedral_transform = new AttributeOctahedronTransform(quantizationBits);
-        octahedral_transform.transferToAttribute(this.getPortableAttribute());
+        octahedral_transform.transferToAttribute(this.getTransformTarget());
     }
     
     @Override
     protected void storeValues(int numPoints)
+        throws DrakoException
     {
-        int maxQuantizedValue = (1 << quantizationBits) - 1;
-        float maxQuantizedValueF = (float)maxQuantizedValue;
+        OctahedralNormalTable converter = OctahedralNormalTable.get(quantizationBits, numPoints);
         int numComponents = this.getAttribute().getComponentsCount();
         int entrySize = 4 * numComponents;
-        float[] attVal = new float[3];
-        int quantValId = 0;
-        int outBytePos = 0;
-        IntSpan values = ByteSpan.wrap(this.getPortableAttribute().getBuffer().getBuffer(), 0, numPoints * 2 * 4).asIntSpan();
-        for (int i = 0; i < numPoints; ++i)
+        IntSpan values = this.getPortableAttribute().getBuffer().asIntArray(numPoints * 2);
+        DataBuffer buffer = this.getAttribute().getBuffer();
+        AttributeSink sink = this.getSink();
+        if (sink != null)
         {
-            int s = values.get(quantValId++);
-            int t = values.get(quantValId++);
-            this.quantizedOctaherdalCoordsToUnitVector(s, t, maxQuantizedValueF, attVal);
-            // Store the decoded floating point value into the attribute buffer.
-            this.getAttribute().getBuffer().write(outBytePos, attVal);
-            outBytePos += entrySize;
+            sink.begin(DataType.FLOAT32, numPoints * 3);
         }
         
-    }
-    
-    void octaherdalCoordsToUnitVector(float inS, float inT, float[] outVector)
-    {
-        float s = inS;
-        float t = inT;
-        float spt = s + t;
-        float smt = s - t;
-        float xSign = 1.0f;
-        if (spt >= 0.5f && (spt <= 1.5f) && (smt >= -0.5f) && (smt <= 0.5f))
+        // The normals are converted in blocks that are written to the output at once.
+        int blockSize = Math.min(NORMAL_BLOCK_SIZE, numPoints);
+        int[] coords = new int[blockSize * 2];
+        float[] attVals = new float[blockSize * 3];
+        for (int i = 0; i < numPoints; i += blockSize)
         {
-            // Right hemisphere. Don't do anything.
-        }
-        else
-        {
-            // Left hemisphere.
-            xSign = -1.0f;
-            if (spt <= 0.5)
-            {
-                s = 0.5f - inT;
-                t = 0.5f - inS;
-            }
-            else if (spt >= 1.5f)
+            int count = Math.min(blockSize, numPoints - i);
+            values.get(i * 2, coords, 0, count * 2);
+            converter.decode(coords, 0, attVals, 0, count);
+            if (sink != null)
             {
-                s = 1.5f - inT;
-                t = 1.5f - inS;
-            }
-            else if (smt <= -0.5f)
-            {
-                s = inT - 0.5f;
-                t = inS + 0.5f;
+                sink.putFloats(i * 3, attVals, 0, count * 3);
             }
             else
             {
-                s = inT + 0.5f;
-                t = inS - 0.5f;
+                // Store the decoded floating point values into the attribute buffer.
+                buffer.write((long)i * entrySize, attVals, 0, count * 3);
             }
             
-            spt = s + t;
-            smt = s - t;
         }
         
-        float y = 2.0f * s - 1.0f;
-        float z = 2.0f * t - 1.0f;
-        float x = Math.min(Math.min(2.0f * spt - 1.0f, 3.0f - (2.0f * spt)), Math.min(2.0f * smt + 1.0f, 1.0f - (2.0f * smt))) * xSign;
-        float normSquared = x * x + (y * y) + (z * z);
-        if (normSquared < 1e-6)
-        {
-            outVector[0] = 0F;
-            outVector[1] = 0F;
-            outVector[2] = 0F;
-        }
-        else
+        if (sink != null)
         {
-            float d = 1.0f / (float)Math.sqrt(normSquared);
-            outVector[0] = x * d;
-            outVector[1] = y * d;
-            outVector[2] = z * d;
+            sink.end(DataType.FLOAT32, numPoints * 3);
         }
         
     }
     
-    void quantizedOctaherdalCoordsToUnitVector(int inS, int inT, float maxQuantizedValue, float[] outVector)
-    {
-        // In order to be able to represent the center normal we reduce the range
-        // by one. Also note that we can not simply identify the lower left and the
-        // upper right edge of the tile, which forces us to use one value less.
-        maxQuantizedValue -= 1F;
-        this.octaherdalCoordsToUnitVector(inS / maxQuantizedValue, inT / maxQuantizedValue, outVector);
-    }
-    
     @Override
     protected PredictionScheme createIntPredictionScheme(int method, int transformType)
     {
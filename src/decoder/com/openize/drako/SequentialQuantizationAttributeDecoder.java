@@ -1,5 +1,4 @@
 package com.openize.drako;
-import com.openize.drako.ByteSpan;
 import com.openize.drako.IntSpan;
 class SequentialQuantizationAttributeDecoder extends SequentialIntegerAttributeDecoder
 {    
@@ -36,6 +35,7 @@ class SequentialQuantizationAttributeDecoder extends SequentialIntegerAttributeD
     
     @Override
     protected void storeValues(int numValues)
+        throws DrakoException
     {
         this.dequantizeValues(numValues);
     }
@@ -52,7 +52,7 @@ class SequentialQuantizationAttributeDecoder extends SequentialIntegerAttributeD
         
         AttributeQuantizationTransform transform = new AttributeQuantizationTransform();
         transform.setParameters(quantizationBits, minValue, this.attribute.getComponentsCount(), maxValueDif);
-        transform.transferToAttribute(this.getPortableAttribute());
+        transform.transferToAttribute(this.getTransformTarget());
     }
     
     private void decodeQuantizedDataInfo()
@@ -70,15 +70,34 @@ class SequentialQuantizationAttributeDecoder extends SequentialIntegerAttributeD
     }
     
     private void dequantizeValues(int numValues)
+        throws DrakoException
     {
         int maxQuantizedValue = (1 << quantizationBits) - 1;
         int numComponents = this.getAttribute().getComponentsCount();
         int entrySize = 4 * numComponents;
         float[] attVal = new float[numComponents];
         int quantValId = 0;
-        int outBytePos = 0;
+        long outBytePos = 0L;
         Dequantizer dequantizer = new Dequantizer(maxValueDif, maxQuantizedValue);
-        IntSpan values = ByteSpan.wrap(this.getPortableAttribute().getBuffer().getBuffer(), 0, numValues * numComponents * 4).asIntSpan();
+        IntSpan values = this.getPortableAttribute().getBuffer().asIntArray(numValues * numComponents);
+        AttributeSink sink = this.getSink();
+        if (sink != null)
+        {
+            sink.begin(DataType.FLOAT32, numValues * numComponents);
+            for (int i = 0; i < numValues; ++i)
+            {
+                for (int c = 0; c < numComponents; ++c, ++quantValId)
+                {
+                    float value = dequantizer.dequantizeFloat(values.get(quantValId));
+                    sink.putFloat(quantValId, value + minValue[c]);
+                }
+                
+            }
+            
+            sink.end(DataType.FLOAT32, numValues * numComponents);
+            return;
+        }
+        
         for (int i = 0; (0xffffffffl & i) < numValues; ++i)
         {
             for (int c = 0; c < numComponents; ++c)
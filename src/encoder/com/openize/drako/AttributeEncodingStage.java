@@ -0,0 +1,118 @@
+package com.openize.drako;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+/**
+ *  Encodes the portable attributes of a geometry concurrently.
+ *  Once the connectivity, the point sequences and the portable attributes are known, the prediction and
+ *  entropy coding of one attribute no longer depends on the others, so every attribute is encoded into its
+ *  own buffer on the fork-join pool and the buffers are spliced in the serial order afterwards.
+ *  The output is byte-identical to encoding the attributes one after another.
+ *
+ */
+final class AttributeEncodingStage
+{    
+    /**
+     *  Minimum number of points before the attributes are worth being encoded concurrently.
+     *
+     */
+    static final int MIN_PARALLEL_POINTS = 1 << 14;
+    private final EncoderScratch scratch;
+    private final ArrayList<SequentialAttributeEncodersController> controllers;
+    private final IntList localIds;
+    private EncoderBuffer[] parts;
+    public AttributeEncodingStage(EncoderScratch scratch)
+    {
+        this.scratch = scratch;
+        this.controllers = new ArrayList<SequentialAttributeEncodersController>();
+        this.localIds = new IntList();
+    }
+    
+    /**
+     *  Schedules the attribute with given local id of |controller|, its portable attribute must be prepared already.
+     *
+     */
+    public void add(SequentialAttributeEncodersController controller, int localId)
+    {
+        controllers.add(controller);
+        localIds.add(localId);
+    }
+    
+    /**
+     *  Encodes all scheduled attributes into their own buffers.
+     *  A failure is reported as the error of the first failing attribute in encoding order.
+     *
+     */
+    public void run()
+        throws DrakoException
+    {
+        int n = controllers.size();
+        Task[] tasks = new Task[n];
+        this.parts = new EncoderBuffer[n];
+        for (int i = 0; i < n; i++)
+        {
+            parts[i] = scratch.getPartBuffer(i);
+            tasks[i] = new Task(this, i, parts[i]);
+        }
+        
+        ForkJoinTask.invokeAll(tasks);
+        for (int i = 0; i < n; i++)
+        {
+            Throwable error = tasks[i].error;
+            if (error == null)
+                continue;
+            if (error instanceof DrakoException)
+                throw (DrakoException)error;
+            if (error instanceof RuntimeException)
+                throw (RuntimeException)error;
+            throw (java.lang.Error)error;
+        }
+        
+    }
+    
+    /**
+     *  Appends the encoded data of the |index|-th scheduled attribute to |buffer|.
+     *
+     */
+    public void appendTo(int index, EncoderBuffer buffer)
+    {
+        buffer.encode(parts[index]);
+    }
+    
+    private void encode(int index, EncoderBuffer part)
+        throws DrakoException
+    {
+        controllers.get(index).encodePortableAttribute(localIds.get(index), part);
+    }
+    
+    private static final class Task extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        private final AttributeEncodingStage stage;
+        private final int index;
+        private final EncoderBuffer part;
+        private Throwable error;
+        Task(AttributeEncodingStage stage, int index, EncoderBuffer part)
+        {
+            this.stage = stage;
+            this.index = index;
+            this.part = part;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            try
+            {
+                stage.encode(index, part);
+            }
+            catch(Throwable e)
+            {
+                this.error = e;
+            }
+            
+        }
+        
+    }
+    
+}
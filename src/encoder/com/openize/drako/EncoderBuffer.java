@@ -1,16 +1,47 @@
 package com.openize.drako;
 import com.openize.drako.ByteSpan;
 import com.openize.drako.IntSpan;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
 /**
  *  Class representing a buffer that can be used for either for byte-aligned
  *  encoding of arbitrary data structures or for encoding of varialble-length
  *  bit data.
+ *  The data is stored in a chain of segments, so the output never has to be moved
+ *  when it grows and can be written out without being copied into a single array.
  *
  */
 class EncoderBuffer
 {    
+    /**
+     *  Size at which the last segment is sealed and a new one is started.
+     *  A single reservation is never split, so a segment can be larger than this.
+     *
+     */
+    static final int SEGMENT_SIZE = 1 << 20;
     private BitEncoder bitEncoder;
+    /**
+     *  The last segment, all writes go to it.
+     *
+     */
     private DataBuffer buffer;
+    /**
+     *  Sealed segments in front of |buffer|.
+     *
+     */
+    private ArrayList<DataBuffer> segments;
+    private int sealedBytes;
+    /**
+     *  Segments released by clear() that are reused for the next output.
+     *
+     */
+    private ArrayList<DataBuffer> freeSegments;
     /**
      *  The number of bytes reserved for bit encoder.
      *  Values > 0 indicate we are in the bit encoding mode.
@@ -23,44 +54,40 @@ class EncoderBuffer
      *
      */
     private boolean encodeBitSequenceSize;
+    private EncoderScratch scratch;
     public void encode(short val)
     {
-        int offset = buffer.getLength();
         this.debugBreak(2);
-        buffer.setLength(buffer.getLength() + 2);
+        int offset = this.append(2);
         Unsafe.putLE16(buffer.getBuffer(), offset, val);
     }
     
     public boolean encode(byte val)
     {
-        int offset = buffer.getLength();
         this.debugBreak(1);
-        buffer.setLength(buffer.getLength() + 1);
+        int offset = this.append(1);
         buffer.set(offset, val);
         return true;
     }
     
     public void encode(int val)
     {
-        int offset = buffer.getLength();
         this.debugBreak(4);
-        buffer.setLength(buffer.getLength() + 4);
+        int offset = this.append(4);
         Unsafe.putLE32(buffer.getBuffer(), offset, val);
     }
     
     public void encode(float val)
     {
-        int offset = buffer.getLength();
         this.debugBreak(4);
-        buffer.setLength(buffer.getLength() + 4);
+        int offset = this.append(4);
         Unsafe.putLE32(buffer.getBuffer(), offset, Unsafe.floatToUInt32(val));
     }
     
     public void encode(float[] val)
     {
-        int offset = buffer.getLength();
         this.debugBreak(4 * val.length);
-        buffer.setLength(buffer.getLength() + (4 * val.length));
+        int offset = this.append(4 * val.length);
         for (int i = 0; i < val.length; i++)
         {
             Unsafe.putLE32(buffer.getBuffer(), offset, Unsafe.floatToUInt32(val[i]));
@@ -71,9 +98,8 @@ class EncoderBuffer
     
     public void encode(IntSpan val)
     {
-        int offset = buffer.getLength();
         this.debugBreak(4 * val.size());
-        buffer.setLength(buffer.getLength() + (4 * val.size()));
+        int offset = this.append(4 * val.size());
         for (int i = 0; i < val.size(); i++)
         {
             Unsafe.putLE32(buffer.getBuffer(), offset, val.get(i));
@@ -94,9 +120,8 @@ class EncoderBuffer
     
     public void encode(int[] val, int len)
     {
-        int offset = buffer.getLength();
         this.debugBreak(4 * len);
-        buffer.setLength(buffer.getLength() + (4 * len));
+        int offset = this.append(4 * len);
         for (int i = 0; i < len; i++)
         {
             Unsafe.putLE32(buffer.getBuffer(), offset, val[i]);
@@ -107,20 +132,76 @@ class EncoderBuffer
     
     public void encode(byte[] buffer, int length)
     {
-        int offset = this.buffer.getLength();
+        this.encode(buffer, 0, length);
+    }
+    
+    public void encode(byte[] buffer, int start, int length)
+    {
         this.debugBreak(length);
-        this.buffer.setLength(this.buffer.getLength() + length);
-        System.arraycopy(buffer, 0, this.buffer.getBuffer(), offset, length);
+        int offset = this.append(length);
+        System.arraycopy(buffer, start, this.buffer.getBuffer(), offset, length);
     }
     
     public void encode(ByteSpan buffer, int start, int length)
     {
-        int offset = this.buffer.getLength();
         this.debugBreak(length);
-        this.buffer.setLength(this.buffer.getLength() + length);
+        int offset = this.append(length);
         buffer.slice(start, length).copyTo(ByteSpan.wrap(this.buffer.getBuffer()).slice(offset));
     }
     
+    /**
+     *  Appends the content of |src|.
+     *
+     */
+    public void encode(EncoderBuffer src)
+    {
+        for (DataBuffer segment : src.segments)
+        {
+            this.encode(segment.getBuffer(), 0, segment.getLength());
+        }
+        
+        if (src.buffer.getLength() > 0)
+        {
+            this.encode(src.buffer.getBuffer(), 0, src.buffer.getLength());
+        }
+        
+    }
+    
+    /**
+     *  Extends the last segment by |len| bytes and returns the offset of the first one.
+     *  The segment is sealed first when it's full, unless bits are being encoded into it.
+     *
+     */
+    private int append(int len)
+    {
+        int length = buffer.getLength();
+        if (length > 0 && (length + len > SEGMENT_SIZE) && !this.getBitEncoderActive())
+        {
+            this.seal();
+            length = 0;
+        }
+        
+        buffer.setLength(length + len);
+        return length;
+    }
+    
+    private void seal()
+    {
+        segments.add(buffer);
+        sealedBytes += buffer.getLength();
+        if (freeSegments.isEmpty())
+        {
+            this.buffer = new DataBuffer();
+            buffer.setCapacity(SEGMENT_SIZE);
+        }
+        else
+        {
+            this.buffer = freeSegments.remove(freeSegments.size() - 1);
+        }
+        
+        buffer.clear();
+    }
+    
     private void debugBreak(int len)
     {
         /*
@@ -133,14 +214,37 @@ class EncoderBuffer
     public void clear()
     {
         
+        freeSegments.addAll(segments);
+        segments.clear();
+        this.sealedBytes = 0;
         buffer.clear();
         this.bitEncoderReservedBytes = 0L;
     }
     
     public void resize(int nbytes)
     {
-        this.debugBreak(nbytes - buffer.getLength());
-        buffer.setLength(nbytes);
+        this.debugBreak(nbytes - this.getBytes());
+        buffer.setLength(nbytes - sealedBytes);
+    }
+    
+    /**
+     *  Appends |bytes| bytes and returns the offset of the first one in getData().
+     *  The reserved bytes are contiguous, they can be written through getData() until the buffer is appended to again.
+     *
+     */
+    public int reserve(int bytes)
+    {
+        this.debugBreak(bytes);
+        return this.append(bytes);
+    }
+    
+    /**
+     *  Drops the bytes past |offset| of getData(), used to give back the unused part of a reservation.
+     *
+     */
+    public void truncate(int offset)
+    {
+        buffer.setLength(offset);
     }
     
     /**
@@ -163,19 +267,15 @@ class EncoderBuffer
         // Invalid size.
         this.encodeBitSequenceSize = encodeSize;
         int requiredBytes = (requiredBits + 7) / 8;
+        // Reserve memory for storing the encoded bit sequence size. It will be
+        // filled once the bit encoding ends.
+        int sizeBytes = encodeSize ? 8 : 0;
+        // Resize buffer to fit the maximum size of encoded bit data.
+        int bufferStartSize = this.reserve(sizeBytes + requiredBytes) + sizeBytes;
         this.bitEncoderReservedBytes = requiredBytes;
-        int bufferStartSize = buffer.getLength();
-        if (encodeSize)
-        {
-            // Reserve memory for storing the encoded bit sequence size. It will be
-            // filled once the bit encoding ends.
-            bufferStartSize += 8;
-            //sizeof(long)
-        }
-        
-        // Resize buffer to fit the maximum size of encoded bit data.
-        this.debugBreak(requiredBytes);
-        buffer.setLength(bufferStartSize + requiredBytes);
+        // The bit encoder only touches the bits it writes, clear the reserved bytes so
+        // unused bits are zero even when the storage was used before.
+        Arrays.fill(this.getData(), bufferStartSize, bufferStartSize + requiredBytes, (byte)0);
         BytePointer data = new BytePointer(this.getData(), bufferStartSize);
         this.bitEncoder = new BitEncoder(data);
         return true;
@@ -196,15 +296,13 @@ class EncoderBuffer
         // Encode size if needed.
         if (encodeBitSequenceSize)
         {
-            int out_mem = (int)(this.getBytes() - (bitEncoderReservedBytes + 8L));
-            EncoderBuffer var_size_buffer = new EncoderBuffer();
-            Encoding.encodeVarint(encodedBytes, var_size_buffer);
-            int size_len = var_size_buffer.getBytes();
+            int out_mem = (int)(buffer.getLength() - (bitEncoderReservedBytes + 8L));
+            int size_len = Encoding.getVarintSize(encodedBytes);
             int dst = out_mem + size_len;
             int src = out_mem + 8;
             System.arraycopy(this.getData(), src, this.getData(), dst, (int)encodedBytes);
             // Store the size of the encoded data.
-            System.arraycopy(var_size_buffer.buffer.getBuffer(), 0, this.getData(), out_mem, size_len);
+            Encoding.encodeVarint(encodedBytes, this.getData(), out_mem);
             
             // We need to account for the difference between the preallocated and actual
             // storage needed for storing the encoded length. This will be used later to
@@ -238,8 +336,7 @@ class EncoderBuffer
     
     void encode(IntSpan ints, int bytesOffset, int bytes)
     {
-        int offset = this.buffer.getLength();
-        this.buffer.setLength(this.buffer.getLength() + bytes);
+        int offset = this.append(bytes);
         IntSpan dst = ByteSpan.wrap(buffer.getBuffer(), offset, bytes).asIntSpan();
         ints.slice(bytesOffset / 4, bytes / 4).copyTo(dst);
     }
@@ -249,6 +346,25 @@ class EncoderBuffer
         this.encode(ints, 0, bytes);
     }
     
+    /**
+     *  Gets the working memory shared by the encoders writing into this buffer.
+     *
+     */
+    public EncoderScratch getScratch()
+    {
+        if (scratch == null)
+        {
+            this.scratch = new EncoderScratch();
+        }
+        
+        return scratch;
+    }
+    
+    public void setScratch(EncoderScratch value)
+    {
+        this.scratch = value;
+    }
+    
     public BitEncoder getBitEncoder()
     {
         return bitEncoder;
@@ -256,14 +372,140 @@ class EncoderBuffer
     
     public int getBytes()
     {
-        return buffer.getLength();
+        return sealedBytes + buffer.getLength();
     }
     
+    /**
+     *  Gets the storage of the last segment, which holds the bytes returned by reserve().
+     *
+     */
     public byte[] getData()
     {
         return buffer.getBuffer();
     }
     
+    /**
+     *  Copies the encoded bytes into a new array.
+     *
+     */
+    public byte[] toArray()
+    {
+        byte[] ret = new byte[this.getBytes()];
+        int offset = 0;
+        for (DataBuffer segment : segments)
+        {
+            System.arraycopy(segment.getBuffer(), 0, ret, offset, segment.getLength());
+            offset += segment.getLength();
+        }
+        
+        if (buffer.getLength() > 0)
+        {
+            System.arraycopy(buffer.getBuffer(), 0, ret, offset, buffer.getLength());
+        }
+        
+        return ret;
+    }
+    
+    public void writeTo(OutputStream out)
+        throws IOException
+    {
+        for (DataBuffer segment : segments)
+        {
+            out.write(segment.getBuffer(), 0, segment.getLength());
+        }
+        
+        if (buffer.getLength() > 0)
+        {
+            out.write(buffer.getBuffer(), 0, buffer.getLength());
+        }
+        
+    }
+    
+    public void writeTo(Stream out)
+        throws IOException
+    {
+        for (DataBuffer segment : segments)
+        {
+            out.write(segment.getBuffer(), 0, segment.getLength());
+        }
+        
+        if (buffer.getLength() > 0)
+        {
+            out.write(buffer.getBuffer(), 0, buffer.getLength());
+        }
+        
+    }
+    
+    /**
+     *  Writes the segments to |channel|, with a single gathering write when the channel supports it.
+     *
+     */
+    public void writeTo(WritableByteChannel channel)
+        throws IOException
+    {
+        ByteBuffer[] views = this.views();
+        if (channel instanceof GatheringByteChannel)
+        {
+            GatheringByteChannel gathering = (GatheringByteChannel)channel;
+            long remaining = this.getBytes();
+            int first = 0;
+            while (remaining > 0)
+            {
+                remaining -= gathering.write(views, first, views.length - first);
+                while (first < views.length && !views[first].hasRemaining())
+                {
+                    first++;
+                }
+                
+            }
+            
+            return;
+        }
+        
+        for (ByteBuffer view : views)
+        {
+            while (view.hasRemaining())
+            {
+                channel.write(view);
+            }
+            
+        }
+        
+    }
+    
+    /**
+     *  Puts the encoded bytes into |out| at its position, nothing is written when the remaining space is too small.
+     *
+     */
+    public void writeTo(ByteBuffer out)
+    {
+        if (out.remaining() < this.getBytes())
+            throw new BufferOverflowException();
+        for (DataBuffer segment : segments)
+        {
+            out.put(segment.getBuffer(), 0, segment.getLength());
+        }
+        
+        if (buffer.getLength() > 0)
+        {
+            out.put(buffer.getBuffer(), 0, buffer.getLength());
+        }
+        
+    }
+    
+    private ByteBuffer[] views()
+    {
+        ByteBuffer[] ret = new ByteBuffer[segments.size() + 1];
+        for (int i = 0; i < segments.size(); i++)
+        {
+            ret[i] = ByteBuffer.wrap(segments.get(i).getBuffer(), 0, segments.get(i).getLength());
+        }
+        
+        byte[] last = buffer.getLength() > 0 ? buffer.getBuffer() : new byte[0];
+        ret[segments.size()] = ByteBuffer.wrap(last, 0, buffer.getLength());
+        return ret;
+    }
+    
     public EncoderBuffer()
     {
         this.$initFields$();
@@ -274,6 +516,8 @@ class EncoderBuffer
         try
         {
             buffer = new DataBuffer();
+            segments = new ArrayList<DataBuffer>();
+            freeSegments = new ArrayList<DataBuffer>();
         }
         catch(Exception e)
         {
@@ -0,0 +1,213 @@
+package com.openize.drako;
+import java.util.Arrays;
+import java.util.BitSet;
+/**
+ *  Working memory of the encoders that can be kept across encode calls.
+ *  Nothing handed out by the scratch ends up in the encoded output, so the same
+ *  instance can be reused for the next geometry once an encode call returned.
+ *  Arrays are only grown, they can be longer than requested and keep the content
+ *  of the previous call unless stated otherwise.
+ *  Not thread-safe, a scratch must only be used by one encode call at a time.
+ *
+ */
+final class EncoderScratch
+{    
+    static final int FACES = 0;
+    static final int VERTEX_HOLE_ID = 1;
+    private static final int NUM_SLOTS = 2;
+    private CornerTable cornerTable;
+    private int[][] intArrays;
+    private boolean[] visitedVertices;
+    private boolean[] visitedFaces;
+    private BitSet visitedHoles;
+    private IntIntMap faceToSplitSymbolMap;
+    private long[] frequencies;
+    private RAnsBitCodec.RansSym[] probabilityTable;
+    private EncoderBuffer valueBuffer;
+    private EncoderBuffer[] partBuffers;
+    /**
+     *  Returns the corner table used to encode the connectivity, the caller needs to initialize it.
+     *
+     */
+    public CornerTable getCornerTable()
+    {
+        if (cornerTable == null)
+        {
+            this.cornerTable = new CornerTable();
+        }
+        
+        return cornerTable;
+    }
+    
+    /**
+     *  Returns an array for given slot with at least |size| elements.
+     *
+     */
+    public int[] getIntArray(int slot, int size)
+    {
+        int[] ret = intArrays[slot];
+        if (ret == null || (ret.length < size))
+        {
+            ret = new int[size];
+            intArrays[slot] = ret;
+        }
+        
+        return ret;
+    }
+    
+    /**
+     *  Returns the visited flags of the edgebreaker vertices, the first |size| elements are cleared.
+     *
+     */
+    public boolean[] getVisitedVertices(int size)
+    {
+        if (visitedVertices == null || (visitedVertices.length < size))
+        {
+            this.visitedVertices = new boolean[size];
+        }
+        else
+        {
+            Arrays.fill(visitedVertices, 0, size, false);
+        }
+        
+        return visitedVertices;
+    }
+    
+    /**
+     *  Returns the visited flags of the edgebreaker faces, the first |size| elements are cleared.
+     *
+     */
+    public boolean[] getVisitedFaces(int size)
+    {
+        if (visitedFaces == null || (visitedFaces.length < size))
+        {
+            this.visitedFaces = new boolean[size];
+        }
+        else
+        {
+            Arrays.fill(visitedFaces, 0, size, false);
+        }
+        
+        return visitedFaces;
+    }
+    
+    /**
+     *  Returns the cleared visited flags of the edgebreaker holes.
+     *
+     */
+    public BitSet getVisitedHoles()
+    {
+        if (visitedHoles == null)
+        {
+            this.visitedHoles = new BitSet();
+        }
+        
+        visitedHoles.clear();
+        return visitedHoles;
+    }
+    
+    /**
+     *  Returns an empty map between faces encoded with split symbols and their symbol ids.
+     *
+     */
+    public IntIntMap getFaceToSplitSymbolMap()
+    {
+        if (faceToSplitSymbolMap == null)
+        {
+            this.faceToSplitSymbolMap = new IntIntMap();
+        }
+        
+        faceToSplitSymbolMap.clear();
+        return faceToSplitSymbolMap;
+    }
+    
+    /**
+     *  Returns a symbol frequency table with at least |size| elements, the first |size| elements are cleared.
+     *
+     */
+    public long[] getFrequencies(int size)
+    {
+        if (frequencies == null || (frequencies.length < size))
+        {
+            this.frequencies = new long[size];
+        }
+        else
+        {
+            Arrays.fill(frequencies, 0, size, 0L);
+        }
+        
+        return frequencies;
+    }
+    
+    /**
+     *  Returns a rANS probability table with at least |size| entries.
+     *
+     */
+    public RAnsBitCodec.RansSym[] getProbabilityTable(int size)
+    {
+        if (probabilityTable == null || (probabilityTable.length < size))
+        {
+            this.probabilityTable = (RAnsBitCodec.RansSym[])(MetaClasses.RansSym.newArray(size));
+        }
+        
+        return probabilityTable;
+    }
+    
+    /**
+     *  Returns an empty buffer for the raw bits of tagged symbols.
+     *
+     */
+    public EncoderBuffer getValueBuffer()
+    {
+        if (valueBuffer == null)
+        {
+            this.valueBuffer = new EncoderBuffer();
+        }
+        
+        valueBuffer.clear();
+        return valueBuffer;
+    }
+    
+    /**
+     *  Returns an empty buffer for the |index|-th part of an output that is encoded concurrently.
+     *  Each part buffer has its own scratch, so the parts can be encoded on different threads.
+     *
+     */
+    public EncoderBuffer getPartBuffer(int index)
+    {
+        if (index >= partBuffers.length)
+        {
+            partBuffers = Arrays.copyOf(partBuffers, index + 1);
+        }
+        
+        EncoderBuffer ret = partBuffers[index];
+        if (ret == null)
+        {
+            ret = new EncoderBuffer();
+            partBuffers[index] = ret;
+        }
+        
+        ret.clear();
+        return ret;
+    }
+    
+    public EncoderScratch()
+    {
+        this.$initFields$();
+    }
+    
+    private void $initFields$()
+    {
+        try
+        {
+            intArrays = new int[NUM_SLOTS][];
+            partBuffers = new EncoderBuffer[0];
+        }
+        catch(Exception e)
+        {
+            throw new RuntimeException(e);
+        }
+        
+    }
+    
+}
@@ -191,7 +191,8 @@ class Encoding
     
     static boolean encodeTaggedSymbols(IntSpan symbols, int numComponents, int[] bitLengths, EncoderBuffer targetBuffer)
     {
-        long[] frequencies = new long[K_MAX_TAG_SYMBOL_BIT_LENGTH];
+        EncoderScratch scratch = targetBuffer.getScratch();
+        long[] frequencies = scratch.getFrequencies(K_MAX_TAG_SYMBOL_BIT_LENGTH);
         
         // Compute the frequencies from input data.
         // Maximum integer value for the values across all components.
@@ -201,9 +202,9 @@ class Encoding
             ++frequencies[bitLengths[i]];
         }
         
-        EncoderBuffer valueBuffer = new EncoderBuffer();
+        EncoderBuffer valueBuffer = scratch.getValueBuffer();
         int valueBits = K_MAX_TAG_SYMBOL_BIT_LENGTH * symbols.size();
-        RAnsSymbolEncoder tagEncoder = new RAnsSymbolEncoder(5, frequencies, targetBuffer);
+        RAnsSymbolEncoder tagEncoder = new RAnsSymbolEncoder(5, frequencies, K_MAX_TAG_SYMBOL_BIT_LENGTH, targetBuffer);
         
         // Start encoding bit tags.
         tagEncoder.startEncoding(targetBuffer);
@@ -229,7 +230,7 @@ class Encoding
         valueBuffer.endBitEncoding();
         
         // Append the values to the end of the target buffer.
-        targetBuffer.encode(valueBuffer.getData(), valueBuffer.getBytes());
+        targetBuffer.encode(valueBuffer);
         return true;
     }
     
@@ -283,13 +284,13 @@ class Encoding
     
     static boolean encodeRawSymbolsInternal(int unique_symbols_bit_length, IntSpan symbols, int num_values, int max_entry_value, EncoderBuffer target_buffer)
     {
-        long[] frequencies = new long[max_entry_value + 1];
+        long[] frequencies = target_buffer.getScratch().getFrequencies(max_entry_value + 1);
         for (int i = 0; i < num_values; ++i)
         {
             ++frequencies[symbols.get(i)];
         }
         
-        RAnsSymbolEncoder encoder = new RAnsSymbolEncoder(unique_symbols_bit_length, frequencies, target_buffer);
+        RAnsSymbolEncoder encoder = new RAnsSymbolEncoder(unique_symbols_bit_length, frequencies, max_entry_value + 1, target_buffer);
         encoder.startEncoding(target_buffer);
         final boolean needsReverseEncoding = true;
         if (needsReverseEncoding)
@@ -320,13 +321,13 @@ class Encoding
         if (maxValueBitLength > K_MAX_RAW_ENCODING_BIT_LENGTH)
             return false;
         targetBuffer.encode((byte)maxValueBitLength);
-        long[] frequencies = new long[maxEntryValue + 1];
+        long[] frequencies = targetBuffer.getScratch().getFrequencies(maxEntryValue + 1);
         for (int i = 0; i < symbols.size(); ++i)
         {
             ++frequencies[symbols.get(i)];
         }
         
-        RAnsSymbolEncoder encoder = new RAnsSymbolEncoder(maxValueBitLength, frequencies, targetBuffer);
+        RAnsSymbolEncoder encoder = new RAnsSymbolEncoder(maxValueBitLength, frequencies, maxEntryValue + 1, targetBuffer);
         
         encoder.startEncoding(targetBuffer);
         // Encode all values.
@@ -359,6 +360,39 @@ class Encoding
         return true;
     }
     
+    /**
+     *  Returns the number of bytes encodeVarint() writes for |val|.
+     *
+     */
+    public static int getVarintSize(long val)
+    {
+        int ret = 1;
+        while (val >= (1 << 7))
+        {
+            val >>>= 7;
+            ret++;
+        }
+        
+        return ret;
+    }
+    
+    /**
+     *  Writes |val| as varint into |dst| at |offset| and returns the number of bytes written.
+     *
+     */
+    public static int encodeVarint(long val, byte[] dst, int offset)
+    {
+        int start = offset;
+        while (val >= (1 << 7))
+        {
+            dst[offset++] = (byte)((val & ((1 << 7) - 1)) | (1 << 7));
+            val >>>= 7;
+        }
+        
+        dst[offset++] = (byte)(val & ((1 << 7) - 1));
+        return offset - start;
+    }
+    
     public static boolean encodeVarint(int val, EncoderBuffer buffer)
     {
         return Encoding.encodeVarint2(val, buffer);
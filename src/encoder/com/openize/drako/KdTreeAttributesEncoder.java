@@ -159,8 +159,8 @@ class KdTreeAttributesEncoder extends AttributesEncoder
                 for (int pi = 0; pi < num_points; ++pi)
                 {
                     int avi = source_att.mappedIndex(pi);
-                    int offset = source_att.getBytePos(avi);
-                    this.copyAttribute(point_vector, source_att.getComponentsCount(), num_processed_components, pi, source_att.getBuffer().getBuffer(), offset);
+                    long offset = source_att.getLongBytePos(avi);
+                    this.copyAttribute(point_vector, source_att.getComponentsCount(), num_processed_components, pi, source_att.getBuffer(), offset);
                 }
                 
             }
@@ -258,13 +258,13 @@ class KdTreeAttributesEncoder extends AttributesEncoder
         
     }
     
-    void copyAttribute(int[][] attribute, int attribute_dimensionality, int offset_dimensionality, int index, byte[] attribute_item_data, int offset)
+    void copyAttribute(int[][] attribute, int attribute_dimensionality, int offset_dimensionality, int index, DataBuffer attribute_item_data, long offset)
     {
         int copy_size = attribute_dimensionality;
         int[] face = attribute[index];
         for (int j = offset_dimensionality,  i = 0; i < copy_size; i++, j++)
         {
-            face[j] = Unsafe.getLE32(attribute_item_data, offset);
+            face[j] = attribute_item_data.readInt(offset);
             offset += 4;
         }
         
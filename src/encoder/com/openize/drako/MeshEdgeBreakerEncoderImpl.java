@@ -1,9 +1,8 @@
 package com.openize.drako;
-import com.openize.drako.AsposeUtils;
-import com.openize.drako.Int2D;
 import com.openize.drako.IntSpan;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.BitSet;
 /**
  *  Class implementing the edgebreaker encoding as described in "3D Compression
  *  Made Simple: Edgebreaker on a Corner-Table" by Rossignac at al.'01.
@@ -66,7 +65,7 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
      *  Array for marking visited faces.
      *
      */
-    private ArrayList<Boolean> visitedFaces;
+    private boolean[] visitedFaces;
     /**
      *  Attribute data for position encoding.
      *
@@ -100,12 +99,17 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
      *  were encoded with TOPOLOGYS symbol.
      *
      */
-    private HashMap<Integer, Integer> faceToSplitSymbolMap;
+    private IntIntMap faceToSplitSymbolMap;
+    /**
+     *  Number of holes found in the input mesh.
+     *
+     */
+    private int numHoles;
     /**
      *  Array for marking holes that has been reached during the traversal.
      *
      */
-    private ArrayList<Boolean> visitedHoles;
+    private BitSet visitedHoles;
     /**
      *  Array for mapping vertices to hole ids. If a vertex is not on a hole, the
      *  stored value is -1.
@@ -173,52 +177,6 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
         
     }
     
-    private void assign(IntList list, int size, int val)
-    {
-        //Make list to the specified size and all content to specified value
-        //remove unnecessary values
-        while (list.getCount() > size)
-        {
-            list.removeAt(list.getCount() - 1);
-        }
-        
-        //replace old values
-        for (int i = 0; i < list.getCount(); i++)
-        {
-            list.set(i, val);
-        }
-        
-        //extend to specified size
-        while (list.getCount() < size)
-        {
-            list.add(val);
-        }
-        
-    }
-    
-    private <T>void assign(ArrayList<T> list, int size, T val)
-    {
-        //Make list to the specified size and all content to specified value
-        //remove unnecessary values
-        while (list.size() > size)
-        {
-            list.remove(list.size() - 1);
-        }
-        
-        //replace old values
-        for (int i = 0; i < list.size(); i++)
-        {
-            list.set(i, val);
-        }
-        
-        //extend to specified size
-        while (list.size() < size)
-        {
-            list.add(val);
-        }
-        
-    }
-    
     /**
      *  Finds the configuration of the initial face that starts the traversal.
      *  Configurations are determined by location of holes around the init face
@@ -278,7 +236,7 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
             // Currently processed corner.
             cornerId = cornerTraversalStack.get(cornerTraversalStack.getCount() - 1);
             // Make sure the face hasn't been visited yet.
-            if (cornerId < 0 || visitedFaces.get(cornerTable.face(cornerId)))
+            if (cornerId < 0 || visitedFaces[cornerTable.face(cornerId)])
             {
                 // This face has been already traversed.
                 cornerTraversalStack.removeAt(cornerTraversalStack.getCount() - 1);
@@ -292,7 +250,7 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
                 ++numVisitedFaces;
                 ++lastEncodedSymbolId;
                 int faceId = cornerTable.face(cornerId);
-                visitedFaces.set(faceId, true);
+                visitedFaces[faceId] = true;
                 processedConnectivityCorners.add(cornerId);
                 traversalEncoder.newCornerReached(cornerId);
                 int vertId = cornerTable.vertex(cornerId);
@@ -425,7 +383,7 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
         
         // cornerId is now opposite to the boundary edge.
         // Mark the hole as visited.
-        visitedHoles.set(vertexHoleId[startVertexId], true);
+        visitedHoles.set(vertexHoleId[startVertexId]);
         int startVertId = cornerTable.vertex(cornerTable.next(cornerId));
         int actVertexId = cornerTable.vertex(cornerTable.previous(cornerId));
         while (actVertexId != startVertexId)
@@ -468,7 +426,7 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
         int nextCornerId = cornerTable.next(cornerId);
         int oppCornerId = cornerTable.opposite(nextCornerId);
         if (oppCornerId != -1)
-            return visitedFaces.get(cornerTable.face(oppCornerId));
+            return visitedFaces[cornerTable.face(oppCornerId)];
         // Else we are on a boundary.
         return true;
     }
@@ -478,7 +436,7 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
         int prevCornerId = cornerTable.previous(cornerId);
         int oppCornerId = cornerTable.opposite(prevCornerId);
         if (oppCornerId != -1)
-            return visitedFaces.get(cornerTable.face(oppCornerId));
+            return visitedFaces[cornerTable.face(oppCornerId)];
         // Else we are on a boundary.
         return true;
     }
@@ -506,8 +464,7 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
                 int boundaryVertId = cornerTable.vertex(cornerTable.next(i));
                 if (vertexHoleId[boundaryVertId] != -1)
                     continue;
-                int boundaryId = visitedHoles.size();
-                visitedHoles.add(false);
+                int boundaryId = numHoles++;
                 int cornerId = i;
                 while (vertexHoleId[boundaryVertId] == -1)
                 {
@@ -539,19 +496,7 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
      */
     public int getSplitSymbolIdOnFace(int faceId)
     {
-        int ret;
-        final Integer[] ref0 = new Integer[1];
-        if (AsposeUtils.tryGetValue(faceToSplitSymbolMap, faceId, ref0))
-        {
-            ret = ref0[0] == null ? 0 : ref0[0];
-            return ret;
-        }
-        else
-        {
-            ret = ref0[0] == null ? 0 : ref0[0];
-        }
-        
-        return -1;
+        return faceToSplitSymbolMap.get(faceId, -1);
     }
     
     /**
@@ -585,23 +530,24 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
      */
     public void encodeAttributeConnectivitiesOnFace(int corner)
     {
-        int[] corners = {corner, cornerTable.next(corner), cornerTable.previous(corner)};
         int src_face_id = cornerTable.face(corner);
-        visitedFaces.set(src_face_id, true);
+        visitedFaces[src_face_id] = true;
         
-        for (int c = 0; c < 3; ++c)
+        // Visit |corner|, its next and its previous corner.
+        int c = corner;
+        for (int k = 0; k < 3; ++k, c = cornerTable.next(c))
         {
-            int oppCorner = cornerTable.opposite(corners[c]);
+            int oppCorner = cornerTable.opposite(c);
             if (oppCorner < 0)
                 continue;
             // Don't encode attribute seams on boundary edges.
             int opp_face_id = cornerTable.face(oppCorner);
-            if (visitedFaces.get(opp_face_id))
+            if (visitedFaces[opp_face_id])
                 continue;
             
             for (int i = 0; i < attributeData.length; ++i)
             {
-                if (attributeData[i].connectivityData.isCornerOppositeToSeamEdge(corners[c]))
+                if (attributeData[i].connectivityData.isCornerOppositeToSeamEdge(c))
                 {
                     traversalEncoder.encodeAttributeSeam(i, true);
                 }
@@ -809,7 +755,8 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
         PointAttribute att = mesh.getNamedAttribute(AttributeType.POSITION);
         if (att == null)
             return null;
-        Int2D faces = new Int2D(mesh.getNumFaces(), 3);
+        EncoderScratch scratch = encoder.getBuffer().getScratch();
+        int[] faces = scratch.getIntArray(EncoderScratch.FACES, mesh.getNumFaces() * 3);
         IntSpan face = IntSpan.wrap(new int[3]);
         for (int i = 0; i < mesh.getNumFaces(); ++i)
         {
@@ -817,19 +764,20 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
             for (int j = 0; j < 3; ++j)
             {
                 // Map general vertex indices to position indices.
-                faces.set(i, j, att.mappedIndex(face.get(j)));
+                faces[i * 3 + j] = att.mappedIndex(face.get(j));
             }
             
         }
         
-        CornerTable ret = new CornerTable();
-        ret.initialize(faces);
+        CornerTable ret = scratch.getCornerTable();
+        ret.initialize(faces, mesh.getNumFaces());
         return ret;
     }
     
     private CornerTable createCornerTableFromAllAttributes(DracoMesh mesh)
     {
-        Int2D faces = new Int2D(mesh.getNumFaces(), 3);
+        EncoderScratch scratch = encoder.getBuffer().getScratch();
+        int[] faces = scratch.getIntArray(EncoderScratch.FACES, mesh.getNumFaces() * 3);
         IntSpan face = IntSpan.wrap(new int[3]);
         for (int i = 0; i < mesh.getNumFaces(); ++i)
         {
@@ -838,13 +786,13 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
             // mesh along attribute seams.
             for (int j = 0; j < 3; ++j)
             {
-                faces.set(i, j, face.get(j));
+                faces[i * 3 + j] = face.get(j);
             }
             
         }
         
-        CornerTable ret = new CornerTable();
-        ret.initialize(faces);
+        CornerTable ret = scratch.getCornerTable();
+        ret.initialize(faces, mesh.getNumFaces());
         return ret;
     }
     
@@ -876,20 +824,23 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
         Encoding.encodeVarint2(numVerticesToBeEncoded, this.getEncoder().getBuffer());
         int numFaces = cornerTable.getNumFaces() - cornerTable.getNumDegeneratedFaces();
         Encoding.encodeVarint2(numFaces, this.getEncoder().getBuffer());
-        this.assign(visitedFaces, mesh.getNumFaces(), false);
+        EncoderScratch scratch = encoder.getBuffer().getScratch();
+        this.visitedFaces = scratch.getVisitedFaces(mesh.getNumFaces());
         DracoUtils.fill(posEncodingData.vertexToEncodedAttributeValueIndexMap = new int[cornerTable.getNumVertices()], -1);
         posEncodingData.encodedAttributeValueIndexToCornerMap.clear();
         posEncodingData.encodedAttributeValueIndexToCornerMap.setCapacity(cornerTable.getNumFaces() * 3);
         //Assign(visitedVertexIds, cornerTable.NumVertices, false);
-        this.visitedVertexIds = new boolean[cornerTable.getNumVertices()];
+        this.visitedVertexIds = scratch.getVisitedVertices(cornerTable.getNumVertices());
         vertexTraversalLength.clear();
         this.lastEncodedSymbolId = -1;
         this.numSplitSymbols = 0;
         topologySplitEventData.clear();
-        faceToSplitSymbolMap.clear();
-        visitedHoles.clear();
+        this.faceToSplitSymbolMap = scratch.getFaceToSplitSymbolMap();
+        this.visitedHoles = scratch.getVisitedHoles();
+        this.numHoles = 0;
         //Assign(vertexHoleId, cornerTable.NumVertices, -1);
-        DracoUtils.fill(this.vertexHoleId = new int[cornerTable.getNumVertices()], -1);
+        this.vertexHoleId = scratch.getIntArray(EncoderScratch.VERTEX_HOLE_ID, cornerTable.getNumVertices());
+        Arrays.fill(vertexHoleId, 0, cornerTable.getNumVertices(), -1);
         holeEventData.clear();
         processedConnectivityCorners.clear();
         processedConnectivityCorners.setCapacity(cornerTable.getNumFaces());
@@ -910,7 +861,7 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
         {
             int cornerIndex = cId;
             int faceId = cornerTable.face(cornerIndex);
-            if (visitedFaces.get(faceId))
+            if (visitedFaces[faceId])
                 continue;
             // Face has been already processed.
             if (cornerTable.isDegenerated(faceId))
@@ -936,7 +887,7 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
                 vertexTraversalLength.add(1);
                 
                 // Mark the face as visited.
-                visitedFaces.set(faceId, true);
+                visitedFaces[faceId] = true;
                 // Start compressing from the opposite face of the "next" corner. This way
                 // the first encoded corner corresponds to the tip corner of the regular
                 // edgebreaker traversal (essentially the initial face can be then viewed
@@ -944,7 +895,7 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
                 initFaceConnectivityCorners.add(cornerTable.next(cornerIndex));
                 int oppId = cornerTable.opposite(cornerTable.next(cornerIndex));
                 int oppFaceId = cornerTable.face(oppId);
-                if (oppFaceId != -1 && !visitedFaces.get(oppFaceId))
+                if (oppFaceId != -1 && !visitedFaces[oppFaceId])
                 {
                     this.encodeConnectivityFromCorner(oppId);
                 }
@@ -972,10 +923,7 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
         if (attributeData.length > 0)
         {
             // Use the same order of corner that will be used by the decoder.
-            for (int i = 0; i < visitedFaces.size(); i++)
-            {
-                visitedFaces.set(i, false);
-            }
+            Arrays.fill(visitedFaces, 0, mesh.getNumFaces(), false);
             
             for (int i = 0; i < processedConnectivityCorners.getCount(); i++)
             {
@@ -997,7 +945,7 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
         
         this.encodeSplitData();
         
-        encoder.getBuffer().encode(traversalEncoder.getBuffer().getData(), traversalEncoder.getBuffer().getBytes());
+        encoder.getBuffer().encode(traversalEncoder.getBuffer());
     }
     
     void encodeSplitData()
@@ -1053,13 +1001,10 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
         try
         {
             cornerTraversalStack = new IntList();
-            visitedFaces = new ArrayList<Boolean>();
             posEncodingData = new MeshAttributeIndicesEncodingData();
             processedConnectivityCorners = new IntList();
             vertexTraversalLength = new IntList();
             topologySplitEventData = new ArrayList<TopologySplitEventData>();
-            faceToSplitSymbolMap = new HashMap<Integer, Integer>();
-            visitedHoles = new ArrayList<Boolean>();
             holeEventData = new ArrayList<HoleEventData>();
             attributeData = null;
             attributeEncoderToDataIdMap = new IntList();
@@ -1071,23 +1016,4 @@ class MeshEdgeBreakerEncoderImpl implements IMeshEdgeBreakerEncoder
         
     }
     
-    private void assign(ArrayList<Boolean> list, int size, boolean val)
-    {
-        while (list.size() > size)
-        {
-            list.remove(list.size() - 1);
-        }
-        
-        for (int i = 0; i < list.size(); i++)
-        {
-            list.set(i, val);
-        }
-        
-        while (list.size() < size)
-        {
-            list.add(val);
-        }
-        
-    }
-    
 }
@@ -258,6 +258,12 @@ abstract class PointCloudEncoder
         throws DrakoException
     {
         
+        if (this.canEncodeAttributesConcurrently())
+        {
+            this.encodeAllAttributesConcurrently();
+            return;
+        }
+        
         for (int i = 0; i < attributesEncoderIdsOrder.length; i++)
         {
             int attEncoderId = attributesEncoderIdsOrder[i];
@@ -266,6 +272,57 @@ abstract class PointCloudEncoder
         
     }
     
+    private boolean canEncodeAttributesConcurrently()
+    {
+        if (!options.getParallelAttributeEncoding() || (pointCloud.getNumPoints() < AttributeEncodingStage.MIN_PARALLEL_POINTS))
+            return false;
+        int numAttributes = 0;
+        for (AttributesEncoder attEnc : attributesEncoders)
+        {
+            if (!(attEnc instanceof SequentialAttributeEncodersController))
+                return false;
+            numAttributes += attEnc.getNumAttributes();
+        }
+        
+        return numAttributes > 1;
+    }
+    
+    /**
+     *  Produces the same output as the serial loop: the portable attributes are prepared in
+     *  encoding order, then all attributes are encoded concurrently into separate buffers that
+     *  are spliced together with the data needed by the portable transforms.
+     *
+     */
+    private void encodeAllAttributesConcurrently()
+        throws DrakoException
+    {
+        AttributeEncodingStage stage = new AttributeEncodingStage(buffer.getScratch());
+        for (int i = 0; i < attributesEncoderIdsOrder.length; i++)
+        {
+            SequentialAttributeEncodersController controller = (SequentialAttributeEncodersController)attributesEncoders.get(attributesEncoderIdsOrder[i]);
+            controller.preparePortableAttributes();
+            for (int j = 0; j < controller.getNumAttributes(); j++)
+            {
+                stage.add(controller, j);
+            }
+            
+        }
+        
+        stage.run();
+        int part = 0;
+        for (int i = 0; i < attributesEncoderIdsOrder.length; i++)
+        {
+            AttributesEncoder controller = attributesEncoders.get(attributesEncoderIdsOrder[i]);
+            for (int j = 0; j < controller.getNumAttributes(); j++)
+            {
+                stage.appendTo(part++, buffer);
+            }
+            
+            controller.encodeDataNeededByPortableTransforms(buffer);
+        }
+        
+    }
+    
     /**
      *  Rearranges attribute encoders and their attributes to reflect the
      *  underlying attribute dependencies. This ensures that the attributes are
@@ -30,6 +30,15 @@ class RAnsSymbolEncoder extends RAnsBitCodec
      */
     long bufferOffset;
     public RAnsSymbolEncoder(int maxSymbolBitLength, long[] frequencies, EncoderBuffer buffer)
+    {
+        this(maxSymbolBitLength, frequencies, frequencies.length, buffer);
+    }
+    
+    /**
+     *  Creates the encoder from the first |numFrequencies| entries of |frequencies|.
+     *
+     */
+    public RAnsSymbolEncoder(int maxSymbolBitLength, long[] frequencies, int numFrequencies, EncoderBuffer buffer)
     {
         
         this.maxSymbols = 1 << maxSymbolBitLength;
@@ -39,7 +48,7 @@ class RAnsSymbolEncoder extends RAnsBitCodec
         this.ans = new RAnsEncoder(ransPrecisionBits);
         long totalFreq = 0L;
         int maxValidSymbol = 0;
-        for (int i = 0; (0xffffffffl & i) < frequencies.length; ++i)
+        for (int i = 0; (0xffffffffl & i) < numFrequencies; ++i)
         {
             totalFreq += frequencies[i];
             if (frequencies[i] > 0L)
@@ -51,7 +60,8 @@ class RAnsSymbolEncoder extends RAnsBitCodec
         
         int numSymbols = maxValidSymbol + 1;
         this.numSymbols = numSymbols;
-        this.probabilityTable = (RAnsBitCodec.RansSym[])(MetaClasses.RansSym.newArray(numSymbols));
+        // The table is recycled, every entry up to |numSymbols| is overwritten below.
+        this.probabilityTable = buffer.getScratch().getProbabilityTable(numSymbols);
         double totalFreqD = totalFreq;
         double ransPrecisionD = ransPrecision;
         int totalRansProb = 0;
@@ -221,9 +231,8 @@ class RAnsSymbolEncoder extends RAnsBitCodec
     {
         long requiredBits = 2 * numExpectedBits + 32L;
         
-        this.bufferOffset = (long)(buffer.getBytes());
         long requiredBytes = (requiredBits + 7L) / 8L;
-        buffer.resize((int)bufferOffset + (int)requiredBytes + 8);
+        this.bufferOffset = (long)(buffer.reserve((int)requiredBytes + 8));
         byte[] data = buffer.getData();
         // Offset the encoding by sizeof(bufferOffset). We will use this memory to
         // store the number of encoded bytes.
@@ -239,18 +248,15 @@ class RAnsSymbolEncoder extends RAnsBitCodec
     {
         int src = (int)bufferOffset;
         long bytes_written = (long)(ans.writeEnd());
-        EncoderBuffer var_size_buffer = new EncoderBuffer();
-        Encoding.encodeVarint(bytes_written, var_size_buffer);
-        int size_len = var_size_buffer.getBytes();
+        int size_len = Encoding.getVarintSize(bytes_written);
         int dst = src + size_len;
         System.arraycopy(buffer.getData(), src, buffer.getData(), dst, (int)bytes_written);
         
         // Store the size of the encoded data.
-        //memcpy(src, var_size_buffer.data(), size_len);
-        System.arraycopy(var_size_buffer.getData(), 0, buffer.getData(), src, size_len);
+        Encoding.encodeVarint(bytes_written, buffer.getData(), src);
         
         // Resize the buffer to match the number of encoded bytes.
-        buffer.resize((int)bufferOffset + (int)bytes_written + size_len);
+        buffer.truncate((int)bufferOffset + (int)bytes_written + size_len);
     }
     
 }
@@ -151,11 +151,39 @@ class SequentialAttributeEncodersController extends AttributesEncoder
     @Override
     public void encodeAttributes(EncoderBuffer outBuffer)
         throws DrakoException
+    {
+        this.prepareSequence();
+        super.encodeAttributes(outBuffer);
+    }
+    
+    private void prepareSequence()
+        throws DrakoException
     {
         if (sequencer == null)
             throw DracoUtils.failed();
         this.pointIds = sequencer.generateSequence();
-        super.encodeAttributes(outBuffer);
+    }
+    
+    /**
+     *  Generates the point sequence and the portable attributes, after this the
+     *  attributes can be encoded independently by encodePortableAttribute().
+     *
+     */
+    void preparePortableAttributes()
+        throws DrakoException
+    {
+        this.prepareSequence();
+        this.transformAttributesToPortableFormat();
+    }
+    
+    /**
+     *  Encodes the portable attribute with given local id.
+     *
+     */
+    void encodePortableAttribute(int localId, EncoderBuffer outBuffer)
+        throws DrakoException
+    {
+        sequentialEncoders[localId].encodePortableAttribute(pointIds, outBuffer);
     }
     
     @Override
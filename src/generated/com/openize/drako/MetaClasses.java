@@ -3,64 +3,6 @@ import com.openize.drako.MetaClass;
 import com.openize.drako.Struct;
 final class MetaClasses
 {    
-    public static final MetaClass<CornerTable.VertexEdgePair> VertexEdgePair = new MetaClass<CornerTable.VertexEdgePair>()
-    {
-        @Override
-        public Object newArray(int size)
-        {
-            CornerTable.VertexEdgePair[] ret = new CornerTable.VertexEdgePair[size];
-            for (int i = 0; i < size; i++)
-            {
-                ret[i] = new CornerTable.VertexEdgePair();
-            }
-            
-            return ret;
-        }
-        @Override
-        public Class<CornerTable.VertexEdgePair> classOf()
-        {
-            return CornerTable.VertexEdgePair.class;
-        }
-        @Override
-        public CornerTable.VertexEdgePair newInstance()
-        {
-            return new CornerTable.VertexEdgePair();
-        }
-        @Override
-        public CornerTable.VertexEdgePair defaultValue()
-        {
-            return this.newInstance();
-        }
-    };
-    public static final MetaClass<RAnsDecoder.ransSym> ransSym = new MetaClass<RAnsDecoder.ransSym>()
-    {
-        @Override
-        public Object newArray(int size)
-        {
-            RAnsDecoder.ransSym[] ret = new RAnsDecoder.ransSym[size];
-            for (int i = 0; i < size; i++)
-            {
-                ret[i] = new RAnsDecoder.ransSym();
-            }
-            
-            return ret;
-        } 
-        @Override
-        public Class<RAnsDecoder.ransSym> classOf()
-        {
-            return RAnsDecoder.ransSym.class;
-        }
-        @Override
-        public RAnsDecoder.ransSym newInstance()
-        {
-            return new RAnsDecoder.ransSym();
-        }
-        @Override
-        public RAnsDecoder.ransSym defaultValue()
-        {
-            return this.newInstance();
-        }
-    };
     public static final MetaClass<RAnsBitCodec.RansSym> RansSym = new MetaClass<RAnsBitCodec.RansSym>()
     {
         @Override
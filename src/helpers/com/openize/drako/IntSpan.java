@@ -26,6 +26,20 @@ abstract class IntSpan extends Span {
             array[idx + offset] = value;
         }
 
+        @Override
+        public void put(int idx, int[] src, int srcOffset, int count)
+        {
+            rangeCheck(idx + count);
+            System.arraycopy(src, srcOffset, array, idx + offset, count);
+        }
+
+        @Override
+        public void get(int idx, int[] dst, int dstOffset, int count)
+        {
+            rangeCheck(idx + count);
+            System.arraycopy(array, idx + offset, dst, dstOffset, count);
+        }
+
         @Override
         public IntSpan slice(int offset, int size) {
             return new ArraySpan(array, offset + this.offset, size);
@@ -55,6 +69,26 @@ abstract class IntSpan extends Span {
             putIntL(array, ptr, value);
         }
 
+        @Override
+        public void put(int idx, int[] src, int srcOffset, int count)
+        {
+            rangeCheck(idx + count);
+            int ptr = (idx + offset) * 4;
+            for(int i = 0; i < count; i++, ptr += 4) {
+                putIntL(array, ptr, src[srcOffset + i]);
+            }
+        }
+
+        @Override
+        public void get(int idx, int[] dst, int dstOffset, int count)
+        {
+            rangeCheck(idx + count);
+            int ptr = (idx + offset) * 4;
+            for(int i = 0; i < count; i++, ptr += 4) {
+                dst[dstOffset + i] = getIntL(array, ptr);
+            }
+        }
+
         @Override
         public IntSpan slice(int offset, int size) {
             return new BytesSpan(array, offset + this.offset, size);
@@ -62,6 +96,57 @@ abstract class IntSpan extends Span {
 
     }
 
+    /**
+     * Span over the int values of a buffer stored in chunks, the byte offsets are computed as longs
+     * so the values can lie beyond 2GB.
+     */
+    private static final class ChunkedSpan extends IntSpan {
+        private final DataBuffer buffer;
+        public ChunkedSpan(DataBuffer buffer, int offset, int length) {
+            super(offset, length);
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int get(int idx)
+        {
+            rangeCheck(idx);
+            return buffer.readInt((idx + (long)offset) * 4);
+        }
+        @Override
+        public void put(int idx, int value)
+        {
+            rangeCheck(idx);
+            buffer.setInt((idx + (long)offset) * 4, value);
+        }
+
+        @Override
+        public void put(int idx, int[] src, int srcOffset, int count)
+        {
+            rangeCheck(idx + count);
+            long ptr = (idx + (long)offset) * 4;
+            for(int i = 0; i < count; i++, ptr += 4) {
+                buffer.setInt(ptr, src[srcOffset + i]);
+            }
+        }
+
+        @Override
+        public void get(int idx, int[] dst, int dstOffset, int count)
+        {
+            rangeCheck(idx + count);
+            long ptr = (idx + (long)offset) * 4;
+            for(int i = 0; i < count; i++, ptr += 4) {
+                dst[dstOffset + i] = buffer.readInt(ptr);
+            }
+        }
+
+        @Override
+        public IntSpan slice(int offset, int size) {
+            return new ChunkedSpan(buffer, offset + this.offset, size);
+        }
+
+    }
+
     public static IntSpan wrap(int[] array) {
         return new ArraySpan(array, 0, array.length);
     }
@@ -77,6 +162,14 @@ abstract class IntSpan extends Span {
     public static IntSpan wrap(byte[] array, int offset, int length) {
         return new BytesSpan(array, offset / 4, length / 4);
     }
+    /**
+     * Wraps the first |length| int values of |buffer|, which may be stored off-heap.
+     */
+    public static IntSpan wrap(DataBuffer buffer, int length) {
+        if(buffer.isOffHeap())
+            return new ChunkedSpan(buffer, 0, length);
+        return new BytesSpan(buffer.getBuffer(), 0, length);
+    }
 
     protected IntSpan(int offset, int length) {
         super(offset, length);
@@ -121,6 +214,14 @@ abstract class IntSpan extends Span {
     }
     public abstract int get(int idx);
     public abstract void put(int idx, int value);
+    /**
+     * Copies |count| values of |src| starting at |srcOffset| to this span starting at |idx|.
+     */
+    public abstract void put(int idx, int[] src, int srcOffset, int count);
+    /**
+     * Copies |count| values of this span starting at |idx| to |dst| starting at |dstOffset|.
+     */
+    public abstract void get(int idx, int[] dst, int dstOffset, int count);
 
     public abstract IntSpan slice(int offset, int size);
     public IntSpan slice(int offset)
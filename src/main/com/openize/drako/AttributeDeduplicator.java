@@ -0,0 +1,114 @@
+package com.openize.drako;
+import java.util.Arrays;
+/**
+ *  Merges attribute entries that have identical bytes.
+ *  Entries are hashed over their raw bytes, the unique entries are moved to the front of
+ *  the buffer in their original order.
+ *
+ */
+final class AttributeDeduplicator extends Deduplicator
+{    
+    private final DataBuffer buffer;
+    /**
+     *  Backing array of the buffer, null when the buffer is off-heap.
+     *
+     */
+    private final byte[] data;
+    private final long byteOffset;
+    private final int stride;
+    private byte[] value;
+    public AttributeDeduplicator(DataBuffer buffer, long byteOffset, int stride, int numEntries)
+    {
+        super(numEntries);
+        this.buffer = buffer;
+        this.data = buffer.isOffHeap() ? null : buffer.getBuffer();
+        this.byteOffset = byteOffset;
+        this.stride = stride;
+    }
+    
+    @Override
+    protected void hash(int start, int end)
+    {
+        byte[] tmp = data == null ? new byte[stride] : null;
+        for (int i = start; i < end; i++)
+        {
+            if (data != null)
+            {
+                hashes[i] = AttributeDeduplicator.hash(data, (int)this.position(i), stride);
+            }
+            else
+            {
+                buffer.read(this.position(i), tmp, 0, stride);
+                hashes[i] = AttributeDeduplicator.hash(tmp, 0, stride);
+            }
+            
+        }
+        
+    }
+    
+    @Override
+    protected Object createScratch()
+    {
+        return data == null ? new byte[2][stride] : null;
+    }
+    
+    @Override
+    protected boolean equal(int i, int j, Object scratch)
+    {
+        if (data != null)
+        {
+            int pi = (int)this.position(i);
+            int pj = (int)this.position(j);
+            for (int k = 0; k < stride; k++)
+            {
+                if (data[pi + k] != data[pj + k])
+                    return false;
+            }
+            
+            return true;
+        }
+        
+        byte[][] tmp = (byte[][])scratch;
+        buffer.read(this.position(i), tmp[0], 0, stride);
+        buffer.read(this.position(j), tmp[1], 0, stride);
+        return Arrays.equals(tmp[0], tmp[1]);
+    }
+    
+    @Override
+    protected void unique(int index, int uniqueIndex)
+    {
+        // Only entries that were already visited are overwritten.
+        if (index == uniqueIndex)
+            return;
+        if (data != null)
+        {
+            System.arraycopy(data, (int)this.position(index), data, (int)this.position(uniqueIndex), stride);
+            return;
+        }
+        
+        if (value == null)
+        {
+            this.value = new byte[stride];
+        }
+        
+        buffer.read(this.position(index), value, 0, stride);
+        buffer.write(this.position(uniqueIndex), value, 0, stride);
+    }
+    
+    private long position(int index)
+    {
+        return byteOffset + ((long)stride * index);
+    }
+    
+    private static int hash(byte[] bytes, int offset, int size)
+    {
+        int h = 0x811c9dc5;
+        for (int i = offset, end = offset + size; i < end; i++)
+        {
+            h = (h ^ (bytes[i] & 0xff)) * 16777619;
+        }
+        
+        return Deduplicator.finish(h);
+    }
+    
+}
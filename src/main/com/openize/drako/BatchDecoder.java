@@ -0,0 +1,166 @@
+package com.openize.drako;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+/**
+ *  Decodes a batch of independent draco payloads on several threads.
+ *  Workers claim the next undecoded item from a shared counter, so uneven payload sizes are balanced
+ *  automatically, and each worker decodes with its own {@link com.openize.drako.DracoDecoder} taken from the batch.
+ *  The calling thread takes part in the work, so the batch completes even if the executor is saturated
+ *  or never runs the submitted tasks.
+ *
+ */
+final class BatchDecoder implements Runnable
+{    
+    private final List<ByteBuffer> data;
+    /**
+     *  Decoders of the workers that finished their part of the batch, reused by the workers that start later.
+     *  They belong to the batch, so their scratch state is released with it.
+     *
+     */
+    private final ConcurrentLinkedQueue<DracoDecoder> decoders;
+    private final DracoDecodeResult[] results;
+    private final AtomicInteger next;
+    private final CountDownLatch done;
+    private final AtomicReference<Throwable> fatal;
+    private BatchDecoder(List<ByteBuffer> data)
+    {
+        this.data = data;
+        this.results = new DracoDecodeResult[data.size()];
+        this.decoders = new ConcurrentLinkedQueue<DracoDecoder>();
+        this.next = new AtomicInteger();
+        this.done = new CountDownLatch(data.size());
+        this.fatal = new AtomicReference<Throwable>();
+    }
+    
+    /**
+     *  Decodes all items of |data| using the threads of |executor| and the calling thread.
+     *
+     */
+    static List<DracoDecodeResult> decodeAll(List<ByteBuffer> data, Executor executor)
+    {
+        int n = data.size();
+        if (n == 0)
+            return Collections.emptyList();
+        // copy the list so a concurrent modification by the caller can't affect the workers
+        BatchDecoder batch = new BatchDecoder(new ArrayList<ByteBuffer>(data));
+        int helpers = Math.min(n - 1, BatchDecoder.parallelism(executor));
+        for (int i = 0; i < helpers; i++)
+        {
+            try
+            {
+                executor.execute(batch);
+            }
+            catch(RejectedExecutionException $e)
+            {
+                // the remaining items are decoded by the threads that are already working
+                break;
+            }
+            
+        }
+        
+        batch.run();
+        batch.await();
+        Throwable error = batch.fatal.get();
+        if (error instanceof RuntimeException)
+            throw (RuntimeException)error;
+        if (error instanceof java.lang.Error)
+            throw (java.lang.Error)error;
+        return Collections.unmodifiableList(Arrays.asList(batch.results));
+    }
+    
+    private static int parallelism(Executor executor)
+    {
+        if (executor instanceof ForkJoinPool)
+            return ((ForkJoinPool)executor).getParallelism();
+        return Runtime.getRuntime().availableProcessors();
+    }
+    
+    @Override
+    public void run()
+    {
+        int n = results.length;
+        int i = next.getAndIncrement();
+        if (i >= n)
+            return;
+        DracoDecoder decoder = decoders.poll();
+        if (decoder == null)
+        {
+            decoder = new DracoDecoder();
+        }
+        
+        for (; i < n; i = next.getAndIncrement())
+        {
+            try
+            {
+                results[i] = BatchDecoder.decodeItem(decoder, data.get(i));
+            }
+            catch(Throwable e)
+            {
+                fatal.compareAndSet(null, e);
+                // the decoder may be left in any state, the next item starts with a fresh one
+                decoder = new DracoDecoder();
+            }
+            finally
+            {
+                done.countDown();
+            }
+            
+        }
+        
+        decoders.offer(decoder);
+    }
+    
+    private static DracoDecodeResult decodeItem(DracoDecoder decoder, ByteBuffer item)
+    {
+        if (item == null)
+            return new DracoDecodeResult(null, new DrakoException("Missing draco data"));
+        try
+        {
+            return new DracoDecodeResult(decoder.decodeStrict(item), null);
+        }
+        catch(DrakoException e)
+        {
+            return new DracoDecodeResult(null, e);
+        }
+        
+    }
+    
+    /**
+     *  Waits until every item was decoded, the interrupted status is preserved.
+     *
+     */
+    private void await()
+    {
+        boolean interrupted = false;
+        while (true)
+        {
+            try
+            {
+                done.await();
+                break;
+            }
+            catch(InterruptedException $e)
+            {
+                interrupted = true;
+            }
+            
+        }
+        
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+        
+    }
+    
+}
@@ -1,14 +1,40 @@
 package com.openize.drako;
+/**
+ *  Reads bits in least significant bit first order.
+ *  The bits are served from a 64-bit register that is refilled a word at a time from the data,
+ *  so reading a value costs a mask and a shift instead of a loop over its bits.
+ *  Reading past the end of the data yields zero bits.
+ *
+ */
 final class BitDecoder
 {    
     private BytePointer data = new BytePointer();
     private int dataEnd;
+    /**
+     *  Number of bits consumed by the reader.
+     *
+     */
     private int bitOffset;
+    /**
+     *  Bits that were loaded but not consumed yet, the next bit is the lowest one.
+     *  Bits above |cacheBits| may hold the start of the next byte, they are loaded again by the next refill.
+     *
+     */
+    private long cache;
+    private int cacheBits;
+    /**
+     *  Offset of the next byte that will be loaded into the register.
+     *
+     */
+    private int bytePos;
     public void copyFrom(BitDecoder bitDecoder)
     {
         this.data.copyFrom(bitDecoder.data);
         this.dataEnd = bitDecoder.dataEnd;
         this.bitOffset = bitDecoder.bitOffset;
+        this.cache = bitDecoder.cache;
+        this.cacheBits = bitDecoder.cacheBits;
+        this.bytePos = bitDecoder.bytePos;
     }
     
     public void load(BytePointer data, int count)
@@ -16,57 +42,139 @@ final class BitDecoder
         this.data.copyFrom(data);
         this.dataEnd = count;
         this.bitOffset = 0;
+        this.cache = 0L;
+        this.cacheBits = 0;
+        this.bytePos = 0;
     }
     
+    /**
+     *  Returns the number of consumed bits that were backed by data.
+     *
+     */
     public int getBitsDecoded()
     {
-        return bitOffset;
+        return Math.min(bitOffset, dataEnd * 8);
     }
     
-    public void consume(int k)
+    /**
+     *  Makes at least 56 bits available in the register, reads of up to 32 bits never need more.
+     *
+     */
+    private void refill()
     {
-        bitOffset += k;
+        if (bytePos + 8 <= dataEnd)
+        {
+            cache |= data.toUInt64LE(bytePos) << cacheBits;
+            int bytes = (63 - cacheBits) >>> 3;
+            bytePos += bytes;
+            cacheBits += bytes << 3;
+            return;
+        }
+        
+        // Tail of the data, missing bytes read as zero.
+        while (cacheBits <= 56)
+        {
+            if (bytePos < dataEnd)
+            {
+                cache |= (long)(0xff & data.get(bytePos)) << cacheBits;
+            }
+            
+            bytePos++;
+            cacheBits += 8;
+        }
+        
     }
     
-    public int getBit()
+    public void consume(int k)
     {
-        int off = bitOffset;
-        int byteOffset = off >> 3;
-        int bitShift = (int)(off & 0x7);
-        if (byteOffset < dataEnd)
+        while (k > 0)
         {
-            int bit = (0xff & data.get(byteOffset)) >>> bitShift & 1;
-            bitOffset++;
-            return bit;
+            int n = Math.min(k, 32);
+            this.readBits(n);
+            k -= n;
         }
         
-        return 0;
+    }
+    
+    public int getBit()
+    {
+        return this.readBits(1);
     }
     
     public int peekBit(int offset)
     {
-        int off = bitOffset + offset;
-        int byteOffset = off >> 3;
-        int bitShift = (int)(off & 0x7);
-        if (byteOffset < dataEnd)
+        if (cacheBits <= offset)
         {
-            int bit = (0xff & data.get(byteOffset)) >>> bitShift & 1;
-            return bit;
+            int off = bitOffset + offset;
+            int byteOffset = off >> 3;
+            if (byteOffset < dataEnd)
+                return (0xff & data.get(byteOffset)) >>> (off & 0x7) & 1;
+            return 0;
         }
         
-        return 0;
+        return (int)(cache >>> offset) & 1;
     }
     
     public int getBits(int nbits)
     {
-        int ret = 0;
-        for (int bit = 0; bit < nbits; ++bit)
+        return this.readBits(nbits);
+    }
+    
+    /**
+     *  Reads the next |nbits| bits, |nbits| must be in range 0..32.
+     *
+     */
+    public int readBits(int nbits)
+    {
+        if (cacheBits < nbits)
         {
-            ret |= (int)(this.getBit() << bit);
+            this.refill();
         }
         
+        int ret = (int)(cache & ((1L << nbits) - 1));
+        cache >>>= nbits;
+        cacheBits -= nbits;
+        bitOffset += nbits;
         return ret;
     }
     
+    /**
+     *  Reads |count| values of |nbits| bits each into |out|, |nbits| must be in range 0..32.
+     *
+     */
+    public void readBits(int[] out, int count, int nbits)
+    {
+        this.readBits(out, 0, count, nbits);
+    }
+    
+    /**
+     *  Reads |count| values of |nbits| bits each into |out| starting at |offset|.
+     *
+     */
+    public void readBits(int[] out, int offset, int count, int nbits)
+    {
+        long mask = (1L << nbits) - 1;
+        long cache = this.cache;
+        int cacheBits = this.cacheBits;
+        for (int i = offset, end = offset + count; i < end; i++)
+        {
+            if (cacheBits < nbits)
+            {
+                this.cache = cache;
+                this.cacheBits = cacheBits;
+                this.refill();
+                cache = this.cache;
+                cacheBits = this.cacheBits;
+            }
+            
+            out[i] = (int)(cache & mask);
+            cache >>>= nbits;
+            cacheBits -= nbits;
+        }
+        
+        this.cache = cache;
+        this.cacheBits = cacheBits;
+        this.bitOffset += count * nbits;
+    }
     
 }
@@ -1,8 +1,5 @@
 package com.openize.drako;
-import com.openize.drako.HashBuilder;
 import com.openize.drako.Int2D;
-import com.openize.drako.Struct;
-import java.io.Serializable;
 import java.util.Arrays;
 /**
  *  CornerTable is used to represent connectivity of triangular meshes.
@@ -33,91 +30,52 @@ import java.util.Arrays;
  */
 class CornerTable extends ICornerTable
 {    
-    static final class VertexEdgePair implements Struct<VertexEdgePair>, Serializable
-    {
-        public int sinkVert;
-        public int edgeCorner;
-        public VertexEdgePair(int sinkVert, int edgeCorner)
-        {
-            this.sinkVert = sinkVert;
-            this.edgeCorner = edgeCorner;
-        }
-        
-        public VertexEdgePair()
-        {
-        }
-        
-        private VertexEdgePair(VertexEdgePair other)
-        {
-            this.sinkVert = other.sinkVert;
-            this.edgeCorner = other.edgeCorner;
-        }
-        
-        @Override
-        public VertexEdgePair clone()
-        {
-            return new VertexEdgePair(this);
-        }
-        
-        @Override
-        public void copyFrom(VertexEdgePair src)
-        {
-            if (src == null)
-                return;
-            this.sinkVert = src.sinkVert;
-            this.edgeCorner = src.edgeCorner;
-        }
-        
-        static final long serialVersionUID = 2016287489L;
-        @Override
-        public int hashCode()
-        {
-            HashBuilder builder = new HashBuilder();
-            builder.hash(this.sinkVert);
-            builder.hash(this.edgeCorner);
-            return builder.hashCode();
-        }
-        
-        @Override
-        public boolean equals(Object obj)
-        {
-            if (!(obj instanceof VertexEdgePair))
-                return false;
-            VertexEdgePair rhs = (VertexEdgePair)obj;
-            if (this.sinkVert != rhs.sinkVert)
-                return false;
-            if (this.edgeCorner != rhs.edgeCorner)
-                return false;
-            return true;
-        }
-        
-    }
-    
     public static final int K_INVALID_FACE_INDEX = -1;
     public static final int K_INVALID_CORNER_INDEX = -1;
     public static final int K_INVALID_VERTEX_INDEX = -1;
     private int[] oppositeCorners;
     private IntList vertexCorners;
     private int[] cornerToVertexMap;
+    private int numCorners;
     private int numOriginalVertices;
     private int numDegeneratedFaces;
     private int numIsolatedVertices;
     private IntList nonManifoldVertexParents;
     private ValenceCache valenceCache;
+    // Work arrays of initialize(), kept so a recycled table doesn't allocate them again.
+    // 
+    private IntList numCornersOnVertices;
+    private int[] vertexOffset;
+    private int[] vertexEdgeSinks;
+    private int[] vertexEdgeCorners;
+    private boolean[] visitedVertices;
+    private boolean[] visitedCorners;
+    private final DracoAllocator allocator;
     public CornerTable()
     {
         this.$initFields$();
+        this.allocator = DracoAllocator.getDefault();
         this.valenceCache = new ValenceCache(this);
     }
     
-    public void initialize(Int2D faces)
+    /**
+     *  Replaces a map that is too small, the content is not kept.
+     *
+     */
+    private int[] reallocate(int[] map, int size)
     {
-        final int[] ref0 = new int[1];
+        if (map != null)
+        {
+            allocator.release(map);
+        }
         
-        valenceCache.clearValenceCache();
-        valenceCache.clearValenceCacheInaccurate();
+        return allocator.allocateInts(size);
+    }
+    
+    public void initialize(Int2D faces)
+    {
         int numFaces = faces.getLength(0);
-        this.cornerToVertexMap = new int[numFaces * 3];
+        this.prepareCorners(numFaces);
         for (int fi = 0; fi < numFaces; ++fi)
         {
             for (int i = 0; i < 3; ++i)
@@ -128,6 +86,40 @@ class CornerTable extends ICornerTable
             
         }
         
+        this.computeConnectivity();
+    }
+    
+    /**
+     *  Initializes the table from |numFaces| faces stored as consecutive vertex
+     *  triplets in |faces|. The table can be initialized repeatedly, its storage
+     *  is reused when it's large enough.
+     *
+     */
+    void initialize(int[] faces, int numFaces)
+    {
+        this.prepareCorners(numFaces);
+        System.arraycopy(faces, 0, cornerToVertexMap, 0, numCorners);
+        this.computeConnectivity();
+    }
+    
+    private void prepareCorners(int numFaces)
+    {
+        valenceCache.clearValenceCache();
+        valenceCache.clearValenceCacheInaccurate();
+        this.numCorners = numFaces * 3;
+        if (cornerToVertexMap == null || (cornerToVertexMap.length < numCorners))
+        {
+            this.cornerToVertexMap = this.reallocate(this.cornerToVertexMap, numCorners);
+        }
+        
+        this.numDegeneratedFaces = 0;
+        vertexCorners.clear();
+        nonManifoldVertexParents.clear();
+    }
+    
+    private void computeConnectivity()
+    {
+        final int[] ref0 = new int[1];
         int numVertices = -1;
         this.computeOppositeCorners(ref0);
         numVertices = ref0[0];
@@ -156,6 +148,24 @@ class CornerTable extends ICornerTable
         return cornerToVertexMap[corner];
     }
     
+    /**
+     *  Opposite corner of every corner, the array can be longer than the number of corners.
+     *
+     */
+    int[] getOppositeCorners()
+    {
+        return oppositeCorners;
+    }
+    
+    /**
+     *  Vertex of every corner, the array can be longer than the number of corners.
+     *
+     */
+    int[] getCornerToVertexMap()
+    {
+        return cornerToVertexMap;
+    }
+    
     public int face(int corner)
     {
         if (corner < 0)
@@ -232,12 +242,12 @@ class CornerTable extends ICornerTable
     
     public int getNumCorners()
     {
-        return cornerToVertexMap.length;
+        return numCorners;
     }
     
     public int getNumFaces()
     {
-        return cornerToVertexMap.length / 3;
+        return numCorners / 3;
     }
     
     /**
@@ -253,13 +263,18 @@ class CornerTable extends ICornerTable
     
     private void computeOppositeCorners(int[] numVertices)
     {
-        this.oppositeCorners = new int[this.getNumCorners()];
-        for (int i = 0; i < oppositeCorners.length; i++)
+        if (oppositeCorners == null || (oppositeCorners.length < numCorners))
+        {
+            this.oppositeCorners = this.reallocate(this.oppositeCorners, numCorners);
+        }
+        
+        for (int i = 0; i < numCorners; i++)
         {
             oppositeCorners[i] = K_INVALID_CORNER_INDEX;
         }
         
-        IntList numCornersOnVertices = new IntList();
+        IntList numCornersOnVertices = this.numCornersOnVertices;
+        numCornersOnVertices.clear();
         numCornersOnVertices.setCapacity(this.getNumCorners());
         for (int c = 0; c < this.getNumCorners(); ++c)
         {
@@ -274,13 +289,28 @@ class CornerTable extends ICornerTable
             numCornersOnVertices.set(v1, numCornersOnVertices.get(v1) + 1);
         }
         
-        VertexEdgePair[] vertexEdges = (VertexEdgePair[])(MetaClasses.VertexEdgePair.newArray(this.getNumCorners()));
-        for (int i = 0; i < vertexEdges.length; i++)
+        // Half-edges are stored as two parallel arrays of sink vertices and edge
+        // corners instead of one VertexEdgePair instance per corner.
+        if (vertexEdgeSinks == null || (vertexEdgeSinks.length < numCorners))
         {
-            vertexEdges[i] = new VertexEdgePair(-1, -1);
+            this.vertexEdgeSinks = this.reallocate(this.vertexEdgeSinks, numCorners);
+            this.vertexEdgeCorners = this.reallocate(this.vertexEdgeCorners, numCorners);
         }
         
-        int[] vertexOffset = new int[numCornersOnVertices.getCount()];
+        int[] edgeSinks = this.vertexEdgeSinks;
+        int[] edgeCorners = this.vertexEdgeCorners;
+        for (int i = 0; i < numCorners; i++)
+        {
+            edgeSinks[i] = -1;
+            edgeCorners[i] = -1;
+        }
+        
+        if (this.vertexOffset == null || (this.vertexOffset.length < numCornersOnVertices.getCount()))
+        {
+            this.vertexOffset = this.reallocate(this.vertexOffset, numCornersOnVertices.getCount());
+        }
+        
+        int[] vertexOffset = this.vertexOffset;
         int offset = 0;
         for (int i = 0; i < numCornersOnVertices.getCount(); ++i)
         {
@@ -316,7 +346,7 @@ class CornerTable extends ICornerTable
             offset = vertexOffset[sinkV];
             for (int i = 0; i < numCornersOnVert; ++i, ++offset)
             {
-                int otherV = vertexEdges[offset].sinkVert;
+                int otherV = edgeSinks[offset];
                 if (otherV < 0)
                     break;
                 // No matching half-edge found on the sink vertex.
@@ -324,7 +354,7 @@ class CornerTable extends ICornerTable
                 {
                     // A matching half-edge was found on the sink vertex. Mark the
                     // half-edge's opposite corner.
-                    oppositeC = vertexEdges[offset].edgeCorner;
+                    oppositeC = edgeCorners[offset];
                     // Remove the half-edge from the sink vertex. We remap all subsequent
                     // half-edges one slot down.
                     // TODO(ostava): This can be optimized a little bit, by remaping only
@@ -332,14 +362,15 @@ class CornerTable extends ICornerTable
                     // slot.
                     for (int j = i + 1; j < numCornersOnVert; ++j, ++offset)
                     {
-                        vertexEdges[offset] = Struct.byVal(vertexEdges[offset + 1]);
-                        if (vertexEdges[offset].sinkVert < 0)
+                        edgeSinks[offset] = edgeSinks[offset + 1];
+                        edgeCorners[offset] = edgeCorners[offset + 1];
+                        if (edgeSinks[offset] < 0)
                             break;
                         // Unused half-edge reached.
                     }
                     
                     // Mark the last entry as unused.
-                    vertexEdges[offset].sinkVert = -1;
+                    edgeSinks[offset] = -1;
                     break;
                 }
                 
@@ -352,10 +383,10 @@ class CornerTable extends ICornerTable
                 for (int i = 0; i < numCornersOnSourceVert; ++i, ++offset)
                 {
                     // Find the first unused half-edge slot on the source vertex.
-                    if (vertexEdges[offset].sinkVert < 0)
+                    if (edgeSinks[offset] < 0)
                     {
-                        vertexEdges[offset].sinkVert = sinkV;
-                        vertexEdges[offset].edgeCorner = c;
+                        edgeSinks[offset] = sinkV;
+                        edgeCorners[offset] = c;
                         break;
                     }
                     
@@ -378,9 +409,21 @@ class CornerTable extends ICornerTable
     {
         this.numOriginalVertices = numVertices;
         vertexCorners.resize(numVertices, K_INVALID_CORNER_INDEX);
-        boolean[] visitedVertices = new boolean[numVertices];
+        if (this.visitedVertices == null || (this.visitedVertices.length < numVertices))
+        {
+            this.visitedVertices = new boolean[numVertices];
+        }
+        
+        if (this.visitedCorners == null || (this.visitedCorners.length < numCorners))
+        {
+            this.visitedCorners = new boolean[numCorners];
+        }
+        
+        boolean[] visitedVertices = this.visitedVertices;
+        boolean[] visitedCorners = this.visitedCorners;
+        Arrays.fill(visitedVertices, 0, numVertices, false);
+        Arrays.fill(visitedCorners, 0, numCorners, false);
         int numVisitedVertices = numVertices;
-        boolean[] visitedCorners = new boolean[this.getNumCorners()];
         
         for (int f = 0; f < this.getNumFaces(); ++f)
         {
@@ -407,6 +450,7 @@ class CornerTable extends ICornerTable
                     {
                         //resize 
                         visitedVertices = visitedVertices == null ? new boolean[visitedVertices.length * 2] : Arrays.copyOf(visitedVertices, visitedVertices.length * 2);
+                        this.visitedVertices = visitedVertices;
                     }
                     
                     visitedVertices[numVisitedVertices++] = false;
@@ -624,6 +668,8 @@ class CornerTable extends ICornerTable
     }
     
     // Resets the corner table to the given number of invalid faces.
+    // The corner arrays are reused when they are large enough, so a table can be
+    // recycled across meshes without allocating.
     // 
     public void reset(int numFaces, int numVertices)
     {
@@ -631,15 +677,27 @@ class CornerTable extends ICornerTable
             throw new IllegalArgumentException();
         if (numFaces > (Integer.MAX_VALUE / 3))
             throw new IllegalArgumentException();
-        this.cornerToVertexMap = new int[numFaces * 3];
-        this.oppositeCorners = new int[numFaces * 3];
-        for (int i = 0; i < cornerToVertexMap.length; i++)
+        this.numCorners = numFaces * 3;
+        if (cornerToVertexMap == null || (cornerToVertexMap.length < numCorners))
+        {
+            this.cornerToVertexMap = this.reallocate(this.cornerToVertexMap, numCorners);
+        }
+        
+        if (oppositeCorners == null || (oppositeCorners.length < numCorners))
+        {
+            this.oppositeCorners = this.reallocate(this.oppositeCorners, numCorners);
+        }
+        
+        for (int i = 0; i < numCorners; i++)
         {
             cornerToVertexMap[i] = -1;
             oppositeCorners[i] = -1;
         }
         
+        this.numDegeneratedFaces = 0;
+        vertexCorners.clear();
         vertexCorners.setCapacity(numVertices);
+        nonManifoldVertexParents.clear();
         valenceCache.clearValenceCache();
         valenceCache.clearValenceCacheInaccurate();
     }
@@ -704,6 +762,7 @@ class CornerTable extends ICornerTable
         {
             vertexCorners = new IntList();
             nonManifoldVertexParents = new IntList();
+            numCornersOnVertices = new IntList();
         }
         catch(Exception e)
         {
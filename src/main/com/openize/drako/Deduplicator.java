@@ -0,0 +1,273 @@
+package com.openize.drako;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+/**
+ *  Finds entries with equal keys through their hashes and a primitive open-addressing table.
+ *  Every entry is mapped to the first entry with the same key. The entries can be split by their
+ *  hash into partitions that are matched concurrently, the result doesn't depend on the partitioning.
+ *  Subclasses define the key of an entry by its hash and an equality test.
+ *
+ */
+abstract class Deduplicator
+{    
+    /**
+     *  Minimum number of entries before the work is worth being split across threads.
+     *
+     */
+    static final int MIN_PARALLEL_ENTRIES = 1 << 16;
+    private static final int MAX_PARTITIONS = 64;
+    protected final int numEntries;
+    protected int[] hashes;
+    private int[] remap;
+    protected Deduplicator(int numEntries)
+    {
+        this.numEntries = numEntries;
+    }
+    
+    /**
+     *  Maps every entry to its index among the unique entries, valid after run().
+     *
+     */
+    public int[] getRemap()
+    {
+        return remap;
+    }
+    
+    /**
+     *  Finds the duplicate entries and numbers the unique ones in their original order.
+     *  With |parallel| set, many entries are hashed and matched on the common fork-join pool.
+     *  Returns the number of unique entries.
+     *
+     */
+    public int run(boolean parallel)
+    {
+        this.hashes = new int[numEntries];
+        this.remap = new int[numEntries];
+        int partitions = 1;
+        if (parallel && (numEntries >= MIN_PARALLEL_ENTRIES))
+        {
+            int threads = Math.min(MAX_PARTITIONS, ForkJoinPool.getCommonPoolParallelism());
+            partitions = Integer.highestOneBit(Math.max(1, threads));
+        }
+        
+        if (partitions == 1)
+        {
+            this.hash(0, numEntries);
+            this.match(null, 0, numEntries);
+        }
+        else
+        {
+            // All hashes are needed before any partition can be matched.
+            Task[] tasks = new Task[partitions];
+            long step = ((long)numEntries + partitions - 1) / partitions;
+            for (int i = 0; i < partitions; i++)
+            {
+                int start = (int)Math.min(numEntries, step * i);
+                int end = (int)Math.min(numEntries, step * (i + 1));
+                tasks[i] = new Task(this, null, start, end);
+            }
+            
+            ForkJoinTask.invokeAll(tasks);
+            // The entries are bucketed by partition with a counting sort, every bucket keeps
+            // the original order so each task only walks its own entries.
+            int partitionShift = 32 - Integer.numberOfTrailingZeros(partitions);
+            int[] bucketStart = new int[partitions + 1];
+            for (int i = 0; i < numEntries; i++)
+            {
+                bucketStart[(hashes[i] >>> partitionShift) + 1]++;
+            }
+            
+            for (int i = 0; i < partitions; i++)
+            {
+                bucketStart[i + 1] += bucketStart[i];
+            }
+            
+            int[] entries = new int[numEntries];
+            int[] fill = Arrays.copyOf(bucketStart, partitions);
+            for (int i = 0; i < numEntries; i++)
+            {
+                entries[fill[hashes[i] >>> partitionShift]++] = i;
+            }
+            
+            for (int i = 0; i < partitions; i++)
+            {
+                tasks[i] = new Task(this, entries, bucketStart[i], bucketStart[i + 1]);
+            }
+            
+            ForkJoinTask.invokeAll(tasks);
+        }
+        
+        int uniqueEntries = 0;
+        for (int i = 0; i < numEntries; i++)
+        {
+            int first = remap[i];
+            if (first != i)
+            {
+                // |first| is smaller than |i| so it already holds the new index.
+                remap[i] = remap[first];
+                continue;
+            }
+            
+            this.unique(i, uniqueEntries);
+            remap[i] = uniqueEntries++;
+        }
+        
+        return uniqueEntries;
+    }
+    
+    /**
+     *  Stores the hashes of the entries in [start, end) into |hashes|.
+     *
+     */
+    protected abstract void hash(int start, int end);
+    
+    /**
+     *  Returns the working memory of one matching thread that is passed to equal().
+     *
+     */
+    protected Object createScratch()
+    {
+        return null;
+    }
+    
+    /**
+     *  Checks if the entries |i| and |j| have the same key.
+     *
+     */
+    protected abstract boolean equal(int i, int j, Object scratch);
+    
+    /**
+     *  Called in the original order for every first entry of a key with the index it gets among the unique entries.
+     *
+     */
+    protected void unique(int index, int uniqueIndex)
+    {
+    }
+    
+    /**
+     *  Stores the first entry with the same key into |remap| for the entries |entries| holds
+     *  in [start, end) in ascending order, or for the entries in [start, end) when |entries| is null.
+     *  Entries with the same key must be matched by the same call.
+     *
+     */
+    private void match(int[] entries, int start, int end)
+    {
+        // Slots hold the hash and the entry index next to each other, so most probes
+        // are resolved without touching the entries.
+        int capacity = 1024;
+        int[] table = Deduplicator.newTable(capacity);
+        int mask = capacity - 1;
+        int size = 0;
+        Object scratch = this.createScratch();
+        for (int k = start; k < end; k++)
+        {
+            int i = entries == null ? k : entries[k];
+            int h = hashes[i];
+            int slot = h & mask;
+            int first = i;
+            int j;
+            while ((j = table[(slot << 1) + 1]) != -1)
+            {
+                if (table[slot << 1] == h && this.equal(i, j, scratch))
+                {
+                    first = j;
+                    break;
+                }
+                
+                slot = (slot + 1) & mask;
+            }
+            
+            remap[i] = first;
+            if (first != i)
+                continue;
+            table[slot << 1] = h;
+            table[(slot << 1) + 1] = i;
+            if (++size * 2 > capacity)
+            {
+                capacity <<= 1;
+                table = Deduplicator.rehash(table, capacity);
+                mask = capacity - 1;
+            }
+            
+        }
+        
+    }
+    
+    private static int[] newTable(int capacity)
+    {
+        int[] table = new int[capacity * 2];
+        Arrays.fill(table, -1);
+        return table;
+    }
+    
+    private static int[] rehash(int[] table, int capacity)
+    {
+        int[] ret = Deduplicator.newTable(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < table.length; i += 2)
+        {
+            if (table[i + 1] == -1)
+                continue;
+            int slot = table[i] & mask;
+            while (ret[(slot << 1) + 1] != -1)
+            {
+                slot = (slot + 1) & mask;
+            }
+            
+            ret[slot << 1] = table[i];
+            ret[(slot << 1) + 1] = table[i + 1];
+        }
+        
+        return ret;
+    }
+    
+    /**
+     *  Spreads the bits of an accumulated hash, the table uses the low bits and the partitions the high bits.
+     *
+     */
+    protected static int finish(int h)
+    {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        return h;
+    }
+    
+    private static final class Task extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        private final Deduplicator owner;
+        /**
+         *  Entries of the partition to match in [start, end), or null to hash the entries in [start, end).
+         *
+         */
+        private final int[] entries;
+        private final int start;
+        private final int end;
+        Task(Deduplicator owner, int[] entries, int start, int end)
+        {
+            this.owner = owner;
+            this.entries = entries;
+            this.start = start;
+            this.end = end;
+        }
+        
+        @Override
+        protected void compute()
+        {
+            if (entries == null)
+            {
+                owner.hash(start, end);
+            }
+            else
+            {
+                owner.match(entries, start, end);
+            }
+            
+        }
+        
+    }
+    
+}
@@ -1,6 +1,16 @@
 package com.openize.drako;
 import com.openize.drako.Stream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 /**
  *  Google Draco
  *
@@ -22,6 +32,214 @@ public class Draco
         return DracoMesh.decode(buffer, true);
     }
     
+    /**
+     *  Decode a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} from the remaining bytes of a buffer.
+     *  Heap, direct and memory-mapped buffers are read in place without copying, the buffer's position is not modified.
+     *
+     * @param data Raw draco bytes.
+     * @return a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     */
+    public static DracoPointCloud decode(ByteBuffer data)
+        throws DrakoException
+    {
+        if (data == null)
+            throw new IllegalArgumentException("Argument data cannot be null");
+        DecoderBuffer buffer = new DecoderBuffer(data);
+        return DracoMesh.decode(buffer, true);
+    }
+    
+    /**
+     *  Decode a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} from bytes,
+     *  the attributes that have a sink in |target| are decoded straight into the caller's buffers.
+     *
+     * @param data Raw draco bytes.
+     * @param target Buffers to receive the decoded attribute values.
+     * @return a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     */
+    public static DracoPointCloud decode(byte[] data, DracoDecodeTarget target)
+        throws DrakoException
+    {
+        if (data == null)
+            throw new IllegalArgumentException("Argument data cannot be null");
+        return Draco.decode(new DecoderBuffer(data), target);
+    }
+    
+    /**
+     *  Decode a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} from the remaining bytes of a buffer,
+     *  the attributes that have a sink in |target| are decoded straight into the caller's buffers.
+     *
+     * @param data Raw draco bytes.
+     * @param target Buffers to receive the decoded attribute values.
+     * @return a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     */
+    public static DracoPointCloud decode(ByteBuffer data, DracoDecodeTarget target)
+        throws DrakoException
+    {
+        if (data == null)
+            throw new IllegalArgumentException("Argument data cannot be null");
+        return Draco.decode(new DecoderBuffer(data), target);
+    }
+    
+    /**
+     *  Decode a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} from bytes with given options.
+     *
+     * @param data Raw draco bytes.
+     * @param options Options of the decoding, e.g. the attributes to decode.
+     * @return a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     */
+    public static DracoPointCloud decode(byte[] data, DracoLoadOptions options)
+        throws DrakoException
+    {
+        if (data == null)
+            throw new IllegalArgumentException("Argument data cannot be null");
+        if (options == null)
+            throw new IllegalArgumentException("Argument options cannot be null");
+        return DracoMesh.decode(new DecoderBuffer(data), options, true);
+    }
+    
+    /**
+     *  Decode a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} from the remaining bytes of a buffer with given options.
+     *
+     * @param data Raw draco bytes.
+     * @param options Options of the decoding, e.g. the attributes to decode.
+     * @return a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     */
+    public static DracoPointCloud decode(ByteBuffer data, DracoLoadOptions options)
+        throws DrakoException
+    {
+        if (data == null)
+            throw new IllegalArgumentException("Argument data cannot be null");
+        if (options == null)
+            throw new IllegalArgumentException("Argument options cannot be null");
+        return DracoMesh.decode(new DecoderBuffer(data), options, true);
+    }
+    
+    /**
+     *  Reads the version, geometry type, metadata and attribute layout of a draco payload without decoding the geometry.
+     *  Only the header, metadata and connectivity-size fields are parsed, the connectivity and the attribute values are
+     *  skipped to reach the quantization parameters of the attributes, which give their bounds.
+     *
+     * @param data Raw draco bytes.
+     * @return the description of the payload
+     */
+    public static DracoInfo probe(byte[] data)
+        throws DrakoException
+    {
+        return Draco.probe(data, false);
+    }
+    
+    /**
+     *  Reads the version, geometry type, metadata and attribute layout from the remaining bytes of a buffer without decoding the geometry.
+     *  Only the header, metadata and connectivity-size fields are parsed, the connectivity and the attribute values are
+     *  skipped to reach the quantization parameters of the attributes. The buffer's position is not modified.
+     *
+     * @param data Raw draco bytes.
+     * @return the description of the payload
+     */
+    public static DracoInfo probe(ByteBuffer data)
+        throws DrakoException
+    {
+        return Draco.probe(data, false);
+    }
+    
+    /**
+     *  Reads the description of a draco payload without decoding the attribute values.
+     *  Edgebreaker meshes may store values whose end can only be found by knowing their number,
+     *  decoding the connectivity gives it, so the quantization of all attributes is reported.
+     *
+     * @param data Raw draco bytes.
+     * @param decodeConnectivity Decode the connectivity instead of skipping it.
+     * @return the description of the payload
+     */
+    public static DracoInfo probe(byte[] data, boolean decodeConnectivity)
+        throws DrakoException
+    {
+        if (data == null)
+            throw new IllegalArgumentException("Argument data cannot be null");
+        return DracoMesh.probe(new DecoderBuffer(data), decodeConnectivity);
+    }
+    
+    /**
+     *  Reads the description of a draco payload from the remaining bytes of a buffer without decoding the attribute values.
+     *  Edgebreaker meshes may store values whose end can only be found by knowing their number,
+     *  decoding the connectivity gives it, so the quantization of all attributes is reported.
+     *  The buffer's position is not modified.
+     *
+     * @param data Raw draco bytes.
+     * @param decodeConnectivity Decode the connectivity instead of skipping it.
+     * @return the description of the payload
+     */
+    public static DracoInfo probe(ByteBuffer data, boolean decodeConnectivity)
+        throws DrakoException
+    {
+        if (data == null)
+            throw new IllegalArgumentException("Argument data cannot be null");
+        return DracoMesh.probe(new DecoderBuffer(data), decodeConnectivity);
+    }
+    
+    static DracoPointCloud decode(DecoderBuffer buffer, DracoDecodeTarget target)
+        throws DrakoException
+    {
+        if (target == null)
+            throw new IllegalArgumentException("Argument target cannot be null");
+        DracoLoadOptions options = new DracoLoadOptions();
+        options.setDecodeTarget(target);
+        return DracoMesh.decode(buffer, options, true);
+    }
+    
+    /**
+     *  Decode a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} from a file.
+     *  The file is memory-mapped and decoded in place, it's never loaded onto the heap.
+     *
+     * @param path Path to the draco file.
+     * @return a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     */
+    public static DracoPointCloud decode(Path path)
+        throws IOException, DrakoException
+    {
+        if (path == null)
+            throw new IllegalArgumentException("Argument path cannot be null");
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("Draco file is too large to be mapped: " + path);
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+        }
+        
+        return Draco.decode(data);
+    }
+    
+    /**
+     *  Decode independent draco payloads in parallel on the common fork-join pool.
+     *
+     * @param data Raw draco bytes of each item, the buffers' positions are not modified.
+     * @return The result of each item in input order
+     */
+    public static List<DracoDecodeResult> decodeAll(List<ByteBuffer> data)
+    {
+        return Draco.decodeAll(data, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     *  Decode independent draco payloads in parallel.
+     *  Each thread decodes with its own decoder state, and the calling thread takes part in the work.
+     *  A payload that fails to decode doesn't stop the others, its result carries the error instead.
+     *
+     * @param data Raw draco bytes of each item, the buffers' positions are not modified.
+     * @param executor Executor that runs the decoding threads besides the calling thread.
+     * @return The result of each item in input order
+     */
+    public static List<DracoDecodeResult> decodeAll(List<ByteBuffer> data, Executor executor)
+    {
+        if (data == null)
+            throw new IllegalArgumentException("Argument data cannot be null");
+        if (executor == null)
+            throw new IllegalArgumentException("Argument executor cannot be null");
+        return BatchDecoder.decodeAll(data, executor);
+    }
+    
     /**
      *  Encode the point cloud or mesh and get the encoded bytes in draco format.
      *
@@ -49,14 +267,65 @@ public class Draco
         if (options == null)
             throw new IllegalArgumentException("Argument options cannot be null");
         EncoderBuffer buf = Draco.encodeImpl(m, options);
-        if (buf.getData().length == buf.getBytes())
-            return buf.getData();else
-        {
-            byte[] ret = new byte[buf.getBytes()];
-            System.arraycopy(buf.getData(), 0, ret, 0, buf.getBytes());
-            return ret;
-        }
-        
+        return buf.toArray();
+    }
+    
+    /**
+     *  Encode the point cloud or mesh and write the bytes in draco format to |out|.
+     *  The encoded segments are written as they are, without being copied into a single array first.
+     *
+     * @param m The {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     * @param options Encode options
+     * @param out Stream to receive the bytes in draco format, it's not closed
+     * @return Number of bytes written to |out|
+     */
+    public static int encodeTo(DracoPointCloud m, DracoEncodeOptions options, OutputStream out)
+        throws IOException, DrakoException
+    {
+        if (out == null)
+            throw new IllegalArgumentException("Argument out cannot be null");
+        EncoderBuffer buf = Draco.checkedEncodeImpl(m, options);
+        buf.writeTo(out);
+        return buf.getBytes();
+    }
+    
+    /**
+     *  Encode the point cloud or mesh and write the bytes in draco format to |channel|.
+     *  A {@link java.nio.channels.GatheringByteChannel} receives all segments in a single gathering write.
+     *
+     * @param m The {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     * @param options Encode options
+     * @param channel Channel to receive the bytes in draco format, it's not closed
+     * @return Number of bytes written to |channel|
+     */
+    public static int encodeTo(DracoPointCloud m, DracoEncodeOptions options, WritableByteChannel channel)
+        throws IOException, DrakoException
+    {
+        if (channel == null)
+            throw new IllegalArgumentException("Argument channel cannot be null");
+        EncoderBuffer buf = Draco.checkedEncodeImpl(m, options);
+        buf.writeTo(channel);
+        return buf.getBytes();
+    }
+    
+    /**
+     *  Encode the point cloud or mesh into |out| starting at its position, the position is advanced past the encoded bytes.
+     *  Nothing is written when the remaining space of |out| is too small.
+     *
+     * @param m The {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     * @param options Encode options
+     * @param out Buffer to receive the bytes in draco format
+     * @return Number of bytes written to |out|
+     * @throws java.nio.BufferOverflowException Raised when |out| doesn't have enough remaining space.
+     */
+    public static int encodeTo(DracoPointCloud m, DracoEncodeOptions options, ByteBuffer out)
+        throws DrakoException
+    {
+        if (out == null)
+            throw new IllegalArgumentException("Argument out cannot be null");
+        EncoderBuffer buf = Draco.checkedEncodeImpl(m, options);
+        buf.writeTo(out);
+        return buf.getBytes();
     }
     
     public static void encode(DracoPointCloud m, DracoEncodeOptions options, Stream stream)
@@ -69,13 +338,34 @@ public class Draco
         if (stream == null)
             throw new IllegalArgumentException("Argument stream cannot be null");
         EncoderBuffer buf = Draco.encodeImpl(m, options);
-        stream.write(buf.getData(), 0, buf.getBytes());
+        buf.writeTo(stream);
+    }
+    
+    private static EncoderBuffer checkedEncodeImpl(DracoPointCloud m, DracoEncodeOptions options)
+        throws DrakoException
+    {
+        if (m == null)
+            throw new IllegalArgumentException("Argument m cannot be null");
+        if (options == null)
+            throw new IllegalArgumentException("Argument options cannot be null");
+        return Draco.encodeImpl(m, options);
     }
     
     static EncoderBuffer encodeImpl(DracoPointCloud m, DracoEncodeOptions options)
         throws DrakoException
     {
         EncoderBuffer ret = new EncoderBuffer();
+        Draco.encodeImpl(m, options, ret);
+        return ret;
+    }
+    
+    /**
+     *  Encodes the header and body of |m| at the end of |ret|.
+     *
+     */
+    static void encodeImpl(DracoPointCloud m, DracoEncodeOptions options, EncoderBuffer ret)
+        throws DrakoException
+    {
         PointCloudEncoder encoder = Draco.createEncoder(m, options);
         //Encode header
         
@@ -107,8 +397,6 @@ public class Draco
         
         //encode body
         encoder.encode(options, ret);
-        
-        return ret;
     }
     
     private static PointCloudEncoder createEncoder(DracoPointCloud pc, DracoEncodeOptions options)
@@ -0,0 +1,96 @@
+package com.openize.drako;
+/**
+ *  Layout and quantization of an attribute stored in a draco payload, as reported by {@link com.openize.drako.Draco#probe(java.nio.ByteBuffer)}.
+ *
+ */
+public class DracoAttributeInfo
+{    
+    private final int attributeType;
+    private final int dataType;
+    private final int componentsCount;
+    private final boolean normalized;
+    private final int uniqueId;
+    private final DracoQuantizationInfo quantizationInfo;
+    DracoAttributeInfo(PointAttribute attribute)
+    {
+        this.attributeType = attribute.getAttributeType();
+        this.dataType = attribute.getDataType();
+        this.componentsCount = attribute.getComponentsCount();
+        this.normalized = attribute.getNormalized();
+        this.uniqueId = 0xffff & attribute.getUniqueId();
+        this.quantizationInfo = attribute.getQuantizationInfo();
+    }
+    
+    /**
+     *  Gets the type of the attribute, defined by {@link com.openize.drako.AttributeType}.
+     *
+     */
+    public int getAttributeType()
+    {
+        return attributeType;
+    }
+    
+    /**
+     *  Gets the data type of the decoded values, defined by {@link com.openize.drako.DataType}.
+     *
+     */
+    public int getDataType()
+    {
+        return dataType;
+    }
+    
+    public int getComponentsCount()
+    {
+        return componentsCount;
+    }
+    
+    public boolean getNormalized()
+    {
+        return normalized;
+    }
+    
+    public int getUniqueId()
+    {
+        return uniqueId;
+    }
+    
+    /**
+     *  Gets the quantization parameters of the attribute, or null if it wasn't quantized or the
+     *  parameters can't be read without decoding the values.
+     *
+     */
+    public DracoQuantizationInfo getQuantizationInfo()
+    {
+        return quantizationInfo;
+    }
+    
+    /**
+     *  Gets the minimum corner of the box that contains all values of the attribute, or null if there's no quantization info.
+     *  The box is derived from the quantization parameters, so it may be larger than the actual values.
+     *
+     */
+    public float[] getBoundsMin()
+    {
+        if (quantizationInfo == null)
+            return null;
+        return quantizationInfo.getMinValues();
+    }
+    
+    /**
+     *  Gets the maximum corner of the box that contains all values of the attribute, or null if there's no quantization info.
+     *
+     */
+    public float[] getBoundsMax()
+    {
+        if (quantizationInfo == null)
+            return null;
+        float[] ret = quantizationInfo.getMinValues();
+        for (int i = 0; i < ret.length; i++)
+        {
+            ret[i] += quantizationInfo.getRange();
+        }
+        
+        return ret;
+    }
+    
+}
@@ -0,0 +1,43 @@
+package com.openize.drako;
+/**
+ *  Outcome of decoding one item of a batch, holds either the decoded geometry or the error that made it fail.
+ *
+ */
+public class DracoDecodeResult
+{    
+    private final DracoPointCloud geometry;
+    private final DrakoException error;
+    DracoDecodeResult(DracoPointCloud geometry, DrakoException error)
+    {
+        this.geometry = geometry;
+        this.error = error;
+    }
+    
+    /**
+     *  Returns true if the item was decoded.
+     *
+     */
+    public boolean getSucceeded()
+    {
+        return error == null;
+    }
+    
+    /**
+     *  Gets the decoded {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh}, or null if decoding failed.
+     *
+     */
+    public DracoPointCloud getGeometry()
+    {
+        return geometry;
+    }
+    
+    /**
+     *  Gets the error that made decoding fail, or null if the item was decoded.
+     *
+     */
+    public DrakoException getError()
+    {
+        return error;
+    }
+    
+}
@@ -0,0 +1,83 @@
+package com.openize.drako;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+/**
+ *  Caller-supplied destination buffers for decoded attribute values.
+ *  When a sink is registered for an attribute type, the decoder writes the final values of the first attribute
+ *  of that type straight into the sink instead of the attribute's own {@link com.openize.drako.DataBuffer},
+ *  so the data can be uploaded without another copy.
+ *  <p>
+ *  Values are written in attribute entry order, starting at the sink's position, and the position is advanced
+ *  past the written values. Use {@link com.openize.drako.PointAttribute#mappedIndex(int)} to map points to entries.
+ *  An attribute decoded into a sink keeps its metadata and point mapping, but may have no storage of its own.
+ *  </p>
+ *  <p>
+ *  With {@link com.openize.drako.DracoLoadOptions#setSkipAttributeTransform(boolean)} the sinks receive the portable integer values
+ *  instead, byte buffers as 32-bit integers and short buffers narrowed to 16 bits.
+ *  </p>
+ *
+ */
+public class DracoDecodeTarget
+{    
+    private Buffer[] sinks;
+    /**
+     *  Decode the attribute of given type into a byte buffer, values are written in the buffer's byte order.
+     *
+     * @param attributeType Type of the attribute, defined by {@link com.openize.drako.AttributeType}
+     * @param sink Buffer to receive the decoded values
+     */
+    public void setSink(int attributeType, ByteBuffer sink)
+    {
+        this.setSinkImpl(attributeType, sink);
+    }
+    
+    /**
+     *  Decode the attribute of given type into a float buffer, the attribute must be in {@link com.openize.drako.DataType#FLOAT32}.
+     *
+     * @param attributeType Type of the attribute, defined by {@link com.openize.drako.AttributeType}
+     * @param sink Buffer to receive the decoded values
+     */
+    public void setSink(int attributeType, FloatBuffer sink)
+    {
+        this.setSinkImpl(attributeType, sink);
+    }
+    
+    /**
+     *  Decode the attribute of given type into a short buffer, the attribute must be a 16-bit integer type.
+     *
+     * @param attributeType Type of the attribute, defined by {@link com.openize.drako.AttributeType}
+     * @param sink Buffer to receive the decoded values
+     */
+    public void setSink(int attributeType, ShortBuffer sink)
+    {
+        this.setSinkImpl(attributeType, sink);
+    }
+    
+    /**
+     *  Gets the sink registered for given attribute type.
+     *
+     * @param attributeType Type of the attribute, defined by {@link com.openize.drako.AttributeType}
+     * @return The registered buffer or null if there's no sink for this attribute type
+     */
+    public Buffer getSink(int attributeType)
+    {
+        if (attributeType < 0 || (attributeType >= sinks.length))
+            return null;
+        return sinks[attributeType];
+    }
+    
+    private void setSinkImpl(int attributeType, Buffer sink)
+    {
+        if (attributeType < 0 || (attributeType >= sinks.length))
+            throw new IllegalArgumentException("Invalid attribute type");
+        sinks[attributeType] = sink;
+    }
+    
+    public DracoDecodeTarget()
+    {
+        this.sinks = new Buffer[AttributeType.NAMED_ATTRIBUTES_COUNT];
+    }
+    
+}
@@ -0,0 +1,99 @@
+package com.openize.drako;
+import java.nio.ByteBuffer;
+/**
+ *  Reusable decoder for decoding many draco files in a row.
+ *  The decoder keeps its working memory (corner tables, traversal stacks, rANS tables and
+ *  portable attributes) between calls and only grows it when a larger input is decoded,
+ *  so decoding a stream of assets reaches a steady state without temporary allocations.
+ *  The returned geometries never share memory with the decoder.
+ *  <p>
+ *  A decoder is not thread-safe, use one instance per thread.
+ *  </p>
+ *
+ */
+public class DracoDecoder
+{    
+    private DecoderScratch scratch;
+    /**
+     *  Decode a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} from bytes
+     *
+     * @param data Raw draco bytes.
+     * @return a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     */
+    public DracoPointCloud decode(byte[] data)
+        throws DrakoException
+    {
+        if (data == null)
+            throw new IllegalArgumentException("Argument data cannot be null");
+        return DracoMesh.decode(this.prepare(new DecoderBuffer(data)), true);
+    }
+    
+    /**
+     *  Decode a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} from the remaining bytes of a buffer.
+     *  Heap, direct and memory-mapped buffers are read in place without copying, the buffer's position is not modified.
+     *
+     * @param data Raw draco bytes.
+     * @return a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     */
+    public DracoPointCloud decode(ByteBuffer data)
+        throws DrakoException
+    {
+        if (data == null)
+            throw new IllegalArgumentException("Argument data cannot be null");
+        return DracoMesh.decode(this.prepare(new DecoderBuffer(data)), true);
+    }
+    
+    /**
+     *  Decode a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} from bytes,
+     *  the attributes that have a sink in |target| are decoded straight into the caller's buffers.
+     *
+     * @param data Raw draco bytes.
+     * @param target Buffers to receive the decoded attribute values.
+     * @return a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     */
+    public DracoPointCloud decode(byte[] data, DracoDecodeTarget target)
+        throws DrakoException
+    {
+        if (data == null)
+            throw new IllegalArgumentException("Argument data cannot be null");
+        return Draco.decode(this.prepare(new DecoderBuffer(data)), target);
+    }
+    
+    /**
+     *  Decode a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} from the remaining bytes of a buffer,
+     *  the attributes that have a sink in |target| are decoded straight into the caller's buffers.
+     *
+     * @param data Raw draco bytes.
+     * @param target Buffers to receive the decoded attribute values.
+     * @return a {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     */
+    public DracoPointCloud decode(ByteBuffer data, DracoDecodeTarget target)
+        throws DrakoException
+    {
+        if (data == null)
+            throw new IllegalArgumentException("Argument data cannot be null");
+        return Draco.decode(this.prepare(new DecoderBuffer(data)), target);
+    }
+    
+    /**
+     *  Decodes the remaining bytes of a buffer and reports any failure by an exception.
+     *
+     */
+    DracoPointCloud decodeStrict(ByteBuffer data)
+        throws DrakoException
+    {
+        return DracoMesh.decodeStrict(this.prepare(new DecoderBuffer(data)), null);
+    }
+    
+    private DecoderBuffer prepare(DecoderBuffer buffer)
+    {
+        buffer.setScratch(scratch);
+        return buffer;
+    }
+    
+    public DracoDecoder()
+    {
+        this.scratch = new DecoderScratch();
+    }
+    
+}
@@ -131,6 +131,29 @@ public class DracoEncodeOptions
     }
     
     private boolean pointCloud;
+    /**
+     *  Encode the attributes of large meshes concurrently on the fork-join pool, the output is the same
+     *  as encoding them one after another, default value is true.
+     *
+     * @return  Encode the attributes of large meshes concurrently, default value is true.
+     */
+    public boolean getParallelAttributeEncoding()
+    {
+        return this.parallelAttributeEncoding;
+    }
+    
+    /**
+     *  Encode the attributes of large meshes concurrently on the fork-join pool, the output is the same
+     *  as encoding them one after another, default value is true.
+     *
+     * @param value New value
+     */
+    public void setParallelAttributeEncoding(boolean value)
+    {
+        this.parallelAttributeEncoding = value;
+    }
+    
+    private boolean parallelAttributeEncoding = true;
     boolean getSplitMeshOnSeams()
     {
         return this.splitMeshOnSeams;
@@ -0,0 +1,106 @@
+package com.openize.drako;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+/**
+ *  Reusable encoder for encoding many point clouds or meshes in a row.
+ *  The encoder keeps its output buffer and working memory (corner tables, visit markers,
+ *  rANS frequency and probability tables) between calls and only grows them when a larger
+ *  input is encoded, so a high-volume pipeline reaches a steady state where only the output is allocated.
+ *  <p>
+ *  An encoder is not thread-safe, use one instance per thread.
+ *  </p>
+ *
+ */
+public class DracoEncoder
+{    
+    private EncoderBuffer buffer;
+    /**
+     *  Encode the point cloud or mesh and get the encoded bytes in draco format.
+     *
+     * @param m The {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     * @param options Encode options
+     * @return Bytes in draco format
+     */
+    public byte[] encode(DracoPointCloud m, DracoEncodeOptions options)
+        throws DrakoException
+    {
+        this.encodeImpl(m, options);
+        return buffer.toArray();
+    }
+    
+    /**
+     *  Encode the point cloud or mesh into |out| starting at its position, the position is advanced past the encoded bytes.
+     *  Nothing is written when the remaining space of |out| is too small.
+     *
+     * @param m The {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     * @param options Encode options
+     * @param out Buffer to receive the bytes in draco format
+     * @return Number of bytes written to |out|
+     * @throws BufferOverflowException Raised when |out| doesn't have enough remaining space.
+     */
+    public int encode(DracoPointCloud m, DracoEncodeOptions options, ByteBuffer out)
+        throws DrakoException
+    {
+        if (out == null)
+            throw new IllegalArgumentException("Argument out cannot be null");
+        this.encodeImpl(m, options);
+        buffer.writeTo(out);
+        return buffer.getBytes();
+    }
+    
+    /**
+     *  Encode the point cloud or mesh and write the bytes in draco format to |out|.
+     *
+     * @param m The {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     * @param options Encode options
+     * @param out Stream to receive the bytes in draco format, it's not closed
+     * @return Number of bytes written to |out|
+     */
+    public int encodeTo(DracoPointCloud m, DracoEncodeOptions options, OutputStream out)
+        throws IOException, DrakoException
+    {
+        if (out == null)
+            throw new IllegalArgumentException("Argument out cannot be null");
+        this.encodeImpl(m, options);
+        buffer.writeTo(out);
+        return buffer.getBytes();
+    }
+    
+    /**
+     *  Encode the point cloud or mesh and write the bytes in draco format to |channel|.
+     *
+     * @param m The {@link com.openize.drako.DracoPointCloud} or {@link com.openize.drako.DracoMesh} instance
+     * @param options Encode options
+     * @param channel Channel to receive the bytes in draco format, it's not closed
+     * @return Number of bytes written to |channel|
+     */
+    public int encodeTo(DracoPointCloud m, DracoEncodeOptions options, WritableByteChannel channel)
+        throws IOException, DrakoException
+    {
+        if (channel == null)
+            throw new IllegalArgumentException("Argument channel cannot be null");
+        this.encodeImpl(m, options);
+        buffer.writeTo(channel);
+        return buffer.getBytes();
+    }
+    
+    private void encodeImpl(DracoPointCloud m, DracoEncodeOptions options)
+        throws DrakoException
+    {
+        if (m == null)
+            throw new IllegalArgumentException("Argument m cannot be null");
+        if (options == null)
+            throw new IllegalArgumentException("Argument options cannot be null");
+        buffer.clear();
+        Draco.encodeImpl(m, options, buffer);
+    }
+    
+    public DracoEncoder()
+    {
+        this.buffer = new EncoderBuffer();
+    }
+    
+}
@@ -1,9 +1,10 @@
 package com.openize.drako;
 /**
- *  List of encoding methods for point clouds.
+ *  List of encoding methods for point clouds and meshes.
+ *  {@link #KD_TREE} is only used by point clouds and {@link #EDGE_BREAKER} only by meshes.
  *
  */
-final class DracoEncodingMethod
+public final class DracoEncodingMethod
 {    
     public static final int SEQUENTIAL = 0;
     public static final int KD_TREE = 1;
@@ -9,6 +9,16 @@ class DracoHeader
     public short flags;
     public int encoderType;
     public int method;
+    public int getMajor()
+    {
+        return 0xff & major;
+    }
+    
+    public int getMinor()
+    {
+        return 0xff & minor;
+    }
+    
     public static DracoHeader parse(DecoderBuffer buffer)
         throws DrakoException
     {
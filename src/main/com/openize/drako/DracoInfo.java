@@ -0,0 +1,95 @@
+package com.openize.drako;
+import java.util.Collections;
+import java.util.List;
+/**
+ *  Description of a draco payload that is read without decoding the geometry, see {@link com.openize.drako.Draco#probe(java.nio.ByteBuffer)}.
+ *
+ */
+public class DracoInfo
+{    
+    private final int versionMajor;
+    private final int versionMinor;
+    private final int geometryType;
+    private final int encodingMethod;
+    private final int numFaces;
+    private final int numPoints;
+    private final List<DracoAttributeInfo> attributes;
+    private final GeometryMetadata metadata;
+    DracoInfo(DracoHeader header, int numFaces, int numPoints, List<DracoAttributeInfo> attributes, GeometryMetadata metadata)
+    {
+        this.versionMajor = header.getMajor();
+        this.versionMinor = header.getMinor();
+        this.geometryType = header.encoderType;
+        this.encodingMethod = header.method;
+        this.numFaces = numFaces;
+        this.numPoints = numPoints;
+        this.attributes = Collections.unmodifiableList(attributes);
+        this.metadata = metadata;
+    }
+    
+    public int getVersionMajor()
+    {
+        return versionMajor;
+    }
+    
+    public int getVersionMinor()
+    {
+        return versionMinor;
+    }
+    
+    /**
+     *  Gets the type of the geometry, defined by {@link com.openize.drako.EncodedGeometryType}.
+     *
+     */
+    public int getGeometryType()
+    {
+        return geometryType;
+    }
+    
+    /**
+     *  Gets the method the geometry was encoded with, defined by {@link com.openize.drako.DracoEncodingMethod}.
+     *
+     */
+    public int getEncodingMethod()
+    {
+        return encodingMethod;
+    }
+    
+    /**
+     *  Gets the number of faces of a mesh, 0 for point clouds.
+     *
+     */
+    public int getNumFaces()
+    {
+        return numFaces;
+    }
+    
+    /**
+     *  Gets the number of points, or -1 if it's only known after decoding the connectivity.
+     *  That's the case of edgebreaker meshes probed without their connectivity, which have at most three points per face.
+     *
+     */
+    public int getNumPoints()
+    {
+        return numPoints;
+    }
+    
+    /**
+     *  Gets the attributes in the order of their ids in the decoded geometry.
+     *
+     */
+    public List<DracoAttributeInfo> getAttributes()
+    {
+        return attributes;
+    }
+    
+    /**
+     *  Gets the metadata of the geometry, or null if there's none.
+     *
+     */
+    public GeometryMetadata getMetadata()
+    {
+        return metadata;
+    }
+    
+}
@@ -69,6 +69,13 @@ public class DracoMesh extends DracoPointCloud
         return super.addAttribute(pa);
     }
     
+    @Override
+    void deleteAttribute(int attId)
+    {
+        attributeData.remove(attId);
+        super.deleteAttribute(attId);
+    }
+    
     public void setFace(int faceId, int[] face)
     {
         if (faceId >= this.getNumFaces())
@@ -106,15 +113,26 @@ public class DracoMesh extends DracoPointCloud
     void applyPointIdDeduplication(int[] idMap, IntList uniquePointIds)
     {
         super.applyPointIdDeduplication(idMap, uniquePointIds);
-        int p = 0;
-        for (int f = 0; f < this.getNumFaces(); ++f)
+        int[] data = faces.data;
+        for (int i = 0, n = this.getNumFaces() * 3; i < n; i++)
         {
-            for (int c = 0; c < 3; ++c)
-            {
-                faces.set(p, idMap[faces.get(p)]);
-                p++;
-            }
-            
+            data[i] = idMap[data[i]];
+        }
+        
+    }
+    
+    /**
+     *  Decoder chosen for a header together with the empty geometry it decodes into.
+     *
+     */
+    private static final class GeometryDecoding
+    {
+        final PointCloudDecoder decoder;
+        final DracoPointCloud geometry;
+        GeometryDecoding(PointCloudDecoder decoder, DracoPointCloud geometry)
+        {
+            this.decoder = decoder;
+            this.geometry = geometry;
         }
         
     }
@@ -139,58 +157,137 @@ public class DracoMesh extends DracoPointCloud
     
     static DracoPointCloud decode(DecoderBuffer buffer, boolean decodeData)
         throws DrakoException
+    {
+        return DracoMesh.decode(buffer, null, decodeData);
+    }
+    
+    static DracoPointCloud decode(DecoderBuffer buffer, DracoLoadOptions options, boolean decodeData)
+        throws DrakoException
     {
         DracoHeader header = DracoHeader.parse(buffer);
         if (header == null)
             return null;
-        if (header.encoderType == EncodedGeometryType.TRIANGULAR_MESH)
-            return DracoMesh.decodeMesh(buffer, header, decodeData);else if (header.encoderType == EncodedGeometryType.POINT_CLOUD)
-            return DracoMesh.decodePointCloud(buffer, header, decodeData);
-        return null;
+        try
+        {
+            GeometryDecoding decoding = DracoMesh.createDecoding(buffer, header, options);
+            decoding.decoder.decode(header, buffer, decoding.geometry, decodeData);
+            return decoding.geometry;
+        }
+        catch(Exception $e)
+        {
+            return null;
+        }
+        
     }
     
-    static DracoPointCloud decode(DecoderBuffer buffer)
+    /**
+     *  Picks the decoder of the geometry type and encoding method of |header| and creates
+     *  the geometry it decodes into.
+     *
+     */
+    private static GeometryDecoding createDecoding(DecoderBuffer buffer, DracoHeader header, DracoLoadOptions options)
         throws DrakoException
     {
-        return DracoMesh.decode(buffer, true);
+        buffer.setBitstreamVersion(header.version);
+        PointCloudDecoder decoder;
+        DracoPointCloud geometry;
+        if (header.encoderType == EncodedGeometryType.TRIANGULAR_MESH)
+        {
+            decoder = DracoMesh.createMeshDecoder(header.method);
+            geometry = new DracoMesh();
+        }
+        else if (header.encoderType == EncodedGeometryType.POINT_CLOUD)
+        {
+            decoder = DracoMesh.createPointCloudDecoder(header.method);
+            geometry = new DracoPointCloud();
+        }
+        else
+            throw new DrakoException("Unsupported geometry type " + header.encoderType);
+        if (decoder == null)
+            throw new DrakoException("Unsupported encoding method " + header.method);
+        if (options != null)
+        {
+            decoder.options = options;
+        }
+        
+        return new GeometryDecoding(decoder, geometry);
     }
     
-    private static DracoPointCloud decodePointCloud(DecoderBuffer buffer, DracoHeader header, boolean decodeData)
+    /**
+     *  Decodes the geometry and its attributes, a failure is reported by an exception
+     *  that describes it instead of a null result.
+     *
+     */
+    static DracoPointCloud decodeStrict(DecoderBuffer buffer, DracoLoadOptions options)
+        throws DrakoException
     {
-        buffer.setBitstreamVersion(header.version);
-        PointCloudDecoder decoder = DracoMesh.createPointCloudDecoder(header.method);
-        if (decoder == null)
-            return null;
+        DracoHeader header = DracoHeader.parse(buffer);
+        if (header == null)
+            throw new DrakoException("Invalid draco header");
+        GeometryDecoding decoding = DracoMesh.createDecoding(buffer, header, options);
         try
         {
-            DracoPointCloud ret = new DracoPointCloud();
-            decoder.decode(header, buffer, ret, decodeData);
-            return ret;
+            decoding.decoder.decode(header, buffer, decoding.geometry, true);
         }
-        catch(Exception $e)
+        catch(RuntimeException e)
         {
-            return null;
+            throw new DrakoException("Malformed draco data", e);
         }
         
+        return decoding.geometry;
     }
     
-    private static DracoMesh decodeMesh(DecoderBuffer buffer, DracoHeader header, boolean decodeData)
+    /**
+     *  Reads the header, metadata, layout and quantization of the attributes without decoding the attribute values.
+     *  Unless |decodeConnectivity| is set the connectivity is skipped, edgebreaker meshes then report no point count.
+     *
+     */
+    static DracoInfo probe(DecoderBuffer buffer, boolean decodeConnectivity)
+        throws DrakoException
     {
-        buffer.setBitstreamVersion(header.version);
-        MeshDecoder decoder = DracoMesh.createMeshDecoder(header.method);
-        if (decoder == null)
-            return null;
+        DracoHeader header = DracoHeader.parse(buffer);
+        if (header == null)
+            throw new DrakoException("Invalid draco header");
+        GeometryDecoding decoding = DracoMesh.createDecoding(buffer, header, null);
+        PointCloudDecoder decoder = decoding.decoder;
+        DracoPointCloud pc = decoding.geometry;
+        decoder.probing = true;
+        decoder.skipConnectivity = !decodeConnectivity;
         try
         {
-            DracoMesh ret = new DracoMesh();
-            decoder.decode(header, buffer, ret, decodeData);
-            return ret;
+            decoder.decode(header, buffer, pc, false);
         }
-        catch(Exception $e)
+        catch(RuntimeException e)
         {
-            return null;
+            throw new DrakoException("Malformed draco data", e);
+        }
+        
+        int numFaces = 0;
+        int numPoints = pc.getNumPoints();
+        if (decoder instanceof MeshDecoder)
+        {
+            numFaces = ((MeshDecoder)decoder).getNumEncodedFaces();
+            if (header.method == DracoEncodingMethod.EDGE_BREAKER && !decodeConnectivity)
+            {
+                numPoints = -1;
+            }
+            
         }
         
+        ArrayList<DracoAttributeInfo> attributes = new ArrayList<DracoAttributeInfo>();
+        for (int i = 0; i < pc.getNumAttributes(); i++)
+        {
+            attributes.add(new DracoAttributeInfo(pc.attribute(i)));
+        }
+        
+        GeometryMetadata metadata = pc.getMetadatas().isEmpty() ? null : pc.getMetadatas().get(0);
+        return new DracoInfo(header, numFaces, numPoints, attributes, metadata);
+    }
+    
+    static DracoPointCloud decode(DecoderBuffer buffer)
+        throws DrakoException
+    {
+        return DracoMesh.decode(buffer, true);
     }
     
     public int getAttributeElementType(int attId)
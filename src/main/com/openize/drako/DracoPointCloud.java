@@ -1,9 +1,5 @@
 package com.openize.drako;
-import com.openize.drako.AsposeUtils;
-import com.openize.drako.Struct;
-import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.HashMap;
 /**
  *  DracoPointCloud is a collection of n-dimensional points that are described by a
  *  set of PointAttributes that can represent data such as positions or colors
@@ -12,102 +8,6 @@ import java.util.HashMap;
  */
 public class DracoPointCloud
 {    
-    static final class VertexIndex implements Comparable<VertexIndex>, Struct<VertexIndex>, Serializable
-    {
-        private DracoPointCloud cloud;
-        private int p;
-        public VertexIndex(DracoPointCloud cloud, int p)
-        {
-            this.cloud = cloud;
-            this.p = p;
-        }
-        
-        @Override
-        public boolean equals(Object obj)
-        {
-            if (!(obj instanceof VertexIndex))
-                return false;
-            int ret = this.compareTo((VertexIndex)obj);
-            return ret == 0;
-        }
-        
-        public int compareTo(VertexIndex other)
-        {
-            for (int i = 0; i < cloud.attributes.size(); ++i)
-            {
-                PointAttribute attr = cloud.attributes.get(i);
-                int id0 = attr.mappedIndex(p);
-                int id1 = attr.mappedIndex(other.p);
-                if (id0 < id1)
-                    return -1;
-                if (id0 > id1)
-                    return 1;
-            }
-            
-            return 0;
-        }
-        
-        @Override
-        public String toString()
-        {
-            StringBuilder sb = new StringBuilder();
-            sb.append(String.format("p: "));
-            for (int i = 0; i < cloud.attributes.size(); ++i)
-            {
-                PointAttribute attr = cloud.attributes.get(i);
-                int id0 = attr.mappedIndex(p);
-                if (i > 0)
-                {
-                    sb.append("/");
-                }
-                
-                sb.append(id0);
-            }
-            
-            return sb.toString();
-        }
-        
-        public VertexIndex()
-        {
-        }
-        
-        private VertexIndex(VertexIndex other)
-        {
-            this.cloud = other.cloud;
-            this.p = other.p;
-        }
-        
-        @Override
-        public VertexIndex clone()
-        {
-            return new VertexIndex(this);
-        }
-        
-        @Override
-        public void copyFrom(VertexIndex src)
-        {
-            if (src == null)
-                return;
-            this.cloud = src.cloud;
-            this.p = src.p;
-        }
-        
-        static final long serialVersionUID = 82544948L;
-        @Override
-        public int hashCode()
-        {
-            int hash = 0;
-            for (int i = 0; i < cloud.attributes.size(); ++i)
-            {
-                int attId = cloud.attributes.get(i).mappedIndex(p);
-                hash = attId << 2 ^ (hash << 1);
-            }
-            
-            return hash;
-        }
-        
-    }
-    
     /**
      *  Attributes describing the point cloud.
      *
@@ -250,6 +150,34 @@ public class DracoPointCloud
         return ret;
     }
     
+    /**
+     *  Removes the attribute with given id, the ids of the following attributes are decreased by one.
+     *
+     */
+    void deleteAttribute(int attId)
+    {
+        attributes.remove(attId);
+        for (int type = 0; type < namedAttributeIndex.length; type++)
+        {
+            IntList attrs = namedAttributeIndex[type];
+            if (attrs == null)
+                continue;
+            IntList updated = new IntList();
+            for (int i = 0; i < attrs.getCount(); i++)
+            {
+                int id = attrs.get(i);
+                if (id != attId)
+                {
+                    updated.add(id > attId ? id - 1 : id);
+                }
+                
+            }
+            
+            namedAttributeIndex[type] = updated;
+        }
+        
+    }
+    
     /**
      *  Creates and adds a new attribute to the point cloud. The attribute has
      *  properties derived from the provided GeometryAttribute |att|.
@@ -302,6 +230,17 @@ public class DracoPointCloud
      * @return true if deduplication successed.
      */
     public void deduplicateAttributeValues()
+    {
+        this.deduplicateAttributeValues(false);
+    }
+    
+    /**
+     *  Deduplicates all attribute values (all attribute entries with the same
+     *  value are merged into a single entry).
+     *
+     * @param parallel Process large attributes on the common fork-join pool, the result is the same.
+     */
+    public void deduplicateAttributeValues(boolean parallel)
     {
         
         if (numPoints == 0)
@@ -311,7 +250,7 @@ public class DracoPointCloud
         for (int i = 0; i < attributes.size(); i++)
         {
             PointAttribute attr = attributes.get(i);
-            attr.deduplicateValues();
+            attr.deduplicateValues(parallel);
         }
         
     }
@@ -323,36 +262,33 @@ public class DracoPointCloud
      */
     public void deduplicatePointIds()
     {
-        HashMap<VertexIndex, Integer> uniquePointMap = new HashMap<VertexIndex, Integer>();
-        int numUniquePoints = 0;
-        int[] indexMap = new int[numPoints];
-        IntList uniquePoints = new IntList();
-        final Integer[] ref1 = new Integer[1];
-        // Go through all vertices and find their duplicates.
-        for (int i = 0; i < numPoints; ++i)
+        this.deduplicatePointIds(false);
+    }
+    
+    /**
+     *  Removes duplicate point ids (two point ids are duplicate when all of their
+     *  attributes are mapped to the same entry ids).
+     *
+     * @param parallel Process large point clouds on the common fork-join pool, the result is the same.
+     */
+    public void deduplicatePointIds(boolean parallel)
+    {
+        int[][] columns = new int[attributes.size()][];
+        for (int i = 0; i < columns.length; i++)
         {
-            int tmp;
-            VertexIndex p = new VertexIndex(this, i);
-            if (AsposeUtils.tryGetValue(uniquePointMap, p, ref1))
-            {
-                tmp = ref1[0] == null ? 0 : ref1[0];
-                indexMap[i] = tmp;
-            }
-            else
-            {
-                tmp = ref1[0] == null ? 0 : ref1[0];
-                uniquePointMap.put(Struct.byVal(p), numUniquePoints);
-                indexMap[i] = numUniquePoints++;
-                uniquePoints.add(i);
-            }
-            
+            PointAttribute attr = attributes.get(i);
+            // Every point has its own entry of this attribute, so all points are unique.
+            if (attr.getIdentityMapping())
+                return;
+            columns[i] = attr.getIndicesMap();
         }
         
+        PointIdDeduplicator deduplicator = new PointIdDeduplicator(columns, numPoints);
+        int numUniquePoints = deduplicator.run(parallel);
+        // All vertices are already unique.
         if (numUniquePoints == numPoints)
             return;
-        // All vertices are already unique.
-        
-        this.applyPointIdDeduplication(indexMap, uniquePoints);
+        this.applyPointIdDeduplication(deduplicator.getRemap(), deduplicator.getUniquePoints());
         this.setNumPoints(numUniquePoints);
     }
     
@@ -387,28 +323,27 @@ public class DracoPointCloud
      */
     void applyPointIdDeduplication(int[] idMap, IntList uniquePointIds)
     {
-        int numUniquePoints = 0;
-        for (int i = 0; i < uniquePointIds.getCount(); i++)
+        int numUniquePoints = uniquePointIds.getCount();
+        int[] uniquePoints = uniquePointIds.data;
+        for (int a = 0; a < attributes.size(); ++a)
         {
-            int newPointId = idMap[uniquePointIds.get(i)];
-            if (newPointId >= numUniquePoints)
+            PointAttribute attr = attributes.get(a);
+            if (attr.getIdentityMapping())
             {
-                // New unique vertex reached. Copy attribute indices to the proper
-                // position.
-                for (int a = 0; a < attributes.size(); ++a)
-                {
-                    PointAttribute attr = attributes.get(a);
-                    attr.setPointMapEntry(newPointId, attr.mappedIndex(uniquePointIds.get(i)));
-                }
-                
-                numUniquePoints = newPointId + 1;
+                attr.setExplicitMapping(numUniquePoints);
+                System.arraycopy(uniquePoints, 0, attr.getIndicesMap(), 0, numUniquePoints);
+                continue;
             }
             
-        }
-        
-        for (int a = 0; a < attributes.size(); ++a)
-        {
-            attributes.get(a).setExplicitMapping(numUniquePoints);
+            // Unique point ids are ascending and never smaller than their new id,
+            // so the map can be compacted in place.
+            int[] map = attr.getIndicesMap();
+            for (int i = 0; i < numUniquePoints; i++)
+            {
+                map[i] = map[uniquePoints[i]];
+            }
+            
+            attr.setExplicitMapping(numUniquePoints);
         }
         
     }
@@ -0,0 +1,89 @@
+package com.openize.drako;
+/**
+ *  Parameters of a quantized floating point attribute.
+ *  A quantized component value |q| stands for {@code minValue[c] + q * range / (2^quantizationBits - 1)},
+ *  which lets the integer values be uploaded as they are and dequantized later, e.g. in a vertex shader.
+ *
+ */
+public class DracoQuantizationInfo
+{    
+    private final int quantizationBits;
+    private final float[] minValues;
+    private final float range;
+    DracoQuantizationInfo(int quantizationBits, float[] minValues, float range)
+    {
+        this.quantizationBits = quantizationBits;
+        this.minValues = minValues;
+        this.range = range;
+    }
+    
+    /**
+     *  Creates the quantization info described by an attribute's transform data, or returns null
+     *  if the attribute wasn't quantized.
+     *
+     */
+    static DracoQuantizationInfo fromTransformData(AttributeTransformData data, int numComponents)
+    {
+        if (data == null || (data.transformType != AttributeTransformType.QUANTIZATION_TRANSFORM))
+            return null;
+        int quantizationBits = data.getInt(0);
+        float[] minValues = new float[numComponents];
+        for (int i = 0; i < numComponents; i++)
+        {
+            minValues[i] = data.getFloat(4 + (i * 4));
+        }
+        
+        float range = data.getFloat(4 + (numComponents * 4));
+        return new DracoQuantizationInfo(quantizationBits, minValues, range);
+    }
+    
+    /**
+     *  Gets the number of bits of each quantized component.
+     *
+     */
+    public int getQuantizationBits()
+    {
+        return quantizationBits;
+    }
+    
+    /**
+     *  Gets the minimum value of each component.
+     *
+     */
+    public float[] getMinValues()
+    {
+        return (float[])(minValues.clone());
+    }
+    
+    /**
+     *  Gets the largest difference between the maximum and the minimum value over all components.
+     *
+     */
+    public float getRange()
+    {
+        return range;
+    }
+    
+    /**
+     *  Gets the value of one step of the quantized values.
+     *
+     */
+    public float getScale()
+    {
+        int maxQuantizedValue = (1 << quantizationBits) - 1;
+        return maxQuantizedValue > 0 ? range / (float)maxQuantizedValue : 0.0f;
+    }
+    
+    /**
+     *  Converts a quantized value of given component back to its floating point value.
+     *
+     * @param value Quantized value
+     * @param component Index of the component
+     * @return The dequantized value, same as the decoder would produce
+     */
+    public float dequantize(int value, int component)
+    {
+        return value * this.getScale() + minValues[component];
+    }
+    
+}
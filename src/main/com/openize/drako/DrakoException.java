@@ -5,5 +5,29 @@ package com.openize.drako;
  */
 public class DrakoException extends Exception
 {    
+    public DrakoException()
+    {
+    }
+    
+    /**
+     *  Constructs the exception with a description of the failure.
+     *
+     * @param message Description of the failure
+     */
+    public DrakoException(String message)
+    {
+        super(message);
+    }
+    
+    /**
+     *  Constructs the exception with a description and the underlying cause of the failure.
+     *
+     * @param message Description of the failure
+     * @param cause The underlying error
+     */
+    public DrakoException(String message, Throwable cause)
+    {
+        super(message, cause);
+    }
     
 }
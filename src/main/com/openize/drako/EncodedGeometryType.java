@@ -1,5 +1,9 @@
 package com.openize.drako;
-final class EncodedGeometryType
+/**
+ *  Types of the geometry stored in a draco payload.
+ *
+ */
+public final class EncodedGeometryType
 {    
     public static final int INVALID = -1;
     public static final int POINT_CLOUD = 0;
@@ -0,0 +1,92 @@
+package com.openize.drako;
+/**
+ *  Connectivity of a corner table exposed through plain arrays and final methods.
+ *  Loops that swing around many vertices use it instead of the virtual
+ *  {@link com.openize.drako.ICornerTable} methods.
+ *  Corners opposite to an attribute seam have no opposite corner, like in
+ *  {@link com.openize.drako.MeshAttributeCornerTable}.
+ *
+ */
+final class FlatCornerTable
+{    
+    private final int[] oppositeCorners;
+    /**
+     *  Corners opposite to a seam edge, null when the table has no seams.
+     *
+     */
+    private final boolean[] seamEdges;
+    private final int[] cornerToVertexMap;
+    private FlatCornerTable(int[] oppositeCorners, boolean[] seamEdges, int[] cornerToVertexMap)
+    {
+        this.oppositeCorners = oppositeCorners;
+        this.seamEdges = seamEdges;
+        this.cornerToVertexMap = cornerToVertexMap;
+    }
+    
+    /**
+     *  Creates a view over the arrays of given table, tables of other types are copied.
+     *
+     */
+    public static FlatCornerTable wrap(ICornerTable table)
+    {
+        if (table instanceof CornerTable)
+        {
+            CornerTable t = (CornerTable)table;
+            return new FlatCornerTable(t.getOppositeCorners(), null, t.getCornerToVertexMap());
+        }
+        
+        if (table instanceof MeshAttributeCornerTable)
+        {
+            MeshAttributeCornerTable t = (MeshAttributeCornerTable)table;
+            return new FlatCornerTable(t.getCornerTable().getOppositeCorners(), t.getSeamEdges(), t.getCornerToVertexMap());
+        }
+        
+        int numCorners = table.getNumCorners();
+        int[] oppositeCorners = new int[numCorners];
+        int[] cornerToVertexMap = new int[numCorners];
+        for (int c = 0; c < numCorners; c++)
+        {
+            oppositeCorners[c] = table.opposite(c);
+            cornerToVertexMap[c] = table.vertex(c);
+        }
+        
+        return new FlatCornerTable(oppositeCorners, null, cornerToVertexMap);
+    }
+    
+    public int opposite(int corner)
+    {
+        if (corner < 0 || (seamEdges != null && seamEdges[corner]))
+            return CornerTable.K_INVALID_CORNER_INDEX;
+        return oppositeCorners[corner];
+    }
+    
+    public int vertex(int corner)
+    {
+        return cornerToVertexMap[corner];
+    }
+    
+    public static int next(int corner)
+    {
+        if (corner < 0)
+            return corner;
+        return corner % 3 == 2 ? corner - 2 : corner + 1;
+    }
+    
+    public static int previous(int corner)
+    {
+        if (corner < 0)
+            return corner;
+        return corner % 3 == 0 ? corner + 2 : corner - 1;
+    }
+    
+    public int swingLeft(int corner)
+    {
+        return FlatCornerTable.next(this.opposite(FlatCornerTable.next(corner)));
+    }
+    
+    public int swingRight(int corner)
+    {
+        return FlatCornerTable.previous(this.opposite(FlatCornerTable.previous(corner)));
+    }
+    
+}
@@ -18,6 +18,12 @@ class LinearSequencer extends PointsSequencer
         attribute.setIdentityMapping(true);
     }
     
+    @Override
+    public int getSequenceLength()
+    {
+        return numPoints;
+    }
+    
     @Override
     protected void generateSequenceInternal()
     {
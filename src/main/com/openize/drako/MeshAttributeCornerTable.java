@@ -323,6 +323,20 @@ class MeshAttributeCornerTable extends ICornerTable
         return cornerTable;
     }
     
+    /**
+     *  Flags of the corners that are opposite to a seam or boundary edge.
+     *
+     */
+    boolean[] getSeamEdges()
+    {
+        return isEdgeOnSeam;
+    }
+    
+    int[] getCornerToVertexMap()
+    {
+        return cornerToVertexMap;
+    }
+    
     private void $initFields$()
     {
         try
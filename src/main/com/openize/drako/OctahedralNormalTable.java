@@ -0,0 +1,191 @@
+package com.openize.drako;
+import java.lang.ref.SoftReference;
+/**
+ *  Converts quantized octahedral coordinates back to unit vectors.
+ *  The vectors of all coordinates of a quantization level are kept in a table that is shared
+ *  by all decoders. A table is built once its level converted as many normals as the table
+ *  has entries, so building it never costs more than the conversions it replaces, and is
+ *  held softly so the memory can be reclaimed when it runs low.
+ *  Levels above MAX_QUANTIZATION_BITS are always converted directly.
+ *
+ */
+final class OctahedralNormalTable
+{    
+    /**
+     *  Highest quantization level with a table, which takes 12 bytes per (s, t) pair.
+     *
+     */
+    static final int MAX_QUANTIZATION_BITS = 10;
+    /**
+     *  Table and use of a quantization level, each level is built under its own lock.
+     *
+     */
+    private static final class Level
+    {
+        SoftReference<OctahedralNormalTable> table;
+        /**
+         *  Number of normals converted without a table since the table was last built.
+         *
+         */
+        long numConverted;
+    }
+    
+    private static final Level[] levels = OctahedralNormalTable.createLevels();
+    private final int quantizationBits;
+    private final float maxValue;
+    /**
+     *  x, y and z of the pair (s, t) at ((s << quantizationBits) | t) * 3, null when the
+     *  coordinates are converted directly.
+     *
+     */
+    private final float[] vectors;
+    private OctahedralNormalTable(int quantizationBits, float maxValue, float[] vectors)
+    {
+        this.quantizationBits = quantizationBits;
+        this.maxValue = maxValue;
+        this.vectors = vectors;
+    }
+    
+    /**
+     *  Returns the converter of given quantization level for decoding |numValues| normals.
+     *
+     */
+    public static OctahedralNormalTable get(int quantizationBits, int numValues)
+    {
+        // In order to be able to represent the center normal we reduce the range
+        // by one. Also note that we can not simply identify the lower left and the
+        // upper right edge of the tile, which forces us to use one value less.
+        float maxValue = (float)((1 << quantizationBits) - 1) - 1F;
+        if (quantizationBits < 2 || (quantizationBits > MAX_QUANTIZATION_BITS))
+            return new OctahedralNormalTable(quantizationBits, maxValue, null);
+        Level level = levels[quantizationBits];
+        synchronized(level)
+        {
+            OctahedralNormalTable ret = level.table == null ? null : level.table.get();
+            if (ret != null)
+                return ret;
+            // A collected table is only built again once its level was used as much again.
+            level.numConverted += numValues;
+            if (level.numConverted < (1L << (quantizationBits * 2)))
+                return new OctahedralNormalTable(quantizationBits, maxValue, null);
+            int size = 1 << quantizationBits;
+            float[] vectors = new float[size * size * 3];
+            for (int s = 0, i = 0; s < size; s++)
+            {
+                for (int t = 0; t < size; t++, i += 3)
+                {
+                    OctahedralNormalTable.octahedralCoordsToUnitVector(s / maxValue, t / maxValue, vectors, i);
+                }
+                
+            }
+            
+            ret = new OctahedralNormalTable(quantizationBits, maxValue, vectors);
+            level.table = new SoftReference<OctahedralNormalTable>(ret);
+            level.numConverted = 0;
+            return ret;
+        }
+        
+    }
+    
+    private static Level[] createLevels()
+    {
+        Level[] ret = new Level[MAX_QUANTIZATION_BITS + 1];
+        for (int i = 0; i < ret.length; i++)
+        {
+            ret[i] = new Level();
+        }
+        
+        return ret;
+    }
+    
+    /**
+     *  Converts |count| pairs of quantized coordinates stored from |coords| at |coordsOffset|
+     *  to unit vectors stored from |out| at |outOffset|.
+     *
+     */
+    public void decode(int[] coords, int coordsOffset, float[] out, int outOffset, int count)
+    {
+        float[] vectors = this.vectors;
+        int shift = quantizationBits;
+        for (int i = 0; i < count; i++, coordsOffset += 2, outOffset += 3)
+        {
+            int s = coords[coordsOffset];
+            int t = coords[coordsOffset + 1];
+            // Corrupted data can hold coordinates outside of the table.
+            if (vectors != null && (((s | t) >>> shift) == 0))
+            {
+                int src = ((s << shift) | t) * 3;
+                out[outOffset] = vectors[src];
+                out[outOffset + 1] = vectors[src + 1];
+                out[outOffset + 2] = vectors[src + 2];
+            }
+            else
+            {
+                OctahedralNormalTable.octahedralCoordsToUnitVector(s / maxValue, t / maxValue, out, outOffset);
+            }
+            
+        }
+        
+    }
+    
+    static void octahedralCoordsToUnitVector(float inS, float inT, float[] outVector, int outOffset)
+    {
+        float s = inS;
+        float t = inT;
+        float spt = s + t;
+        float smt = s - t;
+        float xSign = 1.0f;
+        if (spt >= 0.5f && (spt <= 1.5f) && (smt >= -0.5f) && (smt <= 0.5f))
+        {
+            // Right hemisphere. Don't do anything.
+        }
+        else
+        {
+            // Left hemisphere.
+            xSign = -1.0f;
+            if (spt <= 0.5)
+            {
+                s = 0.5f - inT;
+                t = 0.5f - inS;
+            }
+            else if (spt >= 1.5f)
+            {
+                s = 1.5f - inT;
+                t = 1.5f - inS;
+            }
+            else if (smt <= -0.5f)
+            {
+                s = inT - 0.5f;
+                t = inS + 0.5f;
+            }
+            else
+            {
+                s = inT + 0.5f;
+                t = inS - 0.5f;
+            }
+            
+            spt = s + t;
+            smt = s - t;
+        }
+        
+        float y = 2.0f * s - 1.0f;
+        float z = 2.0f * t - 1.0f;
+        float x = Math.min(Math.min(2.0f * spt - 1.0f, 3.0f - (2.0f * spt)), Math.min(2.0f * smt + 1.0f, 1.0f - (2.0f * smt))) * xSign;
+        float normSquared = x * x + (y * y) + (z * z);
+        if (normSquared < 1e-6)
+        {
+            outVector[outOffset] = 0F;
+            outVector[outOffset + 1] = 0F;
+            outVector[outOffset + 2] = 0F;
+        }
+        else
+        {
+            float d = 1.0f / (float)Math.sqrt(normSquared);
+            outVector[outOffset] = x * d;
+            outVector[outOffset + 1] = y * d;
+            outVector[outOffset + 2] = z * d;
+        }
+        
+    }
+    
+}
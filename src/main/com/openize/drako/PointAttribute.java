@@ -1,12 +1,10 @@
 package com.openize.drako;
-import com.openize.drako.AsposeUtils;
 import com.openize.drako.BitUtils;
 import com.openize.drako.ByteSpan;
 import com.openize.drako.FloatSpan;
 import com.openize.drako.Struct;
 import java.io.Serializable;
 import java.util.Arrays;
-import java.util.HashMap;
 public class PointAttribute extends GeometryAttribute
 {    
     static final class ValueKey implements Comparable<ValueKey>, Struct<ValueKey>, Serializable
@@ -50,11 +48,10 @@ public class PointAttribute extends GeometryAttribute
         public int compareTo(ValueKey rhs)
         {
             if (rhs.hashCode != hashCode)
-                return -1;
-            if (rhs.offset == offset)
-                return -1;
-            int ret = DracoUtils.compare(data, offset, data, rhs.offset, size);
-            return ret;
+                return Long.compare(hashCode, rhs.hashCode);
+            if (rhs.data == data && (rhs.offset == offset))
+                return 0;
+            return DracoUtils.compare(data, offset, rhs.data, rhs.offset, size);
         }
         
         public ValueKey()
@@ -104,6 +101,16 @@ public class PointAttribute extends GeometryAttribute
         return buffer;
     }
     
+    /**
+     *  Replaces the storage of the attribute values, e.g. with {@link com.openize.drako.DataBuffer#offHeap()}
+     *  before calling reset() to keep a large attribute out of the Java heap.
+     *
+     */
+    public void setBuffer(DataBuffer value)
+    {
+        this.buffer = value;
+    }
+    
     public int getNumUniqueEntries()
     {
         return numUniqueEntries;
@@ -137,7 +144,7 @@ public class PointAttribute extends GeometryAttribute
         
         if (buffer != null)
         {
-            this.numUniqueEntries = buffer.getLength() / this.getByteStride();
+            this.numUniqueEntries = (int)(buffer.getLongLength() / this.getByteStride());
         }
         
     }
@@ -207,8 +214,8 @@ public class PointAttribute extends GeometryAttribute
      */
     public void getValue(int attIndex, byte[] outData)
     {
-        int bytePos = this.getByteOffset() + (this.getByteStride() * attIndex);
-        buffer.read(bytePos, outData, this.getByteStride());
+        long bytePos = this.getLongBytePos(attIndex);
+        buffer.read(bytePos, outData, 0, this.getByteStride());
     }
     
     public int getBytePos(int attIndex)
@@ -216,8 +223,28 @@ public class PointAttribute extends GeometryAttribute
         return this.getByteOffset() + (this.getByteStride() * attIndex);
     }
     
+    /**
+     *  Gets the position of the attribute entry in the buffer, which can be beyond 2GB for an off-heap buffer.
+     *
+     */
+    public long getLongBytePos(int attIndex)
+    {
+        return this.getByteOffset() + ((long)this.getByteStride() * attIndex);
+    }
+    
     public void getValue(int attIndex, short[] v)
     {
+        if (buffer.isOffHeap())
+        {
+            long pos = this.getLongBytePos(attIndex);
+            for (int i = 0; i < v.length; i++, pos += 2)
+            {
+                v[i] = buffer.readShort(pos);
+            }
+            
+            return;
+        }
+        
         int bytePos = this.getByteOffset() + (this.getByteStride() * attIndex);
         byte[] data = buffer.getBuffer();
         for (int i = 0; i < v.length; i++)
@@ -230,6 +257,17 @@ public class PointAttribute extends GeometryAttribute
     
     public void getValue(int attIndex, int[] v)
     {
+        if (buffer.isOffHeap())
+        {
+            long pos = this.getLongBytePos(attIndex);
+            for (int i = 0; i < v.length; i++, pos += 4)
+            {
+                v[i] = buffer.readInt(pos);
+            }
+            
+            return;
+        }
+        
         int bytePos = this.getByteOffset() + (this.getByteStride() * attIndex);
         byte[] data = buffer.getBuffer();
         for (int i = 0; i < v.length; i++)
@@ -242,7 +280,7 @@ public class PointAttribute extends GeometryAttribute
     
     public void getValue(int attIndex, float[] v)
     {
-        int bytePos = this.getByteOffset() + (this.getByteStride() * attIndex);
+        long bytePos = this.getLongBytePos(attIndex);
         for (int i = 0; i < v.length; i++)
         {
             v[i] = buffer.readFloat(bytePos);
@@ -253,7 +291,7 @@ public class PointAttribute extends GeometryAttribute
     
     public void getValue(int attIndex, FloatSpan v)
     {
-        int bytePos = this.getByteOffset() + (this.getByteStride() * attIndex);
+        long bytePos = this.getLongBytePos(attIndex);
         for (int i = 0; i < v.size(); i++)
         {
             v.put(i, buffer.readFloat(bytePos));
@@ -264,7 +302,7 @@ public class PointAttribute extends GeometryAttribute
     
     public Vector3 getValueAsVector3(int attIndex)
     {
-        int bytePos = this.getByteOffset() + (this.getByteStride() * attIndex);
+        long bytePos = this.getLongBytePos(attIndex);
         Vector3 v = new Vector3();
         v.x = buffer.readFloat(bytePos);
         bytePos += 4;
@@ -282,14 +320,27 @@ public class PointAttribute extends GeometryAttribute
      */
     public void reset(int numAttributeValues)
     {
-        if (buffer == null)
+        this.reset(numAttributeValues, true);
+    }
+    
+    /**
+     *  Prepares the attribute for the specified number of entries, the storage is
+     *  only allocated when |allocate| is true.
+     *
+     */
+    void reset(int numAttributeValues, boolean allocate)
+    {
+        if (buffer == null && allocate)
         {
             this.buffer = new DataBuffer();
         }
         
         int entrySize = DracoUtils.dataTypeLength(this.getDataType()) * this.getComponentsCount();
-        buffer.setCapacity(numAttributeValues * entrySize);
-        buffer.setLength(numAttributeValues * entrySize);
+        if (allocate)
+        {
+            buffer.setLongLength((long)numAttributeValues * entrySize);
+        }
+        
         this.setByteStride(entrySize);
         this.setByteOffset(0);
         // Assign the new buffer to the parent attribute.
@@ -366,6 +417,17 @@ public class PointAttribute extends GeometryAttribute
     }
     
     private AttributeTransformData attributeTransformData;
+    /**
+     *  Gets the quantization parameters of an attribute that was decoded with
+     *  {@link com.openize.drako.DracoLoadOptions#setSkipAttributeTransform(boolean)} and still holds its quantized integer values.
+     *
+     * @return The quantization parameters, or null if the values aren't quantized
+     */
+    public DracoQuantizationInfo getQuantizationInfo()
+    {
+        return DracoQuantizationInfo.fromTransformData(attributeTransformData, this.getComponentsCount());
+    }
+    
     /**
      *  This function sets the mapping to be explicitly using the indicesMap
      *  array that needs to be initialized by the caller.
@@ -405,13 +467,13 @@ public class PointAttribute extends GeometryAttribute
     
     public void convertValue(int attId, int[] i)
     {
-        int pos = this.getByteOffset() + (this.getByteStride() * attId);
+        long pos = this.getLongBytePos(attId);
         i[0] = buffer.readInt(pos);
     }
     
     LongVector3 convertValue(int attId)
     {
-        int pos = this.getByteOffset() + (this.getByteStride() * attId);
+        long pos = this.getLongBytePos(attId);
         if (this.getDataType() == DataType.INT32 || (this.getDataType() == DataType.UINT32))
         {
             long x = buffer.readInt(pos);
@@ -423,51 +485,37 @@ public class PointAttribute extends GeometryAttribute
             throw new UnsupportedOperationException("Unsupported type cast");
     }
     
+    /**
+     *  Merges attribute entries with the same value into a single entry and updates the point mapping.
+     *
+     */
     public void deduplicateValues()
     {
-        int offset = this.getByteOffset();
-        int stride = this.getByteStride();
-        HashMap<ValueKey, Integer> indiceMap = new HashMap<ValueKey, Integer>();
-        HashMap<Integer, Integer> valueMap = new HashMap<Integer, Integer>();
-        int uniqueValues = 0;
-        byte[] tmp = buffer.toArray();
-        final Integer[] ref0 = new Integer[1];
-        for (int i = 0; i < this.getNumUniqueEntries(); i++, offset += stride)
-        {
-            ValueKey k = new ValueKey(this, tmp, i);
-            int idx;
-            if (!AsposeUtils.tryGetValue(indiceMap, k, ref0))
-            {
-                idx = ref0[0] == null ? 0 : ref0[0];
-                this.setAttributeValue(uniqueValues, this.getBuffer().getBuffer(), k.getOffset());
-                idx = uniqueValues++;
-                indiceMap.put(Struct.byVal(k), idx);
-            }
-            else
-            {
-                idx = ref0[0] == null ? 0 : ref0[0];
-            }
-            
-            valueMap.put(i, idx);
-        }
-        
+        this.deduplicateValues(false);
+    }
+    
+    /**
+     *  Merges attribute entries with the same value into a single entry and updates the point mapping.
+     *  With |parallel| set, large attributes are processed on the common fork-join pool, the result is the same.
+     *
+     */
+    public void deduplicateValues(boolean parallel)
+    {
+        AttributeDeduplicator deduplicator = new AttributeDeduplicator(buffer, this.getByteOffset(), this.getByteStride(), numUniqueEntries);
+        int uniqueValues = deduplicator.run(parallel);
         if (uniqueValues == numUniqueEntries)
             return;
         //cannot deduplicate values
+        int[] valueMap = deduplicator.getRemap();
         if (this.getIdentityMapping())
         {
-            this.setExplicitMapping(numUniqueEntries);
-            for (int i = 0; i < numUniqueEntries; i++)
-            {
-                this.setPointMapEntry(i, valueMap.get(i));
-            }
-            
+            this.indicesMap = valueMap;
         }
         else
         {
             for (int i = 0; i < this.indicesMap.length; i++)
             {
-                this.setPointMapEntry(i, valueMap.get(this.indicesMap[i]));
+                indicesMap[i] = valueMap[indicesMap[i]];
             }
             
         }
@@ -485,6 +533,12 @@ public class PointAttribute extends GeometryAttribute
      */
     public void setAttributeValue(int index, byte[] buffer, int offset)
     {
+        if (this.buffer.isOffHeap())
+        {
+            this.buffer.write(this.getLongBytePos(index), buffer, offset, this.getByteStride());
+            return;
+        }
+        
         int dstOffset = this.getByteOffset() + (this.getByteStride() * index);
         byte[] dst = this.buffer.getBuffer();
         System.arraycopy(buffer, offset, dst, dstOffset, this.getByteStride());
@@ -492,6 +546,17 @@ public class PointAttribute extends GeometryAttribute
     
     void setAttributeValue(int index, int[] vals)
     {
+        if (buffer.isOffHeap())
+        {
+            long pos = this.getLongBytePos(index);
+            for (int i = 0; i < vals.length; i++, pos += 4)
+            {
+                buffer.write(pos, vals[i]);
+            }
+            
+            return;
+        }
+        
         int offset = this.getByteOffset() + (this.getByteStride() * index);
         byte[] dst = this.buffer.getBuffer();
         for (int i = 0; i < vals.length; i++)
@@ -504,6 +569,17 @@ public class PointAttribute extends GeometryAttribute
     
     void setAttributeValue(int index, short[] vals)
     {
+        if (buffer.isOffHeap())
+        {
+            long pos = this.getLongBytePos(index);
+            for (int i = 0; i < vals.length; i++, pos += 2)
+            {
+                buffer.write3(pos, vals[i]);
+            }
+            
+            return;
+        }
+        
         int offset = this.getByteOffset() + (this.getByteStride() * index);
         byte[] dst = this.buffer.getBuffer();
         for (int i = 0; i < vals.length; i++)
@@ -518,33 +594,32 @@ public class PointAttribute extends GeometryAttribute
     public void copyFrom(GeometryAttribute attr)
     {
         
+        PointAttribute pa = (PointAttribute)attr;
         if (buffer == null)
         {
             // If the destination attribute doesn't have a valid buffer, create it.
-            this.buffer = new DataBuffer();
+            // An off-heap source may not fit into an array, so the copy is off-heap as well.
+            this.buffer = pa.buffer != null && pa.buffer.isOffHeap() ? DataBuffer.offHeap(pa.buffer.getAllocator()) : new DataBuffer();
             this.setByteStride(0);
             this.setByteOffset(0);
         }
         
         
         super.copyFrom(attr);
-        PointAttribute pa = (PointAttribute)attr;
+        if (pa.buffer != null)
+        {
+            buffer.copyFrom(pa.buffer);
+        }
+        
         this.numUniqueEntries = pa.numUniqueEntries;
         if (pa.indicesMap != null)
         {
             this.indicesMap = (int[])(pa.indicesMap.clone());
         }
         
-        /*
-            if (pa.attributeTransformData)        
-            {        
-                attributeTransformData = pa.attributeTransformData.Clone();        
-            }        
-            else        
-            {        
-                attributeTransformData = null;        
-            }        
-            */    }
+        // The transform data is never modified once it's created, so it can be shared.
+        this.attributeTransformData = pa.attributeTransformData;
+    }
     
     ByteSpan getAddress(int attIndex)
     {
@@ -0,0 +1,75 @@
+package com.openize.drako;
+/**
+ *  Merges point ids that are mapped to the same entry of every attribute.
+ *  The key of a point is the tuple of its attribute entry ids, which is hashed column by
+ *  column over the attributes' point maps.
+ *
+ */
+final class PointIdDeduplicator extends Deduplicator
+{    
+    /**
+     *  Entry id of every point, one column per attribute.
+     *
+     */
+    private final int[][] columns;
+    private final IntList uniquePoints;
+    public PointIdDeduplicator(int[][] columns, int numPoints)
+    {
+        super(numPoints);
+        this.columns = columns;
+        this.uniquePoints = new IntList();
+    }
+    
+    /**
+     *  Returns the first point id of every unique point in ascending order, valid after run().
+     *
+     */
+    public IntList getUniquePoints()
+    {
+        return uniquePoints;
+    }
+    
+    @Override
+    protected void hash(int start, int end)
+    {
+        int[] h = hashes;
+        for (int i = start; i < end; i++)
+        {
+            h[i] = 0x811c9dc5;
+        }
+        
+        for (int[] column : columns)
+        {
+            for (int i = start; i < end; i++)
+            {
+                h[i] = (h[i] ^ column[i]) * 16777619;
+            }
+            
+        }
+        
+        for (int i = start; i < end; i++)
+        {
+            h[i] = Deduplicator.finish(h[i]);
+        }
+        
+    }
+    
+    @Override
+    protected boolean equal(int i, int j, Object scratch)
+    {
+        for (int[] column : columns)
+        {
+            if (column[i] != column[j])
+                return false;
+        }
+        
+        return true;
+    }
+    
+    @Override
+    protected void unique(int index, int uniqueIndex)
+    {
+        uniquePoints.add(index);
+    }
+    
+}
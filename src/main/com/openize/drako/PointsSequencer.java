@@ -20,6 +20,16 @@ abstract class PointsSequencer
         return this.outPointIds.toArray();
     }
     
+    /**
+     *  Returns the number of point ids in the sequence.
+     *
+     */
+    public int getSequenceLength()
+        throws DrakoException
+    {
+        return this.generateSequence().length;
+    }
+    
     /**
      *  Appends a point to the sequence.
      *
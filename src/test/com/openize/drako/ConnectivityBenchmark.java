@@ -0,0 +1,92 @@
+package com.openize.drako;
+/**
+ *  Measures the edgebreaker connectivity decoding and the edgebreaker encoding
+ *  of a large generated mesh.
+ *  Not a unit test, run it with the test classpath:
+ *  java com.openize.drako.ConnectivityBenchmark [gridSize] [iterations]
+ *
+ */
+public class ConnectivityBenchmark
+{
+    public static void main(String[] args)
+        throws DrakoException
+    {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        DracoMesh mesh = ConnectivityBenchmark.grid(n);
+        DracoEncodeOptions options = new DracoEncodeOptions();
+        byte[] encoded = Draco.encode(mesh, options);
+        System.out.printf("%d faces, %d bytes%n", mesh.getNumFaces(), encoded.length);
+        // Warm up before measuring.
+        for (int i = 0; i < iterations; i++)
+        {
+            Draco.probe(encoded, true);
+        }
+        
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+        {
+            Draco.probe(encoded, true);
+        }
+        
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("decode connectivity %.1f ms%n", elapsed / 1e6 / iterations);
+        for (int i = 0; i < iterations; i++)
+        {
+            Draco.encode(mesh, options);
+        }
+        
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++)
+        {
+            Draco.encode(mesh, options);
+        }
+        
+        elapsed = System.nanoTime() - start;
+        System.out.printf("encode %.1f ms%n", elapsed / 1e6 / iterations);
+    }
+    
+    /**
+     *  Creates a grid of |n| x |n| quads with a regular pattern of holes, so
+     *  the traversal hits hole and topology split events.
+     *
+     */
+    static DracoMesh grid(int n)
+    {
+        Vector3[] positions = new Vector3[(n + 1) * (n + 1)];
+        for (int y = 0; y <= n; y++)
+        {
+            for (int x = 0; x <= n; x++)
+            {
+                positions[(y * (n + 1)) + x] = new Vector3(x, (float)Math.sin(x * 0.1) * (float)Math.cos(y * 0.1), y);
+            }
+            
+        }
+        
+        IntList indices = new IntList();
+        for (int y = 0; y < n; y++)
+        {
+            for (int x = 0; x < n; x++)
+            {
+                if (x % 17 == 8 && (y % 13 == 6))
+                    continue;
+                int a = (y * (n + 1)) + x;
+                int c = a + n + 1;
+                indices.add(a);
+                indices.add(a + 1);
+                indices.add(c);
+                indices.add(a + 1);
+                indices.add(c + 1);
+                indices.add(c);
+            }
+            
+        }
+        
+        DracoMesh mesh = new DracoMesh();
+        mesh.addAttribute(PointAttribute.wrap(AttributeType.POSITION, positions));
+        mesh.getIndices().addRange(indices.toArray());
+        mesh.setNumPoints(positions.length);
+        return mesh;
+    }
+    
+}
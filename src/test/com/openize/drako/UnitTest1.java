@@ -1,9 +1,18 @@
 package com.openize.drako;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -24,6 +33,1126 @@ public class UnitTest1
         Assert.assertNotNull(attr);
     }
     
+    @Test
+    public void decodeFromMappedFile()
+        throws IOException, DrakoException
+    {
+        DracoPointCloud dm = Draco.decode(Paths.get("TestData/cube.drc"));
+        Assert.assertNotNull(dm);
+        Assert.assertEquals(3, dm.getNumAttributes());
+        Assert.assertEquals(24, dm.getNumPoints());
+    }
+    
+    @Test
+    public void decodeIntoSinks()
+        throws IOException, DrakoException
+    {
+        // The cube has 8 distinct positions on its 24 points, the sink receives the entries.
+        byte[] cube = Files.readAllBytes(Paths.get("TestData/cube.drc"));
+        DracoPointCloud expected = Draco.decode(cube);
+        PointAttribute positions = expected.getNamedAttribute(AttributeType.POSITION);
+        Assert.assertEquals(8, positions.getNumUniqueEntries());
+        int numPositions = positions.getNumUniqueEntries() * 3;
+        // The values start at the sink's position, which is moved past them.
+        FloatBuffer floats = FloatBuffer.allocate(numPositions + 1);
+        floats.position(1);
+        DracoDecodeTarget target = new DracoDecodeTarget();
+        target.setSink(AttributeType.POSITION, floats);
+        DracoPointCloud dm = Draco.decode(cube, target);
+        Assert.assertNotNull(dm);
+        Assert.assertEquals(numPositions + 1, floats.position());
+        float[] value = new float[3];
+        for (int i = 0; i < positions.getNumUniqueEntries(); i++)
+        {
+            positions.getValue(i, value);
+            for (int c = 0; c < 3; c++)
+            {
+                Assert.assertEquals(value[c], floats.get(1 + (i * 3) + c), 0.0f);
+            }
+            
+        }
+        
+        for (int p = 0; p < expected.getNumPoints(); p++)
+        {
+            Assert.assertEquals(positions.mappedIndex(p), dm.getNamedAttribute(AttributeType.POSITION).mappedIndex(p));
+        }
+        
+        ByteBuffer raw = ByteBuffer.allocate(numPositions * 4).order(ByteOrder.LITTLE_ENDIAN);
+        target.setSink(AttributeType.POSITION, raw);
+        Assert.assertNotNull(Draco.decode(cube, target));
+        Assert.assertEquals(numPositions * 4, raw.position());
+        for (int i = 0; i < numPositions; i++)
+        {
+            Assert.assertEquals(floats.get(1 + i), raw.getFloat(i * 4), 0.0f);
+        }
+        
+        target.setSink(AttributeType.POSITION, FloatBuffer.allocate(numPositions - 1));
+        Assert.assertNull(Draco.decode(cube, target));
+        
+        // Of two generic attributes only the first one is routed to the sink.
+        DracoMesh mesh = ConnectivityBenchmark.grid(10);
+        int numPoints = mesh.getNumPoints();
+        for (int a = 0; a < 2; a++)
+        {
+            ByteBuffer values = ByteBuffer.allocate(numPoints * 4).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < numPoints * 2; i++)
+            {
+                values.putShort((short)(((i % 14) * (a + 1)) - 5));
+            }
+            
+            mesh.addAttribute(new PointAttribute(AttributeType.GENERIC, DataType.INT16, 2, false, -1, 0, new DataBuffer(values.array())));
+        }
+        
+        byte[] bytes = Draco.encode(mesh, new DracoEncodeOptions());
+        expected = Draco.decode(bytes);
+        PointAttribute generic = expected.getNamedAttribute(AttributeType.GENERIC);
+        int numGeneric = generic.getNumUniqueEntries() * 2;
+        ShortBuffer shorts = ShortBuffer.allocate(numGeneric);
+        target = new DracoDecodeTarget();
+        target.setSink(AttributeType.GENERIC, shorts);
+        dm = Draco.decode(bytes, target);
+        Assert.assertNotNull(dm);
+        Assert.assertEquals(numGeneric, shorts.position());
+        short[] pair = new short[2];
+        for (int i = 0; i < generic.getNumUniqueEntries(); i++)
+        {
+            generic.getValue(i, pair);
+            Assert.assertEquals(pair[0], shorts.get(i * 2));
+            Assert.assertEquals(pair[1], shorts.get((i * 2) + 1));
+        }
+        
+        UnitTest1.assertSameValues(expected, expected.getNamedAttribute(AttributeType.GENERIC, 1), dm.getNamedAttribute(AttributeType.GENERIC, 1));
+    }
+    
+    @Test
+    public void copyPortableValuesIntoShortSink()
+    {
+        // Source data type, portable value, whether it is quantized and whether a short sink accepts it.
+        int[][] cases = {
+            {DataType.INT16, -1, 0, 1},
+            {DataType.INT16, Short.MIN_VALUE, 0, 1},
+            {DataType.INT16, 0xffff, 0, 0},
+            {DataType.INT32, Short.MAX_VALUE + 1, 0, 0},
+            {DataType.UINT16, 0xffff, 0, 1},
+            {DataType.UINT16, -1, 0, 0},
+            {DataType.UINT32, 0x10000, 0, 0},
+            {DataType.FLOAT32, 0xffff, 1, 1},
+            {DataType.FLOAT32, -1, 1, 0}
+        };
+        for (int[] test : cases)
+        {
+            ByteBuffer values = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN);
+            values.putInt(1).putInt(test[1]).putInt(2);
+            PointAttribute attribute = new PointAttribute(AttributeType.GENERIC, DataType.INT32, 1, false, -1, 0, new DataBuffer(values.array()));
+            attribute.reset(3);
+            if (test[2] != 0)
+            {
+                attribute.setAttributeTransformData(new AttributeTransformData());
+            }
+            
+            ShortBuffer shorts = ShortBuffer.allocate(3);
+            try
+            {
+                new AttributeSink(shorts).copyPortableFrom(attribute, test[0]);
+                Assert.assertEquals(1, test[3]);
+                Assert.assertEquals((short)test[1], shorts.get(1));
+            }
+            catch(DrakoException e)
+            {
+                Assert.assertEquals(0, test[3]);
+            }
+            
+        }
+        
+    }
+    
+    /**
+     *  Checks both geometries have the same faces and the same attribute values on every point.
+     *
+     */
+    private static void assertSameGeometry(DracoPointCloud expected, DracoPointCloud actual)
+    {
+        Assert.assertNotNull(actual);
+        Assert.assertEquals(expected.getNumPoints(), actual.getNumPoints());
+        Assert.assertEquals(expected.getNumAttributes(), actual.getNumAttributes());
+        for (int i = 0; i < expected.getNumAttributes(); i++)
+        {
+            UnitTest1.assertSameValues(expected, expected.attribute(i), actual.attribute(i));
+        }
+        
+        Assert.assertEquals(expected instanceof DracoMesh, actual instanceof DracoMesh);
+        if (!(expected instanceof DracoMesh))
+            return;
+        DracoMesh ma = (DracoMesh)expected;
+        DracoMesh mb = (DracoMesh)actual;
+        Assert.assertEquals(ma.getNumFaces(), mb.getNumFaces());
+        int[] fa = new int[3];
+        int[] fb = new int[3];
+        for (int f = 0; f < ma.getNumFaces(); f++)
+        {
+            ma.readFace(f, fa);
+            mb.readFace(f, fb);
+            Assert.assertArrayEquals(fa, fb);
+        }
+        
+    }
+    
+    /**
+     *  Checks both attributes have the same raw value on every point of |pc|.
+     *
+     */
+    private static void assertSameValues(DracoPointCloud pc, PointAttribute expected, PointAttribute actual)
+    {
+        Assert.assertEquals(expected.getAttributeType(), actual.getAttributeType());
+        byte[] va = new byte[expected.getByteStride()];
+        byte[] vb = new byte[actual.getByteStride()];
+        Assert.assertEquals(va.length, vb.length);
+        for (int p = 0; p < pc.getNumPoints(); p++)
+        {
+            expected.getValue(expected.mappedIndex(p), va);
+            actual.getValue(actual.mappedIndex(p), vb);
+            Assert.assertArrayEquals(va, vb);
+        }
+        
+    }
+    
+    @Test
+    public void reuseDecoder()
+        throws IOException, DrakoException
+    {
+        // Payloads with different attributes, precisions and encoders are decoded
+        // alternately, so the scratch state of one must not leak into the other.
+        byte[][] payloads = new byte[3][];
+        payloads[0] = Files.readAllBytes(Paths.get("TestData/cube.drc"));
+        DracoMesh mesh = UnitTest1.meshWithNormals(40);
+        payloads[1] = Draco.encode(mesh, new DracoEncodeOptions());
+        DracoEncodeOptions options = new DracoEncodeOptions();
+        options.setPointCloud(true);
+        options.setNormalBits(7);
+        payloads[2] = Draco.encode(mesh, options);
+        DracoDecoder decoder = new DracoDecoder();
+        for (int i = 0; i < 7; i++)
+        {
+            byte[] payload = payloads[i % 3];
+            DracoPointCloud expected = Draco.decode(payload);
+            UnitTest1.assertSameGeometry(expected, decoder.decode(payload));
+            UnitTest1.assertSameGeometry(expected, decoder.decode(ByteBuffer.wrap(payload)));
+        }
+        
+    }
+    
+    @Test
+    public void reuseEncoder()
+        throws IOException, DrakoException
+    {
+        DracoPointCloud[] meshes = new DracoPointCloud[3];
+        meshes[0] = Draco.decode(Files.readAllBytes(Paths.get("TestData/cube.drc")));
+        meshes[1] = UnitTest1.meshWithNormals(30);
+        meshes[2] = ConnectivityBenchmark.grid(20);
+        DracoEncoder encoder = new DracoEncoder();
+        for (DracoCompressionLevel level : DracoCompressionLevel.values())
+        {
+            for (int i = 0; i < meshes.length * 2; i++)
+            {
+                DracoEncodeOptions options = new DracoEncodeOptions();
+                options.setCompressionLevel(level);
+                options.setPointCloud(i >= meshes.length);
+                DracoPointCloud mesh = meshes[i % meshes.length];
+                byte[] expected = Draco.encode(mesh, options);
+                Assert.assertArrayEquals(expected, encoder.encode(mesh, options));
+                ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+                Assert.assertEquals(expected.length, encoder.encode(mesh, options, buffer));
+                Assert.assertArrayEquals(expected, buffer.array());
+                ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                Assert.assertEquals(expected.length, encoder.encodeTo(mesh, options, stream));
+                Assert.assertArrayEquals(expected, stream.toByteArray());
+                stream.reset();
+                Assert.assertEquals(expected.length, encoder.encodeTo(mesh, options, Channels.newChannel(stream)));
+                Assert.assertArrayEquals(expected, stream.toByteArray());
+            }
+            
+        }
+        
+    }
+    
+    @Test
+    public void parallelAttributeDecoding()
+        throws DrakoException
+    {
+        // Enough points for every attribute to be reconstructed on its own task.
+        DracoMesh mesh = UnitTest1.meshWithNormals(130);
+        Assert.assertTrue(mesh.getNumPoints() >= AttributeTransformStage.MIN_PARALLEL_ENTRIES);
+        byte[] bytes = Draco.encode(mesh, new DracoEncodeOptions());
+        DracoLoadOptions options = new DracoLoadOptions();
+        options.setParallelAttributeDecoding(false);
+        DracoPointCloud expected = Draco.decode(bytes, options);
+        Assert.assertNotNull(expected);
+        options.setParallelAttributeDecoding(true);
+        UnitTest1.assertSameGeometry(expected, Draco.decode(bytes, options));
+    }
+    
+    @Test
+    public void parallelAttributeEncoding()
+        throws DrakoException
+    {
+        DracoMesh mesh = UnitTest1.meshWithNormals(130);
+        Assert.assertTrue(mesh.getNumPoints() >= AttributeEncodingStage.MIN_PARALLEL_POINTS);
+        for (int i = 0; i < 3; i++)
+        {
+            DracoEncodeOptions options = new DracoEncodeOptions();
+            options.setCompressionLevel(i == 1 ? DracoCompressionLevel.OPTIMAL : DracoCompressionLevel.STANDARD);
+            options.setPointCloud(i == 2);
+            options.setParallelAttributeEncoding(false);
+            byte[] expected = Draco.encode(mesh, options);
+            options.setParallelAttributeEncoding(true);
+            Assert.assertArrayEquals(expected, Draco.encode(mesh, options));
+        }
+        
+    }
+    
+    /**
+     *  Returns a grid of |n| x |n| quads with normals and texture coordinates.
+     *
+     */
+    private static DracoMesh meshWithNormals(int n)
+    {
+        DracoMesh mesh = ConnectivityBenchmark.grid(n);
+        int numPoints = mesh.getNumPoints();
+        Vector3[] normals = new Vector3[numPoints];
+        Vector2[] uvs = new Vector2[numPoints];
+        for (int i = 0; i < numPoints; i++)
+        {
+            float x = (float)Math.sin(i * 0.37);
+            float y = (float)Math.cos(i * 0.11);
+            float l = (float)Math.sqrt(x * x + (y * y) + 1.0f);
+            normals[i] = new Vector3(x / l, y / l, 1.0f / l);
+            uvs[i] = new Vector2((i % (n + 1)) / (float)n, (i / (n + 1)) / (float)n);
+        }
+        
+        mesh.addAttribute(PointAttribute.wrap(AttributeType.NORMAL, normals));
+        mesh.addAttribute(PointAttribute.wrap(AttributeType.TEX_COORD, uvs));
+        return mesh;
+    }
+    
+    @Test
+    public void decodeSelectedAttributes()
+        throws IOException, DrakoException
+    {
+        byte[] cube = Files.readAllBytes(Paths.get("TestData/cube.drc"));
+        DracoPointCloud full = Draco.decode(cube);
+        DracoLoadOptions options = new DracoLoadOptions();
+        options.setAttributeTypes(new int[] {AttributeType.POSITION});
+        DracoPointCloud dm = Draco.decode(cube, options);
+        Assert.assertNotNull(dm);
+        Assert.assertEquals(1, dm.getNumAttributes());
+        Assert.assertEquals(24, dm.getNumPoints());
+        PointAttribute expected = full.getNamedAttribute(AttributeType.POSITION);
+        PointAttribute attr = dm.getNamedAttribute(AttributeType.POSITION);
+        Assert.assertNotNull(attr);
+        Assert.assertEquals(expected.getNumUniqueEntries(), attr.getNumUniqueEntries());
+        for (int i = 0; i < dm.getNumPoints(); i++)
+        {
+            Assert.assertEquals(expected.mappedIndex(i), attr.mappedIndex(i));
+        }
+
+    }
+
+    @Test
+    public void decodeQuantizedPositions()
+        throws IOException, DrakoException
+    {
+        byte[] cube = Files.readAllBytes(Paths.get("TestData/cube.drc"));
+        DracoPointCloud full = Draco.decode(cube);
+        DracoLoadOptions options = new DracoLoadOptions();
+        options.setSkipAttributeTransform(true);
+        DracoPointCloud dm = Draco.decode(cube, options);
+        PointAttribute expected = full.getNamedAttribute(AttributeType.POSITION);
+        PointAttribute attr = dm.getNamedAttribute(AttributeType.POSITION);
+        DracoQuantizationInfo info = attr.getQuantizationInfo();
+        Assert.assertNotNull(info);
+        Assert.assertNull(expected.getQuantizationInfo());
+        float[] value = new float[3];
+        int[] quantized = new int[3];
+        for (int i = 0; i < dm.getNumPoints(); i++)
+        {
+            expected.getValue(expected.mappedIndex(i), value);
+            attr.getValue(attr.mappedIndex(i), quantized);
+            for (int c = 0; c < 3; c++)
+            {
+                Assert.assertEquals(value[c], info.dequantize(quantized[c], c), 0.0f);
+            }
+
+        }
+
+    }
+
+    @Test
+    public void probeWithoutDecoding()
+        throws IOException, DrakoException
+    {
+        byte[] cube = Files.readAllBytes(Paths.get("TestData/cube.drc"));
+        DracoInfo info = Draco.probe(ByteBuffer.wrap(cube));
+        Assert.assertEquals(EncodedGeometryType.TRIANGULAR_MESH, info.getGeometryType());
+        Assert.assertEquals(12, info.getNumFaces());
+        Assert.assertEquals(3, info.getAttributes().size());
+        Assert.assertEquals(AttributeType.POSITION, info.getAttributes().get(0).getAttributeType());
+        Assert.assertEquals(3, info.getAttributes().get(0).getComponentsCount());
+    }
+    
+    @Test
+    public void probeBounds()
+        throws IOException, DrakoException
+    {
+        byte[] cube = Files.readAllBytes(Paths.get("TestData/cube.drc"));
+        DracoPointCloud dm = Draco.decode(cube);
+        byte[] bytes = Draco.encode(dm, new DracoEncodeOptions());
+        DracoInfo info = Draco.probe(ByteBuffer.wrap(bytes), true);
+        Assert.assertEquals(24, info.getNumPoints());
+        DracoAttributeInfo position = info.getAttributes().get(dm.getNamedAttributeId(AttributeType.POSITION));
+        Assert.assertNotNull(position.getQuantizationInfo());
+        float[] min = position.getBoundsMin();
+        float[] max = position.getBoundsMax();
+        PointAttribute attr = dm.getNamedAttribute(AttributeType.POSITION);
+        float[] value = new float[3];
+        for (int i = 0; i < attr.getNumUniqueEntries(); i++)
+        {
+            attr.getValue(i, value);
+            for (int c = 0; c < 3; c++)
+            {
+                Assert.assertTrue(value[c] >= min[c] && (value[c] <= max[c]));
+            }
+            
+        }
+        
+    }
+    
+    @Test
+    public void encodeToStreamAndChannel()
+        throws IOException, DrakoException
+    {
+        byte[] cube = Files.readAllBytes(Paths.get("TestData/cube.drc"));
+        DracoPointCloud dm = Draco.decode(cube);
+        DracoEncodeOptions opt = new DracoEncodeOptions();
+        byte[] expected = Draco.encode(dm, opt);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        Assert.assertEquals(expected.length, Draco.encodeTo(dm, opt, stream));
+        Assert.assertArrayEquals(expected, stream.toByteArray());
+        ByteArrayOutputStream channel = new ByteArrayOutputStream();
+        Draco.encodeTo(dm, opt, Channels.newChannel(channel));
+        Assert.assertArrayEquals(expected, channel.toByteArray());
+        ByteBuffer out = ByteBuffer.allocate(expected.length);
+        Draco.encodeTo(dm, opt, out);
+        Assert.assertArrayEquals(expected, out.array());
+    }
+    
+    @Test
+    public void pooledAllocatorReusesArrays()
+        throws IOException, DrakoException
+    {
+        DracoPooledAllocator pool = new DracoPooledAllocator();
+        byte[] array = pool.allocateBytes(3000);
+        Assert.assertEquals(4096, array.length);
+        array[0] = 1;
+        pool.release(array);
+        byte[] reused = pool.allocateBytes(2049);
+        Assert.assertSame(array, reused);
+        Assert.assertEquals(0, reused[0]);
+        // Arrays the pool didn't hand out and repeated releases are not recycled.
+        pool.release(reused);
+        pool.release(reused);
+        pool.release(new byte[4096]);
+        Assert.assertSame(reused, pool.allocateBytes(4096));
+        Assert.assertNotSame(reused, pool.allocateBytes(4096));
+        byte[] cube = Files.readAllBytes(Paths.get("TestData/cube.drc"));
+        DracoAllocator.setDefault(pool);
+        try
+        {
+            DracoPointCloud dm = Draco.decode(cube);
+            DracoPointCloud dm2 = Draco.decode(Draco.encode(dm, new DracoEncodeOptions()));
+            Assert.assertEquals(24, dm2.getNumPoints());
+        }
+        finally
+        {
+            DracoAllocator.setDefault(null);
+        }
+        
+    }
+    
+    @Test
+    public void offHeapAttributes()
+        throws IOException, DrakoException
+    {
+        byte[] cube = Files.readAllBytes(Paths.get("TestData/cube.drc"));
+        DracoPointCloud full = Draco.decode(cube);
+        DracoLoadOptions options = new DracoLoadOptions();
+        options.setAttributeAllocator(DracoAllocator.direct());
+        DracoPointCloud dm = Draco.decode(cube, options);
+        PointAttribute expected = full.getNamedAttribute(AttributeType.POSITION);
+        PointAttribute attr = dm.getNamedAttribute(AttributeType.POSITION);
+        Assert.assertTrue(attr.getBuffer().isOffHeap());
+        float[] a = new float[3];
+        float[] b = new float[3];
+        for (int i = 0; i < dm.getNumPoints(); i++)
+        {
+            expected.getValue(expected.mappedIndex(i), a);
+            attr.getValue(attr.mappedIndex(i), b);
+            Assert.assertArrayEquals(a, b, 0.0f);
+        }
+        
+        DracoPointCloud dm2 = Draco.decode(Draco.encode(dm, new DracoEncodeOptions()));
+        Assert.assertEquals(24, dm2.getNumPoints());
+    }
+    
+    @Test
+    public void offHeapAttributesAcrossChunks()
+        throws DrakoException
+    {
+        // Tiny chunks make the portable and final values straddle chunk boundaries.
+        DracoMesh mesh = UnitTest1.meshWithNormals(40);
+        // A plain point cloud goes through the kd-tree decoder.
+        DracoPointCloud cloud = new DracoPointCloud();
+        cloud.setNumPoints(mesh.getNumPoints());
+        cloud.addAttribute(mesh.getNamedAttribute(AttributeType.POSITION));
+        DracoPointCloud[] geometries = {mesh, mesh, cloud};
+        for (final int chunkShift : new int[] {1, 6})
+        {
+            final int[] numChunks = new int[1];
+            DracoAllocator allocator = new DracoAllocator() {
+                @Override
+                public byte[] allocateBytes(int minLength)
+                {
+                    return new byte[minLength];
+                }
+                
+                @Override
+                public int[] allocateInts(int minLength)
+                {
+                    return new int[minLength];
+                }
+                
+                @Override
+                public ByteBuffer allocateBuffer(int capacity)
+                {
+                    Assert.assertTrue(capacity <= (1 << chunkShift));
+                    numChunks[0]++;
+                    return super.allocateBuffer(capacity);
+                }
+                
+                @Override
+                int getChunkShift()
+                {
+                    return chunkShift;
+                }
+                
+            };
+            for (int i = 0; i < 3; i++)
+            {
+                DracoEncodeOptions encodeOptions = new DracoEncodeOptions();
+                encodeOptions.setPointCloud(i == 1);
+                byte[] bytes = Draco.encode(geometries[i], encodeOptions);
+                DracoLoadOptions options = new DracoLoadOptions();
+                options.setAttributeAllocator(allocator);
+                numChunks[0] = 0;
+                DracoPointCloud dm = Draco.decode(bytes, options);
+                Assert.assertTrue(dm.attribute(0).getBuffer().isOffHeap());
+                // The portable values take as many chunks as the final values.
+                long finalBytes = 0L;
+                for (int j = 0; j < dm.getNumAttributes(); j++)
+                {
+                    finalBytes += dm.attribute(j).getBuffer().getLongLength();
+                }
+                
+                Assert.assertTrue(numChunks[0] >= (2 * (finalBytes >> chunkShift)));
+                UnitTest1.assertSameGeometry(Draco.decode(bytes), dm);
+            }
+            
+        }
+        
+    }
+    
+    @Test
+    public void bitDecoderMatchesBitByBitReads()
+    {
+        // 37 bytes, so reads straddle 8-byte refills and run into the tail and past the end.
+        byte[] data = new byte[37];
+        new Random(5).nextBytes(data);
+        int dataBits = data.length * 8;
+        BytePointer[] pointers = {new BytePointer(data), new BytePointer(ByteBuffer.wrap(data))};
+        for (BytePointer pointer : pointers)
+        {
+            Random random = new Random(9);
+            BitDecoder scalar = new BitDecoder();
+            BitDecoder bulk = new BitDecoder();
+            scalar.load(pointer, data.length);
+            bulk.load(pointer, data.length);
+            int offset = 0;
+            while (offset < dataBits + 200)
+            {
+                int nbits = random.nextInt(8) == 0 ? (random.nextBoolean() ? 0 : 32) : random.nextInt(33);
+                int count = 1 + random.nextInt(5);
+                for (int k = 0; k < 40; k += 7)
+                {
+                    Assert.assertEquals(UnitTest1.readReferenceBits(data, offset + k, 1), scalar.peekBit(k));
+                }
+                
+                int[] values = new int[count + 1];
+                bulk.readBits(values, 1, count, nbits);
+                Assert.assertEquals(0, values[0]);
+                for (int i = 0; i < count; i++)
+                {
+                    int expected = UnitTest1.readReferenceBits(data, offset, nbits);
+                    Assert.assertEquals(expected, scalar.readBits(nbits));
+                    Assert.assertEquals(expected, values[i + 1]);
+                    offset += nbits;
+                }
+                
+                Assert.assertEquals(Math.min(offset, dataBits), scalar.getBitsDecoded());
+                Assert.assertEquals(Math.min(offset, dataBits), bulk.getBitsDecoded());
+            }
+            
+        }
+        
+    }
+    
+    /**
+     *  Reads |nbits| bits at bit |offset| of |data| one by one, bits past the end are zero.
+     *
+     */
+    private static int readReferenceBits(byte[] data, int offset, int nbits)
+    {
+        int ret = 0;
+        for (int i = 0; i < nbits; i++)
+        {
+            int bit = offset + i;
+            if ((bit >> 3) < data.length && (((data[bit >> 3] >> (bit & 7)) & 1) != 0))
+            {
+                ret |= 1 << i;
+            }
+            
+        }
+        
+        return ret;
+    }
+    
+    @Test
+    public void ransLookupTableRebuilds()
+    {
+        int precisionBits = 12;
+        int[] first = {1000, 3000, 96};
+        int[] second = {1, 2000, 95, 1000, 1000};
+        byte[] firstData = new byte[4096];
+        byte[] secondData = new byte[4096];
+        int[] firstSymbols = UnitTest1.randomSymbols(first.length, 500, 1);
+        int[] secondSymbols = UnitTest1.randomSymbols(second.length, 700, 2);
+        int firstSize = UnitTest1.ransEncode(precisionBits, first, firstSymbols, firstData);
+        int secondSize = UnitTest1.ransEncode(precisionBits, second, secondSymbols, secondData);
+        RAnsLookupTable table = new RAnsLookupTable(precisionBits);
+        for (int pass = 0; pass < 2; pass++)
+        {
+            UnitTest1.assertRAnsDecodes(precisionBits, table, first, firstSymbols, firstData, firstSize);
+            UnitTest1.assertRAnsDecodes(precisionBits, table, second, secondSymbols, secondData, secondSize);
+        }
+        
+        UnitTest1.assertRAnsDecodes(precisionBits, table, first, firstSymbols, firstData, firstSize);
+        // Overwrites part of the tables before the probabilities overflow the precision.
+        Assert.assertFalse(table.build(new int[] {4000, 200}, 2));
+        Assert.assertFalse(table.build(new int[0], -1));
+        Assert.assertFalse(new RAnsLookupTable(precisionBits).build(new int[0], -1));
+        UnitTest1.assertRAnsDecodes(precisionBits, table, first, firstSymbols, firstData, firstSize);
+    }
+    
+    private static int[] randomSymbols(int numSymbols, int count, long seed)
+    {
+        Random random = new Random(seed);
+        int[] ret = new int[count];
+        for (int i = 0; i < count; i++)
+        {
+            ret[i] = random.nextInt(numSymbols);
+        }
+        
+        return ret;
+    }
+    
+    /**
+     *  Encodes |symbols| with |probs| into |data| and returns the number of bytes written.
+     *
+     */
+    private static int ransEncode(int precisionBits, int[] probs, int[] symbols, byte[] data)
+    {
+        RAnsEncoder encoder = new RAnsEncoder(precisionBits);
+        encoder.reset(new BytePointer(data));
+        // rANS decodes in reverse order of encoding.
+        for (int i = symbols.length - 1; i >= 0; i--)
+        {
+            RAnsBitCodec.RansSym sym = new RAnsBitCodec.RansSym();
+            sym.prob = probs[symbols[i]];
+            for (int j = 0; j < symbols[i]; j++)
+            {
+                sym.cumProb += probs[j];
+            }
+            
+            encoder.write(sym);
+        }
+        
+        return encoder.writeEnd();
+    }
+    
+    private static void assertRAnsDecodes(int precisionBits, RAnsLookupTable table, int[] probs, int[] symbols, byte[] data, int size)
+    {
+        RAnsDecoder scalar = new RAnsDecoder(precisionBits, table);
+        Assert.assertTrue(scalar.buildLookupTable(probs, probs.length));
+        Assert.assertEquals(0, scalar.readInit(new BytePointer(data), size));
+        for (int i = 0; i < symbols.length; i++)
+        {
+            Assert.assertEquals(symbols[i], scalar.read());
+        }
+        
+        Assert.assertTrue(scalar.readEnd());
+        RAnsDecoder bulk = new RAnsDecoder(precisionBits, table);
+        Assert.assertTrue(bulk.buildLookupTable(probs, probs.length));
+        Assert.assertEquals(0, bulk.readInit(new BytePointer(data), size));
+        int[] decoded = new int[symbols.length];
+        bulk.read(decoded, 0, decoded.length);
+        Assert.assertArrayEquals(symbols, decoded);
+        Assert.assertTrue(bulk.readEnd());
+    }
+    
+    @Test
+    public void intIntMap()
+    {
+        IntIntMap map = new IntIntMap();
+        for (int i = 0; i < 1000; i++)
+        {
+            map.put(i << 16, i);
+        }
+        
+        map.put(Integer.MIN_VALUE, 7);
+        map.put(0, 42);
+        Assert.assertEquals(1001, map.size());
+        Assert.assertEquals(42, map.get(0, -1));
+        Assert.assertEquals(999, map.get(999 << 16, -1));
+        Assert.assertEquals(7, map.get(Integer.MIN_VALUE, -1));
+        Assert.assertEquals(-1, map.get(1, -1));
+        Assert.assertFalse(map.containsKey(1000 << 16));
+        map.clear();
+        Assert.assertEquals(0, map.size());
+        Assert.assertFalse(map.containsKey(Integer.MIN_VALUE));
+        Assert.assertEquals(-1, map.get(0, -1));
+    }
+    
+    @Test
+    public void deduplicateAttributeValues()
+    {
+        Vector3[] values = new Vector3[100000];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = new Vector3(i % 1000, i % 7, 0);
+        }
+        
+        PointAttribute serial = PointAttribute.wrap(AttributeType.POSITION, values);
+        PointAttribute parallel = PointAttribute.wrap(AttributeType.POSITION, values);
+        serial.deduplicateValues();
+        parallel.deduplicateValues(true);
+        Assert.assertEquals(7000, serial.getNumUniqueEntries());
+        Assert.assertEquals(7000, parallel.getNumUniqueEntries());
+        float[] a = new float[3];
+        float[] b = new float[3];
+        for (int i = 0; i < values.length; i++)
+        {
+            Assert.assertEquals(serial.mappedIndex(i), parallel.mappedIndex(i));
+            serial.getValue(serial.mappedIndex(i), a);
+            Assert.assertEquals(values[i].x, a[0], 0.0f);
+            Assert.assertEquals(values[i].y, a[1], 0.0f);
+        }
+        
+    }
+    
+    @Test
+    public void deduplicatePointIds()
+    {
+        int numPoints = 90000;
+        DracoMesh[] meshes = new DracoMesh[2];
+        for (int m = 0; m < meshes.length; m++)
+        {
+            PointAttribute position = PointAttribute.wrap(AttributeType.POSITION, new Vector3[] {new Vector3(0, 0, 0), new Vector3(1, 0, 0), new Vector3(0, 1, 0)});
+            PointAttribute uv = PointAttribute.wrap(AttributeType.TEX_COORD, new Vector2[] {new Vector2(0, 0), new Vector2(1, 1)});
+            position.setExplicitMapping(numPoints);
+            uv.setExplicitMapping(numPoints);
+            int[] indices = new int[numPoints];
+            for (int i = 0; i < numPoints; i++)
+            {
+                position.setPointMapEntry(i, i % 3);
+                uv.setPointMapEntry(i, (i / 3) % 2);
+                indices[i] = i;
+            }
+            
+            DracoMesh mesh = new DracoMesh();
+            mesh.addAttribute(position);
+            mesh.addAttribute(uv);
+            mesh.getIndices().addRange(indices);
+            mesh.setNumPoints(numPoints);
+            mesh.deduplicatePointIds(m == 1);
+            meshes[m] = mesh;
+        }
+        
+        Assert.assertEquals(6, meshes[0].getNumPoints());
+        Assert.assertEquals(6, meshes[1].getNumPoints());
+        for (int i = 0; i < numPoints; i++)
+        {
+            int p = meshes[0].getIndices().get(i);
+            Assert.assertEquals(p, meshes[1].getIndices().get(i));
+            Assert.assertEquals(i % 3, meshes[0].getNamedAttribute(AttributeType.POSITION).mappedIndex(p));
+            Assert.assertEquals((i / 3) % 2, meshes[0].getNamedAttribute(AttributeType.TEX_COORD).mappedIndex(p));
+        }
+        
+    }
+    
+    @Test
+    public void parallelogramWrapRoundTrip()
+    {
+        int n = 20;
+        int[] faces = new int[n * n * 6];
+        int numFaces = 0;
+        for (int y = 0; y < n; y++)
+        {
+            for (int x = 0; x < n; x++)
+            {
+                int a = (y * (n + 1)) + x;
+                int c = a + n + 1;
+                int[] quad = {a, a + 1, c, a + 1, c + 1, c};
+                System.arraycopy(quad, 0, faces, numFaces * 3, 6);
+                numFaces += 2;
+            }
+            
+        }
+        
+        int numVertices = (n + 1) * (n + 1);
+        CornerTable table = new CornerTable();
+        table.initialize(faces, numFaces);
+        int[] vertexToDataMap = new int[numVertices];
+        IntList dataToCornerMap = new IntList();
+        for (int v = 0; v < numVertices; v++)
+        {
+            vertexToDataMap[v] = v;
+            dataToCornerMap.add(table.leftMostCorner(v));
+        }
+        
+        for (int numComponents = 2; numComponents <= 3; numComponents++)
+        {
+            int size = numVertices * numComponents;
+            int[] values = new int[size];
+            for (int i = 0; i < size; i++)
+            {
+                values[i] = (i * 7919) % 1021 - 300;
+            }
+            
+            MeshPredictionSchemeData data = new MeshPredictionSchemeData(null, table, dataToCornerMap, vertexToDataMap);
+            MeshPredictionSchemeParallelogram scheme = new MeshPredictionSchemeParallelogram(null, new PredictionSchemeWrapTransform(), data);
+            int[] corrections = new int[size];
+            scheme.computeCorrectionValues(IntSpan.wrap(values), IntSpan.wrap(corrections), size, numComponents, null);
+            // Decode in place over a byte backed span like the attribute decoders do.
+            IntSpan decoded = IntSpan.wrap(new byte[size * 4]);
+            decoded.put(0, corrections, 0, size);
+            scheme.computeOriginalValues(decoded, decoded, size, numComponents, null);
+            Assert.assertArrayEquals(values, decoded.toArray());
+        }
+        
+    }
+    
+    @Test
+    public void multiParallelogramRoundTrip()
+        throws DrakoException
+    {
+        MeshPredictionSchemeData data = UnitTest1.seamGridPredictionData(20);
+        int numVertices = data.vertexToDataMap.length;
+        int numComponents = 3;
+        int size = numVertices * numComponents;
+        int[] values = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            values[i] = (i * 7919) % 1021 - 300;
+        }
+        
+        for (int method = 0; method < 2; method++)
+        {
+            PredictionSchemeWrapTransform transform = new PredictionSchemeWrapTransform();
+            PredictionScheme encoder = method == 0 ? new MeshPredictionSchemeMultiParallelogram(null, transform, data) : new MeshPredictionSchemeConstrainedMultiParallelogram(null, transform, data);
+            int[] corrections = new int[size];
+            encoder.computeCorrectionValues(IntSpan.wrap(values), IntSpan.wrap(corrections), size, numComponents, null);
+            EncoderBuffer buffer = new EncoderBuffer();
+            encoder.encodePredictionData(buffer);
+            PredictionScheme decoder = method == 0 ? new MeshPredictionSchemeMultiParallelogram(null, new PredictionSchemeWrapTransform(), data) : new MeshPredictionSchemeConstrainedMultiParallelogram(null, new PredictionSchemeWrapTransform(), data);
+            DecoderBuffer input = new DecoderBuffer(buffer.toArray());
+            input.setBitstreamVersion(22);
+            decoder.decodePredictionData(input);
+            IntSpan decoded = IntSpan.wrap(new byte[size * 4]);
+            decoded.put(0, corrections, 0, size);
+            decoder.computeOriginalValues(decoded, decoded, size, numComponents, null);
+            Assert.assertArrayEquals(values, decoded.toArray());
+        }
+        
+    }
+    
+    @Test
+    public void constrainedMultiParallelogramMatchesExhaustiveSearch()
+        throws Exception
+    {
+        final MeshPredictionSchemeData data = UnitTest1.seamGridPredictionData(130);
+        // Enough entries for several search blocks and for splitting the search across threads.
+        Assert.assertTrue(data.dataToCornerMap.getCount() >= MeshPredictionSchemeConstrainedMultiParallelogram.MIN_PARALLEL_ENTRIES);
+        final int numComponents = 3;
+        final int size = data.vertexToDataMap.length * numComponents;
+        final int[] values = new int[size];
+        Random random = new Random(13);
+        for (int i = 0; i < size; i++)
+        {
+            // Mostly linear in the vertex index, so the parallelograms compete with the deltas.
+            values[i] = (i / numComponents) * (i % numComponents + 1) + random.nextInt(5) - (random.nextInt(50) == 0 ? 400 : 0);
+        }
+        
+        int[] expectedCorrections = new int[size];
+        EncoderBuffer expected = new EncoderBuffer();
+        UnitTest1.encodeExhaustiveMultiParallelogram(data, values, numComponents, expectedCorrections, expected);
+        final int[] corrections = new int[size];
+        EncoderBuffer buffer = new EncoderBuffer();
+        UnitTest1.encodeConstrainedMultiParallelogram(data, values, numComponents, corrections, buffer);
+        Assert.assertArrayEquals(expectedCorrections, corrections);
+        Assert.assertArrayEquals(expected.toArray(), buffer.toArray());
+        for (int parallelism : new int[] {1, 4})
+        {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try
+            {
+                final EncoderBuffer pooled = new EncoderBuffer();
+                Arrays.fill(corrections, 0);
+                pool.submit(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        UnitTest1.encodeConstrainedMultiParallelogram(data, values, numComponents, corrections, pooled);
+                    }
+                    
+                }).get();
+                Assert.assertArrayEquals(expectedCorrections, corrections);
+                Assert.assertArrayEquals(expected.toArray(), pooled.toArray());
+            }
+            finally
+            {
+                pool.shutdown();
+            }
+            
+        }
+        
+    }
+    
+    private static void encodeConstrainedMultiParallelogram(MeshPredictionSchemeData data, int[] values, int numComponents, int[] corrections, EncoderBuffer buffer)
+    {
+        PredictionScheme encoder = new MeshPredictionSchemeConstrainedMultiParallelogram(null, new PredictionSchemeWrapTransform(), data);
+        encoder.computeCorrectionValues(IntSpan.wrap(values), IntSpan.wrap(corrections), values.length, numComponents, null);
+        encoder.encodePredictionData(buffer);
+    }
+    
+    /**
+     *  Reference of the constrained multi-parallelogram encoder that rates every candidate of
+     *  every entry with the entropy tracker, in the order the original search did.
+     *
+     */
+    private static void encodeExhaustiveMultiParallelogram(MeshPredictionSchemeData data, int[] values, int numComponents, int[] corrections, EncoderBuffer buffer)
+    {
+        MeshPredictionSchemeConstrainedMultiParallelogram scheme = new MeshPredictionSchemeConstrainedMultiParallelogram(null, new PredictionSchemeWrapTransform(), data);
+        ShannonEntropyTracker tracker = scheme.entropy_tracker_;
+        IntSpan valueSpan = IntSpan.wrap(values);
+        IntSpan correctionSpan = IntSpan.wrap(corrections);
+        scheme.transform_.initializeEncoding(valueSpan, numComponents);
+        ICornerTable table = data.getCornerTable();
+        int maxParallelograms = MeshPredictionSchemeConstrainedMultiParallelogram.K_MAX_NUM_PARALLELOGRAMS;
+        int[][] predictions = new int[maxParallelograms][numComponents];
+        int[] prediction = new int[numComponents];
+        int[] best = new int[numComponents];
+        int[] symbols = new int[numComponents];
+        long[] totalUsed = new long[maxParallelograms];
+        long[] total = new long[maxParallelograms];
+        for (int p = data.dataToCornerMap.getCount() - 1; p > 0; p--)
+        {
+            int startCorner = data.dataToCornerMap.get(p);
+            int corner = startCorner;
+            int n = 0;
+            boolean firstPass = true;
+            while (corner != CornerTable.K_INVALID_CORNER_INDEX)
+            {
+                if (MeshPredictionSchemeParallelogram.computeParallelogramPrediction(p, corner, table, data.vertexToDataMap, valueSpan, numComponents, IntSpan.wrap(predictions[n])) && (++n == maxParallelograms))
+                    break;
+                corner = firstPass ? table.swingLeft(corner) : table.swingRight(corner);
+                if (corner == startCorner)
+                    break;
+                if (corner == CornerTable.K_INVALID_CORNER_INDEX && firstPass)
+                {
+                    firstPass = false;
+                    corner = table.swingRight(startCorner);
+                }
+                
+            }
+            
+            int context = Math.max(0, n - 1);
+            total[context] += n;
+            long bestBits = 0;
+            long bestError = 0;
+            int bestUsed = -1;
+            // The configurations permuted for every number of used parallelograms never leave
+            // the first one, so the candidates are the delta from the previous entry followed
+            // by the average of the first |used| parallelograms.
+            for (int used = 0; used <= n; used++)
+            {
+                long error = 0;
+                for (int c = 0; c < numComponents; c++)
+                {
+                    int sum = 0;
+                    for (int j = 0; j < used; j++)
+                    {
+                        sum += predictions[j][c];
+                    }
+                    
+                    prediction[c] = used == 0 ? values[(p - 1) * numComponents + c] : sum / used;
+                    int dif = prediction[c] - values[p * numComponents + c];
+                    error += Math.abs(dif);
+                    symbols[c] = scheme.convertSignedIntToSymbol(dif);
+                }
+                
+                ShannonEntropyTracker.EntropyData entropy = tracker.peek(symbols, numComponents);
+                long bits = tracker.getNumberOfDataBits(entropy) + tracker.getNumberOfRAnsTableBits(entropy);
+                if (n > 0)
+                {
+                    bits += scheme.computeOverheadBits(totalUsed[context] + used, total[context]);
+                }
+                
+                if (bestUsed < 0 || bits < bestBits || (bits == bestBits && error < bestError))
+                {
+                    bestBits = bits;
+                    bestError = error;
+                    bestUsed = used;
+                    System.arraycopy(prediction, 0, best, 0, numComponents);
+                }
+                
+            }
+            
+            for (int c = 0; c < numComponents; c++)
+            {
+                symbols[c] = scheme.convertSignedIntToSymbol(best[c] - values[p * numComponents + c]);
+            }
+            
+            tracker.push(symbols, numComponents);
+            for (int j = 0; j < n; j++)
+            {
+                scheme.is_crease_edge_[context].set(scheme.num_crease_edges_[context]++, j >= bestUsed);
+            }
+            
+            totalUsed[context] += bestUsed;
+            scheme.transform_.computeCorrection(valueSpan, p * numComponents, IntSpan.wrap(best), 0, correctionSpan, p * numComponents, 0);
+        }
+        
+        scheme.transform_.computeCorrection(valueSpan, 0, IntSpan.wrap(new int[numComponents]), 0, correctionSpan, 0, 0);
+        scheme.encodePredictionData(buffer);
+    }
+    
+    /**
+     *  Prediction data of a |n| x |n| quad grid with some seam edges, data entries follow the vertices.
+     *
+     */
+    private static MeshPredictionSchemeData seamGridPredictionData(int n)
+    {
+        IntList faces = new IntList();
+        for (int y = 0; y < n; y++)
+        {
+            for (int x = 0; x < n; x++)
+            {
+                int a = (y * (n + 1)) + x;
+                int c = a + n + 1;
+                faces.addRange(new int[] {a, a + 1, c, a + 1, c + 1, c});
+            }
+            
+        }
+        
+        CornerTable cornerTable = new CornerTable();
+        cornerTable.initialize(faces.toArray(), faces.getCount() / 3);
+        // Seams split some vertices so the walks stop at seam edges.
+        MeshAttributeCornerTable table = new MeshAttributeCornerTable(cornerTable);
+        for (int c = 0; c < cornerTable.getNumCorners(); c += 11)
+        {
+            table.addSeamEdge(c);
+        }
+        
+        table.recomputeVertices(null, null);
+        int numVertices = table.getNumVertices();
+        int[] vertexToDataMap = new int[numVertices];
+        IntList dataToCornerMap = new IntList();
+        for (int v = 0; v < numVertices; v++)
+        {
+            vertexToDataMap[v] = v;
+            dataToCornerMap.add(table.leftMostCorner(v));
+        }
+        
+        return new MeshPredictionSchemeData(null, table, dataToCornerMap, vertexToDataMap);
+    }
+    
+    @Test
+    public void octahedralNormalTableMatchesDirectConversion()
+    {
+        // 10 bits is the default quantization of normals and the largest table.
+        for (int quantizationBits : new int[] {6, OctahedralNormalTable.MAX_QUANTIZATION_BITS})
+        {
+            int size = 1 << quantizationBits;
+            float maxValue = size - 2;
+            // Enough normals to build the table, followed by coordinates outside of it.
+            OctahedralNormalTable table = OctahedralNormalTable.get(quantizationBits, size * size);
+            Assert.assertSame(table, OctahedralNormalTable.get(quantizationBits, 1));
+            int count = size * size + 2;
+            int[] coords = new int[count * 2];
+            for (int i = 0; i < size * size; i++)
+            {
+                coords[i * 2] = i / size;
+                coords[i * 2 + 1] = i % size;
+            }
+            
+            coords[count * 2 - 4] = size;
+            coords[count * 2 - 1] = -1;
+            float[] decoded = new float[count * 3];
+            table.decode(coords, 0, decoded, 0, count);
+            float[] expected = new float[count * 3];
+            for (int i = 0; i < count; i++)
+            {
+                OctahedralNormalTable.octahedralCoordsToUnitVector(coords[i * 2] / maxValue, coords[i * 2 + 1] / maxValue, expected, i * 3);
+            }
+            
+            Assert.assertArrayEquals(expected, decoded, 0.0f);
+        }
+        
+        // Smaller decodes build the table once their level converted as many normals.
+        int quantizationBits = 9;
+        for (int i = 0; i < 4; i++)
+        {
+            OctahedralNormalTable.get(quantizationBits, 1 << (quantizationBits * 2 - 2));
+        }
+        
+        Assert.assertSame(OctahedralNormalTable.get(quantizationBits, 1), OctahedralNormalTable.get(quantizationBits, 1));
+    }
+    
+    @Test
+    public void decodeAllReportsFailuresInOrder()
+        throws IOException
+    {
+        byte[] cube = Files.readAllBytes(Paths.get("TestData/cube.drc"));
+        ByteBuffer broken = ByteBuffer.wrap(new byte[] {1, 2, 3});
+        List<DracoDecodeResult> results = Draco.decodeAll(Arrays.asList(ByteBuffer.wrap(cube), broken, ByteBuffer.wrap(cube)));
+        Assert.assertEquals(3, results.size());
+        Assert.assertTrue(results.get(0).getSucceeded());
+        Assert.assertEquals(24, results.get(0).getGeometry().getNumPoints());
+        Assert.assertFalse(results.get(1).getSucceeded());
+        Assert.assertNull(results.get(1).getGeometry());
+        Assert.assertNotNull(results.get(1).getError());
+        Assert.assertTrue(results.get(2).getSucceeded());
+    }
+    
     @Test
     public void encodeMeshToDrcWithImplicitUVNormalMapping()
         throws DrakoException
@@ -3,6 +3,8 @@ import com.openize.drako.AsposeUtils;
 import com.openize.drako.HashBuilder;
 import com.openize.drako.Struct;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 /**
  *  This simulates a byte pointer used in Draco implementation, also makes it easier to be ported to Java using CsPorter made by Lex Chou.
  *  I've benchmarked this, it's okay to be used, I'll replace this by Span later.
@@ -28,11 +30,19 @@ import java.io.Serializable;
  *  BytePointer Read    00:00:00.3381226
  *  Memory Span Read    00:00:00.3725757
  *  Memory Slice Read   00:00:00.6809910
+ * 
+ *  The pointer can also address a {@link java.nio.ByteBuffer} (heap, direct or memory-mapped),
+ *  so the decoder can read the input in place without copying it to a byte array first.
  *
  */
 final class BytePointer implements Struct<BytePointer>, Serializable
 {    
     private byte[] data;
+    /**
+     *  Used instead of |data| when the pointer addresses a ByteBuffer, always in little-endian order.
+     *
+     */
+    private transient ByteBuffer buffer;
     private int offset;
     public BytePointer(byte[] data)
     {
@@ -46,11 +56,43 @@ final class BytePointer implements Struct<BytePointer>, Serializable
         this.offset = offset;
     }
     
+    /**
+     *  Points to the first remaining byte of |buffer|.
+     *  The position and limit of the input buffer are not modified.
+     *
+     */
+    public BytePointer(ByteBuffer buffer)
+    {
+        if (buffer.hasArray())
+        {
+            // Heap buffers are addressed through their backing array, which is the fastest path.
+            this.data = buffer.array();
+            this.offset = buffer.arrayOffset() + buffer.position();
+        }
+        else
+        {
+            this.buffer = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            this.offset = 0;
+        }
+        
+    }
+    
+    private BytePointer(byte[] data, ByteBuffer buffer, int offset)
+    {
+        this.data = data;
+        this.buffer = buffer;
+        this.offset = offset;
+    }
+    
     public int getOffset()
     {
         return offset;
     }
     
+    /**
+     *  Returns the underlying byte array, or null when the pointer addresses a direct ByteBuffer.
+     *
+     */
     public byte[] getBaseData()
     {
         return data;
@@ -58,68 +100,103 @@ final class BytePointer implements Struct<BytePointer>, Serializable
     
     public byte get(int offset)
     {
+        if (buffer != null)
+            return buffer.get(this.offset + offset);
         return data[this.offset + offset];
     }
     
     public void set(int offset, byte value)
     {
+        if (buffer != null)
+        {
+            buffer.put(this.offset + offset, value);
+            return;
+        }
+        
         data[this.offset + offset] = value;
     }
     
     public byte toByte()
     {
-        return data[this.offset];
+        return this.get(0);
     }
     
     public short toUInt16LE()
     {
-        return Unsafe.getLE16(data, this.offset);
+        return this.toUInt16LE(0);
     }
     
     public short toUInt16LE(int offset)
     {
+        if (buffer != null)
+            return buffer.getShort(this.offset + offset);
         return Unsafe.getLE16(data, this.offset + offset);
     }
     
     public int toUInt24LE(int offset)
     {
+        if (buffer != null)
+        {
+            int p = this.offset + offset;
+            return 0xffff & buffer.getShort(p) | ((0xff & buffer.get(p + 2)) << 16);
+        }
+        
         return Unsafe.getLE24(data, this.offset + offset);
     }
     
     public int toUInt32LE(int offset)
     {
+        if (buffer != null)
+            return buffer.getInt(this.offset + offset);
         return Unsafe.getLE32(data, this.offset + offset);
     }
     
     public long toUInt64LE(int offset)
     {
+        if (buffer != null)
+            return buffer.getLong(this.offset + offset);
         return Unsafe.getLE64(data, this.offset + offset);
     }
     
     public float toSingle(int offset)
     {
+        if (buffer != null)
+            return buffer.getFloat(this.offset + offset);
         return Unsafe.getFloat(data, this.offset + offset);
     }
     
     public boolean isOverflow(int offset)
     {
         int p = offset + this.offset;
-        return p >= data.length || (p < 0);
+        int capacity = buffer != null ? buffer.limit() : data.length;
+        return p >= capacity || (p < 0);
     }
     
     public static BytePointer add(BytePointer ptr, int offset)
     {
-        return new BytePointer(ptr.data, ptr.offset + offset);
+        return new BytePointer(ptr.data, ptr.buffer, ptr.offset + offset);
     }
     
     public void copy(int srcOffset, byte[] dst, int dstOffset, int len)
     {
+        if (buffer != null)
+        {
+            for (int i = 0,  p = this.offset + srcOffset; i < len; i++, p++)
+            {
+                dst[dstOffset + i] = buffer.get(p);
+            }
+            
+            return;
+        }
+        
         System.arraycopy(data, this.offset + srcOffset, dst, dstOffset, len);
     }
     
     @Override
     public String toString()
     {
+        if (buffer != null)
+            return String.format("%s+%d", buffer, offset);
         return String.format("byte[%d]+%d", data == null ? 0 : data.length, offset);
     }
     
@@ -130,6 +207,7 @@ final class BytePointer implements Struct<BytePointer>, Serializable
     private BytePointer(BytePointer other)
     {
         this.data = other.data;
+        this.buffer = other.buffer;
         this.offset = other.offset;
     }
     
@@ -145,6 +223,7 @@ final class BytePointer implements Struct<BytePointer>, Serializable
         if (src == null)
             return;
         this.data = src.data;
+        this.buffer = src.buffer;
         this.offset = src.offset;
     }
     
@@ -154,6 +233,7 @@ final class BytePointer implements Struct<BytePointer>, Serializable
     {
         HashBuilder builder = new HashBuilder();
         builder.hash(this.data);
+        builder.hash(System.identityHashCode(this.buffer));
         builder.hash(this.offset);
         return builder.hashCode();
     }
@@ -166,6 +246,8 @@ final class BytePointer implements Struct<BytePointer>, Serializable
         BytePointer rhs = (BytePointer)obj;
         if (!AsposeUtils.equals(this.data, rhs.data))
             return false;
+        if (this.buffer != rhs.buffer)
+            return false;
         if (this.offset != rhs.offset)
             return false;
         return true;
@@ -2,17 +2,32 @@ package com.openize.drako;
 import com.openize.drako.BitUtils;
 import com.openize.drako.ByteSpan;
 import com.openize.drako.IntSpan;
-import java.util.Arrays;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 /**
  *  Heap version of Span.
+ *  A buffer created by {@link #offHeap()} keeps its content in chunks from {@link com.openize.drako.DracoAllocator#allocateBuffer(int)}
+ *  instead of a byte array, it can grow beyond 2GB and is accessed with the long offset overloads.
+ *  Such a buffer has no backing array, getBuffer(), asSpan() and the int-sized length accessors
+ *  fail when the content can't be represented by them.
  *
  */
 public class DataBuffer
 {    
+    /**
+     *  Log2 of the size of a full chunk of an off-heap buffer.
+     *
+     */
+    static final int CHUNK_SHIFT = 30;
     private int version;
     private byte[] data;
     private int length;
     private final boolean extendable;
+    private final DracoAllocator allocator;
+    private ByteBuffer[] chunks;
+    private long longLength;
+    private long longCapacity;
+    private int chunkShift;
     public int getVersion()
     {
         return version;
@@ -20,23 +35,33 @@ public class DataBuffer
     
     public int getCapacity()
     {
+        if (chunks != null)
+            return (int)Math.min(Integer.MAX_VALUE, longCapacity);
         return data == null ? 0 : data.length;
     }
     
     public void setCapacity(int value)
     {
+        if (chunks != null)
+        {
+            this.ensureChunks(value);
+            return;
+        }
+        
         this.ensureCapacity(value);
     }
     
     public DataBuffer()
     {
         this.extendable = true;
+        this.allocator = DracoAllocator.getDefault();
     }
     
     public DataBuffer(byte[] data)
     {
         this.data = data;
         this.extendable = false;
+        this.allocator = null;
         this.length = data.length;
     }
     
@@ -46,6 +71,49 @@ public class DataBuffer
         this.length = data.size();
         data.copyTo(this.data);
         this.extendable = false;
+        this.allocator = null;
+    }
+    
+    DataBuffer(DracoAllocator allocator, int chunkShift)
+    {
+        this.extendable = true;
+        this.allocator = allocator;
+        this.chunkShift = chunkShift;
+        this.chunks = new ByteBuffer[0];
+    }
+    
+    /**
+     *  Creates an empty buffer that keeps its content in direct memory outside of the Java heap.
+     *
+     */
+    public static DataBuffer offHeap()
+    {
+        return DataBuffer.offHeap(DracoAllocator.direct());
+    }
+    
+    /**
+     *  Creates an empty buffer that keeps its content in chunks allocated by {@link com.openize.drako.DracoAllocator#allocateBuffer(int)}.
+     *
+     */
+    public static DataBuffer offHeap(DracoAllocator allocator)
+    {
+        if (allocator == null)
+            throw new IllegalArgumentException("Argument allocator cannot be null");
+        return new DataBuffer(allocator, allocator.getChunkShift());
+    }
+    
+    /**
+     *  Returns true if the content is stored in chunks instead of a byte array.
+     *
+     */
+    public boolean isOffHeap()
+    {
+        return chunks != null;
+    }
+    
+    DracoAllocator getAllocator()
+    {
+        return allocator;
     }
     
     public void write(int offset, byte[] data, int len)
@@ -55,10 +123,28 @@ public class DataBuffer
     
     public void write(int offset, byte val)
     {
+        if (chunks != null)
+        {
+            this.write((long)offset, val);
+            return;
+        }
+        
         this.setLength(offset + 1);
         this.data[offset] = val;
     }
     
+    public void write(long offset, byte val)
+    {
+        if (chunks == null)
+        {
+            this.write(Math.toIntExact(offset), val);
+            return;
+        }
+        
+        this.setLongLength(offset + 1);
+        this.set(offset, val);
+    }
+    
     public void write(int offset, short val)
     {
         this.write3(offset, val);
@@ -66,12 +152,36 @@ public class DataBuffer
     
     public void write(int offset, int val)
     {
+        if (chunks != null)
+        {
+            this.write((long)offset, val);
+            return;
+        }
+        
         this.setLength(offset + 4);
         Unsafe.putLE32(this.data, offset, val);
     }
     
+    public void write(long offset, int val)
+    {
+        if (chunks == null)
+        {
+            this.write(Math.toIntExact(offset), val);
+            return;
+        }
+        
+        this.setLongLength(offset + 4);
+        this.putInt(offset, val);
+    }
+    
     public void write(int offset, float val)
     {
+        if (chunks != null)
+        {
+            this.write((long)offset, Unsafe.floatToUInt32(val));
+            return;
+        }
+        
         this.setLength(offset + 4);
         int uval = Unsafe.floatToUInt32(val);
         Unsafe.putLE32(this.data, offset, uval);
@@ -79,10 +189,39 @@ public class DataBuffer
     
     public void write(int offset, float[] data)
     {
+        if (chunks != null)
+        {
+            this.write((long)offset, data);
+            return;
+        }
+        
         this.setLength(offset + (data.length * 4));
         Unsafe.toByteArray(data, 0, data.length, this.data, offset);
     }
     
+    public void write(long offset, float[] data)
+    {
+        this.write(offset, data, 0, data.length);
+    }
+    
+    public void write(long offset, float[] data, int start, int len)
+    {
+        if (chunks == null)
+        {
+            int off = Math.toIntExact(offset);
+            this.setLength(off + (len * 4));
+            Unsafe.toByteArray(data, start, len, this.data, off);
+            return;
+        }
+        
+        this.setLongLength(offset + (len * 4L));
+        for (int i = start; i < start + len; i++, offset += 4)
+        {
+            this.putInt(offset, Unsafe.floatToUInt32(data[i]));
+        }
+        
+    }
+    
     public void write(int offset, byte[] data)
     {
         this.write(offset, data, 0, data.length);
@@ -90,11 +229,30 @@ public class DataBuffer
     
     public void write(int offset, byte[] data, int start, int len)
     {
+        if (chunks != null)
+        {
+            this.write((long)offset, data, start, len);
+            return;
+        }
+        
         version++;
         this.setLength(offset + len);
         System.arraycopy(data, start, this.data, offset, len);
     }
     
+    public void write(long offset, byte[] data, int start, int len)
+    {
+        if (chunks == null)
+        {
+            this.write(Math.toIntExact(offset), data, start, len);
+            return;
+        }
+        
+        version++;
+        this.setLongLength(offset + len);
+        this.put(offset, data, start, len);
+    }
+    
     public int read(int offset, byte[] result)
     {
         return this.read(offset, result, 0, result.length);
@@ -107,88 +265,416 @@ public class DataBuffer
     
     public int read(int offset, byte[] result, int start, int len)
     {
+        if (chunks != null)
+            return this.read((long)offset, result, start, len);
         System.arraycopy(data, offset, result, start, len);
         return len;
     }
     
+    public int read(long offset, byte[] result, int start, int len)
+    {
+        if (chunks == null)
+            return this.read(Math.toIntExact(offset), result, start, len);
+        int done = 0;
+        while (done < len)
+        {
+            ByteBuffer chunk = chunks[(int)(offset >>> chunkShift)];
+            int pos = (int)(offset & ((1L << chunkShift) - 1));
+            int n = Math.min(len - done, chunk.capacity() - pos);
+            if (n <= 16)
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    result[start + done + i] = chunk.get(pos + i);
+                }
+                
+            }
+            else
+            {
+                ByteBuffer src = chunk.duplicate();
+                src.position(pos);
+                src.get(result, start + done, n);
+            }
+            
+            done += n;
+            offset += n;
+        }
+        
+        return len;
+    }
+    
     public float readFloat(int offset)
     {
+        if (chunks != null)
+            return Float.intBitsToFloat(this.getInt(offset));
         return BitUtils.getFloat(data, offset);
     }
     
+    public float readFloat(long offset)
+    {
+        if (chunks == null)
+            return BitUtils.getFloat(data, Math.toIntExact(offset));
+        return Float.intBitsToFloat(this.getInt(offset));
+    }
+    
     public int readInt(int offset)
     {
+        if (chunks != null)
+            return this.getInt(offset);
         return Unsafe.getLE32(data, offset);
         //return BitConverter.ToInt32(data, offset);
     }
     
+    public int readInt(long offset)
+    {
+        if (chunks == null)
+            return Unsafe.getLE32(data, Math.toIntExact(offset));
+        return this.getInt(offset);
+    }
+    
+    public short readShort(long offset)
+    {
+        if (chunks == null)
+            return Unsafe.getLE16(data, Math.toIntExact(offset));
+        return (short)((0xff & this.get(offset)) | ((0xff & this.get(offset + 1)) << 8));
+    }
+    
     public byte get(int offset)
     {
+        if (chunks != null)
+            return this.get((long)offset);
         return data[offset];
     }
     
+    public byte get(long offset)
+    {
+        if (chunks == null)
+            return data[Math.toIntExact(offset)];
+        return chunks[(int)(offset >>> chunkShift)].get((int)(offset & ((1L << chunkShift) - 1)));
+    }
+    
     public void set(int offset, byte value)
     {
+        if (chunks != null)
+        {
+            this.set((long)offset, value);
+            return;
+        }
+        
         data[offset] = value;
     }
     
+    public void set(long offset, byte value)
+    {
+        if (chunks == null)
+        {
+            data[Math.toIntExact(offset)] = value;
+            return;
+        }
+        
+        chunks[(int)(offset >>> chunkShift)].put((int)(offset & ((1L << chunkShift) - 1)), value);
+    }
+    
+    /**
+     *  Overwrites the int at |offset| without changing the length.
+     *
+     */
+    void setInt(long offset, int value)
+    {
+        if (chunks == null)
+        {
+            Unsafe.putLE32(data, Math.toIntExact(offset), value);
+            return;
+        }
+        
+        this.putInt(offset, value);
+    }
+    
+    private int getInt(long offset)
+    {
+        ByteBuffer chunk = chunks[(int)(offset >>> chunkShift)];
+        int pos = (int)(offset & ((1L << chunkShift) - 1));
+        if (pos <= (chunk.capacity() - 4))
+            return chunk.getInt(pos);
+        // The value straddles two chunks.
+        int ret = 0;
+        for (int i = 0; i < 4; i++)
+        {
+            ret |= (0xff & this.get(offset + i)) << (i * 8);
+        }
+        
+        return ret;
+    }
+    
+    private void putInt(long offset, int value)
+    {
+        ByteBuffer chunk = chunks[(int)(offset >>> chunkShift)];
+        int pos = (int)(offset & ((1L << chunkShift) - 1));
+        if (pos <= (chunk.capacity() - 4))
+        {
+            chunk.putInt(pos, value);
+            return;
+        }
+        
+        for (int i = 0; i < 4; i++)
+        {
+            this.set(offset + i, (byte)(value >>> (i * 8)));
+        }
+        
+    }
+    
+    private void put(long offset, byte[] src, int start, int len)
+    {
+        while (len > 0)
+        {
+            ByteBuffer chunk = chunks[(int)(offset >>> chunkShift)];
+            int pos = (int)(offset & ((1L << chunkShift) - 1));
+            int n = Math.min(len, chunk.capacity() - pos);
+            if (n <= 16)
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    chunk.put(pos + i, src[start + i]);
+                }
+                
+            }
+            else
+            {
+                ByteBuffer dst = chunk.duplicate();
+                dst.position(pos);
+                dst.put(src, start, n);
+            }
+            
+            start += n;
+            len -= n;
+            offset += n;
+        }
+        
+    }
+    
     private void ensureCapacity(int cap)
     {
         if (data != null && (cap <= data.length))
             return;
         if (!extendable)
             throw new IllegalStateException("Cannot extend the fixed-length data buffer.");
+        // Grow geometrically so appending n bytes copies O(n) bytes in total.
         int newCap = data == null ? 0 : data.length;
-        while (newCap < cap)
+        newCap = (int)Math.min(Integer.MAX_VALUE - 8, Math.max(cap, Math.max(1024L, 2L * newCap)));
+        
+        byte[] newData = allocator.allocateBytes(newCap);
+        if (data != null)
         {
-            newCap += 1024;
+            System.arraycopy(data, 0, newData, 0, data.length);
+            allocator.release(data);
         }
         
-        this.data = this.data == null ? new byte[newCap] : Arrays.copyOf(this.data, newCap);
+        this.data = newData;
+    }
+    
+    /**
+     *  Grows the chunks to hold |cap| bytes, all chunks but the last one are full.
+     *
+     */
+    private void ensureChunks(long cap)
+    {
+        if (cap <= longCapacity)
+            return;
+        int chunkSize = 1 << chunkShift;
+        int numChunks = (int)((cap + chunkSize - 1) >>> chunkShift);
+        if (numChunks > chunks.length)
+        {
+            ByteBuffer[] newChunks = new ByteBuffer[numChunks];
+            System.arraycopy(chunks, 0, newChunks, 0, chunks.length);
+            this.chunks = newChunks;
+        }
+        
+        for (int i = 0; i < numChunks; i++)
+        {
+            int required = (int)Math.min(chunkSize, cap - ((long)i << chunkShift));
+            ByteBuffer chunk = chunks[i];
+            int oldCap = chunk == null ? 0 : chunk.capacity();
+            if (oldCap >= required)
+                continue;
+            int newCap = i < (numChunks - 1) ? chunkSize : (int)Math.min(chunkSize, Math.max(required, Math.max(1024L, 2L * oldCap)));
+            ByteBuffer newChunk = allocator.allocateBuffer(newCap).order(ByteOrder.LITTLE_ENDIAN);
+            if (chunk != null)
+            {
+                ByteBuffer src = chunk.duplicate();
+                src.clear();
+                newChunk.put(src);
+                newChunk.clear();
+                allocator.release(chunk);
+            }
+            
+            chunks[i] = newChunk;
+            longCapacity += newCap - oldCap;
+        }
+        
+    }
+    
+    /**
+     *  Hands the storage back to the allocator, the buffer is empty afterwards.
+     *  Arrays obtained from getBuffer() must not be used anymore.
+     *
+     */
+    public void release()
+    {
+        if (chunks != null)
+        {
+            for (ByteBuffer chunk : chunks)
+            {
+                allocator.release(chunk);
+            }
+            
+            this.chunks = new ByteBuffer[0];
+            this.longLength = 0L;
+            this.longCapacity = 0L;
+            return;
+        }
+        
+        if (!extendable || (data == null))
+            return;
+        allocator.release(data);
+        this.data = null;
+        this.length = 0;
     }
     
     public void clear()
     {
+        if (chunks != null)
+        {
+            this.longLength = 0L;
+            return;
+        }
+        
         this.setLength(0);
     }
     
+    /**
+     *  Gets the length, fails with ArithmeticException if an off-heap buffer is longer than 2GB.
+     *
+     */
     public int getLength()
     {
+        if (chunks != null)
+            return Math.toIntExact(longLength);
         return length;
     }
     
     public void setLength(int value)
     {
+        if (chunks != null)
+        {
+            this.setLongLength(value);
+            return;
+        }
+        
         this.length = value;
         this.ensureCapacity(value);
     }
     
+    public long getLongLength()
+    {
+        if (chunks != null)
+            return longLength;
+        return length;
+    }
+    
+    /**
+     *  Sets the length, a buffer with a backing array can't be longer than 2GB.
+     *
+     */
+    public void setLongLength(long value)
+    {
+        if (chunks == null)
+        {
+            this.setLength(Math.toIntExact(value));
+            return;
+        }
+        
+        if (value < 0)
+            throw new IllegalArgumentException("Length cannot be negative");
+        this.longLength = value;
+        this.ensureChunks(value);
+    }
+    
+    /**
+     *  Copies the content of |src| into this buffer, the length is set to the length of |src|.
+     *
+     */
+    public void copyFrom(DataBuffer src)
+    {
+        long len = src.getLongLength();
+        this.clear();
+        this.setLongLength(len);
+        if (len == 0)
+            return;
+        if (src.chunks == null)
+        {
+            this.write(0L, src.data, 0, (int)len);
+            return;
+        }
+        
+        byte[] tmp = new byte[(int)Math.min(len, 1 << 16)];
+        for (long offset = 0L; offset < len; offset += tmp.length)
+        {
+            int n = (int)Math.min(tmp.length, len - offset);
+            src.read(offset, tmp, 0, n);
+            this.write(offset, tmp, 0, n);
+        }
+        
+    }
+    
+    /**
+     *  Gets the backing array, an off-heap buffer has none and fails with UnsupportedOperationException.
+     *
+     */
     public byte[] getBuffer()
     {
+        if (chunks != null)
+            throw new UnsupportedOperationException("The data buffer is stored off-heap");
         return data;
     }
     
     public byte[] toArray()
     {
-        byte[] ret = new byte[length];
+        byte[] ret = new byte[this.getLength()];
+        if (chunks != null)
+        {
+            this.read(0L, ret, 0, ret.length);
+            return ret;
+        }
+        
         System.arraycopy(data, 0, ret, 0, length);
         return ret;
     }
     
     public ByteSpan asSpan()
     {
-        return ByteSpan.wrap(data).slice(0, length);
+        return ByteSpan.wrap(this.getBuffer()).slice(0, length);
     }
     
     @Override
     public String toString()
     {
-        return String.format("Length=%d, Capacity = %d", length, this.getCapacity());
+        return String.format("Length=%d, Capacity = %d", this.getLongLength(), chunks != null ? longCapacity : this.getCapacity());
     }
     
     IntSpan asIntArray()
     {
-        return ByteSpan.wrap(data, 0, length).asIntSpan();
+        if (chunks != null)
+            return IntSpan.wrap(this, Math.toIntExact(longLength >>> 2));
+        return ByteSpan.wrap(this.getBuffer(), 0, length).asIntSpan();
+    }
+    
+    /**
+     *  Returns the first |count| int values, the content may be stored off-heap.
+     *
+     */
+    IntSpan asIntArray(int count)
+    {
+        return IntSpan.wrap(this, count);
     }
     
     public void write2(int offset, int val)
@@ -198,8 +684,27 @@ public class DataBuffer
     
     public void write3(int offset, short val)
     {
+        if (chunks != null)
+        {
+            this.write3((long)offset, val);
+            return;
+        }
+        
         this.setLength(offset + 2);
         Unsafe.putLE16(this.data, offset, val);
     }
     
+    public void write3(long offset, short val)
+    {
+        if (chunks == null)
+        {
+            this.write3(Math.toIntExact(offset), val);
+            return;
+        }
+        
+        this.setLongLength(offset + 2);
+        this.set(offset, (byte)val);
+        this.set(offset + 1, (byte)(val >>> 8));
+    }
+    
 }
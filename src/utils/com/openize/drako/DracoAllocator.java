@@ -0,0 +1,156 @@
+package com.openize.drako;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Iterator;
+import java.util.ServiceLoader;
+/**
+ *  Allocates the large arrays used by the encoder and decoder, such as the storage of
+ *  {@link com.openize.drako.DataBuffer}, {@link com.openize.drako.IntList} and the corner table maps.
+ *  <p>
+ *  The default allocator is the first implementation registered as a service in
+ *  {@code META-INF/services/com.openize.drako.DracoAllocator}, or {@link #heap()} when there is none.
+ *  It can be replaced with {@link #setDefault(DracoAllocator)}.
+ *  </p>
+ *  Implementations must be thread-safe.
+ *
+ */
+public abstract class DracoAllocator
+{    
+    private static volatile DracoAllocator defaultAllocator;
+    /**
+     *  Returns a zero-filled array with at least |minLength| elements.
+     *
+     */
+    public abstract byte[] allocateBytes(int minLength);
+    
+    /**
+     *  Returns a zero-filled array with at least |minLength| elements.
+     *
+     */
+    public abstract int[] allocateInts(int minLength);
+    
+    /**
+     *  Hands back an array returned by allocateBytes(), the caller must not use it afterwards.
+     *  A pooling allocator may hand the array out again, so any other reference to it, such as
+     *  an array taken from DataBuffer.getBuffer() before the buffer grew, must be dropped as well.
+     *
+     */
+    public void release(byte[] array)
+    {
+    }
+    
+    /**
+     *  Hands back an array returned by allocateInts(), the caller must not use it afterwards.
+     *  A pooling allocator may hand the array out again, so any other reference to it, such as
+     *  an array taken from DataBuffer.getBuffer() before the buffer grew, must be dropped as well.
+     *
+     */
+    public void release(int[] array)
+    {
+    }
+    
+    /**
+     *  Returns a zero-filled little-endian buffer of |capacity| bytes for storage that is not backed by an array.
+     *
+     */
+    public ByteBuffer allocateBuffer(int capacity)
+    {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    
+    /**
+     *  Hands back a buffer returned by allocateBuffer(), the caller must not use it afterwards.
+     *
+     */
+    public void release(ByteBuffer buffer)
+    {
+    }
+    
+    /**
+     *  Log2 of the size of the chunks that off-heap buffers request from allocateBuffer().
+     *
+     */
+    int getChunkShift()
+    {
+        return DataBuffer.CHUNK_SHIFT;
+    }
+    
+    /**
+     *  Gets the allocator used by the library.
+     *
+     */
+    public static DracoAllocator getDefault()
+    {
+        DracoAllocator ret = defaultAllocator;
+        if (ret == null)
+        {
+            synchronized(DracoAllocator.class)
+            {
+                ret = defaultAllocator;
+                if (ret == null)
+                {
+                    ret = DracoAllocator.loadService();
+                    defaultAllocator = ret;
+                }
+                
+            }
+            
+        }
+        
+        return ret;
+    }
+    
+    /**
+     *  Sets the allocator used by the library, null restores the default one.
+     *  Buffers created before the change keep using the allocator they were created with.
+     *
+     */
+    public static void setDefault(DracoAllocator value)
+    {
+        defaultAllocator = value;
+    }
+    
+    /**
+     *  Allocator that creates new heap arrays and leaves released ones to the garbage collector.
+     *
+     */
+    public static DracoAllocator heap()
+    {
+        return DracoHeapAllocator.INSTANCE;
+    }
+    
+    /**
+     *  Creates an allocator that keeps released heap arrays in power-of-two size classes for reuse.
+     *
+     */
+    public static DracoAllocator pooled()
+    {
+        return new DracoPooledAllocator();
+    }
+    
+    /**
+     *  Allocator that places buffer storage in direct memory outside of the Java heap.
+     *
+     */
+    public static DracoAllocator direct()
+    {
+        return DracoDirectAllocator.INSTANCE;
+    }
+    
+    private static DracoAllocator loadService()
+    {
+        try
+        {
+            Iterator<DracoAllocator> it = ServiceLoader.load(DracoAllocator.class).iterator();
+            if (it.hasNext())
+                return it.next();
+        }
+        catch(java.util.ServiceConfigurationError e)
+        {
+            // A broken provider must not break encoding and decoding.
+        }
+        
+        return DracoHeapAllocator.INSTANCE;
+    }
+    
+}
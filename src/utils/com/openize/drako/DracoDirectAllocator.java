@@ -0,0 +1,30 @@
+package com.openize.drako;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+/**
+ *  Allocator that places buffer storage in direct memory.
+ *  Java arrays can only live on the heap, so arrays are allocated like {@link com.openize.drako.DracoHeapAllocator} does.
+ *
+ */
+final class DracoDirectAllocator extends DracoAllocator
+{    
+    static final DracoDirectAllocator INSTANCE = new DracoDirectAllocator();
+    @Override
+    public byte[] allocateBytes(int minLength)
+    {
+        return new byte[minLength];
+    }
+    
+    @Override
+    public int[] allocateInts(int minLength)
+    {
+        return new int[minLength];
+    }
+    
+    @Override
+    public ByteBuffer allocateBuffer(int capacity)
+    {
+        return ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    
+}
@@ -0,0 +1,21 @@
+package com.openize.drako;
+/**
+ *  Allocator backed by plain heap arrays.
+ *
+ */
+final class DracoHeapAllocator extends DracoAllocator
+{    
+    static final DracoHeapAllocator INSTANCE = new DracoHeapAllocator();
+    @Override
+    public byte[] allocateBytes(int minLength)
+    {
+        return new byte[minLength];
+    }
+    
+    @Override
+    public int[] allocateInts(int minLength)
+    {
+        return new int[minLength];
+    }
+    
+}
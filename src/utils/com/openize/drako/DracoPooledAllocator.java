@@ -0,0 +1,212 @@
+package com.openize.drako;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+/**
+ *  Allocator that rounds arrays up to power-of-two size classes and keeps released
+ *  arrays of each class for reuse, so bursts of large allocations don't reach the garbage collector.
+ *  Arrays below 1024 elements or above 2^30 elements are not pooled, pooled arrays can be up to twice the requested length.
+ *  Only arrays handed out by this pool and not released yet are recycled, other arrays and repeated
+ *  releases of the same array are left to the garbage collector.
+ *
+ */
+public final class DracoPooledAllocator extends DracoAllocator
+{    
+    private static final int MIN_CLASS = 10;
+    private static final int MAX_CLASS = 30;
+    private final int maxArraysPerClass;
+    private final ArrayDeque<byte[]>[] bytePools;
+    private final ArrayDeque<int[]>[] intPools;
+    /**
+     *  Pooled arrays handed out and not released yet. Arrays hash by identity, and the keys are
+     *  weak so arrays that are never released don't stay reachable.
+     *
+     */
+    private final Map<Object, Boolean> handedOut = new WeakHashMap<Object, Boolean>();
+    /**
+     *  Creates a pool that keeps up to 4 released arrays per size class.
+     *
+     */
+    public DracoPooledAllocator()
+    {
+        this(4);
+    }
+    
+    /**
+     *  Creates a pool that keeps up to |maxArraysPerClass| released arrays per size class.
+     *
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public DracoPooledAllocator(int maxArraysPerClass)
+    {
+        if (maxArraysPerClass < 0)
+            throw new IllegalArgumentException("Argument maxArraysPerClass cannot be negative");
+        this.maxArraysPerClass = maxArraysPerClass;
+        this.bytePools = new ArrayDeque[MAX_CLASS + 1];
+        this.intPools = new ArrayDeque[MAX_CLASS + 1];
+        for (int i = MIN_CLASS; i <= MAX_CLASS; i++)
+        {
+            bytePools[i] = new ArrayDeque<byte[]>();
+            intPools[i] = new ArrayDeque<int[]>();
+        }
+        
+    }
+    
+    @Override
+    public byte[] allocateBytes(int minLength)
+    {
+        int sizeClass = DracoPooledAllocator.sizeClassOf(minLength);
+        if (sizeClass < 0)
+            return new byte[minLength];
+        ArrayDeque<byte[]> pool = bytePools[sizeClass];
+        byte[] ret;
+        synchronized(pool)
+        {
+            ret = pool.poll();
+        }
+        
+        if (ret == null)
+        {
+            ret = new byte[1 << sizeClass];
+        }
+        else
+        {
+            Arrays.fill(ret, (byte)0);
+        }
+        
+        this.handOut(ret);
+        return ret;
+    }
+    
+    @Override
+    public int[] allocateInts(int minLength)
+    {
+        int sizeClass = DracoPooledAllocator.sizeClassOf(minLength);
+        if (sizeClass < 0)
+            return new int[minLength];
+        ArrayDeque<int[]> pool = intPools[sizeClass];
+        int[] ret;
+        synchronized(pool)
+        {
+            ret = pool.poll();
+        }
+        
+        if (ret == null)
+        {
+            ret = new int[1 << sizeClass];
+        }
+        else
+        {
+            Arrays.fill(ret, 0);
+        }
+        
+        this.handOut(ret);
+        return ret;
+    }
+    
+    @Override
+    public void release(byte[] array)
+    {
+        int sizeClass = array == null ? -1 : DracoPooledAllocator.exactClassOf(array.length);
+        if (sizeClass < 0 || !this.takeBack(array))
+            return;
+        ArrayDeque<byte[]> pool = bytePools[sizeClass];
+        synchronized(pool)
+        {
+            if (pool.size() < maxArraysPerClass)
+            {
+                pool.push(array);
+            }
+            
+        }
+        
+    }
+    
+    @Override
+    public void release(int[] array)
+    {
+        int sizeClass = array == null ? -1 : DracoPooledAllocator.exactClassOf(array.length);
+        if (sizeClass < 0 || !this.takeBack(array))
+            return;
+        ArrayDeque<int[]> pool = intPools[sizeClass];
+        synchronized(pool)
+        {
+            if (pool.size() < maxArraysPerClass)
+            {
+                pool.push(array);
+            }
+            
+        }
+        
+    }
+    
+    private void handOut(Object array)
+    {
+        synchronized(handedOut)
+        {
+            handedOut.put(array, Boolean.TRUE);
+        }
+        
+    }
+    
+    /**
+     *  Returns true if |array| was handed out by this pool and not released since.
+     *
+     */
+    private boolean takeBack(Object array)
+    {
+        synchronized(handedOut)
+        {
+            return handedOut.remove(array) != null;
+        }
+        
+    }
+    
+    /**
+     *  Drops all pooled arrays.
+     *
+     */
+    public void clear()
+    {
+        for (int i = MIN_CLASS; i <= MAX_CLASS; i++)
+        {
+            synchronized(bytePools[i])
+            {
+                bytePools[i].clear();
+            }
+            
+            synchronized(intPools[i])
+            {
+                intPools[i].clear();
+            }
+            
+        }
+        
+    }
+    
+    /**
+     *  Returns the size class that holds |length| elements, or -1 when it's not pooled.
+     *
+     */
+    private static int sizeClassOf(int length)
+    {
+        if (length < (1 << MIN_CLASS))
+            return -1;
+        if (length > (1 << MAX_CLASS))
+            return -1;
+        return 32 - Integer.numberOfLeadingZeros(length - 1);
+    }
+    
+    /**
+     *  Returns the size class of an array allocated by the pool, or -1 when |length| isn't a class size.
+     *
+     */
+    private static int exactClassOf(int length)
+    {
+        if (length < (1 << MIN_CLASS) || (length > (1 << MAX_CLASS)) || ((length & (length - 1)) != 0))
+            return -1;
+        return Integer.numberOfTrailingZeros(length);
+    }
+    
+}
@@ -0,0 +1,142 @@
+package com.openize.drako;
+import java.util.Arrays;
+/**
+ *  Open-addressing hash map from int keys to int values, used instead of
+ *  HashMap&lt;Integer, Integer&gt; to avoid boxing on hot paths.
+ *  Cleared maps keep their storage.
+ *
+ */
+public class IntIntMap
+{    
+    private static final int FREE_KEY = Integer.MIN_VALUE;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int count;
+    private boolean hasFreeKey;
+    private int freeKeyValue;
+    public IntIntMap()
+    {
+        this(16);
+    }
+    
+    /**
+     *  Creates a map that holds |expectedSize| entries without growing.
+     *
+     */
+    public IntIntMap(int expectedSize)
+    {
+        int capacity = 16;
+        while (capacity * 3 / 4 < expectedSize)
+        {
+            capacity <<= 1;
+        }
+        
+        this.allocate(capacity);
+    }
+    
+    public int size()
+    {
+        return count + (hasFreeKey ? 1 : 0);
+    }
+    
+    public boolean containsKey(int key)
+    {
+        if (key == FREE_KEY)
+            return hasFreeKey;
+        return keys[this.find(key)] == key;
+    }
+    
+    /**
+     *  Returns the value of |key|, or |defaultValue| if the map doesn't contain it.
+     *
+     */
+    public int get(int key, int defaultValue)
+    {
+        if (key == FREE_KEY)
+            return hasFreeKey ? freeKeyValue : defaultValue;
+        int slot = this.find(key);
+        return keys[slot] == key ? values[slot] : defaultValue;
+    }
+    
+    public void put(int key, int value)
+    {
+        if (key == FREE_KEY)
+        {
+            this.hasFreeKey = true;
+            this.freeKeyValue = value;
+            return;
+        }
+        
+        int slot = this.find(key);
+        if (keys[slot] == key)
+        {
+            values[slot] = value;
+            return;
+        }
+        
+        keys[slot] = key;
+        values[slot] = value;
+        count++;
+        if (count * 4 > (keys.length * 3))
+        {
+            this.rehash(keys.length << 1);
+        }
+        
+    }
+    
+    public void clear()
+    {
+        if (count > 0)
+        {
+            Arrays.fill(keys, FREE_KEY);
+        }
+        
+        this.count = 0;
+        this.hasFreeKey = false;
+    }
+    
+    /**
+     *  Returns the slot of |key|, or the free slot where it would be inserted.
+     *
+     */
+    private int find(int key)
+    {
+        int slot = (key * 0x9e3779b9 >>> 16 ^ key * 0x9e3779b9) & mask;
+        int k;
+        while ((k = keys[slot]) != FREE_KEY && (k != key))
+        {
+            slot = (slot + 1) & mask;
+        }
+        
+        return slot;
+    }
+    
+    private void allocate(int capacity)
+    {
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, FREE_KEY);
+    }
+    
+    private void rehash(int capacity)
+    {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        this.allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            int key = oldKeys[i];
+            if (key != FREE_KEY)
+            {
+                int slot = this.find(key);
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+            
+        }
+        
+    }
+    
+}
@@ -10,6 +10,7 @@ public class IntList
 {    
     private int count;
     int[] data;
+    private final DracoAllocator allocator;
     public int getCount()
     {
         return count;
@@ -17,12 +18,14 @@ public class IntList
     
     public IntList()
     {
+        this.allocator = DracoAllocator.getDefault();
         this.data = new int[10];
     }
     
     public IntList(int size)
     {
-        this.data = new int[size];
+        this.allocator = DracoAllocator.getDefault();
+        this.data = allocator.allocateInts(size);
         this.count = size;
     }
     
@@ -35,8 +38,9 @@ public class IntList
     {
         if (value <= data.length)
             return;
-        int[] newData = new int[value];
+        int[] newData = allocator.allocateInts(value);
         System.arraycopy(data, 0, newData, 0, data.length);
+        allocator.release(data);
         this.data = newData;
     }
     
@@ -122,8 +126,8 @@ public class IntList
     
     public void resize(int newSize)
     {
-        this.ensureCapacity(newSize);
-        this.count = newSize;
+        // New elements are zeroed like std::vector, the storage may be reused after clear().
+        this.resize(newSize, 0);
     }
     
     public void resize(int newSize, int newValue)
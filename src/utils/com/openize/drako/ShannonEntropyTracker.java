@@ -2,7 +2,7 @@ package com.openize.drako;
 import com.openize.drako.HashBuilder;
 import com.openize.drako.Struct;
 import java.io.Serializable;
-import java.util.ArrayList;
+import java.util.Arrays;
 /**
  *  Class that can be used to keep track of the Shannon entropy on streamed data.
  *  As new symbols are pushed to the tracker, the entropy is automatically
@@ -101,11 +101,21 @@ public class ShannonEntropyTracker
         
     }
     
-    private ArrayList<Integer> frequencies_;
+    private int[] frequencies_;
+    /**
+     *  Highest frequency of any symbol added to the tracker.
+     *
+     */
+    private int max_frequency_;
     private EntropyData entropy_data_ = new EntropyData();
+    /**
+     *  Working copy of |entropy_data_| used by peekNumberOfBits().
+     *
+     */
+    private final EntropyData peek_data_ = new EntropyData();
     public ShannonEntropyTracker()
     {
-        this.frequencies_ = new ArrayList<Integer>();
+        this.frequencies_ = new int[64];
         this.entropy_data_.copyFrom(EntropyData.getDefault());
     }
     
@@ -128,6 +138,36 @@ public class ShannonEntropyTracker
         return this.updateSymbols(symbols, num_symbols, false);
     }
     
+    /**
+     *  Returns the number of data and frequency table bits as if |symbols| were added
+     *  to the tracker, same as peek() but without allocating.
+     *
+     */
+    public long peekNumberOfBits(int[] symbols, int num_symbols)
+    {
+        peek_data_.copyFrom(entropy_data_);
+        this.addSymbols(peek_data_, symbols, num_symbols);
+        this.removeSymbols(symbols, num_symbols);
+        return this.getNumberOfDataBits(peek_data_) + this.getNumberOfRAnsTableBits(peek_data_);
+    }
+    
+    /**
+     *  Returns a lower bound of peekNumberOfBits() for any |num_symbols| symbols.
+     *  The entropy norm grows the most when all the symbols are equal to the most
+     *  frequent one, and new symbols can only make the frequency table larger.
+     *
+     */
+    public long minNumberOfBits(int num_symbols)
+    {
+        long table_bits = this.getNumberOfRAnsTableBits(entropy_data_);
+        int num_values = entropy_data_.num_values + num_symbols;
+        if (num_values < 2)
+            return table_bits;
+        double entropy_norm = entropy_data_.entropy_norm + ShannonEntropyTracker.symbolEntropyNorm(max_frequency_ + num_symbols) - ShannonEntropyTracker.symbolEntropyNorm(max_frequency_);
+        // The margin keeps the bound below the exact count despite rounding errors.
+        return (long)Math.ceil(num_values * (Math.log(num_values) / Math.log(2)) - entropy_norm - 1e-3) + table_bits;
+    }
+    
     /**
      *  Gets the number of bits needed for encoding symbols added to the tracker.
      *
@@ -178,6 +218,35 @@ public class ShannonEntropyTracker
     private EntropyData updateSymbols(int[] symbols, int num_symbols, boolean push_changes)
     {
         EntropyData ret_data = Struct.byVal(entropy_data_);
+        this.addSymbols(ret_data, symbols, num_symbols);
+        
+        if (push_changes)
+        {
+            // Update entropy data of the stream.
+            this.entropy_data_.copyFrom(ret_data);
+            for (int i = 0; i < num_symbols; ++i)
+            {
+                max_frequency_ = Math.max(max_frequency_, frequencies_[symbols[i]]);
+            }
+            
+        }
+        else
+        {
+            // We are only peeking so do not update the stream.
+            // Revert changes in the frequency table.
+            this.removeSymbols(symbols, num_symbols);
+        }
+        
+        
+        return ret_data;
+    }
+    
+    /**
+     *  Adds |symbols| to the frequency table and updates |ret_data| accordingly.
+     *
+     */
+    private void addSymbols(EntropyData ret_data, int[] symbols, int num_symbols)
+    {
         ret_data.num_values += num_symbols;
         
         for (int i = 0; i < num_symbols; ++i)
@@ -185,17 +254,17 @@ public class ShannonEntropyTracker
             int symbol = symbols[i];
             
             // Ensure the frequencies list is large enough
-            while (frequencies_.size() <= (0xffffffffl & symbol))
+            if (frequencies_.length <= (0xffffffffl & symbol))
             {
-                frequencies_.add(0);
+                this.frequencies_ = Arrays.copyOf(frequencies_, Math.max(symbol + 1, frequencies_.length * 2));
             }
             
             double old_symbol_entropy_norm = 0.0;
-            int frequency = frequencies_.get(symbol);
+            int frequency = frequencies_[symbol];
             
             if (frequency > 1)
             {
-                old_symbol_entropy_norm = frequency * (Math.log(frequency) / Math.log(2));
+                old_symbol_entropy_norm = ShannonEntropyTracker.symbolEntropyNorm(frequency);
             }
             else if (frequency == 0)
             {
@@ -209,33 +278,29 @@ public class ShannonEntropyTracker
             
             
             frequency++;
-            frequencies_.set(symbol, frequency);
-            double new_symbol_entropy_norm = frequency * (Math.log(frequency) / Math.log(2));
+            frequencies_[symbol] = frequency;
+            double new_symbol_entropy_norm = ShannonEntropyTracker.symbolEntropyNorm(frequency);
             
             // Update the final entropy.
             ret_data.entropy_norm += new_symbol_entropy_norm - old_symbol_entropy_norm;
         }
         
-        
-        if (push_changes)
-        {
-            // Update entropy data of the stream.
-            this.entropy_data_.copyFrom(ret_data);
-        }
-        else
+    }
+    
+    private void removeSymbols(int[] symbols, int num_symbols)
+    {
+        for (int i = 0; i < num_symbols; ++i)
         {
-            // We are only peeking so do not update the stream.
-            // Revert changes in the frequency table.
-            for (int i = 0; i < num_symbols; ++i)
-            {
-                int symbol = symbols[i];
-                frequencies_.set(symbol, frequencies_.get(symbol) - 1);
-            }
-            
+            frequencies_[symbols[i]]--;
         }
         
-        
-        return ret_data;
+    }
+    
+    private static double symbolEntropyNorm(int frequency)
+    {
+        if (frequency < 2)
+            return 0.0;
+        return frequency * (Math.log(frequency) / Math.log(2));
     }
     
     /**